@@ -0,0 +1,98 @@
+package ru.practicum.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Кеш справочных сущностей по id с чтением из базы при промахе. Хранит отсоединенные копии,
+ * вытесняет по давности обращения при превышении {@code maxSize} (0 - кеш отключен).
+ * Отсутствующие в базе id не кешируются.
+ */
+public class ReadThroughCache<T> {
+    private final int maxSize;
+    private final Function<Long, Optional<T>> loader;
+    private final UnaryOperator<T> copier;
+    private final Map<Long, T> entries;
+    // растет при каждой инвалидации, чтобы не положить в кеш данные, прочитанные до изменения
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ReadThroughCache(String name, int maxSize, Function<Long, Optional<T>> loader, UnaryOperator<T> copier,
+                            MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.loader = loader;
+        this.copier = copier;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+                return size() > ReadThroughCache.this.maxSize;
+            }
+        };
+        FunctionCounter.builder("reference.cache.hits", hits, AtomicLong::get)
+                .tag("cache", name)
+                .description("Reference entities served from cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("reference.cache.misses", misses, AtomicLong::get)
+                .tag("cache", name)
+                .description("Reference entities loaded from database")
+                .register(meterRegistry);
+        Gauge.builder("reference.cache.size", this, ReadThroughCache::size)
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    public Optional<T> get(long id) {
+        if (maxSize == 0) {
+            return loader.apply(id);
+        }
+        T cached;
+        synchronized (entries) {
+            cached = entries.get(id);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+        long readVersion = version.get();
+        // вызывающий получает ту же копию, что и кеш, а не сущность текущего контекста
+        Optional<T> loaded = loader.apply(id).map(copier);
+        loaded.ifPresent(copy -> {
+            synchronized (entries) {
+                if (version.get() == readVersion) {
+                    entries.put(id, copy);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    public void evict(long id) {
+        synchronized (entries) {
+            version.incrementAndGet();
+            entries.remove(id);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            version.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
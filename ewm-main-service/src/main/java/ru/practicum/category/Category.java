@@ -15,7 +15,8 @@ import java.util.Objects;
 @Builder(toBuilder = true)
 public class Category {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq")
+    @SequenceGenerator(name = "category_seq", sequenceName = "categories_seq", allocationSize = 50)
     @Column(name = "category_id")
     private Long id;
     private String name;
@@ -0,0 +1,36 @@
+package ru.practicum.category;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.cache.ReadThroughCache;
+
+import java.util.Optional;
+
+/**
+ * Категории по id для создания и изменения событий. Запись удаляется после фиксации изменения
+ * или удаления категории.
+ */
+@Component
+public class CategoryCatalog {
+    private final ReadThroughCache<Category> categories;
+
+    @Autowired
+    public CategoryCatalog(CategoryRepository categoryRepository,
+                           @Value("${ewm.reference-cache.max-size:10000}") int maxSize,
+                           MeterRegistry meterRegistry) {
+        this.categories = new ReadThroughCache<>("categories", maxSize, categoryRepository::findById,
+                category -> category.toBuilder().build(), meterRegistry);
+    }
+
+    public Optional<Category> findById(long catId) {
+        return categories.get(catId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent changedEvent) {
+        categories.evict(changedEvent.getCategoryId());
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.category;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Публикуется при изменении или удалении категории, чтобы сбросить ее запись в {@link CategoryCatalog}
+ * и закешированные события с ней.
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+    private final long categoryId;
+}
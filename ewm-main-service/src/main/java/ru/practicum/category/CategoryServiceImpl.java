@@ -1,6 +1,7 @@
 package ru.practicum.category;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import ru.practicum.category.dto.CategoryDto;
@@ -19,19 +20,25 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryCatalog categoryCatalog;
 
     @Autowired
     public CategoryServiceImpl(CategoryRepository categoryRepository, CategoryMapper categoryMapper,
-                               EventRepository eventRepository) {
+                               EventRepository eventRepository, ApplicationEventPublisher eventPublisher,
+                               CategoryCatalog categoryCatalog) {
         this.categoryRepository = categoryRepository;
         this.categoryMapper = categoryMapper;
         this.eventRepository = eventRepository;
+        this.eventPublisher = eventPublisher;
+        this.categoryCatalog = categoryCatalog;
     }
 
     @Override
     public CategoryDto add(NewCategoryDto newCategoryDto) {
         Category category = categoryMapper.convertNewCategoryDto(newCategoryDto);
-        return categoryMapper.convertCategory(categoryRepository.save(category));
+        // вставка сразу, чтобы нарушение уникальности имени пришло отсюда, а не при фиксации
+        return categoryMapper.convertCategory(categoryRepository.saveAndFlush(category));
     }
 
     @Override
@@ -43,6 +50,7 @@ public class CategoryServiceImpl implements CategoryService {
             throw new ConflictException("The category is not empty");
         }
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(catId));
     }
 
     @Override
@@ -52,7 +60,9 @@ public class CategoryServiceImpl implements CategoryService {
         Category updatedCategory = existentCategory.toBuilder()
                 .name(categoryDto.getName())
                 .build();
-        return categoryMapper.convertCategory(categoryRepository.save(updatedCategory));
+        updatedCategory = categoryRepository.save(updatedCategory);
+        eventPublisher.publishEvent(new CategoryChangedEvent(catId));
+        return categoryMapper.convertCategory(updatedCategory);
     }
 
     @Override
@@ -64,7 +74,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public CategoryDto get(long catId) {
-        Category category = categoryRepository.findById(catId).orElseThrow(() ->
+        Category category = categoryCatalog.findById(catId).orElseThrow(() ->
                 new NotFoundException("Category with id=" + catId + " was not found"));
         return categoryMapper.convertCategory(category);
     }
@@ -33,7 +33,8 @@ import java.util.Set;
 @Builder(toBuilder = true)
 public class Compilation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "compilation_seq")
+    @SequenceGenerator(name = "compilation_seq", sequenceName = "compilations_seq", allocationSize = 50)
     @Column(name = "compilation_id")
     private Long id;
     private String title;
@@ -46,6 +47,8 @@ public class Compilation {
     )
     @ToString.Exclude
     private Set<Event> events = new HashSet<>();
+    @Version
+    private long version;
 
     @Override
     public boolean equals(Object o) {
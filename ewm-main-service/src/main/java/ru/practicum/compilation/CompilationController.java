@@ -7,6 +7,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.compilation.dto.CompilationDto;
 import ru.practicum.compilation.dto.NewCompilationDto;
 import ru.practicum.compilation.dto.UpdateCompilationRequest;
@@ -58,19 +59,28 @@ public class CompilationController {
     @GetMapping("/compilations")
     public List<CompilationDto> getAll(@RequestParam(defaultValue = "false") boolean pinned,
                                        @RequestParam(defaultValue = "0") @Min(0) int from,
-                                       @RequestParam(defaultValue = "10") @Min(1) int size) {
+                                       @RequestParam(defaultValue = "10") @Min(1) int size,
+                                       WebRequest webRequest) {
         log.info("Получен запрос на подборки событий начиная с записи {}, количество записей {}, закрепленные {}",
                 from, size, pinned);
         Pageable page = new OffsetPage(from, size, sort);
-        List<CompilationDto> result = compilationService.getAll(pinned, page);
+        List<CompilationDto> result = compilationService.getAll(pinned, page, webRequest::checkNotModified);
+        if (result == null) {
+            log.info("Список подборок событий не изменился");
+            return null;
+        }
         log.info("Получен список подборок событий {}", result);
         return result;
     }
 
     @GetMapping("/compilations/{compId}")
-    public CompilationDto get(@PathVariable long compId) {
+    public CompilationDto get(@PathVariable long compId, WebRequest webRequest) {
         log.info("Получен запрос на подборку событий с id {}", compId);
-        CompilationDto result = compilationService.get(compId);
+        CompilationDto result = compilationService.get(compId, webRequest::checkNotModified);
+        if (result == null) {
+            log.info("Подборка событий с id {} не изменилась", compId);
+            return null;
+        }
         log.info("Получена подборка событий {}", result);
         return result;
     }
@@ -0,0 +1,7 @@
+package ru.practicum.compilation;
+
+public interface CompilationEventId {
+    Long getCompilationId();
+
+    Long getEventId();
+}
@@ -1,12 +1,17 @@
 package ru.practicum.compilation;
 
-import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
 import java.util.List;
 
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-    @EntityGraph(value = "compilation.event.initiator.location.category")
     List<Compilation> findAllByPinned(boolean pinned, Pageable pageable);
+
+    @Query(" select c.id as compilationId, e.id as eventId from Compilation c join c.events e" +
+            " where c.id in ?1 order by c.id, e.id ")
+    List<CompilationEventId> findEventIdsByCompilationIdIn(Collection<Long> compilationIds);
 }
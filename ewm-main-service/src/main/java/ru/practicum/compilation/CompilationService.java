@@ -6,6 +6,7 @@ import ru.practicum.compilation.dto.NewCompilationDto;
 import ru.practicum.compilation.dto.UpdateCompilationRequest;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface CompilationService {
     CompilationDto add(NewCompilationDto newCompilationDto);
@@ -16,5 +17,15 @@ public interface CompilationService {
 
     List<CompilationDto> getAll(boolean pinned, Pageable page);
 
+    /**
+     * Возвращает null без сборки DTO, если {@code notModified} принял ETag подборок.
+     */
+    List<CompilationDto> getAll(boolean pinned, Pageable page, Predicate<String> notModified);
+
     CompilationDto get(long compId);
+
+    /**
+     * Возвращает null без сборки DTO, если {@code notModified} принял ETag подборки.
+     */
+    CompilationDto get(long compId, Predicate<String> notModified);
 }
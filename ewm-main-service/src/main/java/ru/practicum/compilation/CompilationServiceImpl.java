@@ -8,11 +8,11 @@ import ru.practicum.compilation.dto.NewCompilationDto;
 import ru.practicum.compilation.dto.UpdateCompilationRequest;
 import ru.practicum.event.*;
 import ru.practicum.event.dto.EventShortDto;
-import ru.practicum.event.dto.RatingDto;
 import ru.practicum.exception.NotFoundException;
 
 import javax.transaction.Transactional;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,22 +21,22 @@ public class CompilationServiceImpl implements CompilationService {
     private final EventRepository eventRepository;
     private final CompilationMapper compilationMapper;
     private final EventMapper eventMapper;
-    private final EventUtilService eventUtilService;
-    private final EventUserRatingRepository eventUserRatingRepository;
+    private final EventEnricher eventEnricher;
+    private final EventETags eventETags;
 
     @Autowired
     public CompilationServiceImpl(CompilationRepository compilationRepository,
                                   EventRepository eventRepository,
                                   CompilationMapper compilationMapper,
                                   EventMapper eventMapper,
-                                  EventUtilService eventUtilService,
-                                  EventUserRatingRepository eventUserRatingRepository) {
+                                  EventEnricher eventEnricher,
+                                  EventETags eventETags) {
         this.compilationRepository = compilationRepository;
         this.eventRepository = eventRepository;
         this.compilationMapper = compilationMapper;
         this.eventMapper = eventMapper;
-        this.eventUtilService = eventUtilService;
-        this.eventUserRatingRepository = eventUserRatingRepository;
+        this.eventEnricher = eventEnricher;
+        this.eventETags = eventETags;
     }
 
     @Override
@@ -52,7 +52,8 @@ public class CompilationServiceImpl implements CompilationService {
             }
             eventsShortDtos = createEventShortDtos(events);
         }
-        compilation = compilationRepository.save(compilation);
+        // вставка сразу, чтобы нарушение уникальности названия пришло отсюда, а не при фиксации
+        compilation = compilationRepository.saveAndFlush(compilation);
 
         return compilationMapper.convertCompilation(compilation, eventsShortDtos);
     }
@@ -99,45 +100,96 @@ public class CompilationServiceImpl implements CompilationService {
     @Override
     public List<CompilationDto> getAll(boolean pinned, Pageable page) {
         List<Compilation> compilations = compilationRepository.findAllByPinned(pinned, page);
-        List<CompilationDto> result = new ArrayList<>();
 
-        if (compilations.isEmpty()) {
-            return result;
-        } else {
-            for (Compilation compilation : compilations) {
-                Set<Event> eventsOfCompilation = compilation.getEvents();
+        return convertCompilations(compilations, findEventViews(compilations));
+    }
 
-                List<EventShortDto> eventShortDtos = new ArrayList<>();
+    @Override
+    public List<CompilationDto> getAll(boolean pinned, Pageable page, Predicate<String> notModified) {
+        List<Compilation> compilations = compilationRepository.findAllByPinned(pinned, page);
+        Map<Long, List<EventShortView>> events = findEventViews(compilations);
+        if (notModified.test(getETag(compilations, events))) {
+            return null;
+        }
+        return convertCompilations(compilations, events);
+    }
 
-                if (eventsOfCompilation != null && !eventsOfCompilation.isEmpty()) {
+    @Override
+    public CompilationDto get(long compId) {
+        List<Compilation> compilation = List.of(compilationRepository.findById(compId)
+                .orElseThrow(() -> new NotFoundException("Compilation with id=" + compId + " was not found")));
 
-                    eventShortDtos = createEventShortDtos(new ArrayList<>(eventsOfCompilation));
+        return convertCompilations(compilation, findEventViews(compilation)).get(0);
+    }
 
-                }
+    @Override
+    public CompilationDto get(long compId, Predicate<String> notModified) {
+        List<Compilation> compilation = List.of(compilationRepository.findById(compId)
+                .orElseThrow(() -> new NotFoundException("Compilation with id=" + compId + " was not found")));
+        Map<Long, List<EventShortView>> events = findEventViews(compilation);
+        if (notModified.test(getETag(compilation, events))) {
+            return null;
+        }
+        return convertCompilations(compilation, events).get(0);
+    }
 
-                CompilationDto compilationDto = compilationMapper.convertCompilation(compilation, eventShortDtos);
-                result.add(compilationDto);
+    // события подборок читаются проекцией без описания, одним запросом для всей страницы
+    private Map<Long, List<EventShortView>> findEventViews(List<Compilation> compilations) {
+        if (compilations.isEmpty()) {
+            return Map.of();
+        }
+        List<CompilationEventId> links = compilationRepository.findEventIdsByCompilationIdIn(compilations.stream()
+                .map(Compilation::getId)
+                .collect(Collectors.toList()));
+        if (links.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, EventShortView> eventsById = eventRepository.findShortViewsByIdIn(links.stream()
+                        .map(CompilationEventId::getEventId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(EventShortView::getId, event -> event));
+
+        Map<Long, List<EventShortView>> result = new HashMap<>();
+        for (CompilationEventId link : links) {
+            EventShortView event = eventsById.get(link.getEventId());
+            if (event != null) {
+                result.computeIfAbsent(link.getCompilationId(), id -> new ArrayList<>()).add(event);
             }
         }
         return result;
     }
 
-    @Override
-    public CompilationDto get(long compId) {
-        Compilation compilation = compilationRepository.findById(compId)
-                .orElseThrow(() -> new NotFoundException("Compilation with id=" + compId + " was not found"));
-
-        List<EventShortDto> eventShortDtos;
+    private List<CompilationDto> convertCompilations(List<Compilation> compilations,
+                                                     Map<Long, List<EventShortView>> events) {
+        EventEnrichment enrichment = eventEnricher.enrichShortViews(events.values().stream()
+                .flatMap(List::stream)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        return compilations.stream()
+                .map(compilation -> compilationMapper.convertCompilation(compilation,
+                        events.getOrDefault(compilation.getId(), List.of()).stream()
+                                .map(event -> eventMapper.convertShortViewToShortDto(event,
+                                        enrichment.getViews(event.getId()),
+                                        enrichment.getConfirmedRequests(event.getId()),
+                                        enrichment.getRating(event.getId()),
+                                        enrichment.getInitiatorRating(event.getId())))
+                                .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+    }
 
-        if (compilation.getEvents() == null || compilation.getEvents().isEmpty()) {
-            eventShortDtos = List.of();
-        } else {
-            Set<Event> events = compilation.getEvents();
+    private String getETag(List<Compilation> compilations, Map<Long, List<EventShortView>> events) {
+        LongLongMap initiatorRatings = eventETags.getInitiatorRatings(events.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList()));
 
-            eventShortDtos = createEventShortDtos(new ArrayList<>(events));
+        StringBuilder state = new StringBuilder();
+        for (Compilation compilation : compilations) {
+            state.append(compilation.getId()).append(':').append(compilation.getVersion()).append('[');
+            eventETags.appendEvents(state, events.getOrDefault(compilation.getId(), List.of()), initiatorRatings);
+            state.append(']');
         }
-
-        return compilationMapper.convertCompilation(compilation, eventShortDtos);
+        return EventETags.toETag(state);
     }
 
     private Compilation createCompilation(NewCompilationDto newCompilationDto) {
@@ -157,33 +209,14 @@ public class CompilationServiceImpl implements CompilationService {
     }
 
     private List<EventShortDto> createEventShortDtos(List<Event> events) {
-        List<Long> eventIds = events.stream()
-                .map(Event::getId)
-                .collect(Collectors.toList());
-
-        Map<Long, Integer> hitsByEvent = eventUtilService.getHitsByEvent(eventIds);
-        Map<Long, Long> confirmedRequestCountById = eventUtilService.getConfirmedRequestCountById(eventIds);
-        Map<Long, Long> usersRating = eventUserRatingRepository.findUsersRatingByUserIds(events.stream()
-                .map(el -> el.getInitiator().getId())
-                .distinct()
-                .collect(Collectors.toList())).stream()
-                .collect(Collectors.toMap(
-                        RatingDto::getId,  // eventId
-                        RatingDto::getRating    // rating
-                ));
-        Map<Long, Long> eventsRating = eventUserRatingRepository.findRatingOfEventsByEventIds(eventIds)
-                .stream()
-                .collect(Collectors.toMap(
-                        RatingDto::getId,  // eventId
-                        RatingDto::getRating    // rating
-                ));
+        EventEnrichment enrichment = eventEnricher.enrich(events);
 
         return events.stream()
                 .map(event -> eventMapper.convertEventToShortDto(event,
-                        hitsByEvent.getOrDefault(event.getId(), 0),
-                        confirmedRequestCountById.getOrDefault(event.getId(), 0L),
-                        eventsRating.getOrDefault(event.getId(), 0L),
-                        usersRating.getOrDefault(event.getInitiator().getId(), 0L)))
+                        enrichment.getViews(event.getId()),
+                        enrichment.getConfirmedRequests(event.getId()),
+                        enrichment.getRating(event.getId()),
+                        enrichment.getInitiatorRating(event.getId())))
                 .collect(Collectors.toList());
     }
 
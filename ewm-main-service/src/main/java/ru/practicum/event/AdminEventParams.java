@@ -33,6 +33,8 @@ public class AdminEventParams implements EventParams {
     @Min(1)
     private Integer size = 10;
 
+    private String cursor;
+
     public AdminEventParams() {
         this.categories = Collections.emptyList();
         this.users = Collections.emptyList();
@@ -41,5 +43,6 @@ public class AdminEventParams implements EventParams {
         this.rangeEnd = null;
         this.from = 0;
         this.size = 10;
+        this.cursor = null;
     }
 }
@@ -23,7 +23,8 @@ import java.util.Objects;
 @NoArgsConstructor
 public class Event {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_seq")
+    @SequenceGenerator(name = "event_seq", sequenceName = "events_seq", allocationSize = 50)
     @Column(name = "event_id")
     private Long id;
 
@@ -32,7 +33,8 @@ public class Event {
     @ToString.Exclude
     private Category category;
 
-    @OneToOne
+    // одна локация может быть у нескольких событий, см. LocationService
+    @ManyToOne
     @JoinColumn(name = "location_id")
     @ToString.Exclude
     private Location location;
@@ -66,6 +68,21 @@ public class Event {
     @Column(name = "request_moderation")
     private boolean requestModeration;
 
+    // изменяется только запросами EventRepository, чтобы сохранение события не затирало счетчик
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
+    private long confirmedRequests;
+
+    // копия числа просмотров с сервера статистики, нужна только для сортировки поиска
+    @Column(insertable = false, updatable = false)
+    private long views;
+
+    @Column(insertable = false, updatable = false)
+    private long rating;
+
+    // меняется при каждом сохранении события, входит в ETag публичных ответов
+    @Version
+    private long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
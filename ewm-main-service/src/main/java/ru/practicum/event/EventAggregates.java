@@ -0,0 +1,13 @@
+package ru.practicum.event;
+
+public interface EventAggregates {
+    Long getId();
+
+    Long getConfirmedRequests();
+
+    Long getRating();
+
+    Long getInitiatorRating();
+
+    Long getViews();
+}
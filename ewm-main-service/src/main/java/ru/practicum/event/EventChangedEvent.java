@@ -0,0 +1,14 @@
+package ru.practicum.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Публикуется сервисами при изменении события, влияющем на фильтры публичного поиска
+ * или на закешированные данные: состояние, поля события, лимит или число подтвержденных заявок.
+ */
+@Getter
+@AllArgsConstructor
+public class EventChangedEvent {
+    private final long eventId;
+}
@@ -1,19 +1,29 @@
 package ru.practicum.event;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.event.dto.*;
+import ru.practicum.page.CursorSlice;
 import ru.practicum.page.OffsetPage;
 import ru.practicum.participationrequest.dto.ParticipationRequestDto;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -21,22 +31,34 @@ import java.util.List;
 @Validated
 public class EventController {
     private final EventService eventService;
-    private final Sort sort = Sort.by("createdOn").descending();
+    private final EventImportService eventImportService;
+    private final ObjectMapper objectMapper;
+    private final int importMaxSize;
+    private final Sort sort = Sort.by("createdOn").descending().and(Sort.by("id").descending());
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
 
 
     @Autowired
-    public EventController(EventService eventService) {
+    public EventController(EventService eventService, EventImportService eventImportService,
+                           ObjectMapper objectMapper,
+                           @Value("${ewm.event-import.max-size:1000}") int importMaxSize) {
         this.eventService = eventService;
+        this.eventImportService = eventImportService;
+        this.objectMapper = objectMapper;
+        this.importMaxSize = importMaxSize;
     }
 
     @GetMapping("/users/{userId}/events")
     public List<EventShortDto> getAll(@PathVariable long userId,
                                       @RequestParam(defaultValue = "0") @Min(0) int from,
-                                      @RequestParam(defaultValue = "10") @Min(1) int size) {
+                                      @RequestParam(defaultValue = "10") @Min(1) int size,
+                                      @RequestParam(required = false) String cursor,
+                                      HttpServletResponse response) {
         log.info("Получен запрос на все события добавленные текущим пользователем с id {}," +
-                " начиная с номера записи {}, количество записей {}", userId, from, size);
+                " начиная с номера записи {}, количество записей {}, курсор {}", userId, from, size, cursor);
         Pageable page = new OffsetPage(from, size, sort);
-        List<EventShortDto> result = eventService.getAll(userId, page);
+        List<EventShortDto> result = withNextCursor(eventService.getAll(userId, page, cursor), response);
         log.info("Для пользователя с id {} сформирован список событий {}", userId, result);
         return result;
     }
@@ -51,6 +73,24 @@ public class EventController {
         return result;
     }
 
+    @PostMapping(value = "/users/{userId}/events/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<EventImportResult> importEvents(@RequestBody List<NewEventDto> newEvents, @PathVariable long userId) {
+        log.info("Получен запрос на импорт {} событий от пользователя с id {}", newEvents.size(), userId);
+        List<EventImportResult> result = eventImportService.importEvents(userId, newEvents);
+        log.info("Результат импорта событий {}", result);
+        return result;
+    }
+
+    @PostMapping(value = "/users/{userId}/events/import", consumes = APPLICATION_NDJSON)
+    public List<EventImportResult> importEvents(@PathVariable long userId,
+                                                HttpServletRequest request) throws IOException {
+        List<NewEventDto> newEvents = readNdjson(request);
+        log.info("Получен запрос на импорт {} событий от пользователя с id {}", newEvents.size(), userId);
+        List<EventImportResult> result = eventImportService.importEvents(userId, newEvents);
+        log.info("Результат импорта событий {}", result);
+        return result;
+    }
+
     @GetMapping("/users/{userId}/events/{eventId}")
     public EventFullDto get(@PathVariable long userId, @PathVariable long eventId) {
         log.info("Получен запрос на информацию о событии с id {} ползователя с id {}", eventId, userId);
@@ -91,9 +131,10 @@ public class EventController {
     }
 
     @GetMapping("/admin/events")
-    public List<EventFullDto> getAll(@Valid @ModelAttribute AdminEventParams eventQueryParams) {
+    public List<EventFullDto> getAll(@Valid @ModelAttribute AdminEventParams eventQueryParams,
+                                     HttpServletResponse response) {
         log.info("Получен запрос от админа на список событий, параметры запроса {}", eventQueryParams);
-        List<EventFullDto> result = eventService.getAll(eventQueryParams);
+        List<EventFullDto> result = withNextCursor(eventService.getAll(eventQueryParams), response);
         log.info("Список событий получен {}", result);
         return result;
     }
@@ -106,20 +147,60 @@ public class EventController {
         return result;
     }
 
+    @PatchMapping("/admin/events")
+    public List<EventStateUpdateResult> updateStates(@Valid @RequestBody EventStateUpdateRequest updateRequest) {
+        log.info("Получен запрос на модерацию {} событий, параметры {}", updateRequest.getEvents().size(),
+                updateRequest);
+        List<EventStateUpdateResult> result = eventService.updateStates(updateRequest);
+        log.info("Результат модерации событий {}", result);
+        return result;
+    }
+
     @GetMapping("/events")
     public List<EventShortDto> getAll(@Valid @ModelAttribute PublicEventParams params,
-                                      HttpServletRequest request) {
+                                      HttpServletRequest request,
+                                      HttpServletResponse response,
+                                      WebRequest webRequest) {
         log.info("Получен запрос на список событий, параметры запроса {}", params);
-        List<EventShortDto> result = eventService.getAll(params,
-                request.getRemoteAddr(), request.getRequestURI());
+        CursorSlice<EventShortDto> slice = eventService.getAll(params,
+                request.getRemoteAddr(), request.getRequestURI(), webRequest::checkNotModified);
+        if (slice == null) {
+            log.info("Список событий не изменился");
+            return null;
+        }
+        List<EventShortDto> result = withNextCursor(slice, response);
         log.info("Получен список событий {}", result);
         return result;
     }
 
+    @GetMapping("/events/nearby")
+    public List<EventShortDto> getNearby(@Valid @ModelAttribute NearbyEventParams params, HttpServletRequest request) {
+        log.info("Получен запрос на список событий рядом, параметры запроса {}", params);
+        List<EventShortDto> result = eventService.getNearby(params, request.getRemoteAddr(), request.getRequestURI());
+        log.info("Получен список событий рядом {}", result);
+        return result;
+    }
+
+    @GetMapping("/events/trending")
+    public List<EventShortDto> getTrending(@RequestParam(defaultValue = "0") @Min(0) int from,
+                                           @RequestParam(defaultValue = "10") @Min(1) int size,
+                                           HttpServletRequest request) {
+        log.info("Получен запрос на ленту популярных событий, from={}, size={}", from, size);
+        List<EventShortDto> result = eventService.getTrending(from, size, request.getRemoteAddr(),
+                request.getRequestURI());
+        log.info("Получена лента популярных событий {}", result);
+        return result;
+    }
+
     @GetMapping("/events/{eventId}")
-    public EventFullDto get(@PathVariable long eventId, HttpServletRequest request) {
+    public EventFullDto get(@PathVariable long eventId, HttpServletRequest request, WebRequest webRequest) {
         log.info("Получен запрос на событие с id {}", eventId);
-        EventFullDto result = eventService.get(eventId, request.getRemoteAddr(), request.getRequestURI());
+        EventFullDto result = eventService.get(eventId, request.getRemoteAddr(), request.getRequestURI(),
+                webRequest::checkNotModified);
+        if (result == null) {
+            log.info("Событие с id {} не изменилось", eventId);
+            return null;
+        }
         log.info("Получено событие {}", result);
         return result;
     }
@@ -155,4 +236,36 @@ public class EventController {
         log.info("Убран dislike события {}", result);
         return result;
     }
+
+    // одно событие на строку, пустые строки пропускаются; ошибка разбора отклоняет весь запрос,
+    // чтение обрывается на первом событии сверх ewm.event-import.max-size, не дочитывая тело
+    private List<NewEventDto> readNdjson(HttpServletRequest request) throws IOException {
+        List<NewEventDto> newEvents = new ArrayList<>();
+        BufferedReader reader = request.getReader();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (newEvents.size() == importMaxSize) {
+                throw new IllegalArgumentException("Too many events to import, maximum is " + importMaxSize);
+            }
+            try {
+                newEvents.add(objectMapper.readValue(line, NewEventDto.class));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + " is not a valid event: "
+                        + e.getOriginalMessage());
+            }
+        }
+        return newEvents;
+    }
+
+    private <T> List<T> withNextCursor(CursorSlice<T> slice, HttpServletResponse response) {
+        if (slice.getNextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, slice.getNextCursor());
+        }
+        return slice.getContent();
+    }
 }
@@ -0,0 +1,159 @@
+package ru.practicum.event;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.category.CategoryChangedEvent;
+import ru.practicum.event.dto.EventFullDto;
+import ru.practicum.user.UserDeletedEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кеш опубликованных событий для {@code GET /events/{id}}. Хранит собранный {@link EventFullDto} без
+ * просмотров, подтвержденных заявок и рейтингов - они накладываются при каждом чтении. Записи вытесняются
+ * по давности обращения при превышении {@code ewm.event-cache.max-size} (0 - кеш отключен) и удаляются
+ * после фиксации изменений события или его категории.
+ */
+@Component
+public class EventDetailsCache {
+    private final int maxSize;
+    private final Map<Long, Entry> entries;
+    // растет при каждой инвалидации, чтобы не положить в кеш данные, прочитанные до изменения
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public EventDetailsCache(@Value("${ewm.event-cache.max-size:10000}") int maxSize,
+                             MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > EventDetailsCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        FunctionCounter.builder("event.cache.hits", hits, AtomicLong::get)
+                .description("Event details served from cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("event.cache.misses", misses, AtomicLong::get)
+                .description("Event details loaded from database")
+                .register(meterRegistry);
+        FunctionCounter.builder("event.cache.evictions", evictions, AtomicLong::get)
+                .description("Event details evicted by size limit")
+                .register(meterRegistry);
+        Gauge.builder("event.cache.size", this, EventDetailsCache::size)
+                .register(meterRegistry);
+        Gauge.builder("event.cache.hit.ratio", this, EventDetailsCache::hitRatio)
+                .register(meterRegistry);
+    }
+
+    public Entry get(long eventId) {
+        if (maxSize == 0) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(eventId);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Версию нужно получить до чтения события из базы и передать в {@link #put}.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    public void put(EventFullDto eventFullDto, long storedViews, long readVersion) {
+        if (maxSize == 0) {
+            return;
+        }
+        EventFullDto skeleton = eventFullDto.toBuilder()
+                .views(0)
+                .confirmedRequests(0)
+                .rating(null)
+                .initiator(eventFullDto.getInitiator().toBuilder().rating(null).build())
+                .build();
+        synchronized (entries) {
+            if (version.get() == readVersion) {
+                entries.put(skeleton.getId(), new Entry(skeleton, storedViews));
+            }
+        }
+    }
+
+    public void evict(long eventId) {
+        synchronized (entries) {
+            version.incrementAndGet();
+            entries.remove(eventId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent changedEvent) {
+        evict(changedEvent.getEventId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent deletedEvent) {
+        synchronized (entries) {
+            version.incrementAndGet();
+            deletedEvent.getEventIds().forEach(entries::remove);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent changedEvent) {
+        synchronized (entries) {
+            version.incrementAndGet();
+            entries.values().removeIf(entry ->
+                    entry.getEventFullDto().getCategory().getId() == changedEvent.getCategoryId());
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private double hitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    @Getter
+    public static class Entry {
+        private final EventFullDto eventFullDto;
+        // значение events.views на момент последней записи, чтобы не обновлять его без изменений
+        private volatile long storedViews;
+
+        Entry(EventFullDto eventFullDto, long storedViews) {
+            this.eventFullDto = eventFullDto;
+            this.storedViews = storedViews;
+        }
+
+        void setStoredViews(long storedViews) {
+            this.storedViews = storedViews;
+        }
+    }
+}
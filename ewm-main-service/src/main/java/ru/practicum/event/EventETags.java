@@ -0,0 +1,77 @@
+package ru.practicum.event;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import ru.practicum.exception.NotFoundException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Строгие ETag публичных ответов с событиями. Значение зависит от версии события и счетчиков из его строки,
+ * поэтому проверяется без запроса к серверу статистики и сборки DTO. Просмотры берутся из events.views,
+ * который сверяется со статистикой по расписанию {@code ewm.views.sync-cron}.
+ */
+@Component
+public class EventETags {
+    private final EventRepository eventRepository;
+    private final EventEnricher eventEnricher;
+
+    @Autowired
+    public EventETags(EventRepository eventRepository, EventEnricher eventEnricher) {
+        this.eventRepository = eventRepository;
+        this.eventEnricher = eventEnricher;
+    }
+
+    public String getPublishedEventETag(long eventId) {
+        EventVersion version = eventRepository.findVersionByIdAndState(eventId, EventState.PUBLISHED)
+                .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
+        StringBuilder state = new StringBuilder();
+        append(state, version.getId(), version.getVersion(), version.getConfirmedRequests(), version.getRating(),
+                version.getViews(), version.getCategoryName(), version.getInitiatorRating());
+        return toETag(state);
+    }
+
+    public String getETag(List<EventShortView> events) {
+        return toETag(appendEvents(new StringBuilder(), events, getInitiatorRatings(events)));
+    }
+
+    public LongLongMap getInitiatorRatings(Collection<EventShortView> events) {
+        return eventEnricher.getUserRatings(events.stream()
+                .map(EventShortView::getInitiatorId)
+                .distinct()
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Добавляет состояние событий в порядке id.
+     */
+    public StringBuilder appendEvents(StringBuilder state, Collection<EventShortView> events,
+                                      LongLongMap initiatorRatings) {
+        events.stream()
+                .sorted(Comparator.comparing(EventShortView::getId))
+                .forEach(event -> append(state, event.getId(), event.getVersion(), event.getConfirmedRequests(),
+                        event.getRating(), event.getViews(), event.getCategoryName(),
+                        initiatorRatings.getOrDefault(event.getInitiatorId(), 0)));
+        return state;
+    }
+
+    public static String toETag(CharSequence state) {
+        return "\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static void append(StringBuilder state, long id, long version, long confirmedRequests, long rating,
+                               long views, String categoryName, long initiatorRating) {
+        state.append(id).append(':').append(version)
+                .append(':').append(confirmedRequests)
+                .append(':').append(rating)
+                .append(':').append(views)
+                .append(':').append(categoryName)
+                .append(':').append(initiatorRating)
+                .append(';');
+    }
+}
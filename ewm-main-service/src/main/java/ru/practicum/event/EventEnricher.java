@@ -0,0 +1,141 @@
+package ru.practicum.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Собирает {@link EventEnrichment} для пачки событий: все агрегаты из базы одним запросом,
+ * просмотры - с сервера статистики параллельно с ним. Если сервер статистики не ответил
+ * за {@code ewm.enrichment.stat-deadline-ms} от начала сборки или ответил ошибкой, просмотры берутся из events.views
+ * и помечаются устаревшими, а ответ на текущий запрос получает заголовок {@link ViewsStaleAdvice#VIEWS_STALE_HEADER}.
+ */
+@Component
+@Slf4j
+public class EventEnricher {
+    private final EventRepository eventRepository;
+    private final UserRatingRepository userRatingRepository;
+    private final EventUtilService eventUtilService;
+    private final Duration statDeadline;
+    private final Counter staleViews;
+
+    @Autowired
+    public EventEnricher(EventRepository eventRepository,
+                         UserRatingRepository userRatingRepository,
+                         EventUtilService eventUtilService,
+                         @Value("${ewm.enrichment.stat-deadline-ms:500}") long statDeadlineMs,
+                         MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.userRatingRepository = userRatingRepository;
+        this.eventUtilService = eventUtilService;
+        this.statDeadline = Duration.ofMillis(statDeadlineMs);
+        this.staleViews = Counter.builder("event.enrichment.stale-views")
+                .description("Сборки событий с просмотрами из events.views вместо сервера статистики")
+                .register(meterRegistry);
+    }
+
+    public EventEnrichment enrich(List<Event> events) {
+        return enrichByIds(events.stream()
+                .map(Event::getId)
+                .collect(Collectors.toList()));
+    }
+
+    public EventEnrichment enrichByIds(List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return EventEnrichment.empty();
+        }
+
+        // запрос к серверу статистики выполняется, пока идет запрос к базе
+        CompletableFuture<Map<Long, Integer>> hitsFuture = requestHits(eventIds);
+        List<EventAggregates> aggregates = eventRepository.findAggregatesByIdIn(eventIds);
+
+        EventEnrichment enrichment = new EventEnrichment(eventIds.size());
+        aggregates.forEach(row -> enrichment.putAggregates(row.getId(), row.getConfirmedRequests(),
+                row.getRating(), row.getInitiatorRating()));
+        Map<Long, Integer> hits = hitsFuture.join();
+        if (hits != null) {
+            hits.forEach(enrichment::putViews);
+        } else {
+            aggregates.forEach(row -> enrichment.putViews(row.getId(), row.getViews()));
+            markViewsStale(enrichment);
+        }
+        return enrichment;
+    }
+
+    /**
+     * Счетчики берутся из самих строк, из базы читаются только рейтинги организаторов.
+     */
+    public EventEnrichment enrichShortViews(List<EventShortView> events) {
+        if (events.isEmpty()) {
+            return EventEnrichment.empty();
+        }
+        List<Long> eventIds = events.stream()
+                .map(EventShortView::getId)
+                .collect(Collectors.toList());
+
+        CompletableFuture<Map<Long, Integer>> hitsFuture = requestHits(eventIds);
+        LongLongMap initiatorRatings = getUserRatings(events.stream()
+                .map(EventShortView::getInitiatorId)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        EventEnrichment enrichment = new EventEnrichment(eventIds.size());
+        events.forEach(event -> enrichment.putAggregates(event.getId(), event.getConfirmedRequests(),
+                event.getRating(), initiatorRatings.getOrDefault(event.getInitiatorId(), 0)));
+        Map<Long, Integer> hits = hitsFuture.join();
+        if (hits != null) {
+            hits.forEach(enrichment::putViews);
+        } else {
+            events.forEach(event -> enrichment.putViews(event.getId(), event.getViews()));
+            markViewsStale(enrichment);
+        }
+        return enrichment;
+    }
+
+    public LongLongMap getUserRatings(List<Long> userIds) {
+        LongLongMap ratings = new LongLongMap(userIds.size());
+        if (!userIds.isEmpty()) {
+            userRatingRepository.findRatingsByUserIdIn(userIds)
+                    .forEach(rating -> ratings.put(rating.getId(), rating.getRating()));
+        }
+        return ratings;
+    }
+
+    /**
+     * Срок отсчитывается с отправки запроса, поэтому время чтения базы в него входит.
+     *
+     * @return null, если сервер статистики не ответил в срок или ответил ошибкой
+     */
+    private CompletableFuture<Map<Long, Integer>> requestHits(List<Long> eventIds) {
+        return eventUtilService.getHitsByEventAsync(eventIds)
+                .timeout(statDeadline)
+                .onErrorResume(e -> {
+                    if (e instanceof TimeoutException) {
+                        log.warn("Сервер статистики не ответил за {} мс, для событий {} отданы сохраненные просмотры",
+                                statDeadline.toMillis(), eventIds);
+                    } else {
+                        log.warn("Просмотры событий {} не получены с сервера статистики, отданы сохраненные: {}",
+                                eventIds, e.toString());
+                    }
+                    return Mono.empty();
+                })
+                .toFuture();
+    }
+
+    private void markViewsStale(EventEnrichment enrichment) {
+        enrichment.markViewsStale();
+        ViewsStaleAdvice.markCurrentRequest();
+        staleViews.increment();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.event;
+
+/**
+ * Данные для DTO событий, которых нет в самой сущности: просмотры, подтвержденные заявки,
+ * рейтинг события и рейтинг его организатора. Значения хранятся по id события.
+ */
+public class EventEnrichment {
+    private final LongLongMap views;
+    private final LongLongMap confirmedRequests;
+    private final LongLongMap ratings;
+    private final LongLongMap initiatorRatings;
+    private boolean viewsStale;
+
+    public EventEnrichment(int expectedSize) {
+        views = new LongLongMap(expectedSize);
+        confirmedRequests = new LongLongMap(expectedSize);
+        ratings = new LongLongMap(expectedSize);
+        initiatorRatings = new LongLongMap(expectedSize);
+    }
+
+    public static EventEnrichment empty() {
+        return new EventEnrichment(0);
+    }
+
+    public EventEnrichment putViews(long eventId, long views) {
+        this.views.put(eventId, views);
+        return this;
+    }
+
+    public EventEnrichment putAggregates(long eventId, long confirmedRequests, long rating, long initiatorRating) {
+        this.confirmedRequests.put(eventId, confirmedRequests);
+        this.ratings.put(eventId, rating);
+        this.initiatorRatings.put(eventId, initiatorRating);
+        return this;
+    }
+
+    /**
+     * Просмотры взяты из events.views, а не с сервера статистики: он не ответил вовремя или ответил ошибкой.
+     */
+    public EventEnrichment markViewsStale() {
+        this.viewsStale = true;
+        return this;
+    }
+
+    public boolean isViewsStale() {
+        return viewsStale;
+    }
+
+    /**
+     * @return false, если события нет в базе
+     */
+    public boolean hasAggregates(long eventId) {
+        return confirmedRequests.containsKey(eventId);
+    }
+
+    public int getViews(long eventId) {
+        return (int) views.getOrDefault(eventId, 0);
+    }
+
+    public long getConfirmedRequests(long eventId) {
+        return confirmedRequests.getOrDefault(eventId, 0);
+    }
+
+    public long getRating(long eventId) {
+        return ratings.getOrDefault(eventId, 0);
+    }
+
+    public long getInitiatorRating(long eventId) {
+        return initiatorRatings.getOrDefault(eventId, 0);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.event;
+
+import java.time.LocalDateTime;
+
+public interface EventFilterEntry {
+    Long getId();
+
+    Long getCategoryId();
+
+    Boolean getPaid();
+
+    LocalDateTime getEventDate();
+
+    int getParticipantLimit();
+
+    long getConfirmedRequests();
+}
@@ -0,0 +1,297 @@
+package ru.practicum.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.user.UserDeletedEvent;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс опубликованных событий в памяти для публичного поиска без текста с сортировкой по дате.
+ * Хранит сжатые битовые карты id событий по категориям, платности, доступности и дням проведения;
+ * фильтры вычисляются пересечением и объединением карт, из базы читается только страница найденных id.
+ * Обновляется после коммита по {@link EventChangedEvent} и {@link UserDeletedEvent}, полностью перестраивается
+ * при старте и по расписанию {@code ewm.filter-index.rebuild-cron}; события, изменившиеся во время перестроения,
+ * перечитываются и применяются к новому индексу перед его публикацией. Включается настройкой
+ * {@code ewm.filter-index.enabled=true}.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "ewm.filter-index", name = "enabled", havingValue = "true")
+public class EventFilterIndex {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final EventRepository eventRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bitmaps bitmaps = new Bitmaps();
+    // id событий, изменившихся с начала текущего перестроения; null, если перестроение не идет
+    private Set<Long> changedDuringRebuild;
+    private volatile boolean ready;
+
+    @Autowired
+    public EventFilterIndex(EventRepository eventRepository) {
+        this.eventRepository = eventRepository;
+    }
+
+    /**
+     * Возвращает id событий страницы в порядке даты проведения или null, если запрос индексом не обслуживается.
+     */
+    public List<Long> findPage(PublicEventParams params) {
+        if (!ready || (params.getText() != null && !params.getText().isBlank())
+                || !EventSort.EVENT_DATE.name().equals(params.getSort())) {
+            return null;
+        }
+        long lower;
+        if (params.getRangeStart() == null && params.getRangeEnd() == null) {
+            lower = toMillis(LocalDateTime.now()) + 1;
+        } else {
+            lower = params.getRangeStart() != null ? toMillis(params.getRangeStart()) : Long.MIN_VALUE;
+        }
+        long upper = params.getRangeEnd() != null ? toMillis(params.getRangeEnd()) : Long.MAX_VALUE;
+
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = bitmaps.filter(params.getCategories(), params.getPaid(),
+                    params.getOnlyAvailable());
+            return bitmaps.page(candidates, lower, upper, params.getFrom(), params.getSize());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent changedEvent) {
+        apply(List.of(changedEvent.getEventId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent deletedEvent) {
+        apply(deletedEvent.getEventIds());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${ewm.filter-index.rebuild-cron:0 */10 * * * *}")
+    public synchronized void rebuild() {
+        // изменения, зафиксированные до этой точки, попадут в выборку ниже, после нее - в changedDuringRebuild
+        setChangedDuringRebuild(new HashSet<>());
+        List<EventFilterEntry> entries = eventRepository.findFilterEntriesByState(EventState.PUBLISHED);
+        Bitmaps rebuilt = new Bitmaps();
+        for (EventFilterEntry entry : entries) {
+            if (entry.getId() > Integer.MAX_VALUE) {
+                log.warn("Id события {} не помещается в индекс фильтров, поиск будет выполняться в базе",
+                        entry.getId());
+                ready = false;
+                setChangedDuringRebuild(null);
+                return;
+            }
+            rebuilt.put(entry);
+        }
+        rebuilt.runOptimize();
+        while (true) {
+            Set<Long> changed;
+            lock.writeLock().lock();
+            try {
+                changed = changedDuringRebuild;
+                if (changed.isEmpty()) {
+                    bitmaps = rebuilt;
+                    changedDuringRebuild = null;
+                    break;
+                }
+                changedDuringRebuild = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // перечитываются вне блокировки; изменения за это время попадут в следующий проход
+            rebuilt.apply(changed, findPublished(changed));
+        }
+        ready = true;
+        log.info("Индекс фильтров событий перестроен, опубликованных событий: {}", entries.size());
+    }
+
+    private void apply(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        if (eventIds.stream().anyMatch(eventId -> eventId > Integer.MAX_VALUE)) {
+            ready = false;
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(eventIds);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, EventFilterEntry> published = findPublished(eventIds);
+        lock.writeLock().lock();
+        try {
+            bitmaps.apply(eventIds, published);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, EventFilterEntry> findPublished(Collection<Long> eventIds) {
+        Map<Long, EventFilterEntry> published = new HashMap<>();
+        eventRepository.findFilterEntriesByIdInAndState(eventIds, EventState.PUBLISHED)
+                .forEach(entry -> published.put(entry.getId(), entry));
+        return published;
+    }
+
+    private void setChangedDuringRebuild(Set<Long> changed) {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static class Bitmaps {
+        private final RoaringBitmap published = new RoaringBitmap();
+        private final RoaringBitmap paid = new RoaringBitmap();
+        private final RoaringBitmap available = new RoaringBitmap();
+        private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+        private final TreeMap<Long, RoaringBitmap> byDay = new TreeMap<>();
+        // для событий из published: дата проведения в миллисекундах и категория
+        private final LongLongMap dates = new LongLongMap(1024);
+        private final LongLongMap categories = new LongLongMap(1024);
+
+        void put(EventFilterEntry entry) {
+            int id = Math.toIntExact(entry.getId());
+            remove(id);
+            long date = toMillis(entry.getEventDate());
+            published.add(id);
+            if (Boolean.TRUE.equals(entry.getPaid())) {
+                paid.add(id);
+            }
+            if (entry.getParticipantLimit() == 0 || entry.getConfirmedRequests() < entry.getParticipantLimit()) {
+                available.add(id);
+            }
+            byCategory.computeIfAbsent(entry.getCategoryId(), categoryId -> new RoaringBitmap()).add(id);
+            byDay.computeIfAbsent(Math.floorDiv(date, DAY_MILLIS), day -> new RoaringBitmap()).add(id);
+            dates.put(id, date);
+            categories.put(id, entry.getCategoryId());
+        }
+
+        // события, которых нет среди опубликованных, удаляются
+        void apply(Collection<Long> eventIds, Map<Long, EventFilterEntry> published) {
+            for (Long eventId : eventIds) {
+                EventFilterEntry entry = published.get(eventId);
+                if (entry != null) {
+                    put(entry);
+                } else {
+                    remove(eventId);
+                }
+            }
+        }
+
+        void remove(long eventId) {
+            if (eventId > Integer.MAX_VALUE || !published.contains((int) eventId)) {
+                return;
+            }
+            int id = (int) eventId;
+            published.remove(id);
+            paid.remove(id);
+            available.remove(id);
+            removeFrom(byCategory, categories.getOrDefault(id, -1), id);
+            removeFrom(byDay, Math.floorDiv(dates.getOrDefault(id, 0), DAY_MILLIS), id);
+        }
+
+        void runOptimize() {
+            published.runOptimize();
+            paid.runOptimize();
+            available.runOptimize();
+            byCategory.values().forEach(RoaringBitmap::runOptimize);
+            byDay.values().forEach(RoaringBitmap::runOptimize);
+        }
+
+        // условия совпадают с EventSpecification: paid=false, как и null, не фильтрует
+        RoaringBitmap filter(List<Long> categoryIds, Boolean onlyPaid, Boolean onlyAvailable) {
+            RoaringBitmap result = published.clone();
+            if (categoryIds != null && !categoryIds.isEmpty()) {
+                List<RoaringBitmap> selected = new ArrayList<>();
+                for (Long categoryId : categoryIds) {
+                    RoaringBitmap category = byCategory.get(categoryId);
+                    if (category != null) {
+                        selected.add(category);
+                    }
+                }
+                result.and(FastAggregation.or(selected.iterator()));
+            }
+            if (Boolean.TRUE.equals(onlyPaid)) {
+                result.and(paid);
+            }
+            if (Boolean.TRUE.equals(onlyAvailable)) {
+                result.and(available);
+            }
+            return result;
+        }
+
+        List<Long> page(RoaringBitmap candidates, long lower, long upper, int from, int size) {
+            List<Long> result = new ArrayList<>(size);
+            if (candidates.isEmpty() || lower > upper) {
+                return result;
+            }
+            long lowerDay = Math.floorDiv(lower, DAY_MILLIS);
+            long upperDay = Math.floorDiv(upper, DAY_MILLIS);
+            int skip = from;
+            for (Map.Entry<Long, RoaringBitmap> bucket : byDay.subMap(lowerDay, true, upperDay, true).entrySet()) {
+                RoaringBitmap ids = RoaringBitmap.and(bucket.getValue(), candidates);
+                boolean boundary = bucket.getKey() == lowerDay || bucket.getKey() == upperDay;
+                if (ids.isEmpty() || (!boundary && ids.getCardinality() <= skip)) {
+                    skip -= ids.getCardinality();
+                    continue;
+                }
+                List<Integer> sorted = new ArrayList<>(ids.getCardinality());
+                ids.forEach((int id) -> {
+                    long date = dates.getOrDefault(id, 0);
+                    if (date >= lower && date <= upper) {
+                        sorted.add(id);
+                    }
+                });
+                sorted.sort(Comparator.comparingLong((Integer id) -> dates.getOrDefault(id, 0))
+                        .thenComparingInt(id -> id));
+                for (Integer id : sorted) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        result.add(id.longValue());
+                        if (result.size() == size) {
+                            return result;
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static void removeFrom(Map<Long, RoaringBitmap> bitmaps, long key, int id) {
+            RoaringBitmap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                bitmap.remove(id);
+                if (bitmap.isEmpty()) {
+                    bitmaps.remove(key);
+                }
+            }
+        }
+    }
+}
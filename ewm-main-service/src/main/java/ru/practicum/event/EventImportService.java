@@ -0,0 +1,136 @@
+package ru.practicum.event;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.category.Category;
+import ru.practicum.category.CategoryRepository;
+import ru.practicum.event.dto.EventImportResult;
+import ru.practicum.event.dto.EventImportStatus;
+import ru.practicum.event.dto.NewEventDto;
+import ru.practicum.exception.NotFoundException;
+import ru.practicum.user.User;
+import ru.practicum.user.UserCatalog;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Импорт событий организатора одним запросом. Все события проверяются до записи: ошибки валидации
+ * и несуществующие категории попадают в результат, остальные события сохраняются в одной транзакции
+ * пачками вставок, недостающие локации - отдельной пачкой.
+ */
+@Service
+public class EventImportService {
+    private final EventRepository eventRepository;
+    private final LocationService locationService;
+    private final CategoryRepository categoryRepository;
+    private final UserCatalog userCatalog;
+    private final Validator validator;
+    private final int maxSize;
+
+    @Autowired
+    public EventImportService(EventRepository eventRepository,
+                              LocationService locationService,
+                              CategoryRepository categoryRepository,
+                              UserCatalog userCatalog,
+                              Validator validator,
+                              @Value("${ewm.event-import.max-size:1000}") int maxSize) {
+        this.eventRepository = eventRepository;
+        this.locationService = locationService;
+        this.categoryRepository = categoryRepository;
+        this.userCatalog = userCatalog;
+        this.validator = validator;
+        this.maxSize = maxSize;
+    }
+
+    @Transactional
+    public List<EventImportResult> importEvents(long userId, List<NewEventDto> newEvents) {
+        if (newEvents.size() > maxSize) {
+            throw new IllegalArgumentException("Too many events to import: " + newEvents.size()
+                    + ", maximum is " + maxSize);
+        }
+        User user = userCatalog.findById(userId)
+                .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
+        Map<Long, Category> categories = categoryRepository.findAllById(newEvents.stream()
+                        .filter(Objects::nonNull)
+                        .map(NewEventDto::getCategory)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        List<EventImportResult> results = new ArrayList<>(newEvents.size());
+        List<Event> events = new ArrayList<>();
+        List<NewEventDto> validEvents = new ArrayList<>();
+        List<EventImportResult> created = new ArrayList<>();
+        LocalDateTime createdOn = LocalDateTime.now();
+        for (int i = 0; i < newEvents.size(); i++) {
+            NewEventDto newEvent = newEvents.get(i);
+            String reason = validate(newEvent, categories);
+            EventImportResult result = EventImportResult.builder()
+                    .index(i)
+                    .status(reason == null ? EventImportStatus.CREATED : EventImportStatus.INVALID)
+                    .reason(reason)
+                    .build();
+            results.add(result);
+            if (reason == null) {
+                events.add(createEvent(newEvent, user, categories.get(newEvent.getCategory()), createdOn));
+                validEvents.add(newEvent);
+                created.add(result);
+            }
+        }
+        if (events.isEmpty()) {
+            return results;
+        }
+
+        // id выдаются последовательностями, поэтому вставки новых локаций и событий группируются в пачки
+        List<Location> locations = locationService.resolveAll(validEvents.stream()
+                .map(NewEventDto::getLocation)
+                .collect(Collectors.toList()));
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setLocation(locations.get(i));
+        }
+        events = eventRepository.saveAll(events);
+        for (int i = 0; i < events.size(); i++) {
+            created.get(i).setEventId(events.get(i).getId());
+        }
+        return results;
+    }
+
+    private String validate(NewEventDto newEvent, Map<Long, Category> categories) {
+        if (newEvent == null) {
+            return "Event must not be null";
+        }
+        Set<ConstraintViolation<NewEventDto>> violations = validator.validate(newEvent);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> "Field: " + violation.getPropertyPath() + ". Error: " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (!categories.containsKey(newEvent.getCategory())) {
+            return "Category with id=" + newEvent.getCategory() + " was not found";
+        }
+        return null;
+    }
+
+    private Event createEvent(NewEventDto newEvent, User user, Category category, LocalDateTime createdOn) {
+        return Event.builder()
+                .state(EventState.PENDING)
+                .category(category)
+                .initiator(user)
+                .paid(newEvent.isPaid())
+                .title(newEvent.getTitle())
+                .createdOn(createdOn)
+                .description(newEvent.getDescription())
+                .annotation(newEvent.getAnnotation())
+                .participantLimit(newEvent.getParticipantLimit())
+                .requestModeration(newEvent.isRequestModeration())
+                .eventDate(newEvent.getEventDate())
+                .build();
+    }
+}
@@ -3,9 +3,11 @@ package ru.practicum.event;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.practicum.category.CategoryMapper;
+import ru.practicum.category.dto.CategoryDto;
 import ru.practicum.event.dto.EventFullDto;
 import ru.practicum.event.dto.EventShortDto;
 import ru.practicum.user.UserMapper;
+import ru.practicum.user.dto.UserShortDto;
 
 @Component
 public class EventMapper {
@@ -39,6 +41,29 @@ public class EventMapper {
                 .build();
     }
 
+    public EventShortDto convertShortViewToShortDto(EventShortView event,
+                                                    Integer views,
+                                                    Long confirmedRequests,
+                                                    Long rating,
+                                                    Long userRating) {
+        return EventShortDto.builder()
+                .paid(event.isPaid())
+                .title(event.getTitle())
+                .eventDate(event.getEventDate())
+                .id(event.getId())
+                .category(new CategoryDto(event.getCategoryId(), event.getCategoryName()))
+                .annotation(event.getAnnotation())
+                .initiator(UserShortDto.builder()
+                        .id(event.getInitiatorId())
+                        .name(event.getInitiatorName())
+                        .rating(userRating)
+                        .build())
+                .views(views)
+                .confirmedRequests(confirmedRequests)
+                .rating(rating)
+                .build();
+    }
+
     public EventFullDto convertEventToFullDto(Event event,
                                               Integer views,
                                               Long confirmedRequests,
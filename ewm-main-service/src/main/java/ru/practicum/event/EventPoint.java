@@ -0,0 +1,17 @@
+package ru.practicum.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Событие-кандидат для поиска рядом: идентификатор и координаты локации.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class EventPoint {
+    private final long id;
+    private final float lat;
+    private final float lon;
+}
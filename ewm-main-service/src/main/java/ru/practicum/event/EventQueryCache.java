@@ -0,0 +1,261 @@
+package ru.practicum.event;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.page.CursorSlice;
+import ru.practicum.user.UserDeletedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Кеш результатов публичного поиска {@code GET /events} без курсора. Ключ - нормализованные параметры:
+ * категории отсортированы, текст в нижнем регистре, границы диапазона дат расширены до кратных
+ * {@code ewm.query-cache.date-granularity}; поиск выполняется уже с нормализованными параметрами.
+ * Хранятся только id событий страницы, сами события читаются по первичному ключу. Записи живут
+ * {@code ewm.query-cache.ttl} и удаляются после изменения события вместе со всеми страницами того же фильтра,
+ * если событие было на одной из них или теперь подходит под фильтр: его появление или уход сдвигает
+ * следующие страницы. {@code ewm.query-cache.max-size=0} отключает кеш.
+ */
+@Component
+public class EventQueryCache {
+    private final EventRepository eventRepository;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long granularitySeconds;
+    private final Map<Key, Entry> entries;
+    // растет при каждой инвалидации, чтобы не положить в кеш результат, найденный до изменения
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public EventQueryCache(EventRepository eventRepository,
+                           @Value("${ewm.query-cache.max-size:1000}") int maxSize,
+                           @Value("${ewm.query-cache.ttl:30s}") Duration ttl,
+                           @Value("${ewm.query-cache.date-granularity:1m}") Duration dateGranularity,
+                           MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.granularitySeconds = Math.max(1, dateGranularity.getSeconds());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > EventQueryCache.this.maxSize;
+            }
+        };
+        FunctionCounter.builder("event.query.cache.hits", hits, AtomicLong::get)
+                .description("Public event searches served from cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("event.query.cache.misses", misses, AtomicLong::get)
+                .description("Public event searches executed")
+                .register(meterRegistry);
+        FunctionCounter.builder("event.query.cache.invalidations", invalidations, AtomicLong::get)
+                .description("Cached searches removed after event changes")
+                .register(meterRegistry);
+        Gauge.builder("event.query.cache.size", this, EventQueryCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает нормализованный ключ или null, если кеш отключен или запрос с курсором.
+     */
+    public Key key(PublicEventParams params) {
+        if (maxSize == 0 || params.getCursor() != null) {
+            return null;
+        }
+        String text = params.getText() == null || params.getText().isEmpty() ? null : params.getText().toLowerCase();
+        List<Long> categories = params.getCategories() == null ? List.of() : params.getCategories().stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        return new Key(text,
+                categories,
+                Boolean.TRUE.equals(params.getPaid()),
+                floor(params.getRangeStart()),
+                ceil(params.getRangeEnd()),
+                Boolean.TRUE.equals(params.getOnlyAvailable()),
+                params.getSort(),
+                params.getFrom(),
+                params.getSize());
+    }
+
+    public CursorSlice<Long> get(Key key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() < 0) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new CursorSlice<>(entry.eventIds, entry.nextCursor);
+    }
+
+    /**
+     * Версию нужно получить до выполнения поиска и передать в {@link #put}.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    public void put(Key key, List<Long> eventIds, String nextCursor, long readVersion) {
+        Entry entry = new Entry(List.copyOf(eventIds), nextCursor, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            if (version.get() == readVersion) {
+                entries.put(key, entry);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent changedEvent) {
+        invalidate(List.of(changedEvent.getEventId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent deletedEvent) {
+        invalidate(deletedEvent.getEventIds());
+    }
+
+    private void invalidate(Collection<Long> eventIds) {
+        if (maxSize == 0 || eventIds.isEmpty()) {
+            return;
+        }
+        Set<Long> changed = new HashSet<>(eventIds);
+        List<EventFilterEntry> published = eventRepository.findFilterEntriesByIdInAndState(changed,
+                EventState.PUBLISHED);
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (entries) {
+            version.incrementAndGet();
+            Set<Key> affectedFilters = new HashSet<>();
+            entries.forEach((key, entry) -> {
+                if (entry.eventIds.stream().anyMatch(changed::contains)) {
+                    affectedFilters.add(key.filter());
+                }
+            });
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, Entry> cached = iterator.next();
+                if (affectedFilters.contains(cached.getKey().filter())
+                        || published.stream().anyMatch(event -> cached.getKey().mayMatch(event, now))) {
+                    iterator.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private LocalDateTime floor(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return null;
+        }
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, granularitySeconds) * granularitySeconds,
+                0, ZoneOffset.UTC);
+    }
+
+    private LocalDateTime ceil(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return null;
+        }
+        LocalDateTime floor = floor(dateTime);
+        return floor.equals(dateTime) ? floor : floor.plusSeconds(granularitySeconds);
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @ToString
+    @AllArgsConstructor
+    public static class Key {
+        private final String text;
+        private final List<Long> categories;
+        private final boolean paid;
+        private final LocalDateTime rangeStart;
+        private final LocalDateTime rangeEnd;
+        private final boolean onlyAvailable;
+        private final String sort;
+        private final Integer from;
+        private final Integer size;
+
+        public PublicEventParams toParams() {
+            PublicEventParams params = new PublicEventParams();
+            params.setText(text);
+            params.setCategories(categories);
+            params.setPaid(paid ? true : null);
+            params.setRangeStart(rangeStart);
+            params.setRangeEnd(rangeEnd);
+            params.setOnlyAvailable(onlyAvailable);
+            params.setSort(sort);
+            params.setFrom(from);
+            params.setSize(size);
+            return params;
+        }
+
+        /**
+         * Ключ без сортировки и страницы: у всех страниц одного фильтра он общий.
+         */
+        Key filter() {
+            return new Key(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, null, null, null);
+        }
+
+        // условия фильтров из EventSpecification; текст не проверяется, запрос с текстом считается подходящим
+        boolean mayMatch(EventFilterEntry event, LocalDateTime now) {
+            if (!categories.isEmpty() && !categories.contains(event.getCategoryId())) {
+                return false;
+            }
+            if (paid && !Boolean.TRUE.equals(event.getPaid())) {
+                return false;
+            }
+            if (onlyAvailable && event.getParticipantLimit() != 0
+                    && event.getConfirmedRequests() >= event.getParticipantLimit()) {
+                return false;
+            }
+            LocalDateTime eventDate = event.getEventDate();
+            if (rangeStart == null && rangeEnd == null) {
+                return eventDate.isAfter(now);
+            }
+            return (rangeStart == null || !eventDate.isBefore(rangeStart))
+                    && (rangeEnd == null || !eventDate.isAfter(rangeEnd));
+        }
+    }
+
+    private static class Entry {
+        private final List<Long> eventIds;
+        private final String nextCursor;
+        private final long expiresAt;
+
+        Entry(List<Long> eventIds, String nextCursor, long expiresAt) {
+            this.eventIds = eventIds;
+            this.nextCursor = nextCursor;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Поддерживает агрегаты events.rating и user_rating: при каждой оценке события меняет рейтинг события
+ * и его организатора на разницу между новой и прежней оценкой. Полный пересчет по event_user_rating
+ * выполняется при старте и по расписанию {@code ewm.rating.rebuild-cron} ("-" - отключить).
+ */
+@Service
+@Slf4j
+public class EventRatingService {
+    private final EventRepository eventRepository;
+    private final UserRatingRepository userRatingRepository;
+
+    @Autowired
+    public EventRatingService(EventRepository eventRepository,
+                              UserRatingRepository userRatingRepository) {
+        this.eventRepository = eventRepository;
+        this.userRatingRepository = userRatingRepository;
+    }
+
+    public void createUserRating(long userId) {
+        userRatingRepository.save(new UserRating(userId, 0));
+    }
+
+    @Transactional
+    public void addRating(Event event, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        long initiatorId = event.getInitiator().getId();
+        eventRepository.addRating(event.getId(), delta);
+        if (userRatingRepository.addRating(initiatorId, delta) == 0) {
+            userRatingRepository.save(new UserRating(initiatorId, delta));
+        }
+    }
+
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${ewm.rating.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        int users = userRatingRepository.insertMissing();
+        eventRepository.recalculateRating();
+        userRatingRepository.recalculate();
+        log.info("Рейтинги событий и пользователей пересчитаны, добавлено строк пользователей: {}", users);
+    }
+}
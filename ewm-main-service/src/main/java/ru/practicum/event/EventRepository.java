@@ -4,12 +4,17 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event>,
+        EventSliceRepository {
     Optional<Event> findFirstByCategoryId(Long id);
 
     @EntityGraph(value = "event.category.location.user")
@@ -19,12 +24,119 @@ public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecific
     @EntityGraph(value = "event.category.location.user")
     List<Event> findAllByIdIn(List<Long> events);
 
-    @EntityGraph(value = "event.category.location.user",  type = EntityGraph.EntityGraphType.LOAD)
-    List<Event> findAllByInitiatorId(long userId, Pageable page);
+    @Query(" select new ru.practicum.event.EventShortView(e.id, e.annotation, c.id, c.name, u.id, u.name," +
+            " e.eventDate, e.createdOn, e.paid, e.title, e.confirmedRequests, e.rating, e.views, e.version)" +
+            " from Event e join e.category c join e.initiator u" +
+            " where e.id in ?1 ")
+    List<EventShortView> findShortViewsByIdIn(Collection<Long> eventIds);
+
+    /**
+     * Как {@link #findShortViewsByIdIn}, но только опубликованные: id из индексов и кешей в памяти
+     * могут отставать от базы.
+     */
+    @Query(" select new ru.practicum.event.EventShortView(e.id, e.annotation, c.id, c.name, u.id, u.name," +
+            " e.eventDate, e.createdOn, e.paid, e.title, e.confirmedRequests, e.rating, e.views, e.version)" +
+            " from Event e join e.category c join e.initiator u" +
+            " where e.id in ?1 and e.state = ru.practicum.event.EventState.PUBLISHED ")
+    List<EventShortView> findPublishedShortViewsByIdIn(Collection<Long> eventIds);
 
     @EntityGraph(value = "event.category.location.user")
     Optional<Event> findByIdAndInitiatorId(long eventId, long userId);
 
     @EntityGraph(value = "event.category.location.user")
     Optional<Event> findByIdAndState(long eventId, EventState eventState);
+
+    @Query(" select e.id as id, e.confirmedRequests as confirmedRequests," +
+            " e.rating as rating, coalesce(ur.rating, 0) as initiatorRating, e.views as views" +
+            " from Event e" +
+            " left join UserRating ur on ur.userId = e.initiator.id" +
+            " where e.id in ?1 ")
+    List<EventAggregates> findAggregatesByIdIn(List<Long> eventIds);
+
+    @Query(" select e.id as id, e.version as version, e.confirmedRequests as confirmedRequests," +
+            " e.rating as rating, e.views as views, c.name as categoryName," +
+            " coalesce(ur.rating, 0) as initiatorRating" +
+            " from Event e join e.category c" +
+            " left join UserRating ur on ur.userId = e.initiator.id" +
+            " where e.id = ?1 and e.state = ?2 ")
+    Optional<EventVersion> findVersionByIdAndState(long eventId, EventState state);
+
+    /**
+     * Увеличивает счетчик подтвержденных заявок, если не будет превышен лимит участников.
+     *
+     * @return 0, если лимит не позволяет подтвердить {@code count} заявок
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(" update Event e set e.confirmedRequests = e.confirmedRequests + ?2 " +
+            " where e.id = ?1 and (e.participantLimit = 0 or e.confirmedRequests + ?2 <= e.participantLimit) ")
+    int incrementConfirmedRequests(long eventId, long count);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(" update Event e set e.confirmedRequests = e.confirmedRequests - ?2 where e.id = ?1 ")
+    int decrementConfirmedRequests(long eventId, long count);
+
+    /**
+     * Снимает по одной подтвержденной заявке с каждого события: у пользователя не больше одной заявки на событие.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(" update Event e set e.confirmedRequests = e.confirmedRequests - 1 where e.id in ?1 ")
+    int decrementConfirmedRequests(List<Long> eventIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query(" update Event e set e.rating = e.rating + ?2 where e.id = ?1 ")
+    int addRating(long eventId, long delta);
+
+    @Modifying
+    @Query(value = " UPDATE events e " +
+            " SET rating = (SELECT COALESCE(SUM(CASE eur.liked WHEN TRUE THEN 1 WHEN FALSE THEN -1 ELSE 0 END), 0) " +
+            "               FROM event_user_rating eur " +
+            "               WHERE eur.event_id = e.event_id) ", nativeQuery = true)
+    int recalculateRating();
+
+    @Transactional
+    @Modifying
+    @Query(" update Event e set e.views = ?2 where e.id = ?1 and e.views <> ?2 ")
+    int updateViews(long eventId, long views);
+
+    @Query(" select e.id from Event e where e.initiator.id = ?1 ")
+    List<Long> findIdsByInitiatorId(long initiatorId);
+
+    @Query(" select e.id as id, e.state as state from Event e where e.id in ?1 ")
+    List<EventStateView> findStatesByIdIn(Collection<Long> eventIds);
+
+    /**
+     * Публикует события из списка, которые ожидают модерации. Версия увеличивается вручную,
+     * групповой update ее не меняет.
+     *
+     * @return число опубликованных событий
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(" update Event e set e.state = ru.practicum.event.EventState.PUBLISHED, e.publishedOn = ?2," +
+            " e.version = e.version + 1" +
+            " where e.id in ?1 and e.state = ru.practicum.event.EventState.PENDING ")
+    int publishPending(Collection<Long> eventIds, LocalDateTime publishedOn);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(" update Event e set e.state = ru.practicum.event.EventState.CANCELED, e.publishedOn = null," +
+            " e.version = e.version + 1" +
+            " where e.id in ?1 and e.state = ru.practicum.event.EventState.PENDING ")
+    int rejectPending(Collection<Long> eventIds);
+
+    @Query(" select e.id as id, e.category.id as categoryId, e.paid as paid, e.eventDate as eventDate," +
+            " e.participantLimit as participantLimit, e.confirmedRequests as confirmedRequests" +
+            " from Event e where e.state = ?1 ")
+    List<EventFilterEntry> findFilterEntriesByState(EventState state);
+
+    @Query(" select e.id as id, e.category.id as categoryId, e.paid as paid, e.eventDate as eventDate," +
+            " e.participantLimit as participantLimit, e.confirmedRequests as confirmedRequests" +
+            " from Event e where e.id in ?1 and e.state = ?2 ")
+    List<EventFilterEntry> findFilterEntriesByIdInAndState(Collection<Long> eventIds, EventState state);
+
+    @Query(" select e.id as id, e.rating as rating from Event e where e.state = ?1 and e.eventDate > ?2 ")
+    List<EventTrendingEntry> findTrendingEntries(EventState state, LocalDateTime after);
+
+    @Query(" select e.id from Event e where e.state = ?1 and e.id > ?2 order by e.id ")
+    List<Long> findIdsByStateAfter(EventState state, long afterId, Pageable page);
 }
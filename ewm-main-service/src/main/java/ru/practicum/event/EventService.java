@@ -2,12 +2,14 @@ package ru.practicum.event;
 
 import org.springframework.data.domain.Pageable;
 import ru.practicum.event.dto.*;
+import ru.practicum.page.CursorSlice;
 import ru.practicum.participationrequest.dto.ParticipationRequestDto;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface EventService {
-    List<EventShortDto> getAll(long userId, Pageable page);
+    CursorSlice<EventShortDto> getAll(long userId, Pageable page, String cursor);
 
     EventFullDto add(long userId, NewEventDto newEventDto);
 
@@ -20,14 +22,43 @@ public interface EventService {
     EventRequestStatusUpdateResult updateRequests(long userId, long eventId,
                                                   EventRequestStatusUpdateRequest updateRequest);
 
-    List<EventFullDto> getAll(AdminEventParams eventQueryParams);
+    CursorSlice<EventFullDto> getAll(AdminEventParams eventQueryParams);
 
     EventFullDto patch(long eventId, UpdateEventAdminRequest updateRequest);
 
-    List<EventShortDto> getAll(PublicEventParams params, String ipAddress, String uri);
+    /**
+     * Публикует или отклоняет события группой. Результаты возвращаются в порядке запроса;
+     * события не в том состоянии или не найденные не мешают изменению остальных.
+     */
+    List<EventStateUpdateResult> updateStates(EventStateUpdateRequest updateRequest);
+
+    CursorSlice<EventShortDto> getAll(PublicEventParams params, String ipAddress, String uri);
+
+    /**
+     * Как {@link #getAll(PublicEventParams, String, String)}, но возвращает null без сборки DTO,
+     * если {@code notModified} принял ETag найденных событий.
+     */
+    CursorSlice<EventShortDto> getAll(PublicEventParams params, String ipAddress, String uri,
+                                      Predicate<String> notModified);
+
+    /**
+     * Опубликованные события в радиусе {@code radiusKm} от точки, ближайшие первыми.
+     */
+    List<EventShortDto> getNearby(NearbyEventParams params, String ipAddress, String uri);
+
+    /**
+     * Страница ленты популярных событий из последнего пересчета {@link TrendingEvents}.
+     */
+    List<EventShortDto> getTrending(int from, int size, String ipAddress, String uri);
 
     EventFullDto get(long eventId, String remoteAddr, String requestURI);
 
+    /**
+     * Как {@link #get(long, String, String)}, но возвращает null без сборки DTO,
+     * если {@code notModified} принял ETag события.
+     */
+    EventFullDto get(long eventId, String remoteAddr, String requestURI, Predicate<String> notModified);
+
     EventFullDto like(long userId, long eventId);
 
     EventFullDto dislike(long userId, long eventId);
@@ -1,17 +1,21 @@
 package ru.practicum.event;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.category.Category;
-import ru.practicum.category.CategoryRepository;
-import ru.practicum.client.StatClient;
+import ru.practicum.category.CategoryCatalog;
 import ru.practicum.event.dto.*;
 import ru.practicum.exception.ConflictException;
 import ru.practicum.exception.NotFoundException;
+import ru.practicum.page.Cursor;
+import ru.practicum.page.CursorSlice;
 import ru.practicum.page.OffsetPage;
 import ru.practicum.participationrequest.ParticipationRequest;
 import ru.practicum.participationrequest.ParticipationRequestMapper;
@@ -19,81 +23,122 @@ import ru.practicum.participationrequest.ParticipationRequestRepository;
 import ru.practicum.participationrequest.ParticipationRequestStatus;
 import ru.practicum.participationrequest.dto.ParticipationRequestDto;
 import ru.practicum.user.User;
-import ru.practicum.user.UserRepository;
+import ru.practicum.user.UserCatalog;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 public class EventServiceImpl implements EventService {
     private final EventRepository eventRepository;
-    private final UserRepository userRepository;
+    private final UserCatalog userCatalog;
     private final EventUtilService eventUtilService;
     private final EventMapper eventMapper;
-    private final LocationRepository locationRepository;
-    private final CategoryRepository categoryRepository;
+    private final LocationService locationService;
+    private final CategoryCatalog categoryCatalog;
     private final ParticipationRequestRepository requestRepository;
     private final ParticipationRequestMapper requestMapper;
-    private final StatClient statClient;
     private final EventUserRatingRepository eventUserRatingRepository;
-
-
-    private final Sort sort = Sort.by("eventDate").ascending();
+    private final UserRatingRepository userRatingRepository;
+    private final EventRatingService eventRatingService;
+    private final EventEnricher eventEnricher;
+    private final EventViewsService eventViewsService;
+    private final EventTextSearch eventTextSearch;
+    private final EventFilterIndex eventFilterIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EventDetailsCache eventDetailsCache;
+    private final EventETags eventETags;
+    private final EventQueryCache eventQueryCache;
+    private final TrendingEvents trendingEvents;
+
+
+    private final Sort sort = Sort.by("eventDate").ascending().and(Sort.by("id"));
+    private final Sort sortByViews = Sort.by(Sort.Direction.DESC, "views").and(Sort.by("id"));
+    private final Sort sortByRating = Sort.by(Sort.Direction.DESC, "rating").and(Sort.by("id"));
     private static final String APP_NAME = "ewm-main-service";
 
 
 
     @Autowired
     public EventServiceImpl(EventRepository eventRepository,
-                            UserRepository userRepository,
+                            UserCatalog userCatalog,
                             EventUtilService eventUtilService,
                             EventMapper eventMapper,
-                            LocationRepository locationRepository,
-                            CategoryRepository categoryRepository,
+                            LocationService locationService,
+                            CategoryCatalog categoryCatalog,
                             ParticipationRequestRepository requestRepository,
                             ParticipationRequestMapper requestMapper,
-                            StatClient statClient,
-                            EventUserRatingRepository eventUserRatingRepository) {
+                            EventUserRatingRepository eventUserRatingRepository,
+                            UserRatingRepository userRatingRepository,
+                            EventRatingService eventRatingService,
+                            EventEnricher eventEnricher,
+                            EventViewsService eventViewsService,
+                            EventTextSearch eventTextSearch,
+                            ObjectProvider<EventFilterIndex> eventFilterIndex,
+                            ApplicationEventPublisher eventPublisher,
+                            EventDetailsCache eventDetailsCache,
+                            EventETags eventETags,
+                            EventQueryCache eventQueryCache,
+                            TrendingEvents trendingEvents) {
         this.eventRepository = eventRepository;
-        this.userRepository = userRepository;
+        this.userCatalog = userCatalog;
         this.eventUtilService = eventUtilService;
         this.eventMapper = eventMapper;
-        this.locationRepository = locationRepository;
-        this.categoryRepository = categoryRepository;
+        this.locationService = locationService;
+        this.categoryCatalog = categoryCatalog;
         this.requestRepository = requestRepository;
         this.requestMapper = requestMapper;
-        this.statClient = statClient;
         this.eventUserRatingRepository = eventUserRatingRepository;
+        this.userRatingRepository = userRatingRepository;
+        this.eventRatingService = eventRatingService;
+        this.eventEnricher = eventEnricher;
+        this.eventViewsService = eventViewsService;
+        this.eventTextSearch = eventTextSearch;
+        this.eventFilterIndex = eventFilterIndex.getIfAvailable();
+        this.eventPublisher = eventPublisher;
+        this.eventDetailsCache = eventDetailsCache;
+        this.eventETags = eventETags;
+        this.eventQueryCache = eventQueryCache;
+        this.trendingEvents = trendingEvents;
     }
 
     @Override
-    public List<EventShortDto> getAll(long userId, Pageable page) {
-        userRepository.findById(userId)
+    public CursorSlice<EventShortDto> getAll(long userId, Pageable page, String cursor) {
+        userCatalog.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
 
-        List<Event> events = eventRepository.findAllByInitiatorId(userId, page);
+        Cursor after = cursor != null ? Cursor.decode(cursor) : null;
+        Specification<Event> spec = Specification
+                .where(EventSpecification.hasInitiatorIdInList(List.of(userId)))
+                .and(EventSpecification.isAfterCursor("createdOn", after, true));
+        if (after != null) {
+            page = new OffsetPage(0, page.getPageSize(), page.getSort());
+        }
+
+        Slice<EventShortView> events = eventRepository.findShortSlice(spec, page);
 
         if (events.isEmpty()) {
-            return List.of();
+            return CursorSlice.empty();
         } else {
 
-            return composeEventShortDtos(events);
+            return new CursorSlice<>(composeEventShortDtos(events.getContent()),
+                    nextCursor(events, EventShortView::getCreatedOn, EventShortView::getId));
         }
     }
 
     @Override
+    @Transactional
     public EventFullDto add(long userId, NewEventDto newEventDto) {
-        User user = userRepository.findById(userId)
+        User user = userCatalog.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
-        Category category = categoryRepository.findById(newEventDto.getCategory())
+        Category category = categoryCatalog.findById(newEventDto.getCategory())
                 .orElseThrow(() -> new NotFoundException("Category with id="
                         + newEventDto.getCategory() + " was not found"));
-        Location location = Location.builder()
-                .lon(newEventDto.getLocation().getLon())
-                .lat(newEventDto.getLocation().getLat())
-                .build();
-        location = locationRepository.save(location);
+        Location location = locationService.resolve(newEventDto.getLocation());
         Event event = Event.builder()
                 .state(EventState.PENDING)
                 .category(category)
@@ -116,7 +161,7 @@ public class EventServiceImpl implements EventService {
 
     @Override
     public EventFullDto get(long userId, long eventId) {
-        userRepository.findById(userId)
+        userCatalog.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
         Event event = eventRepository.findByIdAndInitiatorId(eventId, userId)
                 .orElseThrow(() -> new NotFoundException("Event with id=" + eventId
@@ -127,7 +172,7 @@ public class EventServiceImpl implements EventService {
 
     @Override
     public EventFullDto update(long userId, long eventId, UpdateEventUserRequest userRequest) {
-        userRepository.findById(userId)
+        userCatalog.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
         Event event = eventRepository.findByIdAndInitiatorId(eventId, userId)
                 .orElseThrow(() -> new NotFoundException("Event with id=" + eventId
@@ -137,12 +182,14 @@ public class EventServiceImpl implements EventService {
             throw new ConflictException("Only pending or canceled events can be changed");
         }
 
-        return getUpdatedEventFullDto(event, userRequest);
+        EventFullDto result = getUpdatedEventFullDto(event, userRequest);
+        eventPublisher.publishEvent(new EventChangedEvent(eventId));
+        return result;
     }
 
     @Override
     public List<ParticipationRequestDto> getRequests(long userId, long eventId) {
-        userRepository.findById(userId)
+        userCatalog.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
         eventRepository.findByIdAndInitiatorId(eventId, userId)
                 .orElseThrow(() -> new NotFoundException("Event with id=" + eventId
@@ -157,9 +204,10 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
+    @Transactional
     public EventRequestStatusUpdateResult updateRequests(long userId, long eventId,
                                                          EventRequestStatusUpdateRequest updateRequest) {
-        userRepository.findById(userId)
+        userCatalog.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
         Event event = eventRepository.findByIdAndInitiatorId(eventId, userId)
                 .orElseThrow(() -> new NotFoundException("Event with id=" + eventId
@@ -176,21 +224,21 @@ public class EventServiceImpl implements EventService {
             if (RequestUpdateAction.REJECTED.equals(updateRequest.getStatus())) { // отклоняем все
                 result.rejectedRequests(updateRequestsStatus(requests, ParticipationRequestStatus.REJECTED));
             } else { // принимаем или отклоняем если достигнут лимит участников
-                List<ParticipationRequest> confirmedRequests = requestRepository
-                        .findAllByEventIdAndStatus(eventId, ParticipationRequestStatus.CONFIRMED);
-                int confirmedRequestCount = confirmedRequests.size();
+                long confirmedRequestCount = event.getConfirmedRequests();
                 int participantLimit = event.getParticipantLimit();
 
                 if (participantLimit != 0 && confirmedRequestCount >= participantLimit) { // лимит достигнут - отклоняем
                     throw new ConflictException("Event participation limit has reached");
                 } else if (participantLimit == 0) { // нет лимита - принимаем все
+                    confirmRequests(event, requests.size());
                     result.confirmedRequests(updateRequestsStatus(requests, ParticipationRequestStatus.CONFIRMED));
                 } else { //часть заявок принимаем - до лимита, остальные отклоняем
-                    int availableParticipation = participantLimit - confirmedRequestCount;
-                    int lastRequestIndexToConfirm = Math.min(requests.size(), availableParticipation);
+                    long availableParticipation = participantLimit - confirmedRequestCount;
+                    int lastRequestIndexToConfirm = (int) Math.min(requests.size(), availableParticipation);
                     List<ParticipationRequest> requestToConfirm = requests.subList(0, lastRequestIndexToConfirm);
                     List<ParticipationRequest> requestToCancel = requests.subList(lastRequestIndexToConfirm,
                             requests.size());
+                    confirmRequests(event, requestToConfirm.size());
                     result.confirmedRequests(updateRequestsStatus(requestToConfirm,
                             ParticipationRequestStatus.CONFIRMED));
                     if (!requestToCancel.isEmpty()) {
@@ -204,19 +252,22 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    public List<EventFullDto> getAll(AdminEventParams eventQueryParams) {
+    public CursorSlice<EventFullDto> getAll(AdminEventParams eventQueryParams) {
+        Cursor after = eventQueryParams.getCursor() != null ? Cursor.decode(eventQueryParams.getCursor()) : null;
         Specification<Event> spec = Specification
                 .where(EventSpecification
                         .hasEventDateBetween(eventQueryParams.getRangeStart(), eventQueryParams.getRangeEnd()))
                 .and(EventSpecification.hasStateInList(eventQueryParams.getStates()))
                 .and(EventSpecification.hasInitiatorIdInList(eventQueryParams.getUsers()))
-                .and(EventSpecification.hasCategoryIdInList(eventQueryParams.getCategories()));
-        Pageable page = new OffsetPage(eventQueryParams.getFrom(), eventQueryParams.getSize(), sort);
+                .and(EventSpecification.hasCategoryIdInList(eventQueryParams.getCategories()))
+                .and(EventSpecification.isAfterCursor("eventDate", after, false));
+        Pageable page = new OffsetPage(after != null ? 0 : eventQueryParams.getFrom(),
+                eventQueryParams.getSize(), sort);
 
-        Page<Event> eventPage = eventRepository.findAll(spec, page);
-        List<Event> events = eventPage.getContent();
+        Slice<Event> events = eventRepository.findSlice(spec, page);
 
-        return composeEventFullDtos(events);
+        return new CursorSlice<>(composeEventFullDtos(events.getContent()),
+                nextCursor(events, Event::getEventDate, Event::getId));
     }
 
     @Override
@@ -226,91 +277,280 @@ public class EventServiceImpl implements EventService {
 
         Event updatedEvent = getEventFullDto(existentEvent, updateRequest);
         updatedEvent = eventRepository.save(updatedEvent);
+        eventPublisher.publishEvent(new EventChangedEvent(eventId));
 
-        Long eventRating = eventUserRatingRepository.findEventRatingByEventId(eventId);
-        Long userRating = eventUserRatingRepository.findUserRatingByUserId(updatedEvent.getInitiator().getId());
+        // рейтинг события - столбец events.rating самой сущности, организатора - строка user_rating
+        long userRating = userRatingRepository.findRatingByUserId(updatedEvent.getInitiator().getId()).orElse(0L);
 
         return eventMapper.convertEventToFullDto(updatedEvent, 0, 0L,
-                eventRating, userRating);
+                updatedEvent.getRating(), userRating);
+    }
+
+    @Override
+    @Transactional
+    public List<EventStateUpdateResult> updateStates(EventStateUpdateRequest updateRequest) {
+        List<EventStateUpdate> updates = updateRequest.getEvents();
+        Map<Long, EventState> states = eventRepository.findStatesByIdIn(updates.stream()
+                        .map(EventStateUpdate::getEventId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(EventStateView::getId, EventStateView::getState));
+
+        List<EventStateUpdateResult> results = new ArrayList<>(updates.size());
+        Set<Long> requested = new HashSet<>();
+        Set<Long> toPublish = new HashSet<>();
+        Set<Long> toReject = new HashSet<>();
+        for (EventStateUpdate update : updates) {
+            long eventId = update.getEventId();
+            EventState state = states.get(eventId);
+            EventStateUpdateResult result = EventStateUpdateResult.builder()
+                    .eventId(eventId)
+                    .status(EventStateUpdateStatus.CONFLICT)
+                    .build();
+            if (!requested.add(eventId)) {
+                result.setReason("Event with id=" + eventId + " is already in the request");
+            } else if (state == null) {
+                result.setStatus(EventStateUpdateStatus.NOT_FOUND);
+                result.setReason("Event with id=" + eventId + " was not found");
+            } else if (!EventState.PENDING.equals(state)) {
+                result.setReason((StateAdminAction.PUBLISH_EVENT.equals(update.getStateAction())
+                        ? "Cannot publish" : "Cannot cancel")
+                        + " the event because it's not in the right state: " + state);
+            } else {
+                result.setStatus(EventStateUpdateStatus.UPDATED);
+                (StateAdminAction.PUBLISH_EVENT.equals(update.getStateAction()) ? toPublish : toReject).add(eventId);
+            }
+            results.add(result);
+        }
+
+        // update с условием на состояние: если событие успели изменить после чтения, откатывается вся группа
+        int updated = (toPublish.isEmpty() ? 0 : eventRepository.publishPending(toPublish, LocalDateTime.now()))
+                + (toReject.isEmpty() ? 0 : eventRepository.rejectPending(toReject));
+        if (updated != toPublish.size() + toReject.size()) {
+            throw new ConflictException("Events were modified concurrently, repeat the request");
+        }
+
+        List<Long> updatedIds = new ArrayList<>(toPublish);
+        updatedIds.addAll(toReject);
+        if (updatedIds.isEmpty()) {
+            return results;
+        }
+        Map<Long, EventFullDto> events = composeEventFullDtos(eventRepository.findAllByIdIn(updatedIds)).stream()
+                .collect(Collectors.toMap(EventFullDto::getId, event -> event));
+        for (EventStateUpdateResult result : results) {
+            if (EventStateUpdateStatus.UPDATED.equals(result.getStatus())) {
+                result.setEvent(events.get(result.getEventId()));
+            }
+        }
+        updatedIds.forEach(eventId -> eventPublisher.publishEvent(new EventChangedEvent(eventId)));
+        return results;
+    }
+
+    @Override
+    public CursorSlice<EventShortDto> getAll(PublicEventParams params, String ipAddress, String uri) {
+        return getPublished(params, ipAddress, uri, null);
     }
 
     @Override
-    public List<EventShortDto> getAll(PublicEventParams params, String ipAddress, String uri) {
+    public CursorSlice<EventShortDto> getAll(PublicEventParams params, String ipAddress, String uri,
+                                             Predicate<String> notModified) {
+        return getPublished(params, ipAddress, uri, notModified);
+    }
+
+    private CursorSlice<EventShortDto> getPublished(PublicEventParams params, String ipAddress, String uri,
+                                                    Predicate<String> notModified) {
+        CursorSlice<EventShortView> events = findPublished(params);
+        eventUtilService.saveHit(APP_NAME, uri, ipAddress, LocalDateTime.now());
+
+        if (notModified != null && notModified.test(eventETags.getETag(events.getContent()))) {
+            return null;
+        }
+        return new CursorSlice<>(composeEventShortDtos(events.getContent()), events.getNextCursor());
+    }
+
+    private CursorSlice<EventShortView> findPublished(PublicEventParams params) {
+        EventSort requestSort = EventSort.valueOf(params.getSort());
+        Cursor after = params.getCursor() != null ? Cursor.decode(params.getCursor()) : null;
+        if (after != null && requestSort != EventSort.EVENT_DATE) {
+            throw new IllegalArgumentException("Cursor is supported only for sort=EVENT_DATE");
+        }
+        EventQueryCache.Key key = eventQueryCache.key(params);
+        if (key == null) {
+            return searchPublished(params, requestSort, after);
+        }
+        CursorSlice<Long> cachedIds = eventQueryCache.get(key);
+        if (cachedIds != null) {
+            return new CursorSlice<>(findPublishedShortViewsInOrder(cachedIds.getContent()),
+                    cachedIds.getNextCursor());
+        }
+        long readVersion = eventQueryCache.version();
+        CursorSlice<EventShortView> events = searchPublished(key.toParams(), requestSort, null);
+        eventQueryCache.put(key, events.getContent().stream().map(EventShortView::getId).collect(Collectors.toList()),
+                events.getNextCursor(), readVersion);
+        return events;
+    }
+
+    private CursorSlice<EventShortView> searchPublished(PublicEventParams params, EventSort requestSort, Cursor after) {
+        boolean orderByRelevance = requestSort == EventSort.RELEVANCE
+                && eventTextSearch.canOrderByRelevance(params.getText());
         Specification<Event> spec = Specification
-                .where(EventSpecification.containsTextInAnnotationOrDescription(params.getText()))
+                .where(eventTextSearch.matches(params.getText(), orderByRelevance))
                 .and(EventSpecification
                         .hasEventDateBetween(params.getRangeStart(), params.getRangeEnd()))
                 .and(EventSpecification.hasPublishedState())
                 .and(EventSpecification.hasCategoryIdInList(params.getCategories()))
                 .and(EventSpecification.isPaid(params.getPaid()))
-                .and(EventSpecification.hasConfirmedRequestsLessThanLimit(params.getOnlyAvailable()));
+                .and(EventSpecification.hasConfirmedRequestsLessThanLimit(params.getOnlyAvailable()))
+                .and(EventSpecification.isAfterCursor("eventDate", after, false));
+
+        // индекс отдает страницу только по смещению
+        List<Long> indexedIds = eventFilterIndex != null && after == null ? eventFilterIndex.findPage(params) : null;
+        if (indexedIds != null) {
+            List<EventShortView> events = findPublishedShortViewsInOrder(indexedIds);
+            String nextCursor = events.size() < params.getSize() ? null : new Cursor(
+                    events.get(events.size() - 1).getEventDate(), events.get(events.size() - 1).getId()).encode();
+            return new CursorSlice<>(events, nextCursor);
+        }
 
-        statClient.hits(APP_NAME, uri, ipAddress, LocalDateTime.now());
+        Sort pageSort;
+        switch (requestSort) {
+            case VIEWS:
+                // events.views сверяется с сервером статистики с задержкой, просмотры в ответе могут быть свежее
+                pageSort = sortByViews;
+                break;
+            case RATING:
+                pageSort = sortByRating;
+                break;
+            case RELEVANCE:
+                // порядок по релевантности задает сама спецификация, без полнотекстового поиска - по дате
+                pageSort = orderByRelevance ? Sort.unsorted() : sort;
+                break;
+            default:
+                pageSort = sort;
+        }
+        Pageable page = new OffsetPage(after != null ? 0 : params.getFrom(), params.getSize(), pageSort);
+        Slice<EventShortView> events = eventRepository.findShortSlice(spec, page);
+        String nextCursor = requestSort == EventSort.EVENT_DATE
+                ? nextCursor(events, EventShortView::getEventDate, EventShortView::getId) : null;
+        return new CursorSlice<>(events.getContent(), nextCursor);
+    }
 
-        List<Event> events;
-        EventSort requestSort = EventSort.valueOf(params.getSort());
+    @Override
+    public List<EventShortDto> getNearby(NearbyEventParams params, String ipAddress, String uri) {
+        double lat = params.getLat();
+        double lon = params.getLon();
+        Specification<Event> spec = Specification
+                .where(EventSpecification.hasLocationCellIn(GeoGrid.cellRanges(lat, lon, params.getRadiusKm())))
+                .and(eventTextSearch.matches(params.getText(), false))
+                .and(EventSpecification.hasEventDateBetween(params.getRangeStart(), params.getRangeEnd()))
+                .and(EventSpecification.hasPublishedState())
+                .and(EventSpecification.hasCategoryIdInList(params.getCategories()))
+                .and(EventSpecification.isPaid(params.getPaid()))
+                .and(EventSpecification.hasConfirmedRequestsLessThanLimit(params.getOnlyAvailable()));
 
-        if (params.getSort().equals(EventSort.EVENT_DATE.name())) {
-            Pageable page = new OffsetPage(params.getFrom(), params.getSize(), sort);
-            Page<Event> eventPage = eventRepository.findAll(spec, page);
-            events = eventPage.getContent();
-            return composeEventShortDtos(events);
-        } else {
-            events = eventRepository.findAll(spec);
-            List<EventShortDto> result = composeEventShortDtos(events);
-            if (result.isEmpty()) {
-                return result;
+        // ячейки отсекают события за пределами квадрата вокруг круга, точное расстояние считается здесь
+        Map<Long, Double> distances = new HashMap<>();
+        for (EventPoint point : eventRepository.findPoints(spec)) {
+            double distance = GeoGrid.distanceKm(lat, lon, point.getLat(), point.getLon());
+            if (distance <= params.getRadiusKm()) {
+                distances.put(point.getId(), distance);
             }
-            int toIndex = Math.min(params.getFrom() + params.getSize(), events.size());
-            if (params.getFrom() > toIndex) {
-                return new ArrayList<>();
-            }
-            Comparator<EventShortDto> comparator;
-            if (requestSort.equals(EventSort.VIEWS)) {
-                comparator = Comparator.comparingInt(EventShortDto::getViews).reversed();
-            } else {
-                comparator = Comparator.comparingLong(EventShortDto::getRating).reversed();
-            }
-            result.sort(comparator);
-            return result.subList(params.getFrom(), toIndex);
         }
+        List<Long> eventIds = distances.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .skip(params.getFrom())
+                .limit(params.getSize())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        eventUtilService.saveHit(APP_NAME, uri, ipAddress, LocalDateTime.now());
+
+        return composeEventShortDtos(findPublishedShortViewsInOrder(eventIds));
+    }
+
+    @Override
+    public List<EventShortDto> getTrending(int from, int size, String ipAddress, String uri) {
+        List<Long> eventIds = trendingEvents.findPage(from, size);
+        eventUtilService.saveHit(APP_NAME, uri, ipAddress, LocalDateTime.now());
+
+        return composeEventShortDtos(findPublishedShortViewsInOrder(eventIds));
+    }
+
+    @Override
+    public EventFullDto get(long eventId, String remoteAddr, String requestURI, Predicate<String> notModified) {
+        if (notModified.test(eventETags.getPublishedEventETag(eventId))) {
+            eventUtilService.saveHit(APP_NAME, requestURI, remoteAddr, LocalDateTime.now());
+            return null;
+        }
+        return get(eventId, remoteAddr, requestURI);
     }
 
     @Override
     public EventFullDto get(long eventId, String remoteAddr, String requestURI) {
+        EventDetailsCache.Entry cached = eventDetailsCache.get(eventId);
+        if (cached != null) {
+            eventUtilService.saveHit(APP_NAME, requestURI, remoteAddr, LocalDateTime.now());
+
+            EventEnrichment enrichment = eventEnricher.enrichByIds(List.of(eventId));
+            if (enrichment.hasAggregates(eventId)) {
+                int views = enrichment.getViews(eventId);
+                if (!enrichment.isViewsStale()) {
+                    eventViewsService.updateViews(eventId, cached.getStoredViews(), views);
+                }
+                cached.setStoredViews(views);
+
+                EventFullDto skeleton = cached.getEventFullDto();
+                return skeleton.toBuilder()
+                        .views(views)
+                        .confirmedRequests(enrichment.getConfirmedRequests(eventId))
+                        .rating(enrichment.getRating(eventId))
+                        .initiator(skeleton.getInitiator().toBuilder()
+                                .rating(enrichment.getInitiatorRating(eventId))
+                                .build())
+                        .build();
+            }
+            // событие удалено вместе с организатором
+            eventDetailsCache.evict(eventId);
+        }
+
+        long cacheVersion = eventDetailsCache.version();
         Event event = eventRepository.findByIdAndState(eventId, EventState.PUBLISHED)
                 .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
 
-        statClient.hits(APP_NAME, requestURI, remoteAddr, LocalDateTime.now());
+        eventUtilService.saveHit(APP_NAME, requestURI, remoteAddr, LocalDateTime.now());
 
-        Map<Long, Integer> hits = eventUtilService.getHitsByEvent(List.of(eventId));
-        Map<Long, Long> confirmedRequests = eventUtilService.getConfirmedRequestCountById(List.of(eventId));
-
-        Long eventRating = eventUserRatingRepository.findEventRatingByEventId(eventId);
-        Long userRating = eventUserRatingRepository.findUserRatingByUserId(event.getInitiator().getId());
+        EventEnrichment enrichment = eventEnricher.enrich(List.of(event));
+        if (!enrichment.isViewsStale()) {
+            eventViewsService.updateViews(event, enrichment.getViews(eventId));
+        }
 
-        return eventMapper.convertEventToFullDto(event,
-                hits.getOrDefault(eventId, 0),
-                confirmedRequests.getOrDefault(eventId, 0L),
-                eventRating, userRating);
+        EventFullDto result = eventMapper.convertEventToFullDto(event,
+                enrichment.getViews(eventId),
+                enrichment.getConfirmedRequests(eventId),
+                enrichment.getRating(eventId),
+                enrichment.getInitiatorRating(eventId));
+        eventDetailsCache.put(result, enrichment.getViews(eventId), cacheVersion);
+        return result;
     }
 
     @Override
+    @Transactional
     public EventFullDto like(long userId, long eventId) {
         return rateEvent(userId, eventId, EventRateAction.LIKE);
     }
 
     @Override
+    @Transactional
     public EventFullDto dislike(long userId, long eventId) {
         return rateEvent(userId, eventId, EventRateAction.DISLIKE);
     }
 
     @Override
+    @Transactional
     public EventFullDto removeLike(long userId, long eventId) {
         return rateEvent(userId, eventId, EventRateAction.REMOVE_LIKE);
     }
 
     @Override
+    @Transactional
     public EventFullDto removeDislike(long userId, long eventId) {
         return rateEvent(userId, eventId, EventRateAction.REMOVE_DISLIKE);
     }
@@ -318,7 +558,7 @@ public class EventServiceImpl implements EventService {
     private EventFullDto rateEvent(long userId, long eventId, EventRateAction action) {
         Event event = eventRepository.findByIdWithGraph(eventId)
                 .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
-        User user = userRepository.findById(userId)
+        User user = userCatalog.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
 
         if (event.getInitiator().equals(user)) {
@@ -331,31 +571,38 @@ public class EventServiceImpl implements EventService {
         EventUserRating eventUserRating = eventUserRatingRepository.findByEventAndUser(event, user)
                 .orElse(new EventUserRating(null, event, user, null));
         Boolean liked = eventUserRating.getLiked();
+        long previousScore = liked == null ? 0 : (liked ? 1 : -1);
+        long score = previousScore;
         switch (action) {
             case LIKE:
                 if (liked == null || !liked) {
                     eventUserRating.setLiked(true);
                     eventUserRatingRepository.save(eventUserRating);
+                    score = 1;
                 }
                 break;
             case DISLIKE:
                 if (liked == null || liked) {
                     eventUserRating.setLiked(false);
                     eventUserRatingRepository.save(eventUserRating);
+                    score = -1;
                 }
                 break;
             case REMOVE_LIKE:
                 if (liked != null && liked) {
                     eventUserRatingRepository.delete(eventUserRating);
+                    score = 0;
                 }
                 break;
             case REMOVE_DISLIKE:
                 if (liked != null && !liked) {
                     eventUserRatingRepository.delete(eventUserRating);
+                    score = 0;
                 }
                 break;
             default:
         }
+        eventRatingService.addRating(event, score - previousScore);
 
         return getEventFullDto(event);
     }
@@ -372,7 +619,7 @@ public class EventServiceImpl implements EventService {
             resultEvent.eventDate(userRequest.getEventDate());
         }
         if (userRequest.getCategory() != null) {
-            Category category = categoryRepository.findById(userRequest.getCategory())
+            Category category = categoryCatalog.findById(userRequest.getCategory())
                     .orElseThrow(() -> new NotFoundException("Category with id="
                             + userRequest.getCategory() + " was not found"));
             resultEvent.category(category);
@@ -390,12 +637,7 @@ public class EventServiceImpl implements EventService {
             resultEvent.participantLimit(userRequest.getParticipantLimit());
         }
         if (userRequest.getLocation() != null) {
-            Location location = Location.builder()
-                    .lat(userRequest.getLocation().getLat())
-                    .lon(userRequest.getLocation().getLon())
-                    .build();
-            location = locationRepository.save(location);
-            resultEvent.location(location);
+            resultEvent.location(locationService.resolve(userRequest.getLocation()));
         }
         if (StateUserAction.CANCEL_REVIEW.equals(userRequest.getStateAction())) {
             resultEvent.state(EventState.CANCELED);
@@ -406,28 +648,52 @@ public class EventServiceImpl implements EventService {
         Event updatedEvent = resultEvent.build();
         updatedEvent = eventRepository.save(updatedEvent);
 
-        Long eventRating = eventUserRatingRepository.findEventRatingByEventId(updatedEvent.getId());
-        Long userRating = eventUserRatingRepository.findUserRatingByUserId(updatedEvent.getInitiator().getId());
+        long userRating = userRatingRepository.findRatingByUserId(updatedEvent.getInitiator().getId()).orElse(0L);
 
         return eventMapper.convertEventToFullDto(updatedEvent, 0, 0L,
-                eventRating, userRating);
+                updatedEvent.getRating(), userRating);
     }
 
     private EventFullDto getEventFullDto(Event event) {
         long eventId = event.getId();
         Event copyOfEvent = event.toBuilder().build();
 
-        Map<Long, Integer> hitByEvent = eventUtilService.getHitsByEvent(List.of(eventId));
-        Map<Long, Long> confirmedRequest = eventUtilService.getConfirmedRequestCountById(List.of(eventId));
+        EventEnrichment enrichment = eventEnricher.enrich(List.of(event));
 
-        int views = hitByEvent.getOrDefault(eventId, 0);
-        long confirmedRequestsCount = confirmedRequest.getOrDefault(eventId, 0L);
+        return eventMapper.convertEventToFullDto(copyOfEvent,
+                enrichment.getViews(eventId),
+                enrichment.getConfirmedRequests(eventId),
+                enrichment.getRating(eventId),
+                enrichment.getInitiatorRating(eventId));
+    }
 
-        Long eventRating = eventUserRatingRepository.findEventRatingByEventId(eventId);
-        Long userRating = eventUserRatingRepository.findUserRatingByUserId(copyOfEvent.getInitiator().getId());
+    private <T> String nextCursor(Slice<T> events, Function<T, LocalDateTime> date, ToLongFunction<T> id) {
+        if (!events.hasNext()) {
+            return null;
+        }
+        T last = events.getContent().get(events.getNumberOfElements() - 1);
+        return new Cursor(date.apply(last), id.applyAsLong(last)).encode();
+    }
+
+    private List<EventShortView> findPublishedShortViewsInOrder(List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, EventShortView> eventsById = eventRepository.findPublishedShortViewsByIdIn(eventIds).stream()
+                .collect(Collectors.toMap(EventShortView::getId, event -> event));
+        return eventIds.stream()
+                .map(eventsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        return eventMapper.convertEventToFullDto(copyOfEvent, views, confirmedRequestsCount, eventRating,
-                userRating);
+    private void confirmRequests(Event event, int count) {
+        // проверка лимита и увеличение счетчика - один запрос, параллельное подтверждение не превысит лимит
+        if (eventRepository.incrementConfirmedRequests(event.getId(), count) == 0) {
+            throw new ConflictException("Event participation limit has reached");
+        }
+        event.setConfirmedRequests(event.getConfirmedRequests() + count);
+        eventPublisher.publishEvent(new EventChangedEvent(event.getId()));
     }
 
     private List<ParticipationRequestDto> updateRequestsStatus(List<ParticipationRequest> requests,
@@ -436,6 +702,7 @@ public class EventServiceImpl implements EventService {
                 .peek(el -> el.setStatus(newStatus))
                 .collect(Collectors.toList());
 
+        // заявки уже в контексте транзакции: update статусов уходят одной пачкой при flush
         requestRepository.saveAll(requests);
 
         return requests.stream()
@@ -471,18 +738,13 @@ public class EventServiceImpl implements EventService {
         }
 
         if (updateRequest.getCategory() != null) {
-            Category category = categoryRepository.findById(updateRequest.getCategory())
+            Category category = categoryCatalog.findById(updateRequest.getCategory())
                     .orElseThrow(() -> new NotFoundException("Category with id="
                             + updateRequest.getCategory() + " was not found"));
             eventBuilder.category(category);
         }
         if (updateRequest.getLocation() != null) {
-            Location location = Location.builder()
-                    .lat(updateRequest.getLocation().getLat())
-                    .lon(updateRequest.getLocation().getLat())
-                    .build();
-            location = locationRepository.save(location);
-            eventBuilder.location(location);
+            eventBuilder.location(locationService.resolve(updateRequest.getLocation()));
         }
         if (updateRequest.getAnnotation() != null) {
             eventBuilder.annotation(updateRequest.getAnnotation());
@@ -511,65 +773,26 @@ public class EventServiceImpl implements EventService {
     }
 
     private List<EventFullDto> composeEventFullDtos(List<Event> events) {
-
-        Map<String, Map<Long, ?>> data = getEventData(events);
-
+        EventEnrichment enrichment = eventEnricher.enrich(events);
 
         return events.stream()
                 .map(event -> eventMapper.convertEventToFullDto(event,
-                        ((Map<Long, Integer>) data.get("hits")).getOrDefault(event.getId(), 0),
-                        ((Map<Long, Long>) data.get("confirmedRequestCount")).getOrDefault(event.getId(), 0L),
-                        ((Map<Long, Long>) data.get("eventsRating")).getOrDefault(event.getId(), 0L),
-                        ((Map<Long, Long>) data.get("usersRating")).getOrDefault(event.getInitiator().getId(), 0L)))
+                        enrichment.getViews(event.getId()),
+                        enrichment.getConfirmedRequests(event.getId()),
+                        enrichment.getRating(event.getId()),
+                        enrichment.getInitiatorRating(event.getId())))
                 .collect(Collectors.toList());
     }
 
-    private List<EventShortDto> composeEventShortDtos(List<Event> events) {
+    private List<EventShortDto> composeEventShortDtos(List<EventShortView> events) {
+        EventEnrichment enrichment = eventEnricher.enrichShortViews(events);
 
-        Map<String, Map<Long, ?>> data = getEventData(events);
         return events.stream()
-                .map(event -> eventMapper.convertEventToShortDto(event,
-                        ((Map<Long, Integer>) data.get("hits")).getOrDefault(event.getId(), 0),
-                        ((Map<Long, Long>) data.get("confirmedRequestCount")).getOrDefault(event.getId(), 0L),
-                        ((Map<Long, Long>) data.get("eventsRating")).getOrDefault(event.getId(), 0L),
-                        ((Map<Long, Long>) data.get("usersRating")).getOrDefault(event.getInitiator().getId(), 0L)))
+                .map(event -> eventMapper.convertShortViewToShortDto(event,
+                        enrichment.getViews(event.getId()),
+                        enrichment.getConfirmedRequests(event.getId()),
+                        enrichment.getRating(event.getId()),
+                        enrichment.getInitiatorRating(event.getId())))
                 .collect(Collectors.toList());
     }
-
-    private Map<String, Map<Long, ?>> getEventData(List<Event> events) {
-        List<Long> eventIds = events.stream()
-                .map(Event::getId)
-                .collect(Collectors.toList());
-        Map<Long, Integer> hitsById;
-        Map<Long, Long> confirmedRequestCount;
-
-        if (!eventIds.isEmpty()) {
-            hitsById = eventUtilService.getHitsByEvent(eventIds);
-            confirmedRequestCount = eventUtilService.getConfirmedRequestCountById(eventIds);
-        } else {
-            hitsById = new HashMap<>();
-            confirmedRequestCount = new HashMap<>();
-        }
-
-        Map<Long, Long> usersRating = eventUserRatingRepository.findUsersRatingByUserIds(events.stream()
-                .map(el -> el.getInitiator().getId())
-                .distinct()
-                .collect(Collectors.toList())).stream()
-                .collect(Collectors.toMap(
-                        RatingDto::getId,  // eventId
-                        RatingDto::getRating    // rating
-                ));
-        Map<Long, Long> eventsRating = eventUserRatingRepository.findRatingOfEventsByEventIds(eventIds).stream()
-                .collect(Collectors.toMap(
-                        RatingDto::getId,  // eventId
-                        RatingDto::getRating    // rating
-                ));
-
-        Map<String, Map<Long, ?>> result = new HashMap<>();
-        result.put("hits", hitsById);
-        result.put("confirmedRequestCount", confirmedRequestCount);
-        result.put("usersRating", usersRating);
-        result.put("eventsRating", eventsRating);
-        return result;
-    }
 }
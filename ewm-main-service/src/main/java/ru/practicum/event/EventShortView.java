@@ -0,0 +1,51 @@
+package ru.practicum.event;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка события для коротких списков: только колонки {@link ru.practicum.event.dto.EventShortDto}
+ * и счетчики для ETag, без описания. Читается конструктором в запросе и не попадает в контекст
+ * персистентности.
+ */
+@Getter
+@ToString
+public class EventShortView {
+    private final long id;
+    private final String annotation;
+    private final long categoryId;
+    private final String categoryName;
+    private final long initiatorId;
+    private final String initiatorName;
+    private final LocalDateTime eventDate;
+    private final LocalDateTime createdOn;
+    private final boolean paid;
+    private final String title;
+    private final long confirmedRequests;
+    private final long rating;
+    private final long views;
+    private final long version;
+
+    @Builder
+    public EventShortView(long id, String annotation, long categoryId, String categoryName,
+                          long initiatorId, String initiatorName, LocalDateTime eventDate, LocalDateTime createdOn,
+                          boolean paid, String title, long confirmedRequests, long rating, long views, long version) {
+        this.id = id;
+        this.annotation = annotation;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.initiatorId = initiatorId;
+        this.initiatorName = initiatorName;
+        this.eventDate = eventDate;
+        this.createdOn = createdOn;
+        this.paid = paid;
+        this.title = title;
+        this.confirmedRequests = confirmedRequests;
+        this.rating = rating;
+        this.views = views;
+        this.version = version;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.event;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface EventSliceRepository {
+    /**
+     * Страница событий без запроса count: выбирается на одну запись больше,
+     * по ней определяется наличие следующей страницы.
+     */
+    Slice<Event> findSlice(Specification<Event> spec, Pageable page);
+
+    /**
+     * То же, что {@link #findSlice}, но выбираются только колонки короткого DTO, без сущностей.
+     */
+    Slice<EventShortView> findShortSlice(Specification<Event> spec, Pageable page);
+
+    /**
+     * Идентификаторы и координаты событий по спецификации, без сортировки и страниц.
+     */
+    List<EventPoint> findPoints(Specification<Event> spec);
+}
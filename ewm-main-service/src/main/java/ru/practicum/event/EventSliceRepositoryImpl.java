@@ -0,0 +1,86 @@
+package ru.practicum.event;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.List;
+
+public class EventSliceRepositoryImpl implements EventSliceRepository {
+    private static final String FETCH_GRAPH_HINT = "javax.persistence.fetchgraph";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Event> findSlice(Specification<Event> spec, Pageable page) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Event> query = builder.createQuery(Event.class);
+        Root<Event> root = query.from(Event.class);
+        query.select(root);
+
+        TypedQuery<Event> typedQuery = createQuery(query, root, builder, spec, page)
+                .setHint(FETCH_GRAPH_HINT, entityManager.getEntityGraph("event.category.location.user"));
+        return toSlice(typedQuery, page);
+    }
+
+    @Override
+    public Slice<EventShortView> findShortSlice(Specification<Event> spec, Pageable page) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EventShortView> query = builder.createQuery(EventShortView.class);
+        Root<Event> root = query.from(Event.class);
+        Join<Object, Object> category = root.join("category");
+        Join<Object, Object> initiator = root.join("initiator");
+        query.select(builder.construct(EventShortView.class,
+                root.get("id"), root.get("annotation"),
+                category.get("id"), category.get("name"),
+                initiator.get("id"), initiator.get("name"),
+                root.get("eventDate"), root.get("createdOn"), root.get("paid"), root.get("title"),
+                root.get("confirmedRequests"), root.get("rating"), root.get("views"), root.get("version")));
+
+        return toSlice(createQuery(query, root, builder, spec, page), page);
+    }
+
+    @Override
+    public List<EventPoint> findPoints(Specification<Event> spec) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EventPoint> query = builder.createQuery(EventPoint.class);
+        Root<Event> root = query.from(Event.class);
+        Path<Object> location = root.get("location");
+        query.select(builder.construct(EventPoint.class, root.get("id"), location.get("lat"), location.get("lon")));
+
+        Predicate predicate = spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private <T> TypedQuery<T> createQuery(CriteriaQuery<T> query, Root<Event> root, CriteriaBuilder builder,
+                                          Specification<Event> spec, Pageable page) {
+        Predicate predicate = spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (page.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(page.getSort(), root, builder));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private <T> Slice<T> toSlice(TypedQuery<T> query, Pageable page) {
+        List<T> content = query
+                .setFirstResult((int) page.getOffset())
+                .setMaxResults(page.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = content.size() > page.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, page.getPageSize()) : content, page, hasNext);
+    }
+}
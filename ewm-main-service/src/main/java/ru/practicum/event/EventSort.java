@@ -3,5 +3,6 @@ package ru.practicum.event;
 public enum EventSort {
     EVENT_DATE,
     VIEWS,
-    RATING
+    RATING,
+    RELEVANCE
 }
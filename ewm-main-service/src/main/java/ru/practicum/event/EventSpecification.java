@@ -1,8 +1,7 @@
 package ru.practicum.event;
 
 import org.springframework.data.jpa.domain.Specification;
-import ru.practicum.participationrequest.ParticipationRequest;
-import ru.practicum.participationrequest.ParticipationRequestStatus;
+import ru.practicum.page.Cursor;
 
 import javax.persistence.criteria.*;
 import java.time.LocalDateTime;
@@ -22,6 +21,18 @@ public class EventSpecification {
         };
     }
 
+    public static Specification<Event> matchesFullText(String tsQuery, boolean orderByRelevance) {
+        return (root, query, builder) -> {
+            Expression<String> tsQueryLiteral = builder.literal(tsQuery);
+            if (orderByRelevance) {
+                query.orderBy(builder.desc(builder.function("fts_rank", Double.class,
+                        root.get("annotation"), root.get("description"), tsQueryLiteral)), builder.asc(root.get("id")));
+            }
+            return builder.isTrue(builder.function("fts_match", Boolean.class,
+                    root.get("annotation"), root.get("description"), tsQueryLiteral));
+        };
+    }
+
     public static Specification<Event> hasEventDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
         return (root, query, builder) -> {
             if (startDate == null && endDate == null) {
@@ -58,20 +69,16 @@ public class EventSpecification {
         };
     }
 
+    /**
+     * Условие по счетчику подтвержденных заявок в самой строке события, без обращения к заявкам.
+     */
     public static Specification<Event> hasConfirmedRequestsLessThanLimit(Boolean onlyAvailable) {
         return (root, query, builder) -> {
-            if (!onlyAvailable) {
+            if (onlyAvailable == null || !onlyAvailable) {
                 return builder.conjunction();
             }
-
-            Join<Event, ParticipationRequest> requests = root.join("participationRequests", JoinType.LEFT);
-            query.groupBy(root.get("id"));
-
-            return builder.or(builder.equal(root.get("participantLimit"), 0), builder.and(
-                    builder.equal(requests.get("status"), ParticipationRequestStatus.CONFIRMED),
-                    builder.lessThan(builder.countDistinct(requests.get("id")), root.get("participantLimit")))
-            );
-
+            return builder.or(builder.equal(root.get("participantLimit"), 0),
+                    builder.lt(root.<Long>get("confirmedRequests"), root.<Integer>get("participantLimit")));
         };
     }
 
@@ -107,18 +114,37 @@ public class EventSpecification {
         return (root, query, builder) -> builder.notEqual(root.get("initiator").get("id"), userId);
     }
 
-    public static Specification<Event> hasConfirmedRequest() {
+    /**
+     * События после позиции курсора при сортировке по {@code dateField} и id.
+     */
+    public static Specification<Event> isAfterCursor(String dateField, Cursor cursor, boolean descending) {
         return (root, query, builder) -> {
-
-            Join<Event, ParticipationRequest> requests = root.join("participationRequest", JoinType.INNER);
-            query.groupBy(root.get("id"));
-            query.having(builder.greaterThan(builder.count(requests.get("id")), 0L));
-
-            return builder.equal(requests.get("status"), ParticipationRequestStatus.CONFIRMED);
+            if (cursor == null) {
+                return builder.conjunction();
+            }
+            Path<LocalDateTime> date = root.get(dateField);
+            Path<Long> id = root.get("id");
+            if (descending) {
+                return builder.or(builder.lessThan(date, cursor.getDate()), builder.and(
+                        builder.equal(date, cursor.getDate()), builder.lessThan(id, cursor.getId())));
+            }
+            return builder.or(builder.greaterThan(date, cursor.getDate()), builder.and(
+                    builder.equal(date, cursor.getDate()), builder.greaterThan(id, cursor.getId())));
         };
     }
 
     public static Specification<Event> hasEventId(long eventId) {
         return (root, query, builder) -> builder.equal(root.get("id"), eventId);
     }
+
+    public static Specification<Event> hasLocationCellIn(List<GeoGrid.CellRange> ranges) {
+        return (root, query, builder) -> {
+            Path<Integer> cell = root.get("location").get("gridCell");
+            return builder.or(ranges.stream()
+                    .map(range -> range.getFrom() == range.getTo()
+                            ? builder.equal(cell, range.getFrom())
+                            : builder.between(cell, range.getFrom(), range.getTo()))
+                    .toArray(Predicate[]::new));
+        };
+    }
 }
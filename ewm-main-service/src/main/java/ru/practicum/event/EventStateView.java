@@ -0,0 +1,7 @@
+package ru.practicum.event;
+
+public interface EventStateView {
+    Long getId();
+
+    EventState getState();
+}
@@ -0,0 +1,46 @@
+package ru.practicum.event;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Фильтр публичного поиска по тексту. При {@code ewm.search.full-text=true} (только PostgreSQL) используется
+ * полнотекстовый поиск по аннотации и описанию, иначе - поиск подстроки через LIKE.
+ */
+@Component
+public class EventTextSearch {
+    private final boolean fullText;
+
+    @Autowired
+    public EventTextSearch(@Value("${ewm.search.full-text:false}") boolean fullText) {
+        this.fullText = fullText;
+    }
+
+    public Specification<Event> matches(String text, boolean orderByRelevance) {
+        String tsQuery = toTsQuery(text);
+        if (!fullText || tsQuery.isEmpty()) {
+            return EventSpecification.containsTextInAnnotationOrDescription(text);
+        }
+        return EventSpecification.matchesFullText(tsQuery, orderByRelevance);
+    }
+
+    public boolean canOrderByRelevance(String text) {
+        return fullText && !toTsQuery(text).isEmpty();
+    }
+
+    // каждое слово ищется как префикс, как и при поиске подстроки; служебные символы tsquery отбрасываются
+    private String toTsQuery(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+}
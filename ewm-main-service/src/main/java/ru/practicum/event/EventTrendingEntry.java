@@ -0,0 +1,7 @@
+package ru.practicum.event;
+
+public interface EventTrendingEntry {
+    Long getId();
+
+    long getRating();
+}
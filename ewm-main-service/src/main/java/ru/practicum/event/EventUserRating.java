@@ -17,7 +17,8 @@ import javax.persistence.*;
 @NoArgsConstructor
 public class EventUserRating {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_user_rating_seq")
+    @SequenceGenerator(name = "event_user_rating_seq", sequenceName = "event_user_rating_seq", allocationSize = 50)
     @Column(name = "event_user_rating_id")
     private Long id;
 
@@ -1,13 +1,19 @@
 package ru.practicum.event;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import ru.practicum.ViewStatDto;
+import ru.practicum.client.ReactiveStatClient;
 import ru.practicum.client.StatClient;
-import ru.practicum.participationrequest.ParticipationRequest;
-import ru.practicum.participationrequest.ParticipationRequestRepository;
-import ru.practicum.participationrequest.ParticipationRequestStatus;
 
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,52 +22,104 @@ import java.util.stream.Collectors;
 @Service
 public class EventUtilService {
     private final StatClient statClient;
-    private final ParticipationRequestRepository requestRepository;
+    private final ReactiveStatClient reactiveStatClient;
+    private final Scheduler statLookupScheduler;
 
     @Autowired
-    public EventUtilService(StatClient statClient, ParticipationRequestRepository requestRepository) {
+    public EventUtilService(StatClient statClient,
+                            ObjectProvider<ReactiveStatClient> reactiveStatClient,
+                            @Value("${ewm.enrichment.stat-threads:16}") int statThreads,
+                            @Value("${ewm.enrichment.stat-queue-size:256}") int statQueueSize) {
         this.statClient = statClient;
-        this.requestRepository = requestRepository;
+        this.reactiveStatClient = reactiveStatClient.getIfAvailable();
+        this.statLookupScheduler = Schedulers.newBoundedElastic(statThreads, statQueueSize, "stat-lookup");
     }
 
     private static final String EVENTS_START = "1970-01-01 00:00:00";
     private static final String EVENTS_END = "2999-12-31 00:00:00";
     private static final String EVENTS_URI = "/events/";
+    private static final DateTimeFormatter STAT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    public Map<Long, Integer> getHitsByEvent(List<Long> eventIds) {
-        Map<Long, Integer> hitsByEvent = new HashMap<>();
+    public void saveHit(String app, String uri, String ip, LocalDateTime timestamp) {
+        if (reactiveStatClient != null) { // не занимаем поток запроса ожиданием ответа сервера статистики
+            reactiveStatClient.hits(app, uri, ip, timestamp).subscribe();
+        } else {
+            statClient.hits(app, uri, ip, timestamp);
+        }
+    }
 
+    /**
+     * @throws ru.practicum.client.StatUnavailableException если сервер статистики не ответил
+     */
+    public Map<Long, Integer> getHitsByEvent(List<Long> eventIds) {
+        if (reactiveStatClient != null) {
+            return getHitsByEventAsync(eventIds).block();
+        }
         if (eventIds == null || eventIds.isEmpty()) {
-            return hitsByEvent;
+            return new HashMap<>();
         }
 
-        List<String> uris = eventIds.stream()
-                .map(el -> EVENTS_URI + el)
-                .collect(Collectors.toList());
-
-        List<ViewStatDto> response = statClient.getStat(EVENTS_START, EVENTS_END, uris, true);
-
+        List<ViewStatDto> response = statClient.getStat(EVENTS_START, EVENTS_END, toUris(eventIds), true);
 
-        if (response.isEmpty()) {
-            return hitsByEvent;
-        } else {
-            hitsByEvent = response.stream()
-                    .collect(Collectors.groupingBy(
-                            viewStat -> Long.parseLong(viewStat.getUri().split("/events/")[1]),
-                            Collectors.summingInt(viewStat -> viewStat.getHits().intValue())));
+        return convertToHitsByEvent(response);
+    }
 
+    /**
+     * Уникальные просмотры событий начиная с {@code start}.
+     *
+     * @throws ru.practicum.client.StatUnavailableException если сервер статистики не ответил
+     */
+    public Map<Long, Integer> getHitsByEventSince(List<Long> eventIds, LocalDateTime start) {
+        if (eventIds.isEmpty()) {
+            return new HashMap<>();
         }
-        return hitsByEvent;
+        String from = start.format(STAT_FORMATTER);
+        if (reactiveStatClient != null) {
+            return reactiveStatClient.getStat(from, EVENTS_END, toUris(eventIds), true)
+                    .collectList()
+                    .map(this::convertToHitsByEvent)
+                    .block();
+        }
+        return convertToHitsByEvent(statClient.getStat(from, EVENTS_END, toUris(eventIds), true));
     }
 
-    public Map<Long, Long> getConfirmedRequestCountById(List<Long> eventIds) {
+    /**
+     * Завершается ошибкой, если сервер статистики не ответил.
+     */
+    public Mono<Map<Long, Integer>> getHitsByEventAsync(List<Long> eventIds) {
         if (eventIds == null || eventIds.isEmpty()) {
-            return new HashMap<>();
+            return Mono.just(new HashMap<>());
         }
+        if (reactiveStatClient == null) {
+            // блокирующий клиент выполняется в ограниченном пуле, пока поток запроса читает базу;
+            // при переполненной очереди пула запрос завершается ошибкой RejectedExecutionException
+            return Mono.fromCallable(() -> getHitsByEvent(eventIds))
+                    .subscribeOn(statLookupScheduler);
+        }
+
+        return reactiveStatClient.getStat(EVENTS_START, EVENTS_END, toUris(eventIds), true)
+                .collectList()
+                .map(this::convertToHitsByEvent);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        statLookupScheduler.dispose();
+    }
 
-        List<ParticipationRequest> confirmedRequests = requestRepository
-                .findAllByEventIdInAndStatus(eventIds, ParticipationRequestStatus.CONFIRMED);
-        return confirmedRequests.stream()
-                .collect(Collectors.groupingBy(entry -> entry.getEvent().getId(), Collectors.counting()));
+    private List<String> toUris(List<Long> eventIds) {
+        return eventIds.stream()
+                .map(el -> EVENTS_URI + el)
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Integer> convertToHitsByEvent(List<ViewStatDto> response) {
+        if (response == null || response.isEmpty()) {
+            return new HashMap<>();
+        }
+        return response.stream()
+                .collect(Collectors.groupingBy(
+                        viewStat -> Long.parseLong(viewStat.getUri().split(EVENTS_URI)[1]),
+                        Collectors.summingInt(viewStat -> viewStat.getHits().intValue())));
     }
 }
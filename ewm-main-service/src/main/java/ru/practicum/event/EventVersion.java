@@ -0,0 +1,17 @@
+package ru.practicum.event;
+
+public interface EventVersion {
+    Long getId();
+
+    Long getVersion();
+
+    Long getConfirmedRequests();
+
+    Long getRating();
+
+    Long getViews();
+
+    String getCategoryName();
+
+    Long getInitiatorRating();
+}
@@ -0,0 +1,93 @@
+package ru.practicum.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.client.StatUnavailableException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Поддерживает events.views - копию числа просмотров с сервера статистики, по которой база сортирует
+ * публичный поиск. Просмотренное событие обновляется сразу, остальные опубликованные - пачками
+ * по расписанию {@code ewm.views.sync-cron} ("-" - отключить): каждая пачка - один JDBC-батч в одной транзакции.
+ */
+@Service
+@Slf4j
+public class EventViewsService {
+    private final EventRepository eventRepository;
+    private final EventUtilService eventUtilService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+
+    @Autowired
+    public EventViewsService(EventRepository eventRepository,
+                             EventUtilService eventUtilService,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${ewm.views.sync-batch-size:500}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.eventUtilService = eventUtilService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public void updateViews(Event event, long views) {
+        updateViews(event.getId(), event.getViews(), views);
+    }
+
+    public void updateViews(long eventId, long storedViews, long views) {
+        if (storedViews != views) {
+            eventRepository.updateViews(eventId, views);
+        }
+    }
+
+    @Scheduled(cron = "${ewm.views.sync-cron:0 */5 * * * *}")
+    public void sync() {
+        long afterId = 0;
+        int updated = 0;
+        List<Long> eventIds;
+        do {
+            eventIds = eventRepository.findIdsByStateAfter(EventState.PUBLISHED, afterId,
+                    PageRequest.of(0, batchSize));
+            if (eventIds.isEmpty()) {
+                break;
+            }
+            Map<Long, Integer> hits;
+            try {
+                hits = eventUtilService.getHitsByEvent(eventIds);
+            } catch (StatUnavailableException e) {
+                // без ответа сервера статистики сохраненные просмотры не обнуляются, сверка ждет следующего запуска
+                log.warn("Сверка просмотров прервана, обновлено событий: {}: {}", updated, e.getMessage());
+                return;
+            }
+            updated += updateViews(eventIds, hits);
+            afterId = eventIds.get(eventIds.size() - 1);
+        } while (eventIds.size() == batchSize);
+        log.debug("Просмотры событий сверены с сервером статистики, обновлено событий: {}", updated);
+    }
+
+    // строки с неизменившимся числом просмотров не переписываются
+    private int updateViews(List<Long> eventIds, Map<Long, Integer> hits) {
+        List<Object[]> args = eventIds.stream()
+                .map(eventId -> {
+                    int views = hits.getOrDefault(eventId, 0);
+                    return new Object[]{views, eventId, views};
+                })
+                .collect(Collectors.toList());
+        int[] counts = transaction.execute(status -> jdbcTemplate.batchUpdate(
+                "UPDATE events SET views = ? WHERE event_id = ? AND views <> ?", args));
+        return counts == null ? 0 : Arrays.stream(counts).filter(count -> count > 0).sum();
+    }
+}
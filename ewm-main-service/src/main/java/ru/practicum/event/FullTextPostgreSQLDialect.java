@@ -0,0 +1,23 @@
+package ru.practicum.event;
+
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Диалект с функциями полнотекстового поиска по событиям. Выражение документа должно совпадать
+ * с выражением индекса events_text_search_idx из schema-postgresql.sql, иначе индекс не будет использован.
+ */
+public class FullTextPostgreSQLDialect extends PostgreSQL10Dialect {
+    private static final String DOCUMENT = "(setweight(to_tsvector('russian', ?1), 'A')"
+            + " || setweight(to_tsvector('russian', ?2), 'B'))";
+    private static final String QUERY = "to_tsquery('russian', ?3)";
+
+    public FullTextPostgreSQLDialect() {
+        super();
+        registerFunction("fts_match",
+                new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN, "(" + DOCUMENT + " @@ " + QUERY + ")"));
+        registerFunction("fts_rank",
+                new SQLFunctionTemplate(StandardBasicTypes.DOUBLE, "ts_rank(" + DOCUMENT + ", " + QUERY + ")"));
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.event;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сетка по координатам для поиска рядом: ячейка 0.1° x 0.1°, номер ячейки {@code row * COLUMNS + column},
+ * поэтому ячейки одной широтной полосы идут подряд и полоса задается одним диапазоном номеров.
+ * Считается по округленным координатам локации, см. {@link LocationService#SCALE}.
+ */
+final class GeoGrid {
+    static final int CELL_KEYS = LocationService.SCALE / 10;
+    static final int COLUMNS = 360 * LocationService.SCALE / CELL_KEYS;
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private GeoGrid() {
+    }
+
+    static int cell(int latKey, int lonKey) {
+        return row(latKey) * COLUMNS + column(lonKey);
+    }
+
+    /**
+     * Диапазоны ячеек, покрывающие круг радиусом {@code radiusKm}: ограничивающий прямоугольник
+     * по полосам широты, с разрывом на 180-м меридиане. Соседние диапазоны склеиваются.
+     */
+    static List<CellRange> cellRanges(double lat, double lon, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double minLat = Math.max(lat - latDelta, -90);
+        double maxLat = Math.min(lat + latDelta, 90);
+
+        List<int[]> columns = new ArrayList<>();
+        double cos = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double lonDelta = cos > 0 ? radiusKm / (KM_PER_DEGREE * cos) : 180;
+        if (maxLat >= 90 || minLat <= -90 || lonDelta >= 180) {
+            columns.add(new int[]{0, COLUMNS - 1});
+        } else {
+            double minLon = lon - lonDelta;
+            double maxLon = lon + lonDelta;
+            if (minLon < -180) {
+                columns.add(new int[]{column(toKey(minLon + 360)), COLUMNS - 1});
+                columns.add(new int[]{0, column(toKey(maxLon))});
+            } else if (maxLon > 180) {
+                columns.add(new int[]{column(toKey(minLon)), COLUMNS - 1});
+                columns.add(new int[]{0, column(toKey(maxLon - 360))});
+            } else {
+                columns.add(new int[]{column(toKey(minLon)), column(toKey(maxLon))});
+            }
+            columns.sort((a, b) -> Integer.compare(a[0], b[0]));
+        }
+
+        List<CellRange> ranges = new ArrayList<>();
+        for (int row = row(toKey(minLat)); row <= row(toKey(maxLat)); row++) {
+            for (int[] column : columns) {
+                int from = row * COLUMNS + column[0];
+                int to = row * COLUMNS + column[1];
+                CellRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+                if (last != null && last.getTo() + 1 >= from) {
+                    ranges.set(ranges.size() - 1, new CellRange(last.getFrom(), Math.max(last.getTo(), to)));
+                } else {
+                    ranges.add(new CellRange(from, to));
+                }
+            }
+        }
+        return ranges;
+    }
+
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int row(int latKey) {
+        return (latKey + 90 * LocationService.SCALE) / CELL_KEYS;
+    }
+
+    // 180-й меридиан попадает в последнюю колонку, а не в первую колонку следующей полосы
+    private static int column(int lonKey) {
+        return Math.min((lonKey + 180 * LocationService.SCALE) / CELL_KEYS, COLUMNS - 1);
+    }
+
+    private static int toKey(double coordinate) {
+        return (int) Math.round(coordinate * LocationService.SCALE);
+    }
+
+    @Value
+    static class CellRange {
+        int from;
+        int to;
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.event;
 import lombok.*;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
@@ -15,12 +16,29 @@ import java.util.Objects;
 @Builder(toBuilder = true)
 public class Location {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "location_seq")
+    @SequenceGenerator(name = "location_seq", sequenceName = "locations_seq", allocationSize = 50)
     @Column(name = "location_id")
     private Long id;
     private Float lat;
     private Float lon;
 
+    // координаты, округленные до LocationService.SCALE; уникальная пара, у строк из тестов может быть пустой
+    @Column(name = "lat_key")
+    private Integer latKey;
+
+    @Column(name = "lon_key")
+    private Integer lonKey;
+
+    // ячейка GeoGrid по latKey и lonKey, по ней отбираются кандидаты для поиска рядом
+    @Column(name = "grid_cell")
+    private Integer gridCell;
+
+    // локация без событий удаляется только спустя ewm.location.orphan-grace-minutes после вставки
+    @Column(name = "created_at", updatable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,6 +1,24 @@
 package ru.practicum.event;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface LocationRepository extends JpaRepository<Location, Long> {
+    Optional<Location> findByLatKeyAndLonKey(int latKey, int lonKey);
+
+    List<Location> findAllByLatKeyIn(Collection<Integer> latKeys);
+
+    @Transactional
+    @Modifying
+    @Query(value = " DELETE FROM locations l " +
+            " WHERE l.created_at < ?1 " +
+            "   AND NOT EXISTS (SELECT 1 FROM events e WHERE e.location_id = l.location_id) ", nativeQuery = true)
+    int deleteOrphans(LocalDateTime createdBefore);
 }
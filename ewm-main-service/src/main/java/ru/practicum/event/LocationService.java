@@ -0,0 +1,147 @@
+package ru.practicum.event;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.cache.ReadThroughCache;
+import ru.practicum.event.dto.LocationDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Локации событий без дублей: координаты округляются до {@link #SCALE} (около метра), на каждую
+ * округленную пару одна строка locations с уникальным индексом. Найденные локации кешируются,
+ * новые вставляются в отдельной транзакции, чтобы параллельная вставка той же пары упала на индексе
+ * и была прочитана заново, а не откатила событие. Строки, на которые не ссылается ни одно событие,
+ * удаляются по расписанию {@code ewm.location.cleanup-cron}, если вставлены раньше
+ * {@code ewm.location.orphan-grace-minutes}: локация фиксируется до своего события, и свежую строку
+ * без события удалять нельзя.
+ */
+@Service
+@Slf4j
+public class LocationService {
+    static final int SCALE = 100_000;
+
+    private final LocationRepository locationRepository;
+    private final TransactionTemplate newTransaction;
+    private final ReadThroughCache<Location> locations;
+    private final Duration orphanGrace;
+
+    @Autowired
+    public LocationService(LocationRepository locationRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${ewm.reference-cache.max-size:10000}") int maxSize,
+                           @Value("${ewm.location.orphan-grace-minutes:60}") long orphanGraceMinutes,
+                           MeterRegistry meterRegistry) {
+        this.locationRepository = locationRepository;
+        this.orphanGrace = Duration.ofMinutes(orphanGraceMinutes);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.locations = new ReadThroughCache<>("locations", maxSize,
+                key -> locationRepository.findByLatKeyAndLonKey(latKey(key), lonKey(key)),
+                location -> location.toBuilder().build(), meterRegistry);
+    }
+
+    public Location resolve(LocationDto locationDto) {
+        return resolve(toKey(locationDto.getLat()), toKey(locationDto.getLon()));
+    }
+
+    /**
+     * Как {@link #resolve}, но для импорта: существующие локации читаются одним запросом,
+     * недостающие вставляются одной пачкой. Результат в порядке {@code locationDtos}.
+     */
+    public List<Location> resolveAll(List<LocationDto> locationDtos) {
+        Map<Long, Location> byKey = new HashMap<>();
+        Set<Long> keys = locationDtos.stream()
+                .map(locationDto -> key(toKey(locationDto.getLat()), toKey(locationDto.getLon())))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (Location location : locationRepository.findAllByLatKeyIn(keys.stream()
+                .map(LocationService::latKey)
+                .collect(Collectors.toSet()))) {
+            long key = key(location.getLatKey(), location.getLonKey());
+            if (keys.contains(key)) {
+                byKey.put(key, location);
+            }
+        }
+
+        List<Location> missing = keys.stream()
+                .filter(key -> !byKey.containsKey(key))
+                .map(key -> newLocation(latKey(key), lonKey(key)))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            try {
+                newTransaction.execute(status -> locationRepository.saveAllAndFlush(missing))
+                        .forEach(location -> byKey.put(key(location.getLatKey(), location.getLonKey()), location));
+            } catch (DataIntegrityViolationException e) {
+                // часть пар успели вставить параллельно, оставшиеся разрешаются по одной
+                missing.forEach(location -> byKey.put(key(location.getLatKey(), location.getLonKey()),
+                        resolve(location.getLatKey(), location.getLonKey())));
+            }
+        }
+
+        return locationDtos.stream()
+                .map(locationDto -> byKey.get(key(toKey(locationDto.getLat()), toKey(locationDto.getLon()))))
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(cron = "${ewm.location.cleanup-cron:0 30 4 * * *}")
+    public void removeOrphans() {
+        // сброс до удаления не дает положить в кеш строки, прочитанные во время удаления, после - убирает
+        // удаленные строки, прочитанные до него
+        locations.clear();
+        int removed = locationRepository.deleteOrphans(LocalDateTime.now().minus(orphanGrace));
+        locations.clear();
+        log.info("Удалено локаций без событий: {}", removed);
+    }
+
+    static int toKey(Float coordinate) {
+        return (int) Math.round(coordinate.doubleValue() * SCALE);
+    }
+
+    private Location resolve(int latKey, int lonKey) {
+        return locations.get(key(latKey, lonKey))
+                .orElseGet(() -> insert(latKey, lonKey));
+    }
+
+    private Location insert(int latKey, int lonKey) {
+        try {
+            return newTransaction.execute(status -> locationRepository.saveAndFlush(newLocation(latKey, lonKey)));
+        } catch (DataIntegrityViolationException e) {
+            return locationRepository.findByLatKeyAndLonKey(latKey, lonKey)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private static Location newLocation(int latKey, int lonKey) {
+        return Location.builder()
+                .lat((float) ((double) latKey / SCALE))
+                .lon((float) ((double) lonKey / SCALE))
+                .latKey(latKey)
+                .lonKey(lonKey)
+                .gridCell(GeoGrid.cell(latKey, lonKey))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static long key(int latKey, int lonKey) {
+        return ((long) latKey << 32) | (lonKey & 0xFFFFFFFFL);
+    }
+
+    private static int latKey(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int lonKey(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.event;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-таблица с открытой адресацией из long в long без упаковки ключей и значений в объекты.
+ * Рассчитана на заполнение один раз и последующее чтение из одного потока.
+ */
+public class LongLongMap {
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private boolean hasZeroKey;
+    private long zeroValue;
+    private int size;
+
+    public LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                size++;
+            }
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int index = indexOf(key);
+        if (keys[index] == EMPTY) {
+            keys[index] = key;
+            size++;
+        }
+        values[index] = value;
+        if (size * 2 > keys.length) {
+            resize();
+        }
+    }
+
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return keys[index] == EMPTY ? defaultValue : values[index];
+    }
+
+    public boolean containsKey(long key) {
+        return key == EMPTY ? hasZeroKey : keys[indexOf(key)] != EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "LongLongMap{size=" + size + ", keys=" + Arrays.toString(keys) + "}";
+    }
+}
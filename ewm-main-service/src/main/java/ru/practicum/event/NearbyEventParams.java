@@ -0,0 +1,71 @@
+package ru.practicum.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import ru.practicum.validator.DateComparisonConstraint;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Параметры поиска опубликованных событий рядом с точкой: фильтры как у {@link PublicEventParams},
+ * порядок всегда по расстоянию.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@DateComparisonConstraint
+public class NearbyEventParams implements EventParams {
+    @NotNull
+    @DecimalMin("-90")
+    @DecimalMax("90")
+    private Double lat;
+
+    @NotNull
+    @DecimalMin("-180")
+    @DecimalMax("180")
+    private Double lon;
+
+    @NotNull
+    @Positive
+    @DecimalMax("500")
+    private Double radiusKm;
+
+    private String text;
+
+    private List<Long> categories = Collections.emptyList();
+
+    private Boolean paid;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime rangeStart;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime rangeEnd;
+
+    private Boolean onlyAvailable = false;
+
+    @Min(0)
+    private Integer from = 0;
+
+    @Min(1)
+    private Integer size = 10;
+
+    public NearbyEventParams() {
+        this.lat = null;
+        this.lon = null;
+        this.radiusKm = null;
+        this.text = null;
+        this.categories = Collections.emptyList();
+        this.paid = null;
+        this.rangeStart = null;
+        this.rangeEnd = null;
+        this.onlyAvailable = false;
+        this.from = 0;
+        this.size = 10;
+    }
+}
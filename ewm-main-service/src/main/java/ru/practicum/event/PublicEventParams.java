@@ -33,7 +33,7 @@ public class PublicEventParams implements EventParams {
 
     private Boolean onlyAvailable = false;
 
-    @Pattern(regexp = "EVENT_DATE|VIEWS|RATING")
+    @Pattern(regexp = "EVENT_DATE|VIEWS|RATING|RELEVANCE")
     private String sort;
 
     @Min(0)
@@ -42,6 +42,8 @@ public class PublicEventParams implements EventParams {
     @Min(1)
     private Integer size = 10;
 
+    private String cursor;
+
     public PublicEventParams() {
         this.text = null;
         this.categories = Collections.emptyList();
@@ -54,5 +56,6 @@ public class PublicEventParams implements EventParams {
         this.sort = "EVENT_DATE";
         this.from = 0;
         this.size = 10;
+        this.cursor = null;
     }
 }
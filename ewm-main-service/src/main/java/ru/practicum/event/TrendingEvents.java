@@ -0,0 +1,162 @@
+package ru.practicum.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.client.StatUnavailableException;
+import ru.practicum.participationrequest.EventRequestCount;
+import ru.practicum.participationrequest.ParticipationRequestRepository;
+import ru.practicum.participationrequest.ParticipationRequestStatus;
+import ru.practicum.user.UserDeletedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Лента популярных событий: опубликованные предстоящие события по убыванию оценки
+ * {@code views-weight * уникальные просмотры за окно + requests-weight * подтвержденные за окно заявки
+ * + rating-weight * прирост рейтинга с прошлого пересчета}. Пересчитывается при старте и по расписанию
+ * {@code ewm.trending.refresh-cron} ("-" - отключить) в массив id, страница - срез массива.
+ * События с нулевой и отрицательной оценкой в ленту не попадают.
+ */
+@Component
+@Slf4j
+public class TrendingEvents {
+    private final EventRepository eventRepository;
+    private final ParticipationRequestRepository requestRepository;
+    private final EventUtilService eventUtilService;
+    private final Duration window;
+    private final int maxSize;
+    private final int batchSize;
+    private final double viewsWeight;
+    private final double requestsWeight;
+    private final double ratingWeight;
+    // рейтинги событий на момент прошлого пересчета, меняются только в refresh
+    private LongLongMap previousRatings = new LongLongMap(0);
+    private final Object rankingLock = new Object();
+    private volatile long[] ranking = new long[0];
+
+    @Autowired
+    public TrendingEvents(EventRepository eventRepository,
+                          ParticipationRequestRepository requestRepository,
+                          EventUtilService eventUtilService,
+                          @Value("${ewm.trending.window-hours:24}") long windowHours,
+                          @Value("${ewm.trending.max-size:1000}") int maxSize,
+                          @Value("${ewm.trending.batch-size:500}") int batchSize,
+                          @Value("${ewm.trending.views-weight:1}") double viewsWeight,
+                          @Value("${ewm.trending.requests-weight:3}") double requestsWeight,
+                          @Value("${ewm.trending.rating-weight:2}") double ratingWeight) {
+        this.eventRepository = eventRepository;
+        this.requestRepository = requestRepository;
+        this.eventUtilService = eventUtilService;
+        this.window = Duration.ofHours(windowHours);
+        this.maxSize = maxSize;
+        this.batchSize = batchSize;
+        this.viewsWeight = viewsWeight;
+        this.requestsWeight = requestsWeight;
+        this.ratingWeight = ratingWeight;
+    }
+
+    public List<Long> findPage(int from, int size) {
+        long[] snapshot = ranking;
+        if (from >= snapshot.length) {
+            return List.of();
+        }
+        return Arrays.stream(snapshot, from, (int) Math.min(snapshot.length, (long) from + size))
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    // снятое с публикации событие убирается из ленты сразу, не дожидаясь пересчета
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent changedEvent) {
+        removeUnpublished(List.of(changedEvent.getEventId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent deletedEvent) {
+        removeUnpublished(deletedEvent.getEventIds());
+    }
+
+    private void removeUnpublished(Collection<Long> eventIds) {
+        Set<Long> changed = new HashSet<>(eventIds);
+        List<Long> ranked = Arrays.stream(ranking)
+                .filter(changed::contains)
+                .boxed()
+                .collect(Collectors.toList());
+        if (ranked.isEmpty()) {
+            return;
+        }
+        Set<Long> removed = new HashSet<>(ranked);
+        eventRepository.findStatesByIdIn(ranked).stream()
+                .filter(state -> EventState.PUBLISHED.equals(state.getState()))
+                .forEach(state -> removed.remove(state.getId()));
+        if (!removed.isEmpty()) {
+            synchronized (rankingLock) {
+                ranking = Arrays.stream(ranking).filter(id -> !removed.contains(id)).toArray();
+            }
+        }
+    }
+
+    // изменения, пришедшие во время пересчета, могут потеряться до следующего пересчета;
+    // снятые с публикации события в ответ все равно не попадут - страница читается только из опубликованных
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${ewm.trending.refresh-cron:0 */5 * * * *}")
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minus(window);
+        List<EventTrendingEntry> entries = eventRepository.findTrendingEntries(EventState.PUBLISHED, now);
+        LongLongMap requests = new LongLongMap(entries.size());
+        for (EventRequestCount count : requestRepository
+                .countByStatusCreatedAfter(ParticipationRequestStatus.CONFIRMED, since)) {
+            requests.put(count.getEventId(), count.getCount());
+        }
+
+        LongLongMap ratings = new LongLongMap(entries.size());
+        Map<Long, Double> scores = new HashMap<>();
+        for (int start = 0; start < entries.size(); start += batchSize) {
+            List<EventTrendingEntry> batch = entries.subList(start, Math.min(entries.size(), start + batchSize));
+            Map<Long, Integer> hits;
+            try {
+                hits = eventUtilService.getHitsByEventSince(batch.stream()
+                        .map(EventTrendingEntry::getId)
+                        .collect(Collectors.toList()), since);
+            } catch (StatUnavailableException e) {
+                // лента без просмотров была бы другой лентой, остается прежняя до следующего пересчета
+                log.warn("Лента популярных событий не пересчитана: {}", e.getMessage());
+                return;
+            }
+            for (EventTrendingEntry entry : batch) {
+                long eventId = entry.getId();
+                long ratingDelta = previousRatings.containsKey(eventId)
+                        ? entry.getRating() - previousRatings.getOrDefault(eventId, 0) : 0;
+                double score = viewsWeight * hits.getOrDefault(eventId, 0)
+                        + requestsWeight * requests.getOrDefault(eventId, 0)
+                        + ratingWeight * ratingDelta;
+                if (score > 0) {
+                    scores.put(eventId, score);
+                }
+                ratings.put(eventId, entry.getRating());
+            }
+        }
+
+        long[] refreshed = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(maxSize)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+        synchronized (rankingLock) {
+            ranking = refreshed;
+        }
+        previousRatings = ratings;
+        log.info("Лента популярных событий пересчитана, событий в ленте: {}", refreshed.length);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.event;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "user_rating")
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserRating {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private long rating;
+}
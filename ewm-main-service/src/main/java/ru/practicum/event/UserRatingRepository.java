@@ -0,0 +1,37 @@
+package ru.practicum.event;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.event.dto.RatingDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRatingRepository extends JpaRepository<UserRating, Long> {
+    @Query(" select ur.rating from UserRating ur where ur.userId = ?1 ")
+    Optional<Long> findRatingByUserId(long userId);
+
+    @Query(" select new ru.practicum.event.dto.RatingDto(ur.userId, ur.rating) from UserRating ur" +
+            " where ur.userId in ?1 ")
+    List<RatingDto> findRatingsByUserIdIn(Collection<Long> userIds);
+
+    @Modifying
+    @Query(" update UserRating ur set ur.rating = ur.rating + ?2 where ur.userId = ?1 ")
+    int addRating(long userId, long delta);
+
+    @Modifying
+    @Query(value = " INSERT INTO user_rating (user_id, rating) " +
+            " SELECT u.user_id, 0 FROM users u " +
+            " WHERE NOT EXISTS (SELECT 1 FROM user_rating ur WHERE ur.user_id = u.user_id) ", nativeQuery = true)
+    int insertMissing();
+
+    @Modifying
+    @Query(value = " UPDATE user_rating ur " +
+            " SET rating = (SELECT COALESCE(SUM(CASE eur.liked WHEN TRUE THEN 1 WHEN FALSE THEN -1 ELSE 0 END), 0) " +
+            "               FROM events e " +
+            "               JOIN event_user_rating eur ON eur.event_id = e.event_id " +
+            "               WHERE e.initiator_id = ur.user_id) ", nativeQuery = true)
+    int recalculate();
+}
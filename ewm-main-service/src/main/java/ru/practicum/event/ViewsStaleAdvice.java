@@ -0,0 +1,48 @@
+package ru.practicum.event;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Добавляет к ответу заголовок {@code X-Views-Stale: true}, если при сборке событий для этого запроса
+ * сервер статистики не ответил в срок или ответил ошибкой и просмотры отданы из events.views.
+ */
+@RestControllerAdvice
+public class ViewsStaleAdvice implements ResponseBodyAdvice<Object> {
+    static final String VIEWS_STALE_HEADER = "X-Views-Stale";
+    private static final String VIEWS_STALE_ATTRIBUTE = ViewsStaleAdvice.class.getName() + ".viewsStale";
+
+    /**
+     * Помечает текущий HTTP-запрос; вне запроса (планировщик, тесты сервисов) ничего не делает.
+     */
+    static void markCurrentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(VIEWS_STALE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(VIEWS_STALE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            response.getHeaders().set(VIEWS_STALE_HEADER, "true");
+        }
+        return body;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат импорта одного события: {@code index} - позиция в запросе, id заполняется
+ * для созданных событий, причина - для отклоненных.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EventImportResult {
+    private int index;
+    private EventImportStatus status;
+    private Long eventId;
+    private String reason;
+}
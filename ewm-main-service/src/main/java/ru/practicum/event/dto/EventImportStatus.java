@@ -0,0 +1,6 @@
+package ru.practicum.event.dto;
+
+public enum EventImportStatus {
+    CREATED,
+    INVALID
+}
@@ -0,0 +1,19 @@
+package ru.practicum.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EventStateUpdate {
+    @NotNull
+    private Long eventId;
+    @NotNull
+    private StateAdminAction stateAction;
+}
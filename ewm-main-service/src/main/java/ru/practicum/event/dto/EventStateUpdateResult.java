@@ -0,0 +1,21 @@
+package ru.practicum.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат модерации одного события из {@link EventStateUpdateRequest}: причина заполняется
+ * для отказов, событие - только для измененных.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EventStateUpdateResult {
+    private Long eventId;
+    private EventStateUpdateStatus status;
+    private String reason;
+    private EventFullDto event;
+}
@@ -0,0 +1,7 @@
+package ru.practicum.event.dto;
+
+public enum EventStateUpdateStatus {
+    UPDATED,
+    CONFLICT,
+    NOT_FOUND
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotNull;
 
 @Data
@@ -11,7 +13,11 @@ import javax.validation.constraints.NotNull;
 @Builder
 public class LocationDto {
     @NotNull
+    @DecimalMin("-90")
+    @DecimalMax("90")
     private Float lat;
     @NotNull
+    @DecimalMin("-180")
+    @DecimalMax("180")
     private Float lon;
 }
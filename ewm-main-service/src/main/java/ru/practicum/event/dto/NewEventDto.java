@@ -7,6 +7,7 @@ import lombok.Data;
 import org.hibernate.validator.constraints.Length;
 import ru.practicum.validator.DateInFutureByHoursConstraint;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.PositiveOrZero;
@@ -14,7 +15,7 @@ import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class NewEventDto {
     @NotBlank
     @Length(min = 20, max = 2000)
@@ -34,6 +35,7 @@ public class NewEventDto {
     @PositiveOrZero
     private int participantLimit;
     @NotNull
+    @Valid
     private LocationDto location;
 
     public NewEventDto() {
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import org.hibernate.validator.constraints.Length;
 import ru.practicum.validator.DateInFutureByHoursConstraint;
 
+import javax.validation.Valid;
 import java.time.LocalDateTime;
 
 @Data
@@ -28,6 +29,7 @@ public class UpdateEventAdminRequest {
     @Length(min = 3, max = 120)
     private String title;
     private Integer participantLimit;
+    @Valid
     private LocationDto location;
     private StateAdminAction stateAction;
 }
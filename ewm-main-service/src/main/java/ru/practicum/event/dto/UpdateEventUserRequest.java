@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import org.hibernate.validator.constraints.Length;
 import ru.practicum.validator.DateInFutureByHoursConstraint;
 
+import javax.validation.Valid;
 import javax.validation.constraints.PositiveOrZero;
 import java.time.LocalDateTime;
 
@@ -30,6 +31,7 @@ public class UpdateEventUserRequest {
     private String title;
     @PositiveOrZero
     private Integer participantLimit;
+    @Valid
     private LocationDto location;
     private StateUserAction stateAction;
 }
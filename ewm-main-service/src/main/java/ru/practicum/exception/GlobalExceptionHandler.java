@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
@@ -83,6 +84,18 @@ public class GlobalExceptionHandler {
                 LocalDateTime.now());
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiError handleOptimisticLockingFailureException(ObjectOptimisticLockingFailureException ex) {
+        log.info("Объект изменен другим запросом {}", ex.getMessage());
+        List<String> errors = getStackTrace(ex);
+        return new ApiError(errors,
+                ex.getMessage(),
+                "The object was modified concurrently.",
+                HttpStatus.CONFLICT.name(),
+                LocalDateTime.now());
+    }
+
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiError handleNumberFormatException(MethodArgumentTypeMismatchException ex) {
@@ -0,0 +1,43 @@
+package ru.practicum.page;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Позиция последней записи страницы для курсорной пагинации: значение поля сортировки и id.
+ * Клиенту передается в виде непрозрачной строки.
+ */
+@Getter
+public class Cursor {
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime date;
+    private final long id;
+
+    public Cursor(LocalDateTime date, long id) {
+        // TIMESTAMP в базе округляется до микросекунд, дата еще не перечитанной из базы сущности может быть точнее
+        this.date = date.plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+        this.id = id;
+    }
+
+    public String encode() {
+        String value = date + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor " + cursor + " is invalid");
+        }
+    }
+}
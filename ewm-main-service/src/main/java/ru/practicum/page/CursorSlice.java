@@ -0,0 +1,20 @@
+package ru.practicum.page;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class CursorSlice<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorSlice(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> CursorSlice<T> empty() {
+        return new CursorSlice<>(List.of(), null);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.participationrequest;
+
+public interface EventRequestCount {
+    Long getEventId();
+
+    long getCount();
+}
@@ -25,7 +25,8 @@ import java.util.Objects;
 @Builder(toBuilder = true)
 public class ParticipationRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "participation_request_seq")
+    @SequenceGenerator(name = "participation_request_seq", sequenceName = "participation_requests_seq", allocationSize = 50)
     @Column(name = "participation_request_id")
     private Long id;
 
@@ -2,7 +2,9 @@ package ru.practicum.participationrequest;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,14 +14,16 @@ public interface ParticipationRequestRepository extends JpaRepository<Participat
 
     Optional<ParticipationRequest> findByIdAndRequesterId(long requestId, long requesterId);
 
-    @EntityGraph(value = "participationRequest.event")
-    List<ParticipationRequest> findAllByEventIdInAndStatus(List<Long> eventIds, ParticipationRequestStatus status);
-
     @EntityGraph(value = "participationRequest.user.event")
     List<ParticipationRequest> findAllByEventIdAndEventInitiatorId(long eventId, long userId);
 
     @EntityGraph(value = "participationRequest.user.event")
     List<ParticipationRequest> findAllByIdIn(List<Long> requestIds);
 
-    List<ParticipationRequest> findAllByEventIdAndStatus(long eventId, ParticipationRequestStatus status);
+    @Query(" select r.event.id as eventId, count(r) as count from ParticipationRequest r" +
+            " where r.status = ?1 and r.created >= ?2 group by r.event.id ")
+    List<EventRequestCount> countByStatusCreatedAfter(ParticipationRequestStatus status, LocalDateTime after);
+
+    @Query(" select r.event.id from ParticipationRequest r where r.requester.id = ?1 and r.status = ?2 ")
+    List<Long> findEventIdsByRequesterIdAndStatus(long requesterId, ParticipationRequestStatus status);
 }
@@ -1,15 +1,18 @@
 package ru.practicum.participationrequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.event.Event;
+import ru.practicum.event.EventChangedEvent;
 import ru.practicum.event.EventRepository;
 import ru.practicum.event.EventState;
 import ru.practicum.exception.ConflictException;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.participationrequest.dto.ParticipationRequestDto;
 import ru.practicum.user.User;
-import ru.practicum.user.UserRepository;
+import ru.practicum.user.UserCatalog;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,23 +21,27 @@ import java.util.stream.Collectors;
 @Service
 public class ParticipationRequestServiceImpl implements ParticipationRequestService {
     private final ParticipationRequestRepository participationRequestRepository;
-    private final UserRepository userRepository;
+    private final UserCatalog userCatalog;
     private final EventRepository eventRepository;
     private final ParticipationRequestMapper participationRequestMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public ParticipationRequestServiceImpl(ParticipationRequestRepository participationRequestRepository,
-                                           UserRepository userRepository, EventRepository eventRepository,
-                                           ParticipationRequestMapper participationRequestMapper) {
+                                           UserCatalog userCatalog, EventRepository eventRepository,
+                                           ParticipationRequestMapper participationRequestMapper,
+                                           ApplicationEventPublisher eventPublisher) {
         this.participationRequestRepository = participationRequestRepository;
-        this.userRepository = userRepository;
+        this.userCatalog = userCatalog;
         this.eventRepository = eventRepository;
         this.participationRequestMapper = participationRequestMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Transactional
     public ParticipationRequestDto add(long requesterId, long eventId, LocalDateTime created) {
-        User requester = userRepository.findById(requesterId).orElseThrow(() ->
+        User requester = userCatalog.findById(requesterId).orElseThrow(() ->
                 new NotFoundException("User with id=" + requesterId + " was not found"));
         Event event = eventRepository.findById(eventId).orElseThrow(() ->
                 new NotFoundException("Event with id=" + eventId + " was not found"));
@@ -46,6 +53,7 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
             requestStatus = ParticipationRequestStatus.PENDING;
         } else {
             requestStatus = ParticipationRequestStatus.CONFIRMED;
+            confirmRequests(event, 1);
         }
 
         ParticipationRequest participationRequest = ParticipationRequest.builder()
@@ -61,7 +69,7 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
 
     @Override
     public List<ParticipationRequestDto> get(long requesterId) {
-        userRepository.findById(requesterId).orElseThrow(() ->
+        userCatalog.findById(requesterId).orElseThrow(() ->
                 new NotFoundException("User with id=" + requesterId + " was not found"));
         List<ParticipationRequest> requestList = participationRequestRepository.findAllByRequesterId(requesterId);
         return requestList.stream()
@@ -70,10 +78,15 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
     }
 
     @Override
+    @Transactional
     public ParticipationRequestDto cancel(long requesterId, long requestId) {
-        userRepository.findById(requesterId).orElseThrow(() ->
+        userCatalog.findById(requesterId).orElseThrow(() ->
                 new NotFoundException("User with id=" + requesterId + " was not found"));
         ParticipationRequest participationRequest = getRequest(requesterId, requestId);
+        if (ParticipationRequestStatus.CONFIRMED.equals(participationRequest.getStatus())) {
+            eventRepository.decrementConfirmedRequests(participationRequest.getEvent().getId(), 1);
+            eventPublisher.publishEvent(new EventChangedEvent(participationRequest.getEvent().getId()));
+        }
 
         ParticipationRequest canceledRequest = participationRequest.toBuilder()
                 .status(ParticipationRequestStatus.CANCELED)
@@ -93,14 +106,18 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
         }
 
         int limitOfParticipants = event.getParticipantLimit();
-        if (limitOfParticipants != 0) {
-            List<ParticipationRequest> eventParticipation
-                    = participationRequestRepository.findAllByEventIdAndStatus(event.getId(),
-                    ParticipationRequestStatus.CONFIRMED);
-            if (limitOfParticipants <= eventParticipation.size()) {
-                throw new ConflictException("Limit of participants of event is exceeded");
-            }
+        if (limitOfParticipants != 0 && limitOfParticipants <= event.getConfirmedRequests()) {
+            throw new ConflictException("Limit of participants of event is exceeded");
+        }
+    }
+
+    private void confirmRequests(Event event, int count) {
+        // проверка лимита и увеличение счетчика - один запрос, параллельные заявки не превысят лимит
+        if (eventRepository.incrementConfirmedRequests(event.getId(), count) == 0) {
+            throw new ConflictException("Limit of participants of event is exceeded");
         }
+        event.setConfirmedRequests(event.getConfirmedRequests() + count);
+        eventPublisher.publishEvent(new EventChangedEvent(event.getId()));
     }
 
     private ParticipationRequest getRequest(long requesterId, long requestId) {
@@ -0,0 +1,67 @@
+package ru.practicum.stat;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import ru.practicum.HitDto;
+import ru.practicum.ViewStatDto;
+import ru.practicum.client.StatClient;
+import ru.practicum.client.StatUnavailableException;
+import ru.practicum.client.dedup.HitDeduplicator;
+import ru.practicum.hit.HitService;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "stat-server", name = "client", havingValue = "embedded")
+public class EmbeddedStatClient implements StatClient {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final HitService hitService;
+    private final HitDeduplicator hitDeduplicator;
+
+    @Autowired
+    public EmbeddedStatClient(HitService hitService, ObjectProvider<HitDeduplicator> hitDeduplicator) {
+        this.hitService = hitService;
+        this.hitDeduplicator = hitDeduplicator.getIfAvailable();
+    }
+
+    @Override
+    public void hits(String app, String uri, String ip, LocalDateTime timestamp) {
+        HitDto hitDto = new HitDto(app, uri, ip, timestamp);
+        if (hitDeduplicator != null && hitDeduplicator.suppress(hitDto)) {
+            return;
+        }
+        try {
+            hitService.hits(hitDto);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить обращение к {}: {}", uri, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean hits(List<HitDto> hitDtos) {
+        try {
+            hitService.hits(hitDtos);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить {} обращений: {}", hitDtos.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public List<ViewStatDto> getStat(String start, String end, List<String> uris, boolean unique) {
+        try {
+            return hitService.getStat(LocalDateTime.parse(start, FORMATTER), LocalDateTime.parse(end, FORMATTER),
+                    uris, unique);
+        } catch (DataAccessException e) {
+            throw new StatUnavailableException("Не удалось прочитать статистику", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.user;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.cache.ReadThroughCache;
+
+import java.util.Optional;
+
+/**
+ * Пользователи по id для проверок существования и назначения организатора или участника.
+ * Запись удаляется после удаления пользователя.
+ */
+@Component
+public class UserCatalog {
+    private final ReadThroughCache<User> users;
+
+    @Autowired
+    public UserCatalog(UserRepository userRepository,
+                       @Value("${ewm.reference-cache.max-size:10000}") int maxSize,
+                       MeterRegistry meterRegistry) {
+        this.users = new ReadThroughCache<>("users", maxSize, userRepository::findById,
+                user -> user.toBuilder().build(), meterRegistry);
+    }
+
+    public Optional<User> findById(long userId) {
+        return users.get(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent deletedEvent) {
+        users.evict(deletedEvent.getUserId());
+    }
+}
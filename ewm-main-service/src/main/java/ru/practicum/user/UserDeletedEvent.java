@@ -0,0 +1,18 @@
+package ru.practicum.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Публикуется при удалении пользователя, чтобы сбросить его запись в {@link UserCatalog}.
+ * {@code eventIds} - события, удаленные вместе с ним каскадом, и чужие события, где снята его подтвержденная
+ * заявка: кеши, индекс фильтров и лента обрабатывают их одним проходом вместо события на каждое.
+ */
+@Getter
+@AllArgsConstructor
+public class UserDeletedEvent {
+    private final long userId;
+    private final List<Long> eventIds;
+}
@@ -1,37 +1,59 @@
 package ru.practicum.user;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import ru.practicum.event.EventUserRatingRepository;
-import ru.practicum.event.dto.RatingDto;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.event.EventEnricher;
+import ru.practicum.event.EventRatingService;
+import ru.practicum.event.EventRepository;
+import ru.practicum.event.LongLongMap;
 import ru.practicum.exception.NotFoundException;
+import ru.practicum.participationrequest.ParticipationRequestRepository;
+import ru.practicum.participationrequest.ParticipationRequestStatus;
 import ru.practicum.user.dto.NewUserRequest;
 import ru.practicum.user.dto.UserDto;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
-    private final EventUserRatingRepository eventUserRatingRepository;
+    private final EventEnricher eventEnricher;
+    private final EventRatingService eventRatingService;
+    private final EventRepository eventRepository;
+    private final ParticipationRequestRepository requestRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
                            UserMapper userMapper,
-                           EventUserRatingRepository eventUserRatingRepository) {
+                           EventEnricher eventEnricher,
+                           EventRatingService eventRatingService,
+                           EventRepository eventRepository,
+                           ParticipationRequestRepository requestRepository,
+                           ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
-        this.eventUserRatingRepository = eventUserRatingRepository;
+        this.eventEnricher = eventEnricher;
+        this.eventRatingService = eventRatingService;
+        this.eventRepository = eventRepository;
+        this.requestRepository = requestRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Transactional
     public UserDto add(NewUserRequest newUserRequest) {
         User user = userMapper.convertNewUserRequest(newUserRequest);
-        return userMapper.convertUser(userRepository.save(user), 0L);
+        // вставка сразу, чтобы нарушение уникальности email пришло отсюда, а не при фиксации
+        user = userRepository.saveAndFlush(user);
+        eventRatingService.createUserRating(user.getId());
+        return userMapper.convertUser(user, 0L);
     }
 
     @Override
@@ -41,22 +63,33 @@ public class UserServiceImpl implements UserService {
         }
 
         List<UserDto> users = userRepository.findAllInIds(ids, ids.size(), page);
-        Map<Long, Long> usersRating = eventUserRatingRepository.findUsersRatingByUserIds(users.stream()
+        LongLongMap usersRating = eventEnricher.getUserRatings(users.stream()
                 .map(UserDto::getId)
-                .collect(Collectors.toList())).stream()
-                .collect(Collectors.toMap(
-                        RatingDto::getId,  // eventId
-                        RatingDto::getRating    // rating
-                ));;
+                .collect(Collectors.toList()));
         return users.stream()
                 .peek(dto -> dto.setRating(usersRating.getOrDefault(dto.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional
     public void delete(long userId) {
         User userToDelete = userRepository.findById(userId).orElseThrow(() ->
                 new NotFoundException("User with id=" + userId + " was not found"));
+        // события пользователя удаляются каскадом в базе, мимо EventServiceImpl, поэтому индекс фильтров,
+        // кеши и лента узнают о них отсюда
+        List<Long> eventIds = eventRepository.findIdsByInitiatorId(userId);
+        // подтвержденные заявки пользователя на чужие события тоже удаляются каскадом, счетчики снимаются до этого
+        List<Long> participatedIds = requestRepository.findEventIdsByRequesterIdAndStatus(userId,
+                        ParticipationRequestStatus.CONFIRMED).stream()
+                .filter(eventId -> !eventIds.contains(eventId))
+                .collect(Collectors.toList());
+        if (!participatedIds.isEmpty()) {
+            eventRepository.decrementConfirmedRequests(participatedIds);
+        }
         userRepository.delete(userToDelete);
+        List<Long> changedIds = new ArrayList<>(eventIds);
+        changedIds.addAll(participatedIds);
+        eventPublisher.publishEvent(new UserDeletedEvent(userId, changedIds));
     }
 }
@@ -0,0 +1,25 @@
+-- полнотекстовый поиск событий, выражение совпадает с функциями FullTextPostgreSQLDialect
+CREATE INDEX IF NOT EXISTS events_text_search_idx ON events USING GIN
+    ((setweight(to_tsvector('russian', annotation), 'A') || setweight(to_tsvector('russian', description), 'B')));
+
+-- публичный поиск с onlyAvailable=true: опубликованные события со свободными местами по дате
+CREATE INDEX IF NOT EXISTS events_available_event_date_idx ON events (event_date, event_id)
+    WHERE state = 'PUBLISHED' AND (participant_limit = 0 OR confirmed_requests < participant_limit);
+
+-- строки, вставленные до перехода на последовательности, получили id из identity; блок выдается после них
+SELECT setval('categories_seq', GREATEST((SELECT last_value FROM categories_seq),
+                                         (SELECT COALESCE(MAX(category_id), 0) FROM categories) + 50));
+SELECT setval('users_seq', GREATEST((SELECT last_value FROM users_seq),
+                                    (SELECT COALESCE(MAX(user_id), 0) FROM users) + 50));
+SELECT setval('events_seq', GREATEST((SELECT last_value FROM events_seq),
+                                     (SELECT COALESCE(MAX(event_id), 0) FROM events) + 50));
+SELECT setval('locations_seq', GREATEST((SELECT last_value FROM locations_seq),
+                                        (SELECT COALESCE(MAX(location_id), 0) FROM locations) + 50));
+SELECT setval('compilations_seq', GREATEST((SELECT last_value FROM compilations_seq),
+                                           (SELECT COALESCE(MAX(compilation_id), 0) FROM compilations) + 50));
+SELECT setval('participation_requests_seq', GREATEST((SELECT last_value FROM participation_requests_seq),
+                                                     (SELECT COALESCE(MAX(participation_request_id), 0) FROM participation_requests) + 50));
+SELECT setval('event_user_rating_seq', GREATEST((SELECT last_value FROM event_user_rating_seq),
+                                                (SELECT COALESCE(MAX(event_user_rating_id), 0) FROM event_user_rating) + 50));
+SELECT setval('hits_seq', GREATEST((SELECT last_value FROM hits_seq),
+                                   (SELECT COALESCE(MAX(hit_id), 0) FROM hits) + 50));
@@ -39,6 +39,9 @@ CREATE TABLE IF NOT EXISTS events
     published_on       TIMESTAMP WITHOUT TIME ZONE,
     state              VARCHAR(20),
     initiator_id       BIGINT                                  NOT NULL,
+    confirmed_requests BIGINT DEFAULT 0                        NOT NULL,
+    views              BIGINT DEFAULT 0                        NOT NULL,
+    rating             BIGINT DEFAULT 0                        NOT NULL,
     CONSTRAINT fq_location FOREIGN KEY (location_id) REFERENCES locations (location_id),
     CONSTRAINT fq_category FOREIGN KEY (category_id) REFERENCES categories (category_id),
     CONSTRAINT fq_user FOREIGN KEY (initiator_id) REFERENCES users (user_id) ON DELETE CASCADE,
@@ -95,4 +98,124 @@ CREATE TABLE IF NOT EXISTS event_user_rating
     CONSTRAINT event_user_rating_user_id_fk
         FOREIGN KEY (user_id) REFERENCES users (user_id)
             ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+-- рейтинги организаторов, обновляются при каждой оценке события; рейтинг события хранится в events.rating
+CREATE TABLE IF NOT EXISTS user_rating
+(
+    user_id BIGINT           NOT NULL,
+    rating  BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_user_rating PRIMARY KEY (user_id),
+    CONSTRAINT user_rating_user_id_fk
+        FOREIGN KEY (user_id) REFERENCES users (user_id)
+            ON DELETE CASCADE
+);
+
+-- используется только при встроенном движке статистики (stat-server.client=embedded)
+CREATE TABLE IF NOT EXISTS hits
+(
+    hit_id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    app       VARCHAR(255)                            NOT NULL,
+    uri       VARCHAR(512)                            NOT NULL,
+    ip        VARCHAR(16)                             NOT NULL,
+    timestamp TIMESTAMP WITHOUT TIME ZONE,
+    hit_count BIGINT DEFAULT 1                        NOT NULL,
+    CONSTRAINT pk_hit PRIMARY KEY (hit_id)
+);
+
+ALTER TABLE hits ADD COLUMN IF NOT EXISTS hit_count BIGINT DEFAULT 1 NOT NULL;
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT DEFAULT 0 NOT NULL;
+
+-- разовые миграции данных: имя записывается после выполнения, повторный старт их пропускает
+CREATE TABLE IF NOT EXISTS schema_migrations
+(
+    name        VARCHAR(255)                                          NOT NULL,
+    executed_at TIMESTAMP WITHOUT TIME ZONE DEFAULT LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT pk_schema_migration PRIMARY KEY (name)
+);
+
+-- счетчик подтвержденных заявок поддерживается сервисами; один раз сверяем его с заявками,
+-- чтобы исправить значения, завышенные удалением участников до того, как сервис стал их снимать
+UPDATE events e
+SET confirmed_requests = (SELECT COUNT(*)
+                          FROM participation_requests pr
+                          WHERE pr.event_id = e.event_id
+                            AND pr.status = 'CONFIRMED')
+WHERE NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'recount_confirmed_requests');
+INSERT INTO schema_migrations (name)
+SELECT 'recount_confirmed_requests'
+WHERE NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'recount_confirmed_requests');
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS views BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS rating BIGINT DEFAULT 0 NOT NULL;
+DROP TABLE IF EXISTS event_rating;
+
+-- сортировки публичного поиска по просмотрам и рейтингу
+CREATE INDEX IF NOT EXISTS events_state_views_idx ON events (state, views DESC, event_id);
+CREATE INDEX IF NOT EXISTS events_state_rating_idx ON events (state, rating DESC, event_id);
+
+-- курсорная пагинация списков событий
+CREATE INDEX IF NOT EXISTS events_state_event_date_idx ON events (state, event_date, event_id);
+CREATE INDEX IF NOT EXISTS events_initiator_created_on_idx ON events (initiator_id, created_on DESC, event_id DESC);
+
+-- версии событий и подборок для ETag публичных ответов
+ALTER TABLE events ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE compilations ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- id выдаются блоками из последовательностей, чтобы Hibernate мог группировать вставки;
+-- шаг совпадает с allocationSize в @SequenceGenerator
+CREATE SEQUENCE IF NOT EXISTS categories_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS events_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS locations_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS compilations_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS participation_requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS event_user_rating_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS hits_seq START WITH 1 INCREMENT BY 50;
+
+-- одна строка locations на пару координат, округленных до 5 знаков (LocationService.SCALE):
+-- ключи заполняются для старых строк, события переводятся на первую локацию пары, дубли удаляются;
+-- после создания уникального индекса дублей нет, и удаление ничего не затрагивает
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS lat_key INT;
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS lon_key INT;
+UPDATE locations
+SET lat_key = ROUND(lat * 100000),
+    lon_key = ROUND(lon * 100000)
+WHERE lat_key IS NULL
+   OR lon_key IS NULL;
+
+UPDATE events e
+SET location_id = (SELECT MIN(l2.location_id)
+                   FROM locations l1
+                            JOIN locations l2 ON l2.lat_key = l1.lat_key AND l2.lon_key = l1.lon_key
+                   WHERE l1.location_id = e.location_id)
+WHERE EXISTS (SELECT 1
+              FROM locations l1
+                       JOIN locations l2 ON l2.lat_key = l1.lat_key AND l2.lon_key = l1.lon_key
+              WHERE l1.location_id = e.location_id
+                AND l2.location_id < l1.location_id);
+
+DELETE
+FROM locations l
+WHERE EXISTS (SELECT 1
+              FROM locations l2
+              WHERE l2.lat_key = l.lat_key
+                AND l2.lon_key = l.lon_key
+                AND l2.location_id < l.location_id)
+  AND NOT EXISTS (SELECT 1 FROM events e WHERE e.location_id = l.location_id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_location_key ON locations (lat_key, lon_key);
+
+-- ячейка сетки 0.1 x 0.1 градуса для поиска рядом (GeoGrid): строка по широте * 3600 + колонка по долготе
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS grid_cell INT;
+UPDATE locations
+SET grid_cell = (lat_key + 9000000) / 10000 * 3600 + LEAST((lon_key + 18000000) / 10000, 3599)
+WHERE grid_cell IS NULL
+  AND lat_key IS NOT NULL
+  AND lon_key IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_location_grid_cell ON locations (grid_cell);
+
+-- время вставки локации: строки без событий удаляются только после ewm.location.orphan-grace-minutes
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITHOUT TIME ZONE DEFAULT LOCALTIMESTAMP NOT NULL;
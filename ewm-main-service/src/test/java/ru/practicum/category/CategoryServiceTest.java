@@ -6,6 +6,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -32,6 +33,10 @@ public class CategoryServiceTest {
     private CategoryMapper categoryMapper;
     @Mock
     private EventRepository eventRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private CategoryCatalog categoryCatalog;
     @InjectMocks
     private CategoryServiceImpl categoryService;
 
@@ -92,21 +97,21 @@ public class CategoryServiceTest {
     @Test
     public void add_whenSuccessful_thenReturnCategoryDto() {
         when(categoryMapper.convertNewCategoryDto(newCategoryDto)).thenReturn(newCategory);
-        when(categoryRepository.save(newCategory)).thenReturn(category);
+        when(categoryRepository.saveAndFlush(newCategory)).thenReturn(category);
         when(categoryMapper.convertCategory(category)).thenReturn(categoryDto);
 
         CategoryDto actualCategoryDto = categoryService.add(newCategoryDto);
 
         assertThat(categoryDto, equalTo(actualCategoryDto));
         verify(categoryMapper, times(1)).convertNewCategoryDto(newCategoryDto);
-        verify(categoryRepository, times(1)).save(newCategory);
+        verify(categoryRepository, times(1)).saveAndFlush(newCategory);
         verify(categoryMapper, times(1)).convertCategory(category);
     }
 
     @Test
     public void add_whenCategoryNameAlreadyExists_thenThrownException() {
         when(categoryMapper.convertNewCategoryDto(newCategoryDto)).thenReturn(newCategory);
-        when(categoryRepository.save(newCategory)).thenThrow(new DataIntegrityViolationException(
+        when(categoryRepository.saveAndFlush(newCategory)).thenThrow(new DataIntegrityViolationException(
                 "could not execute statement; SQL [n/a]; constraint [uq_category_name];" +
                         " nested exception is org.hibernate.exception.ConstraintViolationException:" +
                         " could not execute statement"));
@@ -116,7 +121,7 @@ public class CategoryServiceTest {
                 () -> categoryService.add(newCategoryDto));
 
         verify(categoryMapper, times(1)).convertNewCategoryDto(newCategoryDto);
-        verify(categoryRepository, times(1)).save(newCategory);
+        verify(categoryRepository, times(1)).saveAndFlush(newCategory);
         verify(categoryMapper, never()).convertCategory(any(Category.class));
         assertThat(exception.getMessage(),
                 is("could not execute statement; SQL [n/a]; constraint [uq_category_name];" +
@@ -134,6 +139,7 @@ public class CategoryServiceTest {
 
         verify(categoryRepository, times(1)).findById(category.getId());
         verify(categoryRepository, times(1)).delete(category);
+        verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
@@ -160,6 +166,7 @@ public class CategoryServiceTest {
         verify(categoryRepository, times(1)).findById(category.getId());
         verify(categoryRepository, times(1)).save(updatedCategory);
         verify(categoryMapper, times(1)).convertCategory(updatedCategory);
+        verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
@@ -221,25 +228,25 @@ public class CategoryServiceTest {
 
     @Test
     public void get_whenSuccessful_thenReturnCategoryDto() {
-        when(categoryRepository.findById(category1.getId())).thenReturn(Optional.of(category1));
+        when(categoryCatalog.findById(category1.getId())).thenReturn(Optional.of(category1));
         when(categoryMapper.convertCategory(category1)).thenReturn(categoryDto1);
 
         CategoryDto actualCategoryDto = categoryService.get(category1.getId());
 
         assertThat(categoryDto1, is(actualCategoryDto));
-        verify(categoryRepository, times(1)).findById(category1.getId());
+        verify(categoryCatalog, times(1)).findById(category1.getId());
         verify(categoryMapper, times(1)).convertCategory(category1);
     }
 
     @Test
     public void get_whenCategoryNotFound_thenThrownException() {
-        when(categoryRepository.findById(category1.getId())).thenReturn(Optional.empty());
+        when(categoryCatalog.findById(category1.getId())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> categoryService.get(category1.getId()));
 
         assertThat(exception.getMessage(), is("Category with id=" + category1.getId() + " was not found"));
-        verify(categoryRepository, times(1)).findById(category1.getId());
+        verify(categoryCatalog, times(1)).findById(category1.getId());
         verify(categoryMapper, never()).convertCategory(category1);
     }
 }
@@ -1,5 +1,6 @@
 package ru.practicum.category;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -216,4 +217,32 @@ public class CategoryTest {
 
         assertThat(exception.getMessage(), is("Category with id=" + wrongId + " was not found"));
     }
+
+    @Test
+    public void catalog_whenCategoryPatched_thenReturnUpdatedCategoryAfterEviction() {
+        CategoryCatalog catalog = new CategoryCatalog(categoryRepository, 100, new SimpleMeterRegistry());
+        long id = category1.getId();
+        Category cached = catalog.findById(id).orElseThrow();
+
+        assertThat(catalog.findById(id).orElseThrow(), sameInstance(cached));
+
+        categoryService.patch(id, categoryMapper.convertCategory(category1.toBuilder()
+                .name("updated name")
+                .build()));
+        catalog.onCategoryChanged(new CategoryChangedEvent(id));
+
+        assertThat(catalog.findById(id).orElseThrow().getName(), is("updated name"));
+    }
+
+    @Test
+    public void catalog_whenCategoryDeleted_thenReturnEmptyAfterEviction() {
+        CategoryCatalog catalog = new CategoryCatalog(categoryRepository, 100, new SimpleMeterRegistry());
+        long id = category.getId();
+        catalog.findById(id).orElseThrow();
+
+        categoryService.delete(id);
+        catalog.onCategoryChanged(new CategoryChangedEvent(id));
+
+        assertThat(catalog.findById(id), is(Optional.empty()));
+    }
 }
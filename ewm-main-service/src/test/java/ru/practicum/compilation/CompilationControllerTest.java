@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -19,11 +20,14 @@ import ru.practicum.page.OffsetPage;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Predicate;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -164,7 +168,7 @@ public class CompilationControllerTest {
     @Test
     public void pub_getAll_whenSuccessful_thenReturnListOfCompilationDto() throws Exception {
         Pageable page = new OffsetPage(from, size, sort);
-        when(compilationService.getAll(pinned, page)).thenReturn(List.of(compilationDto1Pub));
+        when(compilationService.getAll(eq(pinned), eq(page), any())).thenReturn(List.of(compilationDto1Pub));
 
         mvc.perform(get("/compilations?from=" + from + "&size=" + size + "&pinned=" + pinned)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -174,7 +178,7 @@ public class CompilationControllerTest {
                 .andExpect(jsonPath("$.[0].id", is(compilationDto1Pub.getId()), Long.class))
                 .andExpect(jsonPath("$.[0].pinned", is(compilationDto1Pub.isPinned())))
                 .andExpect(jsonPath("$.[0].title", is(compilationDto1Pub.getTitle())));
-        verify(compilationService, times(1)).getAll(pinned, page);
+        verify(compilationService, times(1)).getAll(eq(pinned), eq(page), any());
     }
 
     @Test
@@ -188,12 +192,12 @@ public class CompilationControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(result -> assertInstanceOf(MethodArgumentTypeMismatchException.class,
                         result.getResolvedException()));
-        verify(compilationService, never()).getAll(anyBoolean(), any(Pageable.class));
+        verify(compilationService, never()).getAll(anyBoolean(), any(Pageable.class), any());
     }
 
     @Test
     public void pub_get_whenSuccessful_thenReturnCompilationDto() throws Exception {
-        when(compilationService.get(compilationDto2Pub.getId())).thenReturn(compilationDto2Pub);
+        when(compilationService.get(eq(compilationDto2Pub.getId()), any())).thenReturn(compilationDto2Pub);
 
         mvc.perform(get("/compilations/" + compilationDto2Pub.getId())
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -203,7 +207,24 @@ public class CompilationControllerTest {
                 .andExpect(jsonPath("$.id", is(compilationDto2Pub.getId()), Long.class))
                 .andExpect(jsonPath("$.pinned", is(compilationDto2Pub.isPinned())))
                 .andExpect(jsonPath("$.title", is(compilationDto2Pub.getTitle())));
-        verify(compilationService, times(1)).get(compilationDto2Pub.getId());
+        verify(compilationService, times(1)).get(eq(compilationDto2Pub.getId()), any());
+    }
+
+    @Test
+    public void pub_getAll_whenETagMatches_thenNotModified() throws Exception {
+        String eTag = "\"0cc175b9c0f1b6a831c399e269772661\"";
+        Pageable page = new OffsetPage(from, size, sort);
+        when(compilationService.getAll(eq(pinned), eq(page), any()))
+                .thenAnswer(invocation -> invocation.<Predicate<String>>getArgument(2).test(eTag)
+                        ? null : List.of(compilationDto1Pub));
+
+        mvc.perform(get("/compilations?from=" + from + "&size=" + size + "&pinned=" + pinned)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
     }
 
     @Test
@@ -29,6 +29,7 @@ import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -43,9 +44,9 @@ public class CompilationServiceTest {
     @Mock
     private EventMapper eventMapper;
     @Mock
-    private EventUtilService eventUtilService;
+    private EventEnricher eventEnricher;
     @Mock
-    EventUserRatingRepository eventUserRatingRepository;
+    private EventETags eventETags;
     @InjectMocks
     private CompilationServiceImpl compilationService;
 
@@ -71,8 +72,7 @@ public class CompilationServiceTest {
     private EventShortDto eventShortDto3;
     private UpdateCompilationRequest updateCompilationRequest;
     private Compilation updatedCompilation;
-    private final Map<Long, Integer> hitsByEvent = new HashMap<>();
-    private final Map<Long, Long> confirmedRequestCount = new HashMap<>();
+    private EventEnrichment enrichment;
 
 
     private Compilation compilation1Pub;
@@ -86,6 +86,8 @@ public class CompilationServiceTest {
     private ParticipationRequest requestPub;
     private EventShortDto eventShortDto1Pub;
     private EventShortDto eventShortDto2Pub;
+    private EventShortView eventView1Pub;
+    private EventShortView eventView2Pub;
     private final Sort sort = Sort.by("id").descending();
     private final Pageable page = new OffsetPage(0, 10, sort);
 
@@ -247,9 +249,10 @@ public class CompilationServiceTest {
                 .title(updatedCompilation.getTitle())
                 .pinned(updatedCompilation.isPinned())
                 .build();
-        hitsByEvent.put(1L, 1);
-        hitsByEvent.put(2L, 2);
-        confirmedRequestCount.put(1L, 1L);
+        enrichment = new EventEnrichment(2)
+                .putViews(1L, 1)
+                .putViews(2L, 2)
+                .putAggregates(1L, 1L, 0L, 0L);
 
 
         event1Pub = Event.builder()
@@ -278,6 +281,13 @@ public class CompilationServiceTest {
                 .views(2)
                 .confirmedRequests(0)
                 .build();
+        eventView1Pub = EventShortView.builder()
+                .id(event1Pub.getId())
+                .confirmedRequests(1)
+                .build();
+        eventView2Pub = EventShortView.builder()
+                .id(event2Pub.getId())
+                .build();
         requestPub = ParticipationRequest.builder()
                 .id(1L)
                 .status(ParticipationRequestStatus.CONFIRMED)
@@ -315,20 +325,15 @@ public class CompilationServiceTest {
         List<Long> eventIds = List.of(1L, 2L);
         event1.setInitiator(initiator);
         event2.setInitiator(initiator);
-        when(compilationRepository.save(compilationToSave)).thenReturn(compilation);
+        when(compilationRepository.saveAndFlush(compilationToSave)).thenReturn(compilation);
         when(eventRepository.findAllByIdIn(eventIds)).thenReturn(List.of(event1, event2));
-        when(eventUtilService.getHitsByEvent(eventIds))
-                .thenReturn(hitsByEvent);
-        when(eventUtilService.getConfirmedRequestCountById(eventIds))
-                .thenReturn(confirmedRequestCount);
-        when(eventUserRatingRepository.findRatingOfEventsByEventIds(List.of(1L, 2L))).thenReturn(List.of());
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of(1L))).thenReturn(List.of());
-        when(eventMapper.convertEventToShortDto(event1, hitsByEvent.getOrDefault(event1.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1.getId(), 0L),
+        when(eventEnricher.enrich(List.of(event1, event2))).thenReturn(enrichment);
+        when(eventMapper.convertEventToShortDto(event1, enrichment.getViews(event1.getId()),
+                enrichment.getConfirmedRequests(event1.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto1);
-        when(eventMapper.convertEventToShortDto(event2, hitsByEvent.getOrDefault(event2.getId(), 0),
-                confirmedRequestCount.getOrDefault(event2.getId(), 0L),
+        when(eventMapper.convertEventToShortDto(event2, enrichment.getViews(event2.getId()),
+                enrichment.getConfirmedRequests(event2.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto2);
         when(compilationMapper.convertCompilation(compilation,
@@ -337,12 +342,9 @@ public class CompilationServiceTest {
         CompilationDto actualCompilationDto = compilationService.add(newCompilationDto);
 
         assertThat(compilationDto, is(actualCompilationDto));
-        verify(compilationRepository, times(1)).save(compilationToSave);
+        verify(compilationRepository, times(1)).saveAndFlush(compilationToSave);
         verify(eventRepository, times(1)).findAllByIdIn(eventIds);
-        verify(eventUtilService, times(1))
-                .getHitsByEvent(eventIds);
-        verify(eventUtilService, times(1))
-                .getConfirmedRequestCountById(eventIds);
+        verify(eventEnricher, times(1)).enrich(List.of(event1, event2));
         verify(eventMapper, times(2))
                 .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
         verify(compilationMapper, times(1))
@@ -351,19 +353,16 @@ public class CompilationServiceTest {
 
     @Test
     public void add_whenCompilationWithoutEvents_thenReturnCompilationDtoWithoutEvents() {
-        when(compilationRepository.save(compilationToSaveWithoutEvents)).thenReturn(compilationWithoutEvents);
+        when(compilationRepository.saveAndFlush(compilationToSaveWithoutEvents)).thenReturn(compilationWithoutEvents);
         when(compilationMapper.convertCompilation(compilationWithoutEvents, List.of()))
                 .thenReturn(compilationDtoWithoutEvents);
 
         CompilationDto actualCompilationDto = compilationService.add(newCompilationDtoWithoutEvents);
 
         assertThat(compilationDtoWithoutEvents, is(actualCompilationDto));
-        verify(compilationRepository, times(1)).save(compilationToSaveWithoutEvents);
+        verify(compilationRepository, times(1)).saveAndFlush(compilationToSaveWithoutEvents);
         verify(eventRepository, never()).findAllByIdIn(any());
-        verify(eventUtilService, never())
-                .getHitsByEvent(anyList());
-        verify(eventUtilService, never())
-                .getConfirmedRequestCountById(anyList());
+        verify(eventEnricher, never()).enrich(anyList());
         verify(eventMapper, never())
                 .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
         verify(compilationMapper, times(1))
@@ -400,14 +399,10 @@ public class CompilationServiceTest {
         when(compilationRepository.findById(compilation.getId())).thenReturn(Optional.of(compilation));
         when(compilationRepository.save(updatedCompilation)).thenReturn(updatedCompilation);
         when(eventRepository.findAllByIdIn(eventIds)).thenReturn(List.of(event3));
-        when(eventUtilService.getHitsByEvent(eventIds))
-                .thenReturn(hitsByEvent);
-        when(eventUtilService.getConfirmedRequestCountById(eventIds))
-                .thenReturn(confirmedRequestCount);
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of(1L))).thenReturn(List.of());
+        when(eventEnricher.enrich(List.of(event3))).thenReturn(enrichment);
         when(eventMapper.convertEventToShortDto(event3,
-                hitsByEvent.getOrDefault(event3.getId(), 0),
-                confirmedRequestCount.getOrDefault(event3.getId(), 0L),
+                enrichment.getViews(event3.getId()),
+                enrichment.getConfirmedRequests(event3.getId()),
                 0L,
                 0L))
                 .thenReturn(eventShortDto3);
@@ -421,10 +416,7 @@ public class CompilationServiceTest {
         verify(compilationRepository, times(1)).findById(compilation.getId());
         verify(compilationRepository, times(1)).save(updatedCompilation);
         verify(eventRepository, times(1)).findAllByIdIn(eventIds);
-        verify(eventUtilService, times(1))
-                .getHitsByEvent(eventIds);
-        verify(eventUtilService, times(1))
-                .getConfirmedRequestCountById(eventIds);
+        verify(eventEnricher, times(1)).enrich(List.of(event3));
         verify(eventMapper, times(1))
                 .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
         verify(compilationMapper, times(1))
@@ -443,10 +435,7 @@ public class CompilationServiceTest {
         verify(compilationRepository, times(1)).findById(wrongId);
         verify(compilationRepository, never()).save(any(Compilation.class));
         verify(eventRepository, never()).findAllByIdIn(any());
-        verify(eventUtilService, never())
-                .getHitsByEvent(List.of(wrongId));
-        verify(eventUtilService, never())
-                .getConfirmedRequestCountById(List.of(wrongId));
+        verify(eventEnricher, never()).enrich(anyList());
         verify(eventMapper, never())
                 .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
         verify(compilationMapper, never()).convertCompilation(any(Compilation.class), anyList());
@@ -455,34 +444,29 @@ public class CompilationServiceTest {
 
     @Test
     public void pub_getAll_whenSuccessful_thenReturnCompilationDto() {
-        event1Pub.setInitiator(initiator);
-        event2Pub.setInitiator(initiator);
         when(compilationRepository.findAllByPinned(false, page))
                 .thenReturn(List.of(compilation1Pub, compilation2Pub));
-        when(compilationMapper.convertCompilation(compilation1Pub, List.of(eventShortDto1Pub)))
-                .thenReturn(compilationDto1Pub);
-        when(compilationMapper.convertCompilation(compilation2Pub, List.of(eventShortDto2Pub)))
-                .thenReturn(compilationDto2Pub);
-        when(eventUtilService.getHitsByEvent(List.of(event1Pub.getId())))
-                .thenReturn(hitsByEvent);
-        when(eventUtilService.getHitsByEvent(List.of(event2Pub.getId())))
-                .thenReturn(hitsByEvent);
-        when(eventUtilService.getConfirmedRequestCountById(List.of(event1Pub.getId())))
-                .thenReturn(confirmedRequestCount);
-        when(eventUtilService.getConfirmedRequestCountById(List.of(event2Pub.getId())))
-                .thenReturn(confirmedRequestCount);
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of(1L))).thenReturn(List.of());
-        when(eventUserRatingRepository.findRatingOfEventsByEventIds(List.of(1L))).thenReturn(List.of());
-        when(eventMapper.convertEventToShortDto(event1Pub,
-                hitsByEvent.getOrDefault(event1Pub.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1Pub.getId(), 0L),
+        when(compilationRepository.findEventIdsByCompilationIdIn(List.of(compilation1Pub.getId(),
+                compilation2Pub.getId())))
+                .thenReturn(List.of(link(compilation1Pub.getId(), event1Pub.getId()),
+                        link(compilation2Pub.getId(), event2Pub.getId())));
+        when(eventRepository.findShortViewsByIdIn(Set.of(event1Pub.getId(), event2Pub.getId())))
+                .thenReturn(List.of(eventView1Pub, eventView2Pub));
+        when(eventEnricher.enrichShortViews(anyList())).thenReturn(enrichment);
+        when(eventMapper.convertShortViewToShortDto(eventView1Pub,
+                enrichment.getViews(event1Pub.getId()),
+                enrichment.getConfirmedRequests(event1Pub.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto1Pub);
-        when(eventMapper.convertEventToShortDto(event2Pub,
-                hitsByEvent.getOrDefault(event2Pub.getId(), 0),
-                confirmedRequestCount.getOrDefault(event2Pub.getId(), 0L),
+        when(eventMapper.convertShortViewToShortDto(eventView2Pub,
+                enrichment.getViews(event2Pub.getId()),
+                enrichment.getConfirmedRequests(event2Pub.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto2Pub);
+        when(compilationMapper.convertCompilation(compilation1Pub, List.of(eventShortDto1Pub)))
+                .thenReturn(compilationDto1Pub);
+        when(compilationMapper.convertCompilation(compilation2Pub, List.of(eventShortDto2Pub)))
+                .thenReturn(compilationDto2Pub);
 
         List<CompilationDto> actualListOfCompilationDto = compilationService.getAll(false, page);
 
@@ -490,17 +474,14 @@ public class CompilationServiceTest {
         verify(compilationRepository, times(1)).findAllByPinned(false, page);
         verify(compilationMapper, times(2))
                 .convertCompilation(any(Compilation.class), anyList());
-        verify(eventUtilService, times(2))
-                .getHitsByEvent(anyList());
-        verify(eventUtilService, times(2))
-                .getConfirmedRequestCountById(anyList());
+        verify(eventEnricher, times(1)).enrichShortViews(anyList());
+        verify(eventRepository, never()).findAllByIdIn(anyList());
         verify(eventMapper, times(2))
-                .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
+                .convertShortViewToShortDto(any(EventShortView.class), anyInt(), anyLong(), anyLong(), anyLong());
     }
 
     @Test
     public void pub_getAll_whenNoCompilationFound_thenReturnEmptyList() {
-        List<Long> eventIds = List.of(1L, 2L);
         when(compilationRepository.findAllByPinned(true, page))
                 .thenReturn(List.of());
 
@@ -508,33 +489,28 @@ public class CompilationServiceTest {
 
         assertThat(List.of(), is(actualListOfCompilationDto));
         verify(compilationRepository, times(1)).findAllByPinned(true, page);
+        verify(compilationRepository, never()).findEventIdsByCompilationIdIn(anyList());
         verify(compilationMapper, never()).convertCompilation(any(Compilation.class), anyList());
-        verify(eventUtilService, never())
-                .getHitsByEvent(anyList());
-        verify(eventUtilService, never())
-                .getConfirmedRequestCountById(eventIds);
         verify(eventMapper, never())
-                .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
+                .convertShortViewToShortDto(any(EventShortView.class), anyInt(), anyLong(), anyLong(), anyLong());
     }
 
     @Test
     public void pub_get_whenSuccessful_thenReturnCompilationDto() {
-        event1Pub.setInitiator(initiator);
         when(compilationRepository.findById(compilation1Pub.getId()))
                 .thenReturn(Optional.of(compilation1Pub));
-        when(compilationMapper.convertCompilation(compilation1Pub, List.of(eventShortDto1Pub)))
-                .thenReturn(compilationDto1Pub);
-        when(eventUtilService.getHitsByEvent(List.of(event1Pub.getId())))
-                .thenReturn(hitsByEvent);
-        when(eventUtilService.getConfirmedRequestCountById(List.of(event1Pub.getId())))
-                .thenReturn(confirmedRequestCount);
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of(1L))).thenReturn(List.of());
-        when(eventUserRatingRepository.findRatingOfEventsByEventIds(List.of(1L))).thenReturn(List.of());
-        when(eventMapper.convertEventToShortDto(event1Pub,
-                hitsByEvent.getOrDefault(event1Pub.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1Pub.getId(), 0L),
+        when(compilationRepository.findEventIdsByCompilationIdIn(List.of(compilation1Pub.getId())))
+                .thenReturn(List.of(link(compilation1Pub.getId(), event1Pub.getId())));
+        when(eventRepository.findShortViewsByIdIn(Set.of(event1Pub.getId())))
+                .thenReturn(List.of(eventView1Pub));
+        when(eventEnricher.enrichShortViews(List.of(eventView1Pub))).thenReturn(enrichment);
+        when(eventMapper.convertShortViewToShortDto(eventView1Pub,
+                enrichment.getViews(event1Pub.getId()),
+                enrichment.getConfirmedRequests(event1Pub.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto1Pub);
+        when(compilationMapper.convertCompilation(compilation1Pub, List.of(eventShortDto1Pub)))
+                .thenReturn(compilationDto1Pub);
 
         CompilationDto actuaCompilationDto = compilationService.get(compilation1Pub.getId());
 
@@ -542,12 +518,27 @@ public class CompilationServiceTest {
         verify(compilationRepository, times(1)).findById(compilation1Pub.getId());
         verify(compilationMapper, times(1))
                 .convertCompilation(any(Compilation.class), anyList());
-        verify(eventUtilService, times(1))
-                .getHitsByEvent(List.of(event1Pub.getId()));
-        verify(eventUtilService, times(1))
-                .getConfirmedRequestCountById(List.of(event1Pub.getId()));
+        verify(eventEnricher, times(1)).enrichShortViews(List.of(eventView1Pub));
         verify(eventMapper, times(1))
-                .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
+                .convertShortViewToShortDto(any(EventShortView.class), anyInt(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void pub_get_whenETagMatches_thenReturnNullWithoutEnrichment() {
+        when(compilationRepository.findById(compilation1Pub.getId()))
+                .thenReturn(Optional.of(compilation1Pub));
+        when(compilationRepository.findEventIdsByCompilationIdIn(List.of(compilation1Pub.getId())))
+                .thenReturn(List.of(link(compilation1Pub.getId(), event1Pub.getId())));
+        when(eventRepository.findShortViewsByIdIn(Set.of(event1Pub.getId())))
+                .thenReturn(List.of(eventView1Pub));
+
+        CompilationDto actuaCompilationDto = compilationService.get(compilation1Pub.getId(), eTag -> true);
+
+        assertThat(actuaCompilationDto, is(nullValue()));
+        verify(eventETags, times(1))
+                .appendEvents(any(StringBuilder.class), eq(List.of(eventView1Pub)), any());
+        verify(compilationMapper, never()).convertCompilation(any(Compilation.class), anyList());
+        verify(eventEnricher, never()).enrichShortViews(anyList());
     }
 
     @Test
@@ -559,11 +550,22 @@ public class CompilationServiceTest {
         assertThat(exception.getMessage(), is("Compilation with id=" + wrongId + " was not found"));
         verify(compilationRepository, times(1)).findById(wrongId);
         verify(compilationMapper, never()).convertCompilation(any(Compilation.class), anyList());
-        verify(eventUtilService, never())
-                .getHitsByEvent(List.of(wrongId));
-        verify(eventUtilService, never())
-                .getConfirmedRequestCountById(List.of(wrongId));
+        verify(eventEnricher, never()).enrich(anyList());
         verify(eventMapper, never())
                 .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
     }
+
+    private CompilationEventId link(long compilationId, long eventId) {
+        return new CompilationEventId() {
+            @Override
+            public Long getCompilationId() {
+                return compilationId;
+            }
+
+            @Override
+            public Long getEventId() {
+                return eventId;
+            }
+        };
+    }
 }
@@ -20,13 +20,16 @@ import ru.practicum.user.UserRepository;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -142,7 +145,7 @@ public class CompilationTest {
         existentCompilationPub = Compilation.builder()
                 .title("existentPub")
                 .pinned(false)
-                .events(Set.of(eventPub))
+                .events(new HashSet<>(Set.of(eventPub)))
                 .build();
         existentCompilationPub = compilationRepository.save(existentCompilationPub);
     }
@@ -230,6 +233,26 @@ public class CompilationTest {
         assertThat(actualCompilationDto.getTitle(), is(existentCompilationPub.getTitle()));
     }
 
+    @Test
+    public void pub_get_whenCompilationPatched_thenETagChanged() {
+        AtomicReference<String> eTag = new AtomicReference<>();
+        compilationService.get(existentCompilationPub.getId(), tag -> {
+            eTag.set(tag);
+            return false;
+        });
+        String tagBeforePatch = eTag.get();
+
+        assertThat(compilationService.get(existentCompilationPub.getId(), tagBeforePatch::equals), nullValue());
+
+        compilationService.patch(existentCompilationPub.getId(),
+                UpdateCompilationRequest.builder().title("patched").build());
+        CompilationDto actualCompilationDto = compilationService.get(existentCompilationPub.getId(),
+                tagBeforePatch::equals);
+
+        assertThat(actualCompilationDto, notNullValue());
+        assertThat(actualCompilationDto.getTitle(), is("patched"));
+    }
+
     @Test
     public void pub_get_whenCompilationNotFound_thenThrownException() {
         long wrongId = 66L;
@@ -8,12 +8,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.practicum.event.dto.*;
+import ru.practicum.page.CursorSlice;
 import ru.practicum.page.OffsetPage;
 import ru.practicum.participationrequest.dto.ParticipationRequestDto;
 
@@ -21,19 +23,26 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.function.Predicate;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
-@WebMvcTest(controllers = EventController.class)
+@WebMvcTest(controllers = EventController.class, properties = "ewm.event-import.max-size=2")
 public class EventControllerTest {
     @MockBean
     private EventService eventService;
+    @MockBean
+    private EventImportService eventImportService;
     @Autowired
     private MockMvc mvc;
     @Autowired
@@ -48,7 +57,7 @@ public class EventControllerTest {
     private ParticipationRequestDto participationRequestDto2;
     private EventRequestStatusUpdateRequest requestStatusUpdateRequest;
     private EventRequestStatusUpdateResult requestStatusUpdateResult;
-    private final Sort sort = Sort.by("createdOn").descending();
+    private final Sort sort = Sort.by("createdOn").descending().and(Sort.by("id").descending());
     private final Pageable page = new OffsetPage(0, 10, sort);
     private final long userId = 1L;
     private final String wrongId = "ad";
@@ -159,7 +168,8 @@ public class EventControllerTest {
 
     @Test
     public void getAll_whenSuccessful_thenReturnListOfEventShortDtos() throws Exception {
-        when(eventService.getAll(userId, page)).thenReturn(List.of(eventShortDto1, eventShortDto2));
+        when(eventService.getAll(userId, page, null))
+                .thenReturn(new CursorSlice<>(List.of(eventShortDto1, eventShortDto2), null));
 
         mvc.perform(get("/users/" + userId + "/events")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -168,7 +178,22 @@ public class EventControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.[0].id", is(eventShortDto1.getId()), Long.class))
                 .andExpect(jsonPath("$.[1].id", is(eventShortDto2.getId()), Long.class));
-        verify(eventService, times(1)).getAll(userId, page);
+        verify(eventService, times(1)).getAll(userId, page, null);
+    }
+
+    @Test
+    public void getAll_whenNextPageExists_thenReturnNextCursorHeader() throws Exception {
+        when(eventService.getAll(userId, page, "cursor"))
+                .thenReturn(new CursorSlice<>(List.of(eventShortDto1), "nextCursor"));
+
+        mvc.perform(get("/users/" + userId + "/events?cursor=cursor")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "nextCursor"))
+                .andExpect(jsonPath("$.[0].id", is(eventShortDto1.getId()), Long.class));
+        verify(eventService, times(1)).getAll(userId, page, "cursor");
     }
 
     @Test
@@ -180,7 +205,7 @@ public class EventControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(result -> assertInstanceOf(MethodArgumentTypeMismatchException.class,
                         result.getResolvedException()));
-        verify(eventService, never()).getAll(userId, page);
+        verify(eventService, never()).getAll(userId, page, null);
     }
 
     @Test
@@ -197,6 +222,75 @@ public class EventControllerTest {
         verify(eventService, times(1)).add(userId, newEventDto);
     }
 
+    @Test
+    public void importEvents_whenJsonArray_thenReturnResultPerEvent() throws Exception {
+        when(eventImportService.importEvents(eq(userId), anyList())).thenReturn(List.of(
+                new EventImportResult(0, EventImportStatus.CREATED, eventFullDto.getId(), null),
+                new EventImportResult(1, EventImportStatus.INVALID, null, "Category with id=66 was not found")));
+
+        mvc.perform(post("/users/" + userId + "/events/import")
+                        .content(mapper.writeValueAsString(List.of(newEventDto, newEventDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].status", is(EventImportStatus.CREATED.name())))
+                .andExpect(jsonPath("$.[0].eventId", is(eventFullDto.getId()), Long.class))
+                .andExpect(jsonPath("$.[1].status", is(EventImportStatus.INVALID.name())))
+                .andExpect(jsonPath("$.[1].reason", is("Category with id=66 was not found")));
+        verify(eventImportService, times(1)).importEvents(eq(userId), argThat(events -> events.size() == 2));
+    }
+
+    @Test
+    public void importEvents_whenNdjson_thenReadEventPerLine() throws Exception {
+        when(eventImportService.importEvents(eq(userId), anyList())).thenReturn(List.of(
+                new EventImportResult(0, EventImportStatus.CREATED, 1L, null),
+                new EventImportResult(1, EventImportStatus.CREATED, 2L, null)));
+        String body = mapper.writeValueAsString(newEventDto) + "\n\n" + mapper.writeValueAsString(newEventDto) + "\n";
+
+        mvc.perform(post("/users/" + userId + "/events/import")
+                        .content(body)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType("application/x-ndjson")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[1].eventId", is(2L), Long.class));
+        verify(eventImportService, times(1)).importEvents(eq(userId),
+                argThat(events -> events.size() == 2 && events.get(1).getTitle().equals(newEventDto.getTitle())));
+    }
+
+    @Test
+    public void importEvents_whenNdjsonLineMalformed_thenThrownException() throws Exception {
+        String body = mapper.writeValueAsString(newEventDto) + "\n{\"title\": ";
+
+        mvc.perform(post("/users/" + userId + "/events/import")
+                        .content(body)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType("application/x-ndjson")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertInstanceOf(IllegalArgumentException.class,
+                        result.getResolvedException()));
+        verify(eventImportService, never()).importEvents(anyLong(), anyList());
+    }
+
+    @Test
+    public void importEvents_whenNdjsonExceedsMaxSize_thenStopReadingAndThrownException() throws Exception {
+        String event = mapper.writeValueAsString(newEventDto);
+        // строка после лишнего события не разбирается: ответ про размер, а не про формат
+        String body = event + "\n" + event + "\n" + event + "\n{\"title\": ";
+
+        mvc.perform(post("/users/" + userId + "/events/import")
+                        .content(body)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType("application/x-ndjson")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertThat(result.getResolvedException().getMessage(),
+                        startsWith("Too many events to import")));
+        verify(eventImportService, never()).importEvents(anyLong(), anyList());
+    }
+
     @Test
     public void post_whenEventDateSoonerThan2Hours_thenThrownException() throws Exception {
         newEventDto.setEventDate(LocalDateTime.now().plusHours(1));
@@ -431,7 +525,8 @@ public class EventControllerTest {
 
     @Test
     public void adm_getAll_whenSuccessful_thenReturnListOfEventFullDtos() throws Exception {
-        when(eventService.getAll(adminEventParams)).thenReturn(List.of(eventFullDto1Adm, eventFullDto2Adm));
+        when(eventService.getAll(adminEventParams))
+                .thenReturn(new CursorSlice<>(List.of(eventFullDto1Adm, eventFullDto2Adm), null));
 
         mvc.perform(get("/admin/events")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -485,11 +580,51 @@ public class EventControllerTest {
         verify(eventService, never()).patch(eventFullDto2Adm.getId(), adminRequest);
     }
 
+    @Test
+    public void adm_updateStates_whenSuccessful_thenReturnResultPerEvent() throws Exception {
+        EventStateUpdateRequest updateRequest = new EventStateUpdateRequest(List.of(
+                new EventStateUpdate(eventFullDto2Adm.getId(), StateAdminAction.PUBLISH_EVENT),
+                new EventStateUpdate(66L, StateAdminAction.PUBLISH_EVENT)));
+        when(eventService.updateStates(updateRequest)).thenReturn(List.of(
+                new EventStateUpdateResult(eventFullDto2Adm.getId(), EventStateUpdateStatus.UPDATED, null,
+                        eventFullDto2UpdatedAdm),
+                new EventStateUpdateResult(66L, EventStateUpdateStatus.NOT_FOUND,
+                        "Event with id=66 was not found", null)));
+
+        mvc.perform(patch("/admin/events")
+                        .content(mapper.writeValueAsString(updateRequest))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].eventId", is(eventFullDto2Adm.getId()), Long.class))
+                .andExpect(jsonPath("$.[0].status", is(EventStateUpdateStatus.UPDATED.name())))
+                .andExpect(jsonPath("$.[0].event.state", is(EventState.PUBLISHED.name())))
+                .andExpect(jsonPath("$.[1].status", is(EventStateUpdateStatus.NOT_FOUND.name())))
+                .andExpect(jsonPath("$.[1].reason", is("Event with id=66 was not found")));
+        verify(eventService, times(1)).updateStates(updateRequest);
+    }
+
+    @Test
+    public void adm_updateStates_whenStateActionMissing_thenThrownException() throws Exception {
+        EventStateUpdateRequest updateRequest = new EventStateUpdateRequest(List.of(
+                new EventStateUpdate(eventFullDto2Adm.getId(), null)));
+
+        mvc.perform(patch("/admin/events")
+                        .content(mapper.writeValueAsString(updateRequest))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(eventService, never()).updateStates(any());
+    }
+
 
     @Test
     public void pub_getAll_whenSuccessful_thenReturnListOfEventShortDtos() throws Exception {
-        when(eventService.getAll(publicEventParams, ipAddress, uri))
-                .thenReturn(List.of(eventShortDto1Pub, eventShortDto2Pub));
+        when(eventService.getAll(eq(publicEventParams), eq(ipAddress), eq(uri), any()))
+                .thenReturn(new CursorSlice<>(List.of(eventShortDto1Pub, eventShortDto2Pub), null));
 
         mvc.perform(get("/events?" + "from=" + publicEventParams.getFrom()
                         + "&size=" + publicEventParams.getSize() + "&sort=" + publicEventParams.getSort()
@@ -501,7 +636,7 @@ public class EventControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.[0].id", is(eventShortDto1Pub.getId()), Long.class))
                 .andExpect(jsonPath("$.[1].id", is(eventShortDto2Pub.getId()), Long.class));
-        verify(eventService, times(1)).getAll(publicEventParams, ipAddress, uri);
+        verify(eventService, times(1)).getAll(eq(publicEventParams), eq(ipAddress), eq(uri), any());
     }
 
     @Test
@@ -517,12 +652,99 @@ public class EventControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
                 .andExpect(result -> assertInstanceOf(BindException.class, result.getResolvedException()));
-        verify(eventService, never()).getAll(publicEventParams, ipAddress, uri);
+        verify(eventService, never()).getAll(eq(publicEventParams), eq(ipAddress), eq(uri), any());
+    }
+
+    @Test
+    public void pub_getNearby_whenSuccessful_thenReturnListOfEventShortDtos() throws Exception {
+        NearbyEventParams nearbyEventParams = NearbyEventParams.builder()
+                .lat(55.75)
+                .lon(37.62)
+                .radiusKm(5.0)
+                .categories(List.of(1L))
+                .onlyAvailable(false)
+                .from(0)
+                .size(10)
+                .build();
+        when(eventService.getNearby(eq(nearbyEventParams), eq(ipAddress), eq(uri + "/nearby")))
+                .thenReturn(List.of(eventShortDto2Pub, eventShortDto1Pub));
+
+        mvc.perform(get("/events/nearby?lat=55.75&lon=37.62&radiusKm=5&categories=1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id", is(eventShortDto2Pub.getId()), Long.class))
+                .andExpect(jsonPath("$.[1].id", is(eventShortDto1Pub.getId()), Long.class));
+        verify(eventService, times(1)).getNearby(eq(nearbyEventParams), eq(ipAddress), eq(uri + "/nearby"));
+    }
+
+    @Test
+    public void pub_getNearby_whenRadiusMissingOrTooLarge_thenThrownException() throws Exception {
+        mvc.perform(get("/events/nearby?lat=55.75&lon=37.62")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertInstanceOf(BindException.class, result.getResolvedException()));
+
+        mvc.perform(get("/events/nearby?lat=95&lon=37.62&radiusKm=1000")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertInstanceOf(BindException.class, result.getResolvedException()));
+        verify(eventService, never()).getNearby(any(), anyString(), anyString());
+    }
+
+    @Test
+    public void pub_getTrending_whenSuccessful_thenReturnListOfEventShortDtos() throws Exception {
+        when(eventService.getTrending(0, 2, ipAddress, uri + "/trending"))
+                .thenReturn(List.of(eventShortDto2Pub, eventShortDto1Pub));
+
+        mvc.perform(get("/events/trending?from=0&size=2")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id", is(eventShortDto2Pub.getId()), Long.class))
+                .andExpect(jsonPath("$.[1].id", is(eventShortDto1Pub.getId()), Long.class));
+        verify(eventService, times(1)).getTrending(0, 2, ipAddress, uri + "/trending");
+    }
+
+    @Test
+    public void pub_getTrending_whenViewsStale_thenViewsStaleHeader() throws Exception {
+        when(eventService.getTrending(0, 2, ipAddress, uri + "/trending")).thenAnswer(invocation -> {
+            ViewsStaleAdvice.markCurrentRequest();
+            return List.of(eventShortDto2Pub);
+        });
+
+        mvc.perform(get("/events/trending?from=0&size=2")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ViewsStaleAdvice.VIEWS_STALE_HEADER, "true"));
+    }
+
+    @Test
+    public void pub_getTrending_whenViewsFresh_thenNoViewsStaleHeader() throws Exception {
+        when(eventService.getTrending(0, 2, ipAddress, uri + "/trending")).thenReturn(List.of(eventShortDto2Pub));
+
+        mvc.perform(get("/events/trending?from=0&size=2")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ViewsStaleAdvice.VIEWS_STALE_HEADER));
+    }
+
+    @Test
+    public void pub_getTrending_whenNegativeFrom_thenThrownException() throws Exception {
+        mvc.perform(get("/events/trending?from=-1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(eventService, never()).getTrending(anyInt(), anyInt(), anyString(), anyString());
     }
 
     @Test
     public void pub_get_whenSuccessful_thenReturnEventFullDto() throws Exception {
-        when(eventService.get(eventFullDtoPub.getId(), ipAddress, uri + "/" + eventFullDtoPub.getId()))
+        when(eventService.get(eq(eventFullDtoPub.getId()), eq(ipAddress), eq(uri + "/" + eventFullDtoPub.getId()), any()))
                 .thenReturn(eventFullDtoPub);
 
         mvc.perform(get("/events/" + eventFullDtoPub.getId())
@@ -532,7 +754,30 @@ public class EventControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(eventFullDtoPub.getId()), Long.class));
         verify(eventService, times(1))
-                .get(eventFullDtoPub.getId(), ipAddress, uri + "/" + eventFullDtoPub.getId());
+                .get(eq(eventFullDtoPub.getId()), eq(ipAddress), eq(uri + "/" + eventFullDtoPub.getId()), any());
+    }
+
+    @Test
+    public void pub_get_whenETagMatches_thenNotModified() throws Exception {
+        String eTag = "\"0cc175b9c0f1b6a831c399e269772661\"";
+        when(eventService.get(eq(eventFullDtoPub.getId()), eq(ipAddress), eq(uri + "/" + eventFullDtoPub.getId()), any()))
+                .thenAnswer(invocation -> invocation.<Predicate<String>>getArgument(3).test(eTag) ? null : eventFullDtoPub);
+
+        mvc.perform(get("/events/" + eventFullDtoPub.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        mvc.perform(get("/events/" + eventFullDtoPub.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\"")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(jsonPath("$.id", is(eventFullDtoPub.getId()), Long.class));
     }
 
     @Test
@@ -547,6 +792,6 @@ public class EventControllerTest {
                 .andExpect(result -> assertInstanceOf(MethodArgumentTypeMismatchException.class,
                         result.getResolvedException()));
         verify(eventService, never())
-                .get(any(Long.class), anyString(), anyString());
+                .get(any(Long.class), anyString(), anyString(), any());
     }
 }
@@ -6,18 +6,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import ru.practicum.category.Category;
-import ru.practicum.category.CategoryRepository;
+import ru.practicum.category.CategoryCatalog;
 import ru.practicum.category.dto.CategoryDto;
-import ru.practicum.client.StatClient;
 import ru.practicum.event.dto.*;
 import ru.practicum.exception.ConflictException;
 import ru.practicum.exception.NotFoundException;
+import ru.practicum.page.Cursor;
+import ru.practicum.page.CursorSlice;
 import ru.practicum.page.OffsetPage;
 import ru.practicum.participationrequest.ParticipationRequest;
 import ru.practicum.participationrequest.ParticipationRequestMapper;
@@ -25,7 +28,7 @@ import ru.practicum.participationrequest.ParticipationRequestRepository;
 import ru.practicum.participationrequest.ParticipationRequestStatus;
 import ru.practicum.participationrequest.dto.ParticipationRequestDto;
 import ru.practicum.user.User;
-import ru.practicum.user.UserRepository;
+import ru.practicum.user.UserCatalog;
 import ru.practicum.user.dto.UserShortDto;
 
 import java.time.LocalDateTime;
@@ -33,6 +36,7 @@ import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -41,23 +45,43 @@ public class EventServiceTest {
     @Mock
     private EventRepository eventRepository;
     @Mock
-    private UserRepository userRepository;
+    private UserCatalog userCatalog;
     @Mock
     private EventUtilService eventUtilService;
     @Mock
     private EventMapper eventMapper;
     @Mock
-    private LocationRepository locationRepository;
+    private LocationService locationService;
     @Mock
-    private CategoryRepository categoryRepository;
+    private CategoryCatalog categoryCatalog;
     @Mock
     private ParticipationRequestRepository requestRepository;
     @Mock
     private ParticipationRequestMapper requestMapper;
     @Mock
-    private StatClient statClient;
-    @Mock
     private EventUserRatingRepository eventUserRatingRepository;
+    @Mock
+    private UserRatingRepository userRatingRepository;
+    @Mock
+    private EventEnricher eventEnricher;
+    @Mock
+    private EventViewsService eventViewsService;
+    @Mock
+    private EventTextSearch eventTextSearch;
+    @Mock
+    private ObjectProvider<EventFilterIndex> eventFilterIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private EventRatingService eventRatingService;
+    @Mock
+    private EventDetailsCache eventDetailsCache;
+    @Mock
+    private EventETags eventETags;
+    @Mock
+    private EventQueryCache eventQueryCache;
+    @Mock
+    private TrendingEvents trendingEvents;
     @InjectMocks
     private EventServiceImpl eventService;
 
@@ -90,8 +114,7 @@ public class EventServiceTest {
     private UpdateEventUserRequest updateRequest;
     private EventRequestStatusUpdateRequest updateEventRequest;
     private EventRequestStatusUpdateResult updateEventResult;
-    private final Map<Long, Integer> hitsByEvent = new HashMap<>();
-    private final Map<Long, Long> confirmedRequestCount = new HashMap<>();
+    private EventEnrichment enrichment;
     private final long wrongId = 66L;
 
     private AdminEventParams adminEventParams;
@@ -112,6 +135,10 @@ public class EventServiceTest {
     private Event event3NotPublished;
     private EventShortDto eventShortDto1Pub;
     private EventShortDto eventShortDto2Pub;
+    private EventShortView eventView1;
+    private EventShortView eventView2;
+    private EventShortView eventView1Pub;
+    private EventShortView eventView2Pub;
     private EventFullDto eventFullDtoPub;
 
     private final String uri = "/events";
@@ -191,9 +218,10 @@ public class EventServiceTest {
                 .initiator(userDto)
                 .state(EventState.PENDING)
                 .build();
-        hitsByEvent.put(1L, 1);
-        hitsByEvent.put(2L, 2);
-        confirmedRequestCount.put(1L, 1L);
+        enrichment = new EventEnrichment(2)
+                .putViews(1L, 1)
+                .putViews(2L, 2)
+                .putAggregates(1L, 1L, 0L, 0L);
         eventFullDtoPopulated = eventFullDto1.toBuilder()
                 .views(1)
                 .confirmedRequests(1L)
@@ -333,6 +361,22 @@ public class EventServiceTest {
                 .id(3L)
                 .state(EventState.PENDING)
                 .build();
+        eventView1 = EventShortView.builder()
+                .id(event1.getId())
+                .initiatorId(user.getId())
+                .build();
+        eventView2 = EventShortView.builder()
+                .id(event2.getId())
+                .initiatorId(user.getId())
+                .build();
+        eventView1Pub = EventShortView.builder()
+                .id(event1Pub.getId())
+                .initiatorId(user.getId())
+                .build();
+        eventView2Pub = EventShortView.builder()
+                .id(event2Pub.getId())
+                .initiatorId(user.getId())
+                .build();
         eventShortDto1Pub = EventShortDto.builder()
                 .id(event1Pub.getId())
                 .build();
@@ -355,71 +399,65 @@ public class EventServiceTest {
 
     @Test
     public void getAll_whenSuccessful_thenReturnListOfEventShortDtos() {
-        List<Long> eventIds = List.of(event1.getId(), event2.getId());
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(eventRepository.findAllByInitiatorId(user.getId(), page)).thenReturn(List.of(event1, event2));
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of(1L))).thenReturn(List.of());
-        when(eventUserRatingRepository.findRatingOfEventsByEventIds(List.of(1L, 2L))).thenReturn(List.of());
-        when(eventMapper.convertEventToShortDto(event1,
-                hitsByEvent.getOrDefault(event1.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1.getId(), 0L),
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
+        when(eventRepository.findShortSlice(any(Specification.class), eq(page)))
+                .thenReturn(new SliceImpl<>(List.of(eventView1, eventView2)));
+        when(eventMapper.convertShortViewToShortDto(eventView1,
+                enrichment.getViews(event1.getId()),
+                enrichment.getConfirmedRequests(event1.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto1);
-        when(eventMapper.convertEventToShortDto(event2,
-                hitsByEvent.getOrDefault(event2.getId(), 0),
-                confirmedRequestCount.getOrDefault(event2.getId(), 0L),
+        when(eventMapper.convertShortViewToShortDto(eventView2,
+                enrichment.getViews(event2.getId()),
+                enrichment.getConfirmedRequests(event2.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto2);
-        when(eventUtilService.getHitsByEvent(eventIds)).thenReturn(hitsByEvent);
-        when(eventUtilService.getConfirmedRequestCountById(eventIds)).thenReturn(confirmedRequestCount);
+        when(eventEnricher.enrichShortViews(List.of(eventView1, eventView2))).thenReturn(enrichment);
 
-        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(user.getId(), page);
+        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(user.getId(), page, null).getContent();
 
         assertThat(List.of(eventShortDto1, eventShortDto2), is(actualListOfEventShortDtos));
-        verify(userRepository, times(1)).findById(user.getId());
-        verify(eventRepository, times(1)).findAllByInitiatorId(user.getId(), page);
+        verify(userCatalog, times(1)).findById(user.getId());
+        verify(eventRepository, times(1)).findShortSlice(any(Specification.class), eq(page));
         verify(eventMapper, times(2))
-                .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, times(1)).getHitsByEvent(eventIds);
-        verify(eventUtilService, times(1)).getConfirmedRequestCountById(eventIds);
+                .convertShortViewToShortDto(any(EventShortView.class), anyInt(), anyLong(), anyLong(), anyLong());
+        verify(eventEnricher, times(1)).enrichShortViews(List.of(eventView1, eventView2));
     }
 
     @Test
     public void getAll_whenNoEventsFound_thenReturnEmptyList() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(eventRepository.findAllByInitiatorId(user.getId(), page)).thenReturn(List.of());
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
+        when(eventRepository.findShortSlice(any(Specification.class), eq(page))).thenReturn(new SliceImpl<>(List.of()));
 
-        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(user.getId(), page);
+        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(user.getId(), page, null).getContent();
 
         assertThat(List.of(), is(actualListOfEventShortDtos));
-        verify(userRepository, times(1)).findById(user.getId());
-        verify(eventRepository, times(1)).findAllByInitiatorId(user.getId(), page);
+        verify(userCatalog, times(1)).findById(user.getId());
+        verify(eventRepository, times(1)).findShortSlice(any(Specification.class), eq(page));
         verify(eventMapper, never())
-                .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(any());
-        verify(eventUtilService, never()).getConfirmedRequestCountById(anyList());
+                .convertShortViewToShortDto(any(EventShortView.class), anyInt(), anyLong(), anyLong(), anyLong());
+        verify(eventEnricher, never()).enrichShortViews(anyList());
     }
 
     @Test
     public void getAll_whenUserNotFound_thenThrownException() {
-        when(userRepository.findById(wrongId)).thenReturn(Optional.empty());
+        when(userCatalog.findById(wrongId)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> eventService.getAll(wrongId, page));
+                () -> eventService.getAll(wrongId, page, null));
         assertThat(exception.getMessage(), is("User with id=" + wrongId + " was not found"));
-        verify(userRepository, times(1)).findById(wrongId);
-        verify(eventRepository, never()).findAllByInitiatorId(wrongId, page);
+        verify(userCatalog, times(1)).findById(wrongId);
+        verify(eventRepository, never()).findSlice(any(Specification.class), any(Pageable.class));
         verify(eventMapper, never())
                 .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(any());
-        verify(eventUtilService, never()).getConfirmedRequestCountById(anyList());
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
     public void add_whenSuccessful_thenReturnEventFullDto() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(categoryRepository.findById(category.getId())).thenReturn(Optional.of(category));
-        when(locationRepository.save(locationToSave)).thenReturn(location);
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
+        when(categoryCatalog.findById(category.getId())).thenReturn(Optional.of(category));
+        when(locationService.resolve(newEventDto.getLocation())).thenReturn(location);
         when(eventRepository.save(event1ToSave)).thenReturn(event1);
         when(eventMapper.convertEventToFullDto(event1, 0, 0L,
                 0L, 0L))
@@ -428,9 +466,9 @@ public class EventServiceTest {
         EventFullDto actualEventFullDto = eventService.add(user.getId(), newEventDto);
 
         assertThat(eventFullDto1, is(actualEventFullDto));
-        verify(userRepository, times(1)).findById(user.getId());
-        verify(categoryRepository, times(1)).findById(category.getId());
-        verify(locationRepository, times(1)).save(locationToSave);
+        verify(userCatalog, times(1)).findById(user.getId());
+        verify(categoryCatalog, times(1)).findById(category.getId());
+        verify(locationService, times(1)).resolve(newEventDto.getLocation());
         verify(eventRepository, times(1)).save(event1ToSave);
         verify(eventMapper, times(1)).convertEventToFullDto(event1,0, 0L,
                 0L, 0L);
@@ -438,14 +476,14 @@ public class EventServiceTest {
 
     @Test
     public void add_whenUserNotFound_thenThrowsException() {
-        when(userRepository.findById(wrongId)).thenReturn(Optional.empty());
+        when(userCatalog.findById(wrongId)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> eventService.add(wrongId, newEventDto));
         assertThat(exception.getMessage(), is("User with id=" + wrongId + " was not found"));
-        verify(userRepository, times(1)).findById(wrongId);
-        verify(categoryRepository, never()).findById(anyLong());
-        verify(locationRepository, never()).save(any(Location.class));
+        verify(userCatalog, times(1)).findById(wrongId);
+        verify(categoryCatalog, never()).findById(anyLong());
+        verify(locationService, never()).resolve(any(LocationDto.class));
         verify(eventRepository, never()).save(any(Event.class));
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
@@ -454,16 +492,16 @@ public class EventServiceTest {
     @Test
     public void add_whenCategoryNotFound_thenThrownException() {
         newEventDto.setCategory(wrongId);
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(categoryRepository.findById(wrongId)).thenReturn(Optional.empty());
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
+        when(categoryCatalog.findById(wrongId)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> eventService.add(user.getId(), newEventDto));
         assertThat(exception.getMessage(), is("Category with id="
                 + wrongId + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
-        verify(categoryRepository, times(1)).findById(wrongId);
-        verify(locationRepository, never()).save(any(Location.class));
+        verify(userCatalog, times(1)).findById(user.getId());
+        verify(categoryCatalog, times(1)).findById(wrongId);
+        verify(locationService, never()).resolve(any(LocationDto.class));
         verify(eventRepository, never()).save(any(Event.class));
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
@@ -471,52 +509,46 @@ public class EventServiceTest {
 
     @Test
     public void get_whenSuccessful_thenReturnEventFullDto() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
-        when(eventUserRatingRepository.findUserRatingByUserId(1L)).thenReturn(0L);
         when(eventMapper.convertEventToFullDto(event1,
-                hitsByEvent.getOrDefault(event1.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1.getId(), 0L),
+                enrichment.getViews(event1.getId()),
+                enrichment.getConfirmedRequests(event1.getId()),
                 0L, 0L))
                 .thenReturn(eventFullDtoPopulated);
-        when(eventUtilService.getHitsByEvent(List.of(event1.getId()))).thenReturn(hitsByEvent);
-        when(eventUtilService.getConfirmedRequestCountById(List.of(event1.getId())))
-                .thenReturn(confirmedRequestCount);
+        when(eventEnricher.enrich(List.of(event1))).thenReturn(enrichment);
 
         EventFullDto actualEventFullDto = eventService.get(event1.getId(), user.getId());
 
         assertThat(eventFullDtoPopulated, is(actualEventFullDto));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
         verify(eventMapper, times(1)).convertEventToFullDto(event1,
-                hitsByEvent.getOrDefault(event1.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1.getId(), 0L),
+                enrichment.getViews(event1.getId()),
+                enrichment.getConfirmedRequests(event1.getId()),
                 0L, 0L);
-        verify(eventUtilService, times(1)).getHitsByEvent(List.of(event1.getId()));
-        verify(eventUtilService, times(1))
-                .getConfirmedRequestCountById(List.of(event1.getId()));
+        verify(eventEnricher, times(1)).enrich(List.of(event1));
     }
 
     @Test
     public void get_whenUserNotFound_thenThrownException() {
-        when(userRepository.findById(wrongId)).thenReturn(Optional.empty());
+        when(userCatalog.findById(wrongId)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> eventService.get(wrongId, event1.getId()));
         assertThat(exception.getMessage(), is("User with id=" + wrongId + " was not found"));
-        verify(userRepository, times(1)).findById(wrongId);
+        verify(userCatalog, times(1)).findById(wrongId);
         verify(eventRepository, never()).findByIdAndInitiatorId(event1.getId(), wrongId);
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(anyList());
-        verify(eventUtilService, never()).getConfirmedRequestCountById(anyList());
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
     public void get_whenEventNotFound_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(wrongId, user.getId()))
                 .thenReturn(Optional.empty());
 
@@ -524,21 +556,20 @@ public class EventServiceTest {
                 () -> eventService.get(user.getId(), wrongId));
         assertThat(exception.getMessage(), is("Event with id=" + wrongId
                 + " and initiator id=" + user.getId() + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1)).findByIdAndInitiatorId(wrongId, user.getId());
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(anyList());
-        verify(eventUtilService, never()).getConfirmedRequestCountById(anyList());
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
     public void update_whenSuccessful_thenReturnUpdatedEventFullDto() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
         when(eventRepository.save(event1Updated)).thenReturn(event1Updated);
-        when(eventUserRatingRepository.findUserRatingByUserId(1L)).thenReturn(0L);
+        when(userRatingRepository.findRatingByUserId(1L)).thenReturn(Optional.of(0L));
         when(eventMapper.convertEventToFullDto(event1Updated,0, 0L,
                 0L, 0L))
                 .thenReturn(eventFullDtoUpdated1);
@@ -546,7 +577,7 @@ public class EventServiceTest {
         EventFullDto actualEventFullDto = eventService.update(user.getId(), event1.getId(), updateRequest);
 
         assertThat(eventFullDtoUpdated1, is(actualEventFullDto));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
         verify(eventRepository, times(1)).save(event1Updated);
@@ -556,23 +587,22 @@ public class EventServiceTest {
 
     @Test
     public void update_whenUserNotFound_thenThrownException() {
-        when(userRepository.findById(wrongId)).thenReturn(Optional.empty());
+        when(userCatalog.findById(wrongId)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> eventService.update(wrongId, event1.getId(), updateRequest));
         assertThat(exception.getMessage(), is("User with id=" + wrongId + " was not found"));
-        verify(userRepository, times(1)).findById(wrongId);
+        verify(userCatalog, times(1)).findById(wrongId);
         verify(eventRepository, never()).findByIdAndInitiatorId(event1.getId(), wrongId);
         verify(eventRepository, never()).save(any(Event.class));
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(anyList());
-        verify(eventUtilService, never()).getConfirmedRequestCountById(anyList());
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
     public void update_whenEventNotFound_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(wrongId, user.getId()))
                 .thenReturn(Optional.empty());
 
@@ -580,34 +610,32 @@ public class EventServiceTest {
                 () -> eventService.update(user.getId(), wrongId, updateRequest));
         assertThat(exception.getMessage(), is("Event with id=" + wrongId
                 + " and initiator id=" + user.getId() + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1)).findByIdAndInitiatorId(wrongId, user.getId());
         verify(eventRepository, never()).save(any(Event.class));
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(anyList());
-        verify(eventUtilService, never()).getConfirmedRequestCountById(anyList());
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
     public void update_whenEventPublished_thenThrownException() {
         event1.setState(EventState.PUBLISHED);
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
 
         ConflictException exception = assertThrows(ConflictException.class,
                 () -> eventService.update(user.getId(), event1.getId(), updateRequest));
         assertThat(exception.getMessage(), is("Only pending or canceled events can be changed"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
         verify(eventRepository, never()).save(any(Event.class));
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(anyList());
-        verify(eventUtilService, never()).getConfirmedRequestCountById(anyList());
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
@@ -618,11 +646,11 @@ public class EventServiceTest {
         eventFullDtoUpdated1.setState(EventState.CANCELED);
         eventFullDtoUpdatedPopulated1.setState(EventState.CANCELED);
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
         when(eventRepository.save(event1Updated)).thenReturn(event1Updated);
-        when(eventUserRatingRepository.findUserRatingByUserId(1L)).thenReturn(0L);
+        when(userRatingRepository.findRatingByUserId(1L)).thenReturn(Optional.of(0L));
         when(eventMapper.convertEventToFullDto(event1Updated,0, 0L,
                 0L, 0L))
                 .thenReturn(eventFullDtoUpdated1);
@@ -630,7 +658,7 @@ public class EventServiceTest {
         EventFullDto actualEventFullDto = eventService.update(user.getId(), event1.getId(), updateRequest);
 
         assertThat(eventFullDtoUpdated1, is(actualEventFullDto));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
         verify(eventRepository, times(1)).save(event1Updated);
@@ -645,11 +673,11 @@ public class EventServiceTest {
         eventFullDtoUpdated1.setState(EventState.PENDING);
         eventFullDtoUpdatedPopulated1.setState(EventState.PENDING);
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
         when(eventRepository.save(event1Updated)).thenReturn(event1Updated);
-        when(eventUserRatingRepository.findUserRatingByUserId(1L)).thenReturn(0L);
+        when(userRatingRepository.findRatingByUserId(1L)).thenReturn(Optional.of(0L));
         when(eventMapper.convertEventToFullDto(event1Updated, 0,0L,
                 0L, 0L))
                 .thenReturn(eventFullDtoUpdated1);
@@ -657,7 +685,7 @@ public class EventServiceTest {
         EventFullDto actualEventFullDto = eventService.update(user.getId(), event1.getId(), updateRequest);
 
         assertThat(eventFullDtoUpdated1, is(actualEventFullDto));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
         verify(eventRepository, times(1)).save(event1Updated);
@@ -669,29 +697,28 @@ public class EventServiceTest {
     public void update_whenUpdateToNotFoundCategory_thenThrownException() {
         updateRequest.setCategory(wrongId);
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
-        when(categoryRepository.findById(wrongId)).thenReturn(Optional.empty());
+        when(categoryCatalog.findById(wrongId)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> eventService.update(user.getId(), event1.getId(), updateRequest));
         assertThat(exception.getMessage(), is("Category with id="
                 + wrongId + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
-        verify(categoryRepository, times(1)).findById(wrongId);
+        verify(categoryCatalog, times(1)).findById(wrongId);
         verify(eventRepository, never()).save(any(Event.class));
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(anyList());
-        verify(eventUtilService, never()).getConfirmedRequestCountById(anyList());
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
     public void getRequests_whenSuccessful_thenReturnListOfParticipationRequestDtos() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
         when(requestRepository.findAllByEventIdAndEventInitiatorId(event1.getId(), user.getId()))
@@ -704,7 +731,7 @@ public class EventServiceTest {
 
         assertThat(List.of(participationRequestDto1, participationRequestDto2),
                 is(actualListOfParticipationRequestDtos));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
         verify(requestRepository, times(1))
@@ -715,12 +742,12 @@ public class EventServiceTest {
 
     @Test
     public void getRequests_whenUserNotFound_thenThrownException() {
-        when(userRepository.findById(wrongId)).thenReturn(Optional.empty());
+        when(userCatalog.findById(wrongId)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> eventService.getRequests(wrongId, event1.getId()));
         assertThat(exception.getMessage(), is("User with id=" + wrongId + " was not found"));
-        verify(userRepository, times(1)).findById(wrongId);
+        verify(userCatalog, times(1)).findById(wrongId);
         verify(eventRepository, never())
                 .findByIdAndInitiatorId(event1.getId(), wrongId);
         verify(requestRepository, never())
@@ -731,7 +758,7 @@ public class EventServiceTest {
 
     @Test
     public void getRequests_whenEventNotFound_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(wrongId, user.getId()))
                 .thenReturn(Optional.empty());
 
@@ -739,7 +766,7 @@ public class EventServiceTest {
                 () -> eventService.getRequests(user.getId(), wrongId));
         assertThat(exception.getMessage(), is("Event with id=" + wrongId
                 + " and initiator id=" + user.getId() + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(wrongId, user.getId());
         verify(requestRepository, never())
@@ -752,13 +779,12 @@ public class EventServiceTest {
     public void updateRequests_whenAllConfirmed_thenReturnEventRequestStatusUpdateResult() {
         updateEventResult
                 .setConfirmedRequests(List.of(participationRequestDtoUpdated1, participationRequestDtoUpdated2));
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
         when(requestRepository.findAllByIdIn(updateEventRequest.getRequestIds()))
                 .thenReturn(List.of(participationRequest1, participationRequest2));
-        when(requestRepository.findAllByEventIdAndStatus(event1.getId(), ParticipationRequestStatus.CONFIRMED))
-                .thenReturn(List.of());
+        when(eventRepository.incrementConfirmedRequests(event1.getId(), 2)).thenReturn(1);
         when(requestRepository.saveAll(List.of(participationRequestUpdated1, participationRequestUpdated2)))
                 .thenReturn(List.of(participationRequestUpdated1, participationRequestUpdated2));
         when(requestMapper.convertParticipationRequest(participationRequestUpdated1))
@@ -773,12 +799,11 @@ public class EventServiceTest {
         assertThat(actualResult.getConfirmedRequests().size(), is(2));
         assertThat(actualResult.getConfirmedRequests().get(0).getStatus(),
                 is(ParticipationRequestStatus.CONFIRMED.name()));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
         verify(requestRepository, times(1)).findAllByIdIn(updateEventRequest.getRequestIds());
-        verify(requestRepository, times(1))
-                .findAllByEventIdAndStatus(event1.getId(), ParticipationRequestStatus.CONFIRMED);
+        verify(eventRepository, times(1)).incrementConfirmedRequests(event1.getId(), 2);
         verify(requestRepository, times(1))
                 .saveAll(List.of(participationRequestUpdated1, participationRequestUpdated2));
         verify(requestMapper, times(2))
@@ -792,7 +817,7 @@ public class EventServiceTest {
         updateEventRequest.setStatus(RequestUpdateAction.REJECTED);
         updateEventResult
                 .setRejectedRequests(List.of(participationRequestDtoUpdated1, participationRequestDtoUpdated2));
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
         when(requestRepository.findAllByIdIn(updateEventRequest.getRequestIds()))
@@ -811,7 +836,7 @@ public class EventServiceTest {
         assertThat(actualResult.getRejectedRequests().size(), is(2));
         assertThat(actualResult.getRejectedRequests().get(0).getStatus(),
                 is(ParticipationRequestStatus.REJECTED.name()));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
         verify(requestRepository, times(1)).findAllByIdIn(updateEventRequest.getRequestIds());
@@ -830,13 +855,13 @@ public class EventServiceTest {
                 .setRejectedRequests(List.of(participationRequestDtoUpdated2));
         updateEventResult
                 .setConfirmedRequests(List.of(participationRequestDtoUpdated1));
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event2.getId(), user.getId()))
                 .thenReturn(Optional.of(event2));
         when(requestRepository.findAllByIdIn(updateEventRequest.getRequestIds()))
                 .thenReturn(List.of(participationRequest1, participationRequest2));
-        when(requestRepository.findAllByEventIdAndStatus(event2.getId(), ParticipationRequestStatus.CONFIRMED))
-                .thenReturn(List.of(participationRequest1));
+        event2.setConfirmedRequests(1);
+        when(eventRepository.incrementConfirmedRequests(event2.getId(), 1)).thenReturn(1);
         when(requestRepository.saveAll(List.of(participationRequestUpdated1)))
                 .thenReturn(List.of(participationRequestUpdated1));
         when(requestRepository.saveAll(List.of(participationRequestUpdated2)))
@@ -856,10 +881,11 @@ public class EventServiceTest {
         assertThat(actualResult.getConfirmedRequests().size(), is(1));
         assertThat(actualResult.getConfirmedRequests().get(0).getStatus(),
                 is(ParticipationRequestStatus.CONFIRMED.name()));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event2.getId(), user.getId());
         verify(requestRepository, times(1)).findAllByIdIn(updateEventRequest.getRequestIds());
+        verify(eventRepository, times(1)).incrementConfirmedRequests(event2.getId(), 1);
         verify(requestRepository, times(1))
                 .saveAll(List.of(participationRequestUpdated1));
         verify(requestRepository, times(1))
@@ -871,7 +897,7 @@ public class EventServiceTest {
     @Test
     public void updateRequest_whenRequestHasStatusOtherThanPending_thenThrownException() {
         participationRequest1.setStatus(ParticipationRequestStatus.CONFIRMED);
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(event1.getId(), user.getId()))
                 .thenReturn(Optional.of(event1));
         when(requestRepository.findAllByIdIn(updateEventRequest.getRequestIds()))
@@ -880,12 +906,11 @@ public class EventServiceTest {
         ConflictException exception = assertThrows(ConflictException.class,
                 () -> eventService.updateRequests(user.getId(), event1.getId(), updateEventRequest));
         assertThat(exception.getMessage(), is("Not all requests are in PENDING status"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1))
                 .findByIdAndInitiatorId(event1.getId(), user.getId());
         verify(requestRepository, times(1)).findAllByIdIn(updateEventRequest.getRequestIds());
-        verify(requestRepository, never())
-                .findAllByEventIdAndStatus(event1.getId(), ParticipationRequestStatus.CONFIRMED);
+        verify(eventRepository, never()).incrementConfirmedRequests(anyLong(), anyLong());
         verify(requestRepository, never()).saveAll(anyList());
         verify(requestMapper, never())
                 .convertParticipationRequest(any(ParticipationRequest.class));
@@ -893,23 +918,22 @@ public class EventServiceTest {
 
     @Test
     public void updateRequests_whenUserNotFound_thenThrownException() {
-        when(userRepository.findById(wrongId)).thenReturn(Optional.empty());
+        when(userCatalog.findById(wrongId)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> eventService.updateRequests(wrongId, event1.getId(), updateEventRequest));
         assertThat(exception.getMessage(), is("User with id=" + wrongId + " was not found"));
-        verify(userRepository, times(1)).findById(wrongId);
+        verify(userCatalog, times(1)).findById(wrongId);
         verify(eventRepository, never()).findByIdAndInitiatorId(event1.getId(), wrongId);
         verify(requestRepository, never()).findAllByIdIn(updateEventRequest.getRequestIds());
-        verify(requestRepository, never())
-                .findAllByEventIdAndStatus(event1.getId(), ParticipationRequestStatus.CONFIRMED);
+        verify(eventRepository, never()).incrementConfirmedRequests(anyLong(), anyLong());
         verify(requestRepository, never()).saveAll(anyList());
         verify(requestMapper, never()).convertParticipationRequest(any(ParticipationRequest.class));
     }
 
     @Test
     public void updateRequests_whenEventNotFound_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findByIdAndInitiatorId(wrongId, user.getId()))
                 .thenReturn(Optional.empty());
 
@@ -917,11 +941,10 @@ public class EventServiceTest {
                 () -> eventService.updateRequests(user.getId(), wrongId, updateEventRequest));
         assertThat(exception.getMessage(), is("Event with id=" + wrongId
                 + " and initiator id=" + user.getId() + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, never()).findByIdAndInitiatorId(event1.getId(), wrongId);
         verify(requestRepository, never()).findAllByIdIn(updateEventRequest.getRequestIds());
-        verify(requestRepository, never())
-                .findAllByEventIdAndStatus(event1.getId(), ParticipationRequestStatus.CONFIRMED);
+        verify(eventRepository, never()).incrementConfirmedRequests(anyLong(), anyLong());
         verify(requestRepository, never()).saveAll(anyList());
         verify(requestMapper, never()).convertParticipationRequest(any(ParticipationRequest.class));
     }
@@ -931,50 +954,85 @@ public class EventServiceTest {
     public void adm_getAll_whenSuccessful_thenReturnListOfEventFullDtos() {
         event1Adm.setInitiator(user);
         event2Adm.setInitiator(user);
-        List<Long> eventIds = List.of(event1Adm.getId(), event2Adm.getId());
-        when(eventRepository.findAll(any(Specification.class), any(PageRequest.class)))
-                .thenReturn(new PageImpl<>(List.of(event1Adm, event2Adm)));
-        when(eventUtilService.getHitsByEvent(eventIds)).thenReturn(hitsByEvent);
-        when(eventUtilService.getConfirmedRequestCountById(eventIds)).thenReturn(confirmedRequestCount);
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of(1L))).thenReturn(List.of());
-        when(eventUserRatingRepository.findRatingOfEventsByEventIds(List.of(1L, 2L))).thenReturn(List.of());
-        when(eventMapper.convertEventToFullDto(event1Adm, hitsByEvent.getOrDefault(event1Adm.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1Adm.getId(), 0L),
+        when(eventRepository.findSlice(any(Specification.class), any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(List.of(event1Adm, event2Adm)));
+        when(eventEnricher.enrich(List.of(event1Adm, event2Adm))).thenReturn(enrichment);
+        when(eventMapper.convertEventToFullDto(event1Adm, enrichment.getViews(event1Adm.getId()),
+                enrichment.getConfirmedRequests(event1Adm.getId()),
                 0L, 0L))
                 .thenReturn(eventFullDto1Adm);
-        when(eventMapper.convertEventToFullDto(event2Adm, hitsByEvent.getOrDefault(event2Adm.getId(), 0),
-                confirmedRequestCount.getOrDefault(event2Adm.getId(), 0L),
+        when(eventMapper.convertEventToFullDto(event2Adm, enrichment.getViews(event2Adm.getId()),
+                enrichment.getConfirmedRequests(event2Adm.getId()),
                 0L, 0L))
                 .thenReturn(eventFullDto2Adm);
 
-        List<EventFullDto> actualListOfEventFullDto = eventService.getAll(adminEventParams);
+        List<EventFullDto> actualListOfEventFullDto = eventService.getAll(adminEventParams).getContent();
 
         assertThat(List.of(eventFullDto1Adm, eventFullDto2Adm), is(actualListOfEventFullDto));
         verify(eventRepository, times(1))
-                .findAll(any(Specification.class), any(PageRequest.class));
-        verify(eventUtilService, times(1)).getHitsByEvent(eventIds);
-        verify(eventUtilService, times(1)).getConfirmedRequestCountById(eventIds);
+                .findSlice(any(Specification.class), any(PageRequest.class));
+        verify(eventEnricher, times(1)).enrich(List.of(event1Adm, event2Adm));
         verify(eventMapper, times(2))
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
     }
 
     @Test
     public void adm_getAll_whenNoneEventFound_thenReturnEmptyList() {
-        List<Long> eventIds = List.of();
-        when(eventRepository.findAll(any(Specification.class), any(PageRequest.class)))
-                .thenReturn(new PageImpl<>(List.of()));
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of())).thenReturn(List.of());
-        List<EventFullDto> actualListOfEventFullDto = eventService.getAll(adminEventParams);
+        when(eventRepository.findSlice(any(Specification.class), any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+        List<EventFullDto> actualListOfEventFullDto = eventService.getAll(adminEventParams).getContent();
 
         assertThat(List.of(), is(actualListOfEventFullDto));
         verify(eventRepository, times(1))
-                .findAll(any(Specification.class), any(PageRequest.class));
-        verify(eventUtilService, never()).getHitsByEvent(eventIds);
-        verify(eventUtilService, never()).getConfirmedRequestCountById(eventIds);
+                .findSlice(any(Specification.class), any(PageRequest.class));
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
     }
 
+    @Test
+    public void adm_updateStates_whenPendingAndMissingEvents_thenPublishPendingAndReportMissing() {
+        long wrongId = 66L;
+        EventStateUpdateRequest updateRequest = new EventStateUpdateRequest(List.of(
+                new EventStateUpdate(event1Adm.getId(), StateAdminAction.PUBLISH_EVENT),
+                new EventStateUpdate(wrongId, StateAdminAction.REJECT_EVENT)));
+        when(eventRepository.findStatesByIdIn(Set.of(event1Adm.getId(), wrongId)))
+                .thenReturn(List.of(stateView(event1Adm.getId(), EventState.PENDING)));
+        when(eventRepository.publishPending(eq(Set.of(event1Adm.getId())), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(eventRepository.findAllByIdIn(List.of(event1Adm.getId()))).thenReturn(List.of(event1Adm));
+        when(eventEnricher.enrich(List.of(event1Adm))).thenReturn(enrichment);
+        when(eventMapper.convertEventToFullDto(event1Adm, enrichment.getViews(event1Adm.getId()),
+                enrichment.getConfirmedRequests(event1Adm.getId()), 0L, 0L))
+                .thenReturn(eventFullDto1Adm);
+
+        List<EventStateUpdateResult> actualResults = eventService.updateStates(updateRequest);
+
+        assertThat(actualResults, is(List.of(
+                new EventStateUpdateResult(event1Adm.getId(), EventStateUpdateStatus.UPDATED, null,
+                        eventFullDto1Adm),
+                new EventStateUpdateResult(wrongId, EventStateUpdateStatus.NOT_FOUND,
+                        "Event with id=" + wrongId + " was not found", null))));
+        verify(eventRepository, never()).rejectPending(anyCollection());
+        verify(eventEnricher, times(1)).enrich(List.of(event1Adm));
+        verify(eventPublisher, times(1)).publishEvent(any(EventChangedEvent.class));
+    }
+
+    @Test
+    public void adm_updateStates_whenEventChangedConcurrently_thenThrownException() {
+        EventStateUpdateRequest updateRequest = new EventStateUpdateRequest(List.of(
+                new EventStateUpdate(event1Adm.getId(), StateAdminAction.REJECT_EVENT)));
+        when(eventRepository.findStatesByIdIn(Set.of(event1Adm.getId())))
+                .thenReturn(List.of(stateView(event1Adm.getId(), EventState.PENDING)));
+        when(eventRepository.rejectPending(Set.of(event1Adm.getId()))).thenReturn(0);
+
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> eventService.updateStates(updateRequest));
+
+        assertThat(exception.getMessage(), is("Events were modified concurrently, repeat the request"));
+        verify(eventRepository, never()).findAllByIdIn(anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     public void adm_patch_whenSuccessfulRejectRequest_thenReturnUpdatedEventFullDto() {
         eventFullDto1UpdatedAdm.setViews(0);
@@ -982,8 +1040,7 @@ public class EventServiceTest {
 
         when(eventRepository.findById(event1Adm.getId())).thenReturn(Optional.of(event1Adm));
         when(eventRepository.save(event1UpdatedAdm)).thenReturn(event1UpdatedAdm);
-        when(eventUserRatingRepository.findEventRatingByEventId(1L)).thenReturn(0L);
-        when(eventUserRatingRepository.findUserRatingByUserId(1L)).thenReturn(0L);
+        when(userRatingRepository.findRatingByUserId(1L)).thenReturn(Optional.of(0L));
         when(eventMapper.convertEventToFullDto(event1UpdatedAdm,0, 0L,
                 0L, 0L))
                 .thenReturn(eventFullDto1ToUpdateAdm);
@@ -1009,9 +1066,7 @@ public class EventServiceTest {
         verify(eventRepository, times(1)).findById(event2Adm.getId());
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(List.of(event2Adm.getId()));
-        verify(eventUtilService, never())
-                .getConfirmedRequestCountById(List.of(event2Adm.getId()));
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
@@ -1025,90 +1080,166 @@ public class EventServiceTest {
         verify(eventRepository, times(1)).findById(event2Adm.getId());
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(eventUtilService, never()).getHitsByEvent(List.of(event2Adm.getId()));
-        verify(eventUtilService, never())
-                .getConfirmedRequestCountById(List.of(event2Adm.getId()));
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
     public void pub_getAll_whenSortByViews_thenReturnListOfEventShortDto() {
-        List<Long> eventIds = List.of(event1Pub.getId(), event2Pub.getId());
         event1Pub.setInitiator(user);
         event2Pub.setInitiator(user);
         publicEventParams.setSort("VIEWS");
 
-        doNothing().when(statClient)
-                .hits(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
-        when(eventRepository.findAll(any(Specification.class))).thenReturn(List.of(event1Pub, event2Pub));
-        when(eventUtilService.getHitsByEvent(eventIds)).thenReturn(hitsByEvent);
-        when(eventUtilService.getConfirmedRequestCountById(eventIds)).thenReturn(confirmedRequestCount);
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of(1L))).thenReturn(List.of());
-        when(eventUserRatingRepository.findRatingOfEventsByEventIds(List.of(1L, 2L))).thenReturn(List.of());
-        when(eventMapper.convertEventToShortDto(event1Pub,
-                hitsByEvent.getOrDefault(event1Pub.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1Pub.getId(), 0L),
+        doNothing().when(eventUtilService)
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+        when(eventRepository.findShortSlice(any(Specification.class), any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(List.of(eventView1Pub, eventView2Pub)));
+        when(eventEnricher.enrichShortViews(List.of(eventView1Pub, eventView2Pub))).thenReturn(enrichment);
+        when(eventMapper.convertShortViewToShortDto(eventView1Pub,
+                enrichment.getViews(event1Pub.getId()),
+                enrichment.getConfirmedRequests(event1Pub.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto1Pub);
-        when(eventMapper.convertEventToShortDto(event2Pub,
-                hitsByEvent.getOrDefault(event2Pub.getId(), 0),
-                confirmedRequestCount.getOrDefault(event2Pub.getId(), 0L),
+        when(eventMapper.convertShortViewToShortDto(eventView2Pub,
+                enrichment.getViews(event2Pub.getId()),
+                enrichment.getConfirmedRequests(event2Pub.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto2Pub);
 
-        List<EventShortDto> actualEventShortDtos = eventService.getAll(publicEventParams, uri, ipAddress);
+        List<EventShortDto> actualEventShortDtos = eventService.getAll(publicEventParams, uri, ipAddress).getContent();
 
         assertThat(List.of(eventShortDto1Pub, eventShortDto2Pub), is(actualEventShortDtos));
-        verify(statClient, times(1))
-                .hits(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
-        verify(eventRepository, times(1)).findAll(any(Specification.class));
-        verify(eventUtilService, times(1))
-                .getHitsByEvent(eventIds);
         verify(eventUtilService, times(1))
-                .getConfirmedRequestCountById(eventIds);
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+        verify(eventRepository, times(1)).findShortSlice(any(Specification.class),
+                argThat((PageRequest page) -> page.getSort().getOrderFor("views").isDescending()));
+        verify(eventEnricher, times(1)).enrichShortViews(List.of(eventView1Pub, eventView2Pub));
         verify(eventMapper, times(2))
-                .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
+                .convertShortViewToShortDto(any(EventShortView.class), anyInt(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void pub_getAll_whenCursorWithSortByViews_thenThrownException() {
+        publicEventParams.setSort("VIEWS");
+        publicEventParams.setCursor(new Cursor(LocalDateTime.now(), 1L).encode());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> eventService.getAll(publicEventParams, uri, ipAddress));
+        assertThat(exception.getMessage(), is("Cursor is supported only for sort=EVENT_DATE"));
+        verify(eventRepository, never()).findSlice(any(Specification.class), any(Pageable.class));
     }
 
     @Test
     public void pub_getAll_whenSortByDate_thenReturnListOfEventShortDto() {
-        List<Long> eventIds = List.of(event1Pub.getId(), event2Pub.getId());
         event1Pub.setInitiator(user);
         event2Pub.setInitiator(user);
 
-        doNothing().when(statClient)
-                .hits(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
-        when(eventRepository.findAll(any(Specification.class), any(PageRequest.class)))
-                .thenReturn(new PageImpl<>(List.of(event1Pub, event2Pub)));
-        when(eventUtilService.getHitsByEvent(eventIds))
-                .thenReturn(hitsByEvent);
-        when(eventUtilService.getConfirmedRequestCountById(eventIds))
-                .thenReturn(confirmedRequestCount);
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of(1L))).thenReturn(List.of());
-        when(eventUserRatingRepository.findRatingOfEventsByEventIds(List.of(1L, 2L))).thenReturn(List.of());
-        when(eventMapper.convertEventToShortDto(event1Pub,
-                hitsByEvent.getOrDefault(event1Pub.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1Pub.getId(), 0L),
+        doNothing().when(eventUtilService)
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+        when(eventRepository.findShortSlice(any(Specification.class), any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(List.of(eventView1Pub, eventView2Pub)));
+        when(eventEnricher.enrichShortViews(List.of(eventView1Pub, eventView2Pub))).thenReturn(enrichment);
+        when(eventMapper.convertShortViewToShortDto(eventView1Pub,
+                enrichment.getViews(event1Pub.getId()),
+                enrichment.getConfirmedRequests(event1Pub.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto1Pub);
-        when(eventMapper.convertEventToShortDto(event2Pub,
-                hitsByEvent.getOrDefault(event2Pub.getId(), 0),
-                confirmedRequestCount.getOrDefault(event2Pub.getId(), 0L),
+        when(eventMapper.convertShortViewToShortDto(eventView2Pub,
+                enrichment.getViews(event2Pub.getId()),
+                enrichment.getConfirmedRequests(event2Pub.getId()),
                 0L, 0L))
                 .thenReturn(eventShortDto2Pub);
 
-        List<EventShortDto> actualEventShortDtos = eventService.getAll(publicEventParams, uri, ipAddress);
+        List<EventShortDto> actualEventShortDtos = eventService.getAll(publicEventParams, uri, ipAddress).getContent();
 
         assertThat(List.of(eventShortDto1Pub, eventShortDto2Pub), is(actualEventShortDtos));
-        verify(statClient, times(1))
-                .hits(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+        verify(eventUtilService, times(1))
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
         verify(eventRepository, times(1))
-                .findAll(any(Specification.class), any(PageRequest.class));
+                .findShortSlice(any(Specification.class), any(PageRequest.class));
+        verify(eventEnricher, times(1)).enrichShortViews(List.of(eventView1Pub, eventView2Pub));
+        verify(eventMapper, times(2))
+                .convertShortViewToShortDto(any(EventShortView.class), anyInt(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void pub_getAll_whenQueryCached_thenEventsLoadedByIdsWithoutSearch() {
+        EventQueryCache.Key key = new EventQueryCache.Key(null, List.of(), false, null, null, false,
+                "EVENT_DATE", 0, 10);
+        when(eventQueryCache.key(publicEventParams)).thenReturn(key);
+        when(eventQueryCache.get(key)).thenReturn(new CursorSlice<>(List.of(event1Pub.getId()), null));
+        when(eventRepository.findPublishedShortViewsByIdIn(List.of(event1Pub.getId())))
+                .thenReturn(List.of(eventView1Pub));
+        when(eventEnricher.enrichShortViews(List.of(eventView1Pub))).thenReturn(enrichment);
+        when(eventMapper.convertShortViewToShortDto(eventView1Pub,
+                enrichment.getViews(event1Pub.getId()),
+                enrichment.getConfirmedRequests(event1Pub.getId()),
+                0L, 0L))
+                .thenReturn(eventShortDto1Pub);
+
+        List<EventShortDto> actualEventShortDtos = eventService.getAll(publicEventParams, uri, ipAddress).getContent();
+
+        assertThat(actualEventShortDtos, is(List.of(eventShortDto1Pub)));
+        verify(eventRepository, never()).findShortSlice(any(Specification.class), any(Pageable.class));
+        verify(eventQueryCache, never()).put(any(), anyList(), any(), anyLong());
+    }
+
+    @Test
+    public void pub_getNearby_whenPointsInCells_thenReturnEventsInRadiusByDistance() {
+        NearbyEventParams nearbyEventParams = NearbyEventParams.builder()
+                .lat(55.75)
+                .lon(37.62)
+                .radiusKm(5.0)
+                .onlyAvailable(false)
+                .from(0)
+                .size(10)
+                .build();
+        when(eventRepository.findPoints(any(Specification.class))).thenReturn(List.of(
+                new EventPoint(event1Pub.getId(), 55.77f, 37.62f),
+                new EventPoint(event2Pub.getId(), 55.755f, 37.62f),
+                new EventPoint(99L, 55.75f, 37.71f)));
+        when(eventRepository.findPublishedShortViewsByIdIn(List.of(event2Pub.getId(), event1Pub.getId())))
+                .thenReturn(List.of(eventView1Pub, eventView2Pub));
+        when(eventEnricher.enrichShortViews(List.of(eventView2Pub, eventView1Pub))).thenReturn(enrichment);
+        when(eventMapper.convertShortViewToShortDto(eventView1Pub,
+                enrichment.getViews(event1Pub.getId()),
+                enrichment.getConfirmedRequests(event1Pub.getId()),
+                0L, 0L))
+                .thenReturn(eventShortDto1Pub);
+        when(eventMapper.convertShortViewToShortDto(eventView2Pub,
+                enrichment.getViews(event2Pub.getId()),
+                enrichment.getConfirmedRequests(event2Pub.getId()),
+                0L, 0L))
+                .thenReturn(eventShortDto2Pub);
+
+        List<EventShortDto> actualEventShortDtos = eventService.getNearby(nearbyEventParams, ipAddress, uri);
+
+        assertThat(actualEventShortDtos, is(List.of(eventShortDto2Pub, eventShortDto1Pub)));
         verify(eventUtilService, times(1))
-                .getHitsByEvent(eventIds);
+                .saveHit(any(String.class), eq(uri), eq(ipAddress), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void pub_getTrending_whenRankingMaterialized_thenReturnPageInRankingOrder() {
+        when(trendingEvents.findPage(0, 2)).thenReturn(List.of(event2Pub.getId(), event1Pub.getId()));
+        when(eventRepository.findPublishedShortViewsByIdIn(List.of(event2Pub.getId(), event1Pub.getId())))
+                .thenReturn(List.of(eventView1Pub, eventView2Pub));
+        when(eventEnricher.enrichShortViews(List.of(eventView2Pub, eventView1Pub))).thenReturn(enrichment);
+        when(eventMapper.convertShortViewToShortDto(eventView1Pub,
+                enrichment.getViews(event1Pub.getId()),
+                enrichment.getConfirmedRequests(event1Pub.getId()),
+                0L, 0L))
+                .thenReturn(eventShortDto1Pub);
+        when(eventMapper.convertShortViewToShortDto(eventView2Pub,
+                enrichment.getViews(event2Pub.getId()),
+                enrichment.getConfirmedRequests(event2Pub.getId()),
+                0L, 0L))
+                .thenReturn(eventShortDto2Pub);
+
+        List<EventShortDto> actualEventShortDtos = eventService.getTrending(0, 2, ipAddress, uri);
+
+        assertThat(actualEventShortDtos, is(List.of(eventShortDto2Pub, eventShortDto1Pub)));
         verify(eventUtilService, times(1))
-                .getConfirmedRequestCountById(eventIds);
-        verify(eventMapper, times(2))
-                .convertEventToShortDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
+                .saveHit(any(String.class), eq(uri), eq(ipAddress), any(LocalDateTime.class));
     }
 
     @Test
@@ -1117,20 +1248,14 @@ public class EventServiceTest {
 
         when(eventRepository.findByIdAndState(event1Pub.getId(), EventState.PUBLISHED))
                 .thenReturn(Optional.of(event1Pub));
-        when(eventUserRatingRepository.findUserRatingByUserId(1L)).thenReturn(0L);
-        when(eventUserRatingRepository.findEventRatingByEventId(1L)).thenReturn(0L);
         when(eventMapper.convertEventToFullDto(event1Pub,
-                hitsByEvent.getOrDefault(event1Pub.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1Pub.getId(), 0L),
+                enrichment.getViews(event1Pub.getId()),
+                enrichment.getConfirmedRequests(event1Pub.getId()),
                 0L,0L))
                 .thenReturn(eventFullDtoPub);
-        doNothing().when(statClient)
-                .hits(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
-        when(eventUtilService.getHitsByEvent(List.of(event1Pub.getId())))
-                .thenReturn(hitsByEvent);
-        when(eventUtilService
-                .getConfirmedRequestCountById(List.of(event1Pub.getId())))
-                .thenReturn(confirmedRequestCount);
+        doNothing().when(eventUtilService)
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+        when(eventEnricher.enrich(List.of(event1Pub))).thenReturn(enrichment);
 
         EventFullDto actualEventFullDto = eventService.get(event1Pub.getId(), uri, ipAddress);
 
@@ -1138,15 +1263,85 @@ public class EventServiceTest {
         verify(eventRepository, times(1))
                 .findByIdAndState(event1Pub.getId(), EventState.PUBLISHED);
         verify(eventMapper, times(1)).convertEventToFullDto(event1,
-                hitsByEvent.getOrDefault(event1Pub.getId(), 0),
-                confirmedRequestCount.getOrDefault(event1Pub.getId(), 0L),
+                enrichment.getViews(event1Pub.getId()),
+                enrichment.getConfirmedRequests(event1Pub.getId()),
                 0L, 0L);
-        verify(statClient, times(1))
-                .hits(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
         verify(eventUtilService, times(1))
-                .getHitsByEvent(List.of(event1Pub.getId()));
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+        verify(eventEnricher, times(1)).enrich(List.of(event1Pub));
+    }
+
+    @Test
+    public void pub_get_whenCached_thenCountersOverlaidWithoutLoadingEvent() {
+        eventFullDtoPub.setInitiator(UserShortDto.builder().id(user.getId()).name(user.getName()).build());
+        EventEnrichment freshEnrichment = new EventEnrichment(1)
+                .putViews(event1Pub.getId(), 7)
+                .putAggregates(event1Pub.getId(), 3L, 2L, 5L);
+        when(eventDetailsCache.get(event1Pub.getId()))
+                .thenReturn(new EventDetailsCache.Entry(eventFullDtoPub, 1));
+        when(eventEnricher.enrichByIds(List.of(event1Pub.getId()))).thenReturn(freshEnrichment);
+
+        EventFullDto actualEventFullDto = eventService.get(event1Pub.getId(), uri, ipAddress);
+
+        assertThat(actualEventFullDto.getId(), is(eventFullDtoPub.getId()));
+        assertThat(actualEventFullDto.getViews(), is(7));
+        assertThat(actualEventFullDto.getConfirmedRequests(), is(3L));
+        assertThat(actualEventFullDto.getRating(), is(2L));
+        assertThat(actualEventFullDto.getInitiator().getRating(), is(5L));
+        verify(eventRepository, never()).findByIdAndState(anyLong(), any(EventState.class));
+        verify(eventViewsService, times(1)).updateViews(event1Pub.getId(), 1, 7);
+        verify(eventUtilService, times(1))
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void pub_get_whenCachedAndViewsStale_thenStoredViewsNotUpdated() {
+        eventFullDtoPub.setInitiator(UserShortDto.builder().id(user.getId()).name(user.getName()).build());
+        EventEnrichment staleEnrichment = new EventEnrichment(1)
+                .putViews(event1Pub.getId(), 4)
+                .putAggregates(event1Pub.getId(), 3L, 2L, 5L)
+                .markViewsStale();
+        when(eventDetailsCache.get(event1Pub.getId()))
+                .thenReturn(new EventDetailsCache.Entry(eventFullDtoPub, 1));
+        when(eventEnricher.enrichByIds(List.of(event1Pub.getId()))).thenReturn(staleEnrichment);
+
+        EventFullDto actualEventFullDto = eventService.get(event1Pub.getId(), uri, ipAddress);
+
+        assertThat(actualEventFullDto.getViews(), is(4));
+        verify(eventViewsService, never()).updateViews(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void pub_get_whenNotCachedAndViewsStale_thenStoredViewsNotUpdated() {
+        event1Pub.setInitiator(user);
+        EventEnrichment staleEnrichment = new EventEnrichment(1)
+                .putViews(event1Pub.getId(), 4)
+                .putAggregates(event1Pub.getId(), 3L, 2L, 5L)
+                .markViewsStale();
+        when(eventRepository.findByIdAndState(event1Pub.getId(), EventState.PUBLISHED))
+                .thenReturn(Optional.of(event1Pub));
+        when(eventEnricher.enrich(List.of(event1Pub))).thenReturn(staleEnrichment);
+        when(eventMapper.convertEventToFullDto(event1Pub, 4, 3L, 2L, 5L)).thenReturn(eventFullDtoPub);
+
+        EventFullDto actualEventFullDto = eventService.get(event1Pub.getId(), uri, ipAddress);
+
+        assertThat(actualEventFullDto, is(eventFullDtoPub));
+        verify(eventViewsService, never()).updateViews(any(Event.class), anyLong());
+    }
+
+    @Test
+    public void pub_get_whenETagMatches_thenHitSavedWithoutLoadingEvent() {
+        String eTag = "\"etag\"";
+        when(eventETags.getPublishedEventETag(event1Pub.getId())).thenReturn(eTag);
+
+        EventFullDto actualEventFullDto = eventService.get(event1Pub.getId(), uri, ipAddress, eTag::equals);
+
+        assertThat(actualEventFullDto, is(nullValue()));
         verify(eventUtilService, times(1))
-                .getConfirmedRequestCountById(List.of(event1Pub.getId()));
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+        verify(eventDetailsCache, never()).get(anyLong());
+        verify(eventRepository, never()).findByIdAndState(anyLong(), any(EventState.class));
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
     @Test
@@ -1160,12 +1355,9 @@ public class EventServiceTest {
         verify(eventRepository, times(1)).findByIdAndState(wrongId, EventState.PUBLISHED);
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(statClient, never())
-                .hits(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
-        verify(eventUtilService, never())
-                .getHitsByEvent(List.of(wrongId));
         verify(eventUtilService, never())
-                .getConfirmedRequestCountById(List.of(wrongId));
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+        verify(eventEnricher, never()).enrich(anyList());
     }
 
 
@@ -1181,11 +1373,22 @@ public class EventServiceTest {
                 .findByIdAndState(event3NotPublished.getId(), EventState.PUBLISHED);
         verify(eventMapper, never())
                 .convertEventToFullDto(any(Event.class), anyInt(), anyLong(), anyLong(), anyLong());
-        verify(statClient, never())
-                .hits(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
         verify(eventUtilService, never())
-                .getHitsByEvent(List.of(event3NotPublished.getId()));
-        verify(eventUtilService, never())
-                .getConfirmedRequestCountById(List.of(event3NotPublished.getId()));
+                .saveHit(any(String.class), any(String.class), any(String.class), any(LocalDateTime.class));
+        verify(eventEnricher, never()).enrich(anyList());
+    }
+
+    private EventStateView stateView(long id, EventState state) {
+        return new EventStateView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public EventState getState() {
+                return state;
+            }
+        };
     }
 }
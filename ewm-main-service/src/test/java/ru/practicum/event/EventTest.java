@@ -1,40 +1,71 @@
 package ru.practicum.event;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import reactor.core.publisher.Mono;
 import ru.practicum.category.Category;
 import ru.practicum.category.CategoryRepository;
+import ru.practicum.client.StatUnavailableException;
 import ru.practicum.event.dto.*;
 import ru.practicum.exception.ConflictException;
 import ru.practicum.exception.NotFoundException;
+import ru.practicum.page.CursorSlice;
 import ru.practicum.page.OffsetPage;
 import ru.practicum.participationrequest.ParticipationRequest;
 import ru.practicum.participationrequest.ParticipationRequestRepository;
 import ru.practicum.participationrequest.ParticipationRequestStatus;
 import ru.practicum.participationrequest.dto.ParticipationRequestDto;
 import ru.practicum.user.User;
+import ru.practicum.user.UserDeletedEvent;
 import ru.practicum.user.UserRepository;
 import ru.practicum.user.UserService;
 import ru.practicum.user.dto.UserDto;
 
 import javax.transaction.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
 
 @Transactional
 @SpringBootTest
+@RecordApplicationEvents
 public class EventTest {
     @Autowired
     private EventService eventService;
     @Autowired
+    private EventImportService eventImportService;
+    @Autowired
+    private LocationService locationService;
+    @Autowired
     private CategoryRepository categoryRepository;
     @Autowired
     private UserRepository userRepository;
@@ -46,8 +77,30 @@ public class EventTest {
     private ParticipationRequestRepository requestRepository;
     @Autowired
     private UserService userService;
+    @Autowired
+    private ApplicationEvents applicationEvents;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EventRatingService eventRatingService;
+    @Autowired
+    private EventViewsService eventViewsService;
+    @Autowired
+    private UserRatingRepository userRatingRepository;
+    @Autowired
+    private EventEnricher eventEnricher;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EventDetailsCache eventDetailsCache;
+    @Autowired
+    private EventETags eventETags;
+    @Autowired
+    private TrendingEvents trendingEvents;
+    @SpyBean
+    private EventUtilService eventUtilService;
 
-    private final Sort sort = Sort.by("createdOn").descending();
+    private final Sort sort = Sort.by("createdOn").descending().and(Sort.by("id").descending());
     private final Pageable page = new OffsetPage(0, 10, sort);
     private final Sort sortUsers = Sort.by("id").descending();
     private final Pageable pageUsers = new OffsetPage(0, 10, sortUsers);
@@ -267,6 +320,7 @@ public class EventTest {
                 .requester(userAdm)
                 .build();
         requestRepository.save(request);
+        eventRepository.incrementConfirmedRequests(event1Adm.getId(), 1);
         adminRequestPublish = UpdateEventAdminRequest.builder()
                 .stateAction(StateAdminAction.PUBLISH_EVENT)
                 .build();
@@ -352,11 +406,13 @@ public class EventTest {
                 .requester(userPub)
                 .build();
         requestRepository.save(requestPub);
+        eventRepository.incrementConfirmedRequests(event1Pub.getId(), 1);
     }
 
     @Test
     public void getAll_whenSuccessful_thenReturnListOfEventShortDtos() {
-        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(user.getId(), page);
+        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(user.getId(), page, null)
+                .getContent();
 
         assertThat(actualListOfEventShortDtos.size(), is(3));
         assertThat(actualListOfEventShortDtos.get(0).getId(), notNullValue());
@@ -364,9 +420,27 @@ public class EventTest {
         assertThat(actualListOfEventShortDtos.get(2).getId(), notNullValue());
     }
 
+    @Test
+    public void getAll_whenSuccessful_thenShortDtoFilledFromProjection() {
+        EventShortDto actualEventShortDto = eventService.getAll(user.getId(), page, null).getContent().stream()
+                .filter(dto -> dto.getId() == event1.getId())
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(actualEventShortDto.getTitle(), is(event1.getTitle()));
+        assertThat(actualEventShortDto.getAnnotation(), is(event1.getAnnotation()));
+        assertThat(actualEventShortDto.getEventDate().truncatedTo(ChronoUnit.SECONDS),
+                is(event1.getEventDate().truncatedTo(ChronoUnit.SECONDS)));
+        assertThat(actualEventShortDto.getCategory().getId(), is(event1.getCategory().getId()));
+        assertThat(actualEventShortDto.getCategory().getName(), is(event1.getCategory().getName()));
+        assertThat(actualEventShortDto.getInitiator().getId(), is(user.getId()));
+        assertThat(actualEventShortDto.getInitiator().getName(), is(user.getName()));
+    }
+
     @Test
     public void getAll_whenNoEventsFound_thenReturnEmptyList() {
-        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(user2.getId(), page);
+        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(user2.getId(), page, null)
+                .getContent();
 
         assertThat(actualListOfEventShortDtos.size(), is(0));
     }
@@ -374,10 +448,35 @@ public class EventTest {
     @Test
     public void getAll_whenUserNotFound_thenThrownException() {
         NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> eventService.getAll(wrongId, page));
+                () -> eventService.getAll(wrongId, page, null));
         assertThat(exception.getMessage(), is("User with id=" + wrongId + " was not found"));
     }
 
+    @Test
+    public void getAll_whenPagedByCursor_thenSameEventsAsOffsetPages() {
+        List<Long> expectedIds = eventService.getAll(user.getId(), page, null).getContent().stream()
+                .map(EventShortDto::getId)
+                .collect(Collectors.toList());
+
+        List<Long> actualIds = new ArrayList<>();
+        Pageable pageOfOne = new OffsetPage(0, 1, sort);
+        CursorSlice<EventShortDto> slice = eventService.getAll(user.getId(), pageOfOne, null);
+        actualIds.add(slice.getContent().get(0).getId());
+        while (slice.getNextCursor() != null && actualIds.size() <= expectedIds.size()) {
+            slice = eventService.getAll(user.getId(), pageOfOne, slice.getNextCursor());
+            actualIds.add(slice.getContent().get(0).getId());
+        }
+
+        assertThat(actualIds, is(expectedIds));
+    }
+
+    @Test
+    public void getAll_whenCursorInvalid_thenThrownException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> eventService.getAll(user.getId(), page, "wrong"));
+        assertThat(exception.getMessage(), is("Cursor wrong is invalid"));
+    }
+
     @Test
     public void add_whenSuccessful_thenReturnEventFullDto() {
         EventFullDto actualEventFullDto = eventService.add(user2.getId(), newEventDto);
@@ -407,6 +506,88 @@ public class EventTest {
         assertThat(exception.getMessage(), is("Category with id=" + wrongId + " was not found"));
     }
 
+    @Test
+    public void add_whenSameRoundedLocation_thenReuseLocation() {
+        LocationDto locationDto = newEventDto.getLocation();
+        EventFullDto firstEvent = eventService.add(user2.getId(), newEventDto);
+        newEventDto.setLocation(new LocationDto(locationDto.getLat() + 0.000001f, locationDto.getLon()));
+        EventFullDto secondEvent = eventService.add(user2.getId(), newEventDto);
+
+        Location firstLocation = eventRepository.findByIdWithGraph(firstEvent.getId()).orElseThrow().getLocation();
+        Location secondLocation = eventRepository.findByIdWithGraph(secondEvent.getId()).orElseThrow().getLocation();
+        assertThat(secondLocation.getId(), is(firstLocation.getId()));
+        assertThat(secondEvent.getLocation(), is(firstEvent.getLocation()));
+        assertThat(firstEvent.getLocation(), is(locationDto));
+    }
+
+    @Test
+    public void adm_patch_whenLocationChanged_thenSetBothCoordinates() {
+        LocationDto newLocation = new LocationDto(-45.2345f, 120.5f);
+        adminRequestPublish.setLocation(newLocation);
+
+        EventFullDto actualEventFullDto = eventService.patch(event3NotPublished.getId(), adminRequestPublish);
+
+        assertThat(actualEventFullDto.getLocation(), is(newLocation));
+    }
+
+    @Test
+    public void removeOrphans_whenLocationNotReferenced_thenDeleteLocation() {
+        Location orphan = locationService.resolve(new LocationDto(-12.345f, 67.891f));
+        long referencedId = event1.getLocation().getId();
+        eventRepository.flush();
+        jdbcTemplate.update("UPDATE locations SET created_at = ? WHERE location_id IN (?, ?)",
+                LocalDateTime.now().minusDays(1), orphan.getId(), referencedId);
+
+        locationService.removeOrphans();
+
+        assertThat(locationRepository.findById(orphan.getId()).isPresent(), is(false));
+        assertThat(locationRepository.findById(referencedId).isPresent(), is(true));
+    }
+
+    @Test
+    public void removeOrphans_whenLocationJustInserted_thenKeepLocation() {
+        Location orphan = locationService.resolve(new LocationDto(-12.346f, 67.892f));
+
+        locationService.removeOrphans();
+
+        assertThat(locationRepository.findById(orphan.getId()).isPresent(), is(true));
+    }
+
+    @Test
+    public void importEvents_whenSomeEventsInvalid_thenCreateValidAndReportInvalid() {
+        NewEventDto validEvent = newEventDto.toBuilder()
+                .annotation("annotation of the imported event")
+                .description("description of the imported event")
+                .build();
+        NewEventDto wrongCategoryEvent = validEvent.toBuilder()
+                .category(wrongId)
+                .build();
+        List<NewEventDto> newEvents = List.of(validEvent, newEventDto, wrongCategoryEvent, validEvent);
+
+        List<EventImportResult> actualResults = eventImportService.importEvents(user2.getId(), newEvents);
+
+        assertThat(actualResults.stream().map(EventImportResult::getStatus).collect(Collectors.toList()),
+                is(List.of(EventImportStatus.CREATED, EventImportStatus.INVALID, EventImportStatus.INVALID,
+                        EventImportStatus.CREATED)));
+        assertThat(actualResults.get(1).getReason(), is("Field: annotation. Error: length must be between 20 and 2000;"
+                + " Field: description. Error: length must be between 20 and 7000"));
+        assertThat(actualResults.get(2).getReason(), is("Category with id=" + wrongId + " was not found"));
+        for (int index : List.of(0, 3)) {
+            Event actualEvent = eventRepository.findByIdWithGraph(actualResults.get(index).getEventId()).orElseThrow();
+            assertThat(actualEvent.getInitiator().getId(), is(user2.getId()));
+            assertThat(actualEvent.getState(), is(EventState.PENDING));
+            assertThat(actualEvent.getLocation().getLat(), is(validEvent.getLocation().getLat()));
+        }
+        assertThat(actualResults.get(0).getEventId(), not(actualResults.get(3).getEventId()));
+    }
+
+    @Test
+    public void importEvents_whenUserNotFound_thenThrownException() {
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> eventImportService.importEvents(wrongId, List.of(newEventDto)));
+        assertThat(exception.getMessage(), is("User with id=" + wrongId + " was not found"));
+    }
+
     @Test
     public void get_whenSuccessful_thenReturnEventFullDto() {
         EventFullDto actualEventFullDto = eventService.get(user.getId(), event1.getId());
@@ -551,6 +732,27 @@ public class EventTest {
         assertThat(actualUpdateResult.getRejectedRequests().get(0).getId(), is(participationRequest2.getId()));
     }
 
+    @Test
+    public void updateRequests_whenConfirmedParticipantDeleted_thenPlaceFreed() {
+        event1.setParticipantLimit(1);
+        eventRepository.save(event1);
+        eventService.updateRequests(user.getId(), event1.getId(), EventRequestStatusUpdateRequest.builder()
+                .requestIds(List.of(participationRequest1.getId()))
+                .status(RequestUpdateAction.CONFIRMED)
+                .build());
+
+        userService.delete(user2.getId());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE event_id = ?",
+                Long.class, event1.getId()), is(0L));
+        EventRequestStatusUpdateResult actualUpdateResult = eventService.updateRequests(user.getId(),
+                event1.getId(), EventRequestStatusUpdateRequest.builder()
+                        .requestIds(List.of(participationRequest2.getId()))
+                        .status(RequestUpdateAction.CONFIRMED)
+                        .build());
+        assertThat(actualUpdateResult.getConfirmedRequests().size(), is(1));
+    }
+
     @Test
     public void updateRequests_whenRequestsStatusOtherThanPending_thenThrownException() {
         participationRequest1.setStatus(ParticipationRequestStatus.CONFIRMED);
@@ -579,7 +781,7 @@ public class EventTest {
 
     @Test
     public void adm_getAll_whenSuccessful_thenReturnListOfEventFullDto() {
-        List<EventFullDto> actualListOfEventFullDtos = eventService.getAll(adminEventParams);
+        List<EventFullDto> actualListOfEventFullDtos = eventService.getAll(adminEventParams).getContent();
 
         assertThat(actualListOfEventFullDtos, notNullValue());
         assertThat(actualListOfEventFullDtos.size(), is(2));
@@ -589,11 +791,24 @@ public class EventTest {
         assertThat(actualListOfEventFullDtos.get(1).getId(), is(event3NotPublished.getId()));
     }
 
+    @Test
+    public void adm_getAll_whenPagedByCursor_thenNextPageAfterCursor() {
+        adminEventParams.setSize(1);
+
+        CursorSlice<EventFullDto> first = eventService.getAll(adminEventParams);
+        adminEventParams.setCursor(first.getNextCursor());
+        CursorSlice<EventFullDto> second = eventService.getAll(adminEventParams);
+
+        assertThat(first.getContent().get(0).getId(), is(event1Adm.getId()));
+        assertThat(second.getContent().get(0).getId(), is(event3NotPublished.getId()));
+        assertThat(second.getNextCursor(), nullValue());
+    }
+
     @Test
     public void adm_getAll_whenNoneEventFound_thenReturnEmptyList() {
         adminEventParams.setFrom(5);
 
-        List<EventFullDto> actualListOfEventFullDtos = eventService.getAll(adminEventParams);
+        List<EventFullDto> actualListOfEventFullDtos = eventService.getAll(adminEventParams).getContent();
 
         assertThat(actualListOfEventFullDtos, notNullValue());
         assertThat(actualListOfEventFullDtos.size(), is(0));
@@ -653,10 +868,89 @@ public class EventTest {
         assertThat(actualEventFullDto.getId(), is(event3NotPublished.getId()));
     }
 
+    @Test
+    public void adm_updateStates_whenMixedBatch_thenReturnOutcomePerEvent() {
+        long wrongId = 666L;
+        EventStateUpdateRequest updateRequest = new EventStateUpdateRequest(List.of(
+                new EventStateUpdate(event3NotPublished.getId(), StateAdminAction.PUBLISH_EVENT),
+                new EventStateUpdate(event1Adm.getId(), StateAdminAction.REJECT_EVENT),
+                new EventStateUpdate(wrongId, StateAdminAction.PUBLISH_EVENT),
+                new EventStateUpdate(event3NotPublished.getId(), StateAdminAction.REJECT_EVENT)));
+
+        List<EventStateUpdateResult> actualResults = eventService.updateStates(updateRequest);
+
+        assertThat(actualResults.size(), is(4));
+        assertThat(actualResults.get(0).getStatus(), is(EventStateUpdateStatus.UPDATED));
+        assertThat(actualResults.get(0).getEvent().getId(), is(event3NotPublished.getId()));
+        assertThat(actualResults.get(0).getEvent().getState(), is(EventState.PUBLISHED));
+        assertThat(actualResults.get(0).getEvent().getPublishedOn(), notNullValue());
+        assertThat(actualResults.get(1).getStatus(), is(EventStateUpdateStatus.CONFLICT));
+        assertThat(actualResults.get(1).getReason(),
+                is("Cannot cancel the event because it's not in the right state: " + EventState.PUBLISHED));
+        assertThat(actualResults.get(2).getStatus(), is(EventStateUpdateStatus.NOT_FOUND));
+        assertThat(actualResults.get(2).getReason(), is("Event with id=" + wrongId + " was not found"));
+        assertThat(actualResults.get(3).getStatus(), is(EventStateUpdateStatus.CONFLICT));
+        assertThat(actualResults.get(3).getEvent(), nullValue());
+        Event actualEvent = eventRepository.findById(event3NotPublished.getId()).orElseThrow();
+        assertThat(actualEvent.getState(), is(EventState.PUBLISHED));
+        assertThat(actualEvent.getVersion(), is(event3NotPublished.getVersion() + 1));
+    }
+
+    @Test
+    public void adm_updateStates_whenReject_thenEventCanceled() {
+        EventStateUpdateRequest updateRequest = new EventStateUpdateRequest(List.of(
+                new EventStateUpdate(event3NotPublished.getId(), StateAdminAction.REJECT_EVENT)));
+
+        List<EventStateUpdateResult> actualResults = eventService.updateStates(updateRequest);
+
+        assertThat(actualResults.get(0).getStatus(), is(EventStateUpdateStatus.UPDATED));
+        assertThat(actualResults.get(0).getEvent().getState(), is(EventState.CANCELED));
+        assertThat(eventRepository.findById(event3NotPublished.getId()).orElseThrow().getState(),
+                is(EventState.CANCELED));
+    }
+
+
+    @Test
+    public void pub_getNearby_whenAcrossAntimeridian_thenReturnEventsInRadiusByDistance() {
+        event1Adm.setLocation(locationService.resolve(new LocationDto(10.03f, 179.99f)));
+        event2Adm.setLocation(locationService.resolve(new LocationDto(10.0f, -179.99f)));
+        event3NotPublished.setLocation(locationService.resolve(new LocationDto(10.0f, 179.99f)));
+        eventRepository.saveAll(List.of(event1Adm, event2Adm, event3NotPublished));
+        NearbyEventParams nearbyEventParams = NearbyEventParams.builder()
+                .lat(10.0)
+                .lon(179.99)
+                .radiusKm(5.0)
+                .categories(List.of())
+                .onlyAvailable(false)
+                .from(0)
+                .size(10)
+                .build();
+
+        List<EventShortDto> actualEventShortDtos = eventService.getNearby(nearbyEventParams, ipAddress, uri);
+
+        assertThat(actualEventShortDtos.stream().map(EventShortDto::getId).collect(Collectors.toList()),
+                is(List.of(event2Adm.getId(), event1Adm.getId())));
+
+        nearbyEventParams.setRadiusKm(3.0);
+        actualEventShortDtos = eventService.getNearby(nearbyEventParams, ipAddress, uri);
+
+        assertThat(actualEventShortDtos.stream().map(EventShortDto::getId).collect(Collectors.toList()),
+                is(List.of(event2Adm.getId())));
+    }
+
+    @Test
+    public void findPublishedShortViewsByIdIn_whenEventNotPublished_thenSkipEvent() {
+        List<EventShortView> views = eventRepository.findPublishedShortViewsByIdIn(
+                List.of(event1Adm.getId(), event3NotPublished.getId()));
+
+        assertThat(views.stream().map(EventShortView::getId).collect(Collectors.toList()),
+                is(List.of(event1Adm.getId())));
+    }
 
     @Test
     public void pub_getAll_whenSuccessful_thenReturnListOfEventShortDto() {
-        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(publicEventParams, ipAddress, uri);
+        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(publicEventParams, ipAddress, uri)
+                .getContent();
 
         assertThat(actualListOfEventShortDtos.size(), is(2));
         assertThat(actualListOfEventShortDtos.get(0).getClass(), is(EventShortDto.class));
@@ -668,11 +962,218 @@ public class EventTest {
         assertThat(actualListOfEventShortDtos.get(1).getTitle(), is(event2Pub.getTitle()));
     }
 
+    @Test
+    public void pub_get_whenCached_thenCountersFreshAndEntryEvictedOnChange() {
+        EventFullDto first = eventService.get(event1Pub.getId(), ipAddress, uri);
+        eventRepository.incrementConfirmedRequests(event1Pub.getId(), 1);
+
+        EventFullDto second = eventService.get(event1Pub.getId(), ipAddress, uri);
+
+        assertThat(eventDetailsCache.get(event1Pub.getId()), notNullValue());
+        assertThat(second.getTitle(), is(first.getTitle()));
+        assertThat(second.getConfirmedRequests(), is(first.getConfirmedRequests() + 1));
+
+        eventDetailsCache.onEventChanged(new EventChangedEvent(event1Pub.getId()));
+
+        assertThat(eventDetailsCache.get(event1Pub.getId()), nullValue());
+    }
+
+    @Test
+    public void pub_get_whenEventOrCountersChanged_thenETagChanged() {
+        String initialETag = eventETags.getPublishedEventETag(event1Pub.getId());
+
+        assertThat(eventService.get(event1Pub.getId(), ipAddress, uri, initialETag::equals), nullValue());
+
+        event1Pub.setTitle("changed title");
+        eventRepository.save(event1Pub);
+        String changedETag = eventETags.getPublishedEventETag(event1Pub.getId());
+        eventRepository.incrementConfirmedRequests(event1Pub.getId(), 1);
+        String confirmedETag = eventETags.getPublishedEventETag(event1Pub.getId());
+
+        assertThat(changedETag, not(initialETag));
+        assertThat(confirmedETag, not(changedETag));
+        assertThat(eventService.get(event1Pub.getId(), ipAddress, uri, initialETag::equals).getTitle(),
+                is("changed title"));
+    }
+
+    @Test
+    public void pub_getAll_whenQueryCached_thenOnlyAffectedQueriesInvalidated() {
+        EventQueryCache queryCache = new EventQueryCache(eventRepository, 100, Duration.ofMinutes(1),
+                Duration.ofMinutes(1), new SimpleMeterRegistry());
+        long pubCategoryId = event1Pub.getCategory().getId();
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0, 10);
+        publicEventParams.setRangeStart(start);
+        publicEventParams.setCategories(List.of(category.getId(), pubCategoryId));
+        EventQueryCache.Key key = queryCache.key(publicEventParams);
+        publicEventParams.setRangeStart(start.plusSeconds(40));
+        publicEventParams.setCategories(List.of(pubCategoryId, category.getId(), pubCategoryId));
+        publicEventParams.setText("DESC");
+
+        assertThat(queryCache.key(publicEventParams), is(key));
+        assertThat(key.toParams().getRangeStart(), is(start.withSecond(0)));
+
+        publicEventParams.setRangeStart(null);
+        publicEventParams.setCategories(List.of(pubCategoryId));
+        EventQueryCache.Key pubKey = queryCache.key(publicEventParams);
+        publicEventParams.setCategories(List.of(category.getId()));
+        EventQueryCache.Key otherKey = queryCache.key(publicEventParams);
+        queryCache.put(pubKey, List.of(event1Pub.getId()), null, queryCache.version());
+        queryCache.put(otherKey, List.of(), null, queryCache.version());
+
+        event3NotPublishedPub.setState(EventState.PUBLISHED);
+        eventRepository.save(event3NotPublishedPub);
+        queryCache.onEventChanged(new EventChangedEvent(event3NotPublishedPub.getId()));
+
+        assertThat(queryCache.get(pubKey), nullValue());
+        assertThat(queryCache.get(otherKey).getContent(), emptyIterable());
+
+        queryCache.put(pubKey, List.of(event1Pub.getId()), null, queryCache.version());
+        event1Pub.setState(EventState.CANCELED);
+        eventRepository.save(event1Pub);
+        queryCache.onEventChanged(new EventChangedEvent(event1Pub.getId()));
+
+        assertThat(queryCache.get(pubKey), nullValue());
+        assertThat(queryCache.size(), is(1));
+    }
+
+    @Test
+    public void pub_getAll_whenCachedEventCanceled_thenAllPagesOfFilterInvalidated() {
+        EventQueryCache queryCache = new EventQueryCache(eventRepository, 100, Duration.ofMinutes(1),
+                Duration.ofMinutes(1), new SimpleMeterRegistry());
+        publicEventParams.setCategories(List.of(event1Pub.getCategory().getId()));
+        publicEventParams.setSize(1);
+        EventQueryCache.Key firstPage = queryCache.key(publicEventParams);
+        publicEventParams.setFrom(1);
+        EventQueryCache.Key secondPage = queryCache.key(publicEventParams);
+        publicEventParams.setSort("VIEWS");
+        EventQueryCache.Key otherSortPage = queryCache.key(publicEventParams);
+        publicEventParams.setCategories(List.of(category.getId()));
+        EventQueryCache.Key otherFilterPage = queryCache.key(publicEventParams);
+        queryCache.put(firstPage, List.of(event1Pub.getId()), null, queryCache.version());
+        queryCache.put(secondPage, List.of(event2Pub.getId()), null, queryCache.version());
+        queryCache.put(otherSortPage, List.of(event2Pub.getId()), null, queryCache.version());
+        queryCache.put(otherFilterPage, List.of(), null, queryCache.version());
+
+        event1Pub.setState(EventState.CANCELED);
+        eventRepository.save(event1Pub);
+        queryCache.onEventChanged(new EventChangedEvent(event1Pub.getId()));
+
+        assertThat(queryCache.get(firstPage), nullValue());
+        assertThat(queryCache.get(secondPage), nullValue());
+        assertThat(queryCache.get(otherSortPage), nullValue());
+        assertThat(queryCache.get(otherFilterPage).getContent(), emptyIterable());
+    }
+
+    @Test
+    public void pub_getAll_whenInitiatorDeleted_thenOneEventInvalidatesAllItsPages() {
+        EventQueryCache queryCache = new EventQueryCache(eventRepository, 100, Duration.ofMinutes(1),
+                Duration.ofMinutes(1), new SimpleMeterRegistry());
+        publicEventParams.setCategories(List.of(event1Pub.getCategory().getId()));
+        publicEventParams.setSize(1);
+        EventQueryCache.Key firstPage = queryCache.key(publicEventParams);
+        publicEventParams.setFrom(1);
+        EventQueryCache.Key secondPage = queryCache.key(publicEventParams);
+        queryCache.put(firstPage, List.of(event1Pub.getId()), null, queryCache.version());
+        queryCache.put(secondPage, List.of(event2Pub.getId()), null, queryCache.version());
+
+        userService.delete(event1Pub.getInitiator().getId());
+        eventRepository.flush();
+        List<UserDeletedEvent> deletedEvents = applicationEvents.stream(UserDeletedEvent.class)
+                .collect(Collectors.toList());
+
+        assertThat(applicationEvents.stream(EventChangedEvent.class).count(), is(0L));
+        assertThat(deletedEvents, hasSize(1));
+        assertThat(deletedEvents.get(0).getEventIds(), hasItems(event1Pub.getId(), event2Pub.getId()));
+
+        queryCache.onUserDeleted(deletedEvents.get(0));
+
+        assertThat(queryCache.get(firstPage), nullValue());
+        assertThat(queryCache.get(secondPage), nullValue());
+    }
+
+    @Test
+    public void pub_getAll_whenOnlyAvailable_thenEventsAtLimitExcluded() {
+        event1Pub.setParticipantLimit(2);
+        eventRepository.save(event1Pub);
+        event2Pub.setParticipantLimit(1);
+        eventRepository.save(event2Pub);
+        eventRepository.incrementConfirmedRequests(event2Pub.getId(), 1);
+        publicEventParams.setOnlyAvailable(true);
+
+        List<Long> actualIds = eventService.getAll(publicEventParams, ipAddress, uri).getContent().stream()
+                .map(EventShortDto::getId)
+                .collect(Collectors.toList());
+
+        assertThat(actualIds, is(List.of(event1Pub.getId())));
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void pub_getAll_whenConfirmedConcurrentlyUpToLimit_thenEventNotAvailable() throws Exception {
+        try {
+            event2Pub.setParticipantLimit(2);
+            event2Pub.setRequestModeration(true);
+            eventRepository.save(event2Pub);
+            List<Long> requestIds = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                User requester = userRepository.save(User.builder()
+                        .email("email@requester" + i + ".test")
+                        .name("requester" + i)
+                        .build());
+                requestIds.add(requestRepository.save(ParticipationRequest.builder()
+                        .event(event2Pub)
+                        .status(ParticipationRequestStatus.PENDING)
+                        .requester(requester)
+                        .build()).getId());
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(requestIds.size());
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (Long requestId : requestIds) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        eventService.updateRequests(event2Pub.getInitiator().getId(), event2Pub.getId(),
+                                EventRequestStatusUpdateRequest.builder()
+                                        .requestIds(List.of(requestId))
+                                        .status(RequestUpdateAction.CONFIRMED)
+                                        .build());
+                        return true;
+                    } catch (ConflictException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int confirmed = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    confirmed++;
+                }
+            }
+            executor.shutdown();
+            publicEventParams.setOnlyAvailable(true);
+
+            List<Long> availableIds = eventService.getAll(publicEventParams, ipAddress, uri).getContent().stream()
+                    .map(EventShortDto::getId)
+                    .collect(Collectors.toList());
+
+            assertThat(confirmed, is(2));
+            assertThat(eventRepository.findById(event2Pub.getId()).orElseThrow().getConfirmedRequests(), is(2L));
+            assertThat(availableIds, is(List.of(event1Pub.getId())));
+        } finally {
+            JdbcTestUtils.deleteFromTables(jdbcTemplate, "participation_requests", "event_user_rating",
+                    "user_rating", "event_compilation", "compilations", "events", "locations", "categories", "users");
+        }
+    }
+
     @Test
     public void pub_getAll_whenNoneEventFound_thenReturnEmptyList() {
         publicEventParams.setFrom(3);
 
-        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(publicEventParams, ipAddress, uri);
+        List<EventShortDto> actualListOfEventShortDtos = eventService.getAll(publicEventParams, ipAddress, uri)
+                .getContent();
 
         assertThat(actualListOfEventShortDtos, emptyIterable());
         assertThat(actualListOfEventShortDtos, notNullValue());
@@ -750,6 +1251,138 @@ public class EventTest {
         assertThat(users.get(0).getRating(), is(0L));
     }
 
+    @Test
+    public void rebuildRating_whenAggregateIsStale_thenRecalculatedFromRatings() {
+        eventService.like(user2.getId(), event2.getId());
+        eventRepository.addRating(event2.getId(), 5);
+
+        eventRatingService.rebuild();
+        List<UserDto> users = userService.getAll(List.of(user.getId()), pageUsers);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT rating FROM events WHERE event_id = ?", Long.class,
+                event2.getId()), is(1L));
+        assertThat(users.get(0).getRating(), is(1L));
+    }
+
+    @Test
+    public void enrich_whenEventRated_thenAggregatesReturnedForBatch() {
+        eventService.like(user2.getId(), event2.getId());
+
+        EventEnrichment enrichment = eventEnricher.enrich(List.of(event1, event2));
+
+        assertThat(enrichment.getRating(event2.getId()), is(1L));
+        assertThat(enrichment.getInitiatorRating(event2.getId()), is(1L));
+        assertThat(enrichment.getConfirmedRequests(event2.getId()), is(0L));
+        assertThat(enrichment.getRating(wrongId), is(0L));
+    }
+
+    @Test
+    public void enrich_whenStatServerMissesDeadline_thenStoredViewsMarkedStale() {
+        EventUtilService slowStat = mock(EventUtilService.class);
+        when(slowStat.getHitsByEventAsync(anyList())).thenReturn(Mono.never());
+        EventEnricher enricher = new EventEnricher(eventRepository, userRatingRepository, slowStat, 50,
+                new SimpleMeterRegistry());
+        eventRepository.flush();
+        jdbcTemplate.update("UPDATE events SET views = 42 WHERE event_id = ?", event1.getId());
+
+        long start = System.nanoTime();
+        EventEnrichment enrichment = enricher.enrich(List.of(event1, event2));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), lessThan(2000L));
+        assertThat(enrichment.isViewsStale(), is(true));
+        assertThat(enrichment.getViews(event1.getId()), is(42));
+        assertThat(enrichment.getViews(event2.getId()), is(0));
+        assertThat(enrichment.hasAggregates(event2.getId()), is(true));
+    }
+
+    @Test
+    public void enrich_whenStatServerFails_thenStoredViewsMarkedStaleAndHeaderSet() {
+        EventUtilService failingStat = mock(EventUtilService.class);
+        when(failingStat.getHitsByEventAsync(anyList()))
+                .thenReturn(Mono.error(new StatUnavailableException("Сервер недоступен")));
+        EventEnricher enricher = new EventEnricher(eventRepository, userRatingRepository, failingStat, 500,
+                new SimpleMeterRegistry());
+        eventRepository.flush();
+        jdbcTemplate.update("UPDATE events SET views = 42 WHERE event_id = ?", event1.getId());
+        ServletServerHttpResponse response = new ServletServerHttpResponse(new MockHttpServletResponse());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            EventEnrichment enrichment = enricher.enrich(List.of(event1, event2));
+            new ViewsStaleAdvice().beforeBodyWrite(null, null, null, null, null, response);
+
+            assertThat(enrichment.isViewsStale(), is(true));
+            assertThat(enrichment.getViews(event1.getId()), is(42));
+            assertThat(response.getHeaders().getFirst(ViewsStaleAdvice.VIEWS_STALE_HEADER), is("true"));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    public void trending_whenRequestsConfirmedAndRatingGrows_thenRankedByScore() {
+        doReturn(Map.of()).when(eventUtilService)
+                .getHitsByEventSince(anyList(), ArgumentMatchers.any(LocalDateTime.class));
+        requestRepository.save(ParticipationRequest.builder()
+                .status(ParticipationRequestStatus.CONFIRMED)
+                .event(event2Adm)
+                .requester(user2)
+                .created(LocalDateTime.now())
+                .build());
+        trendingEvents.refresh();
+
+        assertThat(trendingEvents.findPage(0, 10), is(List.of(event2Adm.getId())));
+
+        eventService.like(user2.getId(), event1Adm.getId());
+        eventService.like(user33.getId(), event1Adm.getId());
+        trendingEvents.refresh();
+
+        assertThat(trendingEvents.findPage(0, 10), is(List.of(event1Adm.getId(), event2Adm.getId())));
+        assertThat(trendingEvents.findPage(1, 10), is(List.of(event2Adm.getId())));
+        assertThat(eventService.getTrending(0, 1, ipAddress, uri).stream()
+                .map(EventShortDto::getId)
+                .collect(Collectors.toList()), is(List.of(event1Adm.getId())));
+
+        eventRepository.flush();
+        jdbcTemplate.update("UPDATE events SET state = 'CANCELED' WHERE event_id = ?", event1Adm.getId());
+        trendingEvents.onEventChanged(new EventChangedEvent(event1Adm.getId()));
+
+        assertThat(trendingEvents.findPage(0, 10), is(List.of(event2Adm.getId())));
+    }
+
+    @Test
+    public void trending_whenStatServerFails_thenPreviousRankingKept() {
+        EventUtilService stat = mock(EventUtilService.class);
+        when(stat.getHitsByEventSince(anyList(), ArgumentMatchers.any(LocalDateTime.class)))
+                .thenReturn(Map.of(event1Adm.getId(), 5))
+                .thenThrow(new StatUnavailableException("Сервер недоступен"));
+        TrendingEvents trending = new TrendingEvents(eventRepository, requestRepository, stat, 24, 1000, 500,
+                1, 3, 2);
+        trending.refresh();
+
+        trending.refresh();
+
+        assertThat(trending.findPage(0, 10), is(List.of(event1Adm.getId())));
+    }
+
+    @Test
+    public void getTrending_whenRankedEventUnpublishedDuringRefresh_thenEventNotServed() {
+        doReturn(Map.of()).when(eventUtilService)
+                .getHitsByEventSince(anyList(), ArgumentMatchers.any(LocalDateTime.class));
+        requestRepository.save(ParticipationRequest.builder()
+                .status(ParticipationRequestStatus.CONFIRMED)
+                .event(event2Adm)
+                .requester(user2)
+                .created(LocalDateTime.now())
+                .build());
+        trendingEvents.refresh();
+        eventRepository.flush();
+        // изменение без EventChangedEvent, как при потере его во время пересчета
+        jdbcTemplate.update("UPDATE events SET state = 'CANCELED' WHERE event_id = ?", event2Adm.getId());
+
+        assertThat(trendingEvents.findPage(0, 10), is(List.of(event2Adm.getId())));
+        assertThat(eventService.getTrending(0, 10, ipAddress, uri), is(empty()));
+    }
+
     @Test
     public void like_dislike_whenSuccessful_thenInitiatorRatingCorrect() {
         eventService.like(user2.getId(), event2.getId());
@@ -771,10 +1404,147 @@ public class EventTest {
         eventService.like(user2.getId(), event2.getId());
         eventService.like(user33.getId(), event1.getId());
 
-        List<EventShortDto> events = eventService.getAll(publicEventParams, ipAddress, uri);
+        List<EventShortDto> events = eventService.getAll(publicEventParams, ipAddress, uri).getContent();
 
         assertThat(events.size(), is(6));
         assertThat(events.get(0).getRating(), is(2L));
         assertThat(events.get(1).getRating(), is(1L));
     }
+
+    @Test
+    public void when_sortByViews_thenReturnListOfEventDtoSortedByStoredViews() {
+        publicEventParams.setSort("VIEWS");
+        publicEventParams.setSize(1);
+        eventViewsService.updateViews(event2Pub, 5);
+
+        List<EventShortDto> events = eventService.getAll(publicEventParams, ipAddress, uri).getContent();
+
+        assertThat(events.size(), is(1));
+        assertThat(events.get(0).getId(), is(event2Pub.getId()));
+    }
+
+    @Test
+    public void syncViews_whenSeveralBatches_thenStoreHitsOfPublishedEventsOnly() {
+        EventUtilService statViews = mock(EventUtilService.class);
+        when(statViews.getHitsByEvent(anyList())).thenReturn(Map.of(event1Pub.getId(), 7, event2Pub.getId(), 3));
+        EventViewsService views = new EventViewsService(eventRepository, statViews, jdbcTemplate,
+                transactionManager, 2);
+        eventRepository.flush();
+        jdbcTemplate.update("UPDATE events SET views = 42");
+
+        views.sync();
+
+        assertThat(storedViews(event1Pub.getId()), is(7L));
+        assertThat(storedViews(event2Pub.getId()), is(3L));
+        assertThat(storedViews(event2Adm.getId()), is(0L));
+        assertThat(storedViews(event3NotPublished.getId()), is(42L));
+        verify(statViews, atLeast(3)).getHitsByEvent(anyList());
+    }
+
+    @Test
+    public void syncViews_whenStatServerFails_thenStoredViewsUnchanged() {
+        EventUtilService failingStat = mock(EventUtilService.class);
+        when(failingStat.getHitsByEvent(anyList())).thenThrow(new StatUnavailableException("Сервер недоступен"));
+        EventViewsService views = new EventViewsService(eventRepository, failingStat, jdbcTemplate,
+                transactionManager, 2);
+        eventRepository.flush();
+        jdbcTemplate.update("UPDATE events SET views = 42");
+
+        views.sync();
+
+        assertThat(storedViews(event1Pub.getId()), is(42L));
+        assertThat(storedViews(event2Pub.getId()), is(42L));
+        verify(failingStat, times(1)).getHitsByEvent(anyList());
+    }
+
+    @Test
+    public void pub_get_whenStatServerFails_thenStoredViewsServedAndUnchanged() {
+        // сервер статистики в тестах не запущен
+        eventRepository.flush();
+        jdbcTemplate.update("UPDATE events SET views = 42 WHERE event_id = ?", event1Pub.getId());
+        eventDetailsCache.evict(event1Pub.getId());
+
+        EventFullDto uncached = eventService.get(event1Pub.getId(), ipAddress, uri);
+        EventFullDto cached = eventService.get(event1Pub.getId(), ipAddress, uri);
+
+        assertThat(uncached.getViews(), is(42));
+        assertThat(cached.getViews(), is(42));
+        assertThat(storedViews(event1Pub.getId()), is(42L));
+    }
+
+    private long storedViews(long eventId) {
+        return jdbcTemplate.queryForObject("SELECT views FROM events WHERE event_id = ?", Long.class, eventId);
+    }
+
+    @Test
+    public void filterIndex_whenQueried_thenSamePageAsDatabase() {
+        publicEventParams.setText(null);
+        publicEventParams.setCategories(null);
+        eventService.patch(event1.getId(), adminRequestPublish);
+        EventFilterIndex index = new EventFilterIndex(eventRepository);
+        index.rebuild();
+
+        List<Long> expectedIds = eventService.getAll(publicEventParams, ipAddress, uri).getContent().stream()
+                .map(EventShortDto::getId)
+                .collect(Collectors.toList());
+
+        assertThat(expectedIds.isEmpty(), is(false));
+        assertThat(index.findPage(publicEventParams), is(expectedIds));
+    }
+
+    @Test
+    public void filterIndex_whenEventsChangedDuringRebuild_thenChangesKeptAfterSwap() {
+        publicEventParams.setText(null);
+        publicEventParams.setCategories(null);
+        EventRepository repository = mock(EventRepository.class, AdditionalAnswers.delegatesTo(eventRepository));
+        EventFilterIndex index = new EventFilterIndex(repository);
+        doAnswer(invocation -> {
+            List<EventFilterEntry> snapshot = eventRepository.findFilterEntriesByState(EventState.PUBLISHED);
+            // изменения фиксируются после выборки, но до замены индекса
+            eventService.patch(event1.getId(), adminRequestPublish);
+            eventRepository.flush();
+            jdbcTemplate.update("UPDATE events SET state = 'CANCELED' WHERE event_id = ?", event1Pub.getId());
+            index.onEventChanged(new EventChangedEvent(event1.getId()));
+            index.onEventChanged(new EventChangedEvent(event1Pub.getId()));
+            return snapshot;
+        }).when(repository).findFilterEntriesByState(EventState.PUBLISHED);
+
+        index.rebuild();
+
+        List<Long> expectedIds = eventService.getAll(publicEventParams, ipAddress, uri).getContent().stream()
+                .map(EventShortDto::getId)
+                .collect(Collectors.toList());
+        assertThat(index.findPage(publicEventParams).contains(event1.getId()), is(true));
+        assertThat(index.findPage(publicEventParams).contains(event1Pub.getId()), is(false));
+        assertThat(index.findPage(publicEventParams), is(expectedIds));
+    }
+
+    @Test
+    public void filterIndex_whenEventChanged_thenIndexUpdated() {
+        publicEventParams.setText(null);
+        publicEventParams.setCategories(null);
+        EventFilterIndex index = new EventFilterIndex(eventRepository);
+        index.rebuild();
+
+        eventService.patch(event1.getId(), adminRequestPublish);
+        index.onEventChanged(new EventChangedEvent(event1.getId()));
+
+        assertThat(index.findPage(publicEventParams).contains(event1.getId()), is(true));
+    }
+
+    @Test
+    public void filterIndex_whenInitiatorDeleted_thenEventRemovedFromIndex() {
+        publicEventParams.setText(null);
+        publicEventParams.setCategories(null);
+        eventService.patch(event1.getId(), adminRequestPublish);
+        EventFilterIndex index = new EventFilterIndex(eventRepository);
+        index.rebuild();
+        assertThat(index.findPage(publicEventParams).contains(event1.getId()), is(true));
+
+        userService.delete(user.getId());
+        eventRepository.flush();
+        applicationEvents.stream(UserDeletedEvent.class).forEach(index::onUserDeleted);
+
+        assertThat(index.findPage(publicEventParams).contains(event1.getId()), is(false));
+    }
 }
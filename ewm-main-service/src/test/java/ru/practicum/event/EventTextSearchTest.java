@@ -0,0 +1,81 @@
+package ru.practicum.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class EventTextSearchTest {
+    private final EventTextSearch fullTextSearch = new EventTextSearch(true);
+    private final EventTextSearch likeSearch = new EventTextSearch(false);
+
+    private Root<Event> root;
+    private CriteriaQuery<?> query;
+    private CriteriaBuilder builder;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        root = mock(Root.class);
+        query = mock(CriteriaQuery.class);
+        builder = mock(CriteriaBuilder.class);
+    }
+
+    @Test
+    public void matches_whenPunctuation_thenWordsJoinedAsPrefixes() {
+        fullTextSearch.matches("Jazz, rock - and roll!", false).toPredicate(root, query, builder);
+
+        verify(builder, times(1)).literal("jazz:* & rock:* & and:* & roll:*");
+        verify(builder, never()).like(any(), anyString());
+    }
+
+    @Test
+    public void matches_whenTsQueryOperators_thenOperatorsStripped() {
+        fullTextSearch.matches("a&b | !c (d) e:* f\\g'", false).toPredicate(root, query, builder);
+
+        verify(builder, times(1)).literal("a:* & b:* & c:* & d:* & e:* & f:* & g:*");
+    }
+
+    @Test
+    public void matches_whenCyrillicAndDigits_thenKeepThem() {
+        fullTextSearch.matches("Концерт 2024", false).toPredicate(root, query, builder);
+
+        verify(builder, times(1)).literal("концерт:* & 2024:*");
+    }
+
+    @Test
+    public void matches_whenOnlyOperators_thenLikeFallback() {
+        fullTextSearch.matches("&|!():*", true).toPredicate(root, query, builder);
+
+        verify(builder, times(2)).like(any(), eq("%&|!():*%"));
+        verify(builder, never()).literal(any());
+        verify(query, never()).orderBy(anyList());
+        assertThat(fullTextSearch.canOrderByRelevance("&|!():*"), is(false));
+        assertThat(fullTextSearch.canOrderByRelevance("  "), is(false));
+    }
+
+    @Test
+    public void matches_whenOrderByRelevance_thenOrderByRank() {
+        fullTextSearch.matches("jazz", true).toPredicate(root, query, builder);
+
+        verify(builder, times(1)).function(eq("fts_rank"), eq(Double.class), any());
+        verify(builder, times(1)).function(eq("fts_match"), eq(Boolean.class), any());
+        assertThat(fullTextSearch.canOrderByRelevance("jazz"), is(true));
+    }
+
+    @Test
+    public void matches_whenFullTextDisabled_thenLikeOnAnnotationAndDescription() {
+        likeSearch.matches("Jazz Rock", true).toPredicate(root, query, builder);
+
+        verify(builder, times(2)).like(any(), eq("%jazz rock%"));
+        verify(builder, never()).function(anyString(), any(), any());
+        assertThat(likeSearch.canOrderByRelevance("Jazz Rock"), is(false));
+    }
+}
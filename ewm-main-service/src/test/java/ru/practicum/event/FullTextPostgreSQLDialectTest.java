@@ -0,0 +1,30 @@
+package ru.practicum.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class FullTextPostgreSQLDialectTest {
+    private final FullTextPostgreSQLDialect dialect = new FullTextPostgreSQLDialect();
+
+    @Test
+    public void ftsMatch_whenRendered_thenWeightedDocumentMatchesQuery() {
+        String sql = dialect.getFunctions().get("fts_match")
+                .render(null, List.of("e.annotation", "e.description", "?"), null);
+
+        assertThat(sql, is("((setweight(to_tsvector('russian', e.annotation), 'A')"
+                + " || setweight(to_tsvector('russian', e.description), 'B')) @@ to_tsquery('russian', ?))"));
+    }
+
+    @Test
+    public void ftsRank_whenRendered_thenRankSameDocumentAndQuery() {
+        String sql = dialect.getFunctions().get("fts_rank")
+                .render(null, List.of("e.annotation", "e.description", "?"), null);
+
+        assertThat(sql, is("ts_rank((setweight(to_tsvector('russian', e.annotation), 'A')"
+                + " || setweight(to_tsvector('russian', e.description), 'B')), to_tsquery('russian', ?))"));
+    }
+}
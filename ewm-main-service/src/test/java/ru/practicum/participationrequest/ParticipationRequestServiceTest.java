@@ -6,6 +6,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import ru.practicum.event.Event;
 import ru.practicum.event.EventRepository;
 import ru.practicum.event.EventState;
@@ -14,7 +15,7 @@ import ru.practicum.exception.NotFoundException;
 import ru.practicum.participationrequest.*;
 import ru.practicum.participationrequest.dto.ParticipationRequestDto;
 import ru.practicum.user.User;
-import ru.practicum.user.UserRepository;
+import ru.practicum.user.UserCatalog;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -30,11 +31,13 @@ public class ParticipationRequestServiceTest {
     @Mock
     private ParticipationRequestRepository participationRequestRepository;
     @Mock
-    private UserRepository userRepository;
+    private UserCatalog userCatalog;
     @Mock
     private EventRepository eventRepository;
     @Mock
     private ParticipationRequestMapper participationRequestMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private ParticipationRequestServiceImpl participationRequestService;
 
@@ -117,8 +120,9 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void add_whenSuccessful_thenReturnParticipationRequestDto() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findById(event.getId())).thenReturn(Optional.of(event));
+        when(eventRepository.incrementConfirmedRequests(event.getId(), 1)).thenReturn(1);
         when(participationRequestRepository.save(participationRequestToSave)).thenReturn(participationRequest);
         when(participationRequestMapper.convertParticipationRequest(participationRequest))
                 .thenReturn(participationRequestDto);
@@ -127,8 +131,9 @@ public class ParticipationRequestServiceTest {
                 .add(user.getId(), event.getId(), participationRequest.getCreated());
 
         assertThat(participationRequestDto, is(actualResult));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1)).findById(event.getId());
+        verify(eventRepository, times(1)).incrementConfirmedRequests(event.getId(), 1);
         verify(participationRequestRepository, times(1)).save(participationRequestToSave);
         verify(participationRequestMapper, times(1))
                 .convertParticipationRequest(participationRequest);
@@ -136,12 +141,12 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void add_whenUserNotFound_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> participationRequestService.add(user.getId(), event.getId(), LocalDateTime.now()));
         assertThat(exception.getMessage(), is("User with id=" + user.getId() + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, never()).findById(event.getId());
         verify(participationRequestRepository, never()).save(participationRequestToSave);
         verify(participationRequestMapper, never())
@@ -150,13 +155,13 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void add_whenEventNotFound_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findById(event.getId())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> participationRequestService.add(user.getId(), event.getId(), LocalDateTime.now()));
         assertThat(exception.getMessage(), is("Event with id=" + event.getId() + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1)).findById(event.getId());
         verify(participationRequestRepository, never()).save(participationRequestToSave);
         verify(participationRequestMapper, never())
@@ -165,13 +170,13 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void add_whenEventNotPublished_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findById(eventNotPublished.getId())).thenReturn(Optional.of(eventNotPublished));
 
         ConflictException exception = assertThrows(ConflictException.class,
                 () -> participationRequestService.add(user.getId(), eventNotPublished.getId(), LocalDateTime.now()));
         assertThat(exception.getMessage(), is("Attempt of request participation in not published event"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1)).findById(eventNotPublished.getId());
         verify(participationRequestRepository, never()).save(participationRequestToSave);
         verify(participationRequestMapper, never())
@@ -180,13 +185,13 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void add_whenRequesterIsEventInitiator_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findById(eventSameRequester.getId())).thenReturn(Optional.of(eventSameRequester));
 
         ConflictException exception = assertThrows(ConflictException.class,
                 () -> participationRequestService.add(user.getId(), eventSameRequester.getId(), LocalDateTime.now()));
         assertThat(exception.getMessage(), is("Initiator of event cannot request participation in it"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1)).findById(eventSameRequester.getId());
         verify(participationRequestRepository, never()).save(participationRequestToSave);
         verify(participationRequestMapper, never())
@@ -195,22 +200,18 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void add_whenLimitOfParticipantExceeded_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(eventRepository.findById(eventWithParticipantLimit.getId()))
                 .thenReturn(Optional.of(eventWithParticipantLimit));
-        when(participationRequestRepository
-                .findAllByEventIdAndStatus(eventWithParticipantLimit.getId(), ParticipationRequestStatus.CONFIRMED))
-                .thenReturn(List.of(participationRequest, participationRequest,
-                        participationRequest, participationRequest, participationRequest));
+        eventWithParticipantLimit.setConfirmedRequests(5);
 
         ConflictException exception = assertThrows(ConflictException.class,
                 () -> participationRequestService.add(user.getId(),
                         eventWithParticipantLimit.getId(), LocalDateTime.now()));
         assertThat(exception.getMessage(), is("Limit of participants of event is exceeded"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(eventRepository, times(1)).findById(eventWithParticipantLimit.getId());
-        verify(participationRequestRepository, times(1))
-                .findAllByEventIdAndStatus(eventWithParticipantLimit.getId(), ParticipationRequestStatus.CONFIRMED);
+        verify(eventRepository, never()).incrementConfirmedRequests(anyLong(), anyLong());
         verify(participationRequestRepository, never()).save(participationRequestToSave);
         verify(participationRequestMapper, never())
                 .convertParticipationRequest(participationRequest);
@@ -218,7 +219,7 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void get_whenSuccessful_theReturnListOfParticipationRequestDto() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(participationRequestRepository.findAllByRequesterId(user.getId()))
                 .thenReturn(List.of(participationRequest));
         when(participationRequestMapper.convertParticipationRequest(participationRequest))
@@ -227,7 +228,7 @@ public class ParticipationRequestServiceTest {
         List<ParticipationRequestDto> actualResult = participationRequestService.get(user.getId());
 
         assertThat(List.of(participationRequestDto), is(actualResult));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(participationRequestRepository, times(1)).findAllByRequesterId(user.getId());
         verify(participationRequestMapper, times(1))
                 .convertParticipationRequest(participationRequest);
@@ -235,13 +236,13 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void get_whenUserNotFound_theThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> participationRequestService.get(user.getId()));
 
         assertThat(exception.getMessage(), is("User with id=" + user.getId() + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(participationRequestRepository, never()).findAllByRequesterId(user.getId());
         verify(participationRequestMapper, never())
                 .convertParticipationRequest(participationRequest);
@@ -249,7 +250,7 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void cancel_whenSuccessful_thenReturnParticipationRequestDto() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(participationRequestRepository.findByIdAndRequesterId(user.getId(), participationRequest.getId()))
                 .thenReturn(Optional.of(participationRequest));
         when(participationRequestRepository.save(participationRequestCanceled))
@@ -261,7 +262,7 @@ public class ParticipationRequestServiceTest {
                 .cancel(user.getId(), participationRequest.getId());
 
         assertThat(participationRequestCanceledDto, is(actualResult));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(participationRequestRepository, times(1))
                 .findByIdAndRequesterId(user.getId(), participationRequest.getId());
         verify(participationRequestRepository, times(1)).save(participationRequestCanceled);
@@ -271,13 +272,13 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void cancel_whenUserNotFound_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> participationRequestService.cancel(user.getId(), participationRequest.getId()));
 
         assertThat(exception.getMessage(), is("User with id=" + user.getId() + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(participationRequestRepository, never())
                 .findById(participationRequest.getId());
         verify(participationRequestRepository, never()).save(participationRequestCanceled);
@@ -287,7 +288,7 @@ public class ParticipationRequestServiceTest {
 
     @Test
     public void cancel_whenRequestNotFound_thenThrownException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCatalog.findById(user.getId())).thenReturn(Optional.of(user));
         when(participationRequestRepository.findByIdAndRequesterId(user.getId(), participationRequest.getId()))
                 .thenReturn(Optional.empty());
 
@@ -296,7 +297,7 @@ public class ParticipationRequestServiceTest {
 
         assertThat(exception.getMessage(),
                 is("Request with id=" + participationRequest.getId() + " was not found"));
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userCatalog, times(1)).findById(user.getId());
         verify(participationRequestRepository, times(1))
                 .findByIdAndRequesterId(user.getId(), participationRequest.getId());
         verify(participationRequestRepository, never()).save(participationRequestCanceled);
@@ -99,6 +99,7 @@ public class ParticipationRequestTest {
                 .event(event)
                 .build();
         participationRequest = participationRequestRepository.save(participationRequest);
+        eventRepository.incrementConfirmedRequests(event.getId(), 1);
         requester2 = User.builder()
                 .name("requester2")
                 .email("requester2@email.test")
@@ -191,6 +192,19 @@ public class ParticipationRequestTest {
         assertThat(actualResult.getStatus(), is(ParticipationRequestStatus.CANCELED.name()));
     }
 
+    @Test
+    public void cancel_whenConfirmedRequestCanceled_thenParticipationAvailableAgain() {
+        participationRequestService.add(requester2.getId(), event.getId(), LocalDateTime.now());
+        participationRequestService.cancel(requester.getId(), participationRequest.getId());
+
+        ParticipationRequestDto actualResult = participationRequestService
+                .add(requester3.getId(), event.getId(), LocalDateTime.now());
+
+        assertThat(actualResult.getStatus(), is(ParticipationRequestStatus.CONFIRMED.name()));
+        assertThat(eventRepository.findAggregatesByIdIn(List.of(event.getId())).get(0)
+                .getConfirmedRequests(), is(2L));
+    }
+
     @Test
     public void cancel_whenUserNotFound_thenThrownException() {
         long wrongId = 66L;
@@ -0,0 +1,51 @@
+package ru.practicum.stat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.HitDto;
+import ru.practicum.ViewStatDto;
+import ru.practicum.client.StatClient;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+@Transactional
+@SpringBootTest(properties = "stat-server.client=embedded")
+public class EmbeddedStatClientTest {
+    @Autowired
+    private StatClient statClient;
+
+    private final String app = "ewm-main-service";
+    private final String uri = "/events/1";
+
+    @Test
+    void getStat_whenHitsSavedInProcess_thenReturnCountedHits() {
+        statClient.hits(app, uri, "111.0.0.0", LocalDateTime.now());
+        statClient.hits(app, uri, "111.0.0.0", LocalDateTime.now());
+        statClient.hits(app, uri, "222.0.0.0", LocalDateTime.now());
+
+        List<ViewStatDto> unique = statClient.getStat("1970-01-01 00:00:00", "2999-12-31 00:00:00",
+                List.of(uri), true);
+        List<ViewStatDto> all = statClient.getStat("1970-01-01 00:00:00", "2999-12-31 00:00:00",
+                List.of(uri), false);
+
+        assertThat(statClient, instanceOf(EmbeddedStatClient.class));
+        assertThat(unique.size(), is(1));
+        assertThat(unique.get(0).getHits(), is(2L));
+        assertThat(all.get(0).getHits(), is(3L));
+    }
+
+    @Test
+    void hits_whenBatchSaved_thenReturnTrue() {
+        boolean saved = statClient.hits(List.of(
+                new HitDto(app, uri, "111.0.0.0", LocalDateTime.now())));
+
+        assertThat(saved, is(true));
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.stat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.ViewStatDto;
+import ru.practicum.client.StatClient;
+import ru.practicum.client.dedup.HitAggregateFlusher;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@Transactional
+@SpringBootTest(properties = {
+        "stat-server.client=embedded",
+        "stat-server.dedup.enabled=true",
+        "stat-server.dedup.mode=aggregate",
+        "stat-server.dedup.flush-interval-ms=3600000"})
+public class HitDeduplicatorTest {
+    @Autowired
+    private StatClient statClient;
+    @Autowired
+    private HitAggregateFlusher hitAggregateFlusher;
+
+    private final String app = "ewm-main-service";
+    private final String uri = "/events/1";
+
+    @Test
+    void getStat_whenRepeatedHitsAggregated_thenTotalsPreserved() {
+        statClient.hits(app, uri, "111.0.0.0", LocalDateTime.now());
+        statClient.hits(app, uri, "111.0.0.0", LocalDateTime.now());
+        statClient.hits(app, uri, "111.0.0.0", LocalDateTime.now());
+        statClient.hits(app, uri, "222.0.0.0", LocalDateTime.now());
+
+        List<ViewStatDto> beforeFlush = getStat(false);
+        hitAggregateFlusher.flush();
+        List<ViewStatDto> all = getStat(false);
+        List<ViewStatDto> unique = getStat(true);
+
+        assertThat(beforeFlush.get(0).getHits(), is(2L));
+        assertThat(all.get(0).getHits(), is(4L));
+        assertThat(unique.get(0).getHits(), is(2L));
+    }
+
+    private List<ViewStatDto> getStat(boolean unique) {
+        return statClient.getStat("1970-01-01 00:00:00", "2999-12-31 00:00:00", List.of(uri), unique);
+    }
+}
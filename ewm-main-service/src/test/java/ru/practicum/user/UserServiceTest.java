@@ -3,14 +3,23 @@ package ru.practicum.user;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import ru.practicum.event.EventUserRatingRepository;
+import ru.practicum.event.EventChangedEvent;
+import ru.practicum.event.EventRatingService;
+import ru.practicum.event.EventRepository;
+import ru.practicum.event.EventEnricher;
+import ru.practicum.event.LongLongMap;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.page.OffsetPage;
+import ru.practicum.participationrequest.ParticipationRequestRepository;
+import ru.practicum.participationrequest.ParticipationRequestStatus;
 import ru.practicum.user.dto.NewUserRequest;
 import ru.practicum.user.dto.UserDto;
 
@@ -30,7 +39,15 @@ public class UserServiceTest {
     @Mock
     private UserMapper userMapper;
     @Mock
-    private EventUserRatingRepository eventUserRatingRepository;
+    private EventEnricher eventEnricher;
+    @Mock
+    private EventRatingService eventRatingService;
+    @Mock
+    private EventRepository eventRepository;
+    @Mock
+    private ParticipationRequestRepository requestRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -81,7 +98,7 @@ public class UserServiceTest {
     @Test
     void create_whenSuccessful_thenReturnUserDto() {
         when(userMapper.convertNewUserRequest(newUserRequest)).thenReturn(user1);
-        when(userRepository.save(user1)).thenReturn(user1);
+        when(userRepository.saveAndFlush(user1)).thenReturn(user1);
         when(userMapper.convertUser(user1, 0L)).thenReturn(userDto1);
 
         UserDto actualUserDto = userService.add(newUserRequest);
@@ -89,20 +106,42 @@ public class UserServiceTest {
         assertThat(userDto1, equalTo(actualUserDto));
         verify(userMapper, times(1)).convertNewUserRequest(newUserRequest);
         verify(userMapper, times(1)).convertUser(user1, 0L);
-        verify(userRepository, times(1)).save(user1);
+        verify(userRepository, times(1)).saveAndFlush(user1);
     }
 
     @Test
     void delete_whenSuccessful_thenDoNothing() {
         when(userRepository.findById(user1.getId())).thenReturn(Optional.of(user1));
+        when(eventRepository.findIdsByInitiatorId(user1.getId())).thenReturn(List.of(3L, 4L));
         doNothing().when(userRepository).delete(user1);
 
         userService.delete(user1.getId());
 
         verify(userRepository, times(1)).delete(user1);
+        ArgumentCaptor<UserDeletedEvent> deletedEvent = ArgumentCaptor.forClass(UserDeletedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(deletedEvent.capture());
+        assertThat(deletedEvent.getValue().getEventIds(), equalTo(List.of(3L, 4L)));
+        verify(eventPublisher, never()).publishEvent(any(EventChangedEvent.class));
         verify(userRepository, times(1)).findById(user1.getId());
     }
 
+    @Test
+    void delete_whenUserConfirmedOnOtherEvents_thenCountersDecrementedBeforeDelete() {
+        when(userRepository.findById(user1.getId())).thenReturn(Optional.of(user1));
+        when(eventRepository.findIdsByInitiatorId(user1.getId())).thenReturn(List.of(3L));
+        when(requestRepository.findEventIdsByRequesterIdAndStatus(user1.getId(), ParticipationRequestStatus.CONFIRMED))
+                .thenReturn(List.of(3L, 5L, 6L));
+
+        userService.delete(user1.getId());
+
+        InOrder inOrder = inOrder(eventRepository, userRepository);
+        inOrder.verify(eventRepository, times(1)).decrementConfirmedRequests(List.of(5L, 6L));
+        inOrder.verify(userRepository, times(1)).delete(user1);
+        ArgumentCaptor<UserDeletedEvent> deletedEvent = ArgumentCaptor.forClass(UserDeletedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(deletedEvent.capture());
+        assertThat(deletedEvent.getValue().getEventIds(), equalTo(List.of(3L, 5L, 6L)));
+    }
+
     @Test
     void delete_whenUserNotFound_thenThrownException() {
         when(userRepository.findById(wrongUser.getId())).thenReturn(Optional.empty());
@@ -111,6 +150,7 @@ public class UserServiceTest {
                 () -> userService.delete(wrongUser.getId()));
 
         verify(userRepository, never()).delete(wrongUser);
+        verify(eventPublisher, never()).publishEvent(any());
         verify(userRepository, times(1)).findById(wrongUser.getId());
         assertThat(exception.getMessage(), is("User with id=" + wrongUser.getId() + " was not found"));
     }
@@ -119,8 +159,8 @@ public class UserServiceTest {
     void getAll_whenThereAreUsers_thenReturnListOfUserDtos() {
         List<UserDto> expectedUserDtos = List.of(userDto1, userDto2);
         when(userRepository.findAllInIds(List.of(), 0, page)).thenReturn(expectedUserDtos);
-        when(eventUserRatingRepository.findUsersRatingByUserIds(List.of(userDto1.getId(), userDto2.getId())))
-                .thenReturn(List.of());
+        when(eventEnricher.getUserRatings(List.of(userDto1.getId(), userDto2.getId())))
+                .thenReturn(new LongLongMap(0));
 
 
         List<UserDto> actualUserDtos = userService.getAll(null, page);
@@ -1,5 +1,6 @@
 package ru.practicum.user;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,7 @@ import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Transactional
@@ -72,4 +74,17 @@ public class UserTest {
 
         assertThat(savedUsersDto, is(List.of(actualUserDto)));
     }
+
+    @Test
+    void catalog_whenUserDeleted_thenReturnEmptyAfterEviction() {
+        UserCatalog catalog = new UserCatalog(userRepository, 100, new SimpleMeterRegistry());
+        User cached = catalog.findById(user.getId()).orElseThrow();
+
+        assertThat(catalog.findById(user.getId()).orElseThrow(), sameInstance(cached));
+
+        userService.delete(user.getId());
+        catalog.onUserDeleted(new UserDeletedEvent(user.getId(), List.of()));
+
+        assertTrue(catalog.findById(user.getId()).isEmpty());
+    }
 }
@@ -1,11 +1,13 @@
 package ru.practicum;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Positive;
 import java.time.LocalDateTime;
 
 @Getter
@@ -20,4 +22,12 @@ public class HitDto {
     private String ip;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime timestamp = LocalDateTime.now();
+    // число одинаковых обращений, переданных одной записью; если не задано - одно обращение
+    @Positive
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long count;
+
+    public HitDto(String app, String uri, String ip, LocalDateTime timestamp) {
+        this(app, uri, ip, timestamp, null);
+    }
 }
@@ -0,0 +1,69 @@
+package ru.practicum;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Двоичное представление {@link HitDto} и {@link ViewStatDto} для обмена между сервисами (Jackson Smile).
+ * В отличие от JSON время обращения передается числом - миллисекундами от начала эпохи (UTC),
+ * поэтому при каждом запросе не форматируется и не разбирается строка.
+ */
+public final class StatSmile {
+    public static final String MEDIA_TYPE = "application/x-jackson-smile";
+
+    private StatSmile() {
+    }
+
+    public static ObjectMapper createMapper() {
+        return new ObjectMapper(new SmileFactory())
+                .addMixIn(HitDto.class, HitDtoMixIn.class);
+    }
+
+    abstract static class HitDtoMixIn {
+        @JsonSerialize(using = EpochMillisSerializer.class)
+        @JsonDeserialize(using = EpochMillisDeserializer.class)
+        private LocalDateTime timestamp;
+    }
+
+    static class EpochMillisSerializer extends StdSerializer<LocalDateTime> {
+        EpochMillisSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    static class EpochMillisDeserializer extends StdDeserializer<LocalDateTime> {
+        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        EpochMillisDeserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_STRING) { // клиент мог прислать время строкой, как в JSON
+                return LocalDateTime.parse(p.getText(), FORMATTER);
+            }
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(p.getLongValue()), ZoneOffset.UTC);
+        }
+    }
+}
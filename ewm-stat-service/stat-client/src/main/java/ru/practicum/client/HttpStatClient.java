@@ -0,0 +1,144 @@
+package ru.practicum.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.HitDto;
+import ru.practicum.StatSmile;
+import ru.practicum.ViewStatDto;
+import ru.practicum.client.dedup.HitDeduplicator;
+import ru.practicum.client.spool.HitSpool;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@Slf4j
+@Validated
+@ConditionalOnExpression("!'${stat-server.client:blocking}'.equals('embedded')")
+public class HttpStatClient implements StatClient {
+    private static final MediaType SMILE = MediaType.parseMediaType(StatSmile.MEDIA_TYPE);
+    private static final MediaType JSON_FALLBACK = MediaType.parseMediaType("application/json;q=0.9");
+
+    private final RestTemplate rest;
+    private final HitSpool hitSpool;
+    private final HitDeduplicator hitDeduplicator;
+    // выключается, если сервер статистики ответил, что не принимает Smile
+    private volatile boolean binary;
+
+    @Autowired
+    public HttpStatClient(@Value("${stat-server.url}") String serverUrl,
+                          @Value("${stat-server.binary:true}") boolean binary,
+                          @Value("${stat-server.timeout-ms:2000}") long timeoutMs,
+                          RestTemplateBuilder builder,
+                          ObjectProvider<HitSpool> hitSpool,
+                          ObjectProvider<HitDeduplicator> hitDeduplicator) {
+        this.rest =
+                builder
+                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
+                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        // без таймаутов зависший сервер статистики занимает потоки запросов к нему до бесконечности
+                        .setConnectTimeout(Duration.ofMillis(timeoutMs))
+                        .setReadTimeout(Duration.ofMillis(timeoutMs))
+                        .build();
+        this.rest.getMessageConverters().removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter);
+        this.rest.getMessageConverters().add(new MappingJackson2SmileHttpMessageConverter(StatSmile.createMapper()));
+        this.binary = binary;
+        this.hitSpool = hitSpool.getIfAvailable();
+        this.hitDeduplicator = hitDeduplicator.getIfAvailable();
+    }
+
+    @Override
+    public void hits(String app, String uri, String ip, LocalDateTime timestamp) {
+        HitDto hitDto = new HitDto(app, uri, ip, timestamp);
+        if (hitDeduplicator != null && hitDeduplicator.suppress(hitDto)) {
+            return;
+        }
+        if (hitSpool != null && hitSpool.hasPending()) { // пока журнал не разобран, не ждем недоступный сервер
+            hitSpool.append(hitDto);
+            return;
+        }
+        if (!post("/hit", hitDto) && hitSpool != null) {
+            hitSpool.append(hitDto);
+        }
+    }
+
+    @Override
+    public boolean hits(List<HitDto> hitDtos) {
+        return post("/hits", hitDtos);
+    }
+
+    @Override
+    public List<ViewStatDto> getStat(String start, String end, List<String> uris, boolean unique) {
+        String urisParam = String.join("&uris=", uris);
+        String path = String.format("/stats?start=%s&end=%s&uris=%s&unique=%s",
+                start, end, urisParam, unique);
+        ResponseEntity<List<ViewStatDto>> responseEntity = get(path, new ParameterizedTypeReference<>() {
+        });
+        if (!responseEntity.getStatusCode().is2xxSuccessful()) {
+            throw new StatUnavailableException("Сервер статистики ответил " + responseEntity.getStatusCode());
+        }
+        return responseEntity.getBody() == null ? new ArrayList<>() : responseEntity.getBody();
+    }
+
+    private <T> ResponseEntity<T> get(String path, ParameterizedTypeReference<T> responseType) {
+        return makeAndSendRequest(HttpMethod.GET, path, null, responseType);
+    }
+
+    private <T> boolean post(String path, T body) {
+        HttpStatus status = makeAndSendRequest(path, body).getStatusCode();
+        if (status == HttpStatus.UNSUPPORTED_MEDIA_TYPE && binary) {
+            log.info("Сервер статистики не принимает {}, обращения будут отправляться в JSON", StatSmile.MEDIA_TYPE);
+            binary = false;
+            status = makeAndSendRequest(path, body).getStatusCode();
+        }
+        return status.is2xxSuccessful();
+    }
+
+    private <T> ResponseEntity<Object> makeAndSendRequest(String path, @Nullable T body) {
+        return makeAndSendRequest(HttpMethod.POST, path, body, new ParameterizedTypeReference<>() {
+        });
+    }
+
+    private <T, R> ResponseEntity<R>  makeAndSendRequest(HttpMethod method, String path, @Nullable T body, ParameterizedTypeReference<R> responseType) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders());
+
+        ResponseEntity<R> statServerResponse;
+        try {
+            statServerResponse = rest.exchange(path, method, requestEntity, responseType);
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(null);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(null);
+        }
+        return statServerResponse;
+    }
+
+    private HttpHeaders defaultHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        if (binary) {
+            headers.setContentType(SMILE);
+            headers.setAccept(List.of(SMILE, JSON_FALLBACK));
+        } else {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        }
+
+        return headers;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.client;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.practicum.HitDto;
+import ru.practicum.StatSmile;
+import ru.practicum.ViewStatDto;
+import ru.practicum.client.dedup.HitDeduplicator;
+import ru.practicum.client.spool.HitSpool;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Неблокирующий клиент сервера статистики. Включается настройкой {@code stat-server.client=reactive},
+ * по умолчанию используется блокирующий {@link HttpStatClient}.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "stat-server", name = "client", havingValue = "reactive")
+public class ReactiveStatClient {
+    private static final MediaType SMILE = MediaType.parseMediaType(StatSmile.MEDIA_TYPE);
+    private static final MediaType JSON_FALLBACK = MediaType.parseMediaType("application/json;q=0.9");
+
+    private final WebClient webClient;
+    private final Duration timeout;
+    private final HitSpool hitSpool;
+    private final HitDeduplicator hitDeduplicator;
+    // выключается, если сервер статистики ответил, что не принимает Smile
+    private volatile boolean binary;
+
+    @Autowired
+    public ReactiveStatClient(@Value("${stat-server.url}") String serverUrl,
+                              @Value("${stat-server.reactive.max-connections:50}") int maxConnections,
+                              @Value("${stat-server.reactive.timeout-ms:2000}") long timeoutMs,
+                              @Value("${stat-server.binary:true}") boolean binary,
+                              WebClient.Builder builder,
+                              ObjectProvider<HitSpool> hitSpool,
+                              ObjectProvider<HitDeduplicator> hitDeduplicator) {
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.binary = binary;
+        this.hitSpool = hitSpool.getIfAvailable();
+        this.hitDeduplicator = hitDeduplicator.getIfAvailable();
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("stat-client")
+                .maxConnections(maxConnections)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeoutMs)
+                .responseTimeout(timeout)
+                .keepAlive(true);
+        this.webClient = builder
+                .baseUrl(serverUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // без явного типа кодеки со своим ObjectMapper объявляют себя для JSON, а не для Smile
+                .codecs(configurer -> {
+                    configurer.defaultCodecs().jackson2SmileEncoder(
+                            new Jackson2SmileEncoder(StatSmile.createMapper(), SMILE));
+                    configurer.defaultCodecs().jackson2SmileDecoder(
+                            new Jackson2SmileDecoder(StatSmile.createMapper(), SMILE));
+                })
+                .build();
+    }
+
+    public Mono<Void> hits(String app, String uri, String ip, LocalDateTime timestamp) {
+        HitDto hitDto = new HitDto(app, uri, ip, timestamp);
+        if (hitDeduplicator != null && hitDeduplicator.suppress(hitDto)) {
+            return Mono.empty();
+        }
+        if (hitSpool != null && hitSpool.hasPending()) { // пока журнал не разобран, не ждем недоступный сервер
+            return Mono.fromRunnable(() -> hitSpool.append(hitDto));
+        }
+        return post(hitDto)
+                .onErrorResume(WebClientResponseException.UnsupportedMediaType.class, e -> {
+                    if (!binary) {
+                        return Mono.error(e);
+                    }
+                    log.info("Сервер статистики не принимает {}, обращения будут отправляться в JSON",
+                            StatSmile.MEDIA_TYPE);
+                    binary = false;
+                    return post(hitDto);
+                })
+                .onErrorResume(e -> {
+                    log.debug("Не удалось отправить обращение к {} на сервер статистики: {}", uri, e.getMessage());
+                    if (hitSpool != null) {
+                        hitSpool.append(hitDto);
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Завершается ошибкой {@link StatUnavailableException}, если статистику получить не удалось.
+     */
+    public Flux<ViewStatDto> getStat(String start, String end, List<String> uris, boolean unique) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/stats")
+                        .queryParam("start", start)
+                        .queryParam("end", end)
+                        .queryParam("uris", uris.toArray())
+                        .queryParam("unique", unique)
+                        .build())
+                .accept(binary ? new MediaType[]{SMILE, JSON_FALLBACK} : new MediaType[]{MediaType.APPLICATION_JSON})
+                .retrieve()
+                .bodyToFlux(ViewStatDto.class)
+                .timeout(timeout)
+                .onErrorMap(e -> new StatUnavailableException("Не удалось получить статистику с сервера статистики", e));
+    }
+
+    private Mono<Void> post(HitDto hitDto) {
+        return webClient.post()
+                .uri("/hit")
+                .contentType(binary ? SMILE : MediaType.APPLICATION_JSON)
+                .bodyValue(hitDto)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(timeout)
+                .then();
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.client;
+
+/**
+ * Статистика не получена: сервер статистики недоступен, не ответил в срок или ответил ошибкой.
+ * Пустой ответ означает, что просмотров нет, поэтому отказ передается исключением, а не пустым списком.
+ */
+public class StatUnavailableException extends RuntimeException {
+    public StatUnavailableException(String message) {
+        super(message);
+    }
+
+    public StatUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
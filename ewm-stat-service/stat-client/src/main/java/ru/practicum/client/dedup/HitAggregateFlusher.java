@@ -0,0 +1,66 @@
+package ru.practicum.client.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.HitDto;
+import ru.practicum.client.StatClient;
+import ru.practicum.client.spool.HitSpool;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Периодически отправляет на сервер статистики повторные обращения, накопленные {@link HitDeduplicator}.
+ * Если сервер недоступен, записи уходят в {@link HitSpool} (без журнала - обратно в память до следующей
+ * попытки). При остановке накопленное отправляется последний раз.
+ */
+@Component
+@Slf4j
+@ConditionalOnExpression("${stat-server.dedup.enabled:false} and '${stat-server.dedup.mode:suppress}'.equals('aggregate')")
+public class HitAggregateFlusher {
+    private final HitDeduplicator hitDeduplicator;
+    private final StatClient statClient;
+    private final HitSpool hitSpool;
+
+    @Autowired
+    public HitAggregateFlusher(HitDeduplicator hitDeduplicator,
+                               StatClient statClient,
+                               ObjectProvider<HitSpool> hitSpool) {
+        this.hitDeduplicator = hitDeduplicator;
+        this.statClient = statClient;
+        this.hitSpool = hitSpool.getIfAvailable();
+    }
+
+    @Scheduled(fixedDelayString = "${stat-server.dedup.flush-interval-ms:5000}")
+    public void flush() {
+        List<HitDto> aggregates = hitDeduplicator.drain();
+        if (aggregates.isEmpty()) {
+            return;
+        }
+        if (statClient.hits(aggregates)) {
+            return;
+        }
+        log.debug("Сервер статистики недоступен, {} агрегированных обращений будут отправлены позже",
+                aggregates.size());
+        List<HitDto> notSpooled = hitSpool == null ? aggregates : aggregates.stream()
+                .filter(hitDto -> !hitSpool.append(hitDto))
+                .collect(Collectors.toList());
+        if (!notSpooled.isEmpty()) {
+            hitDeduplicator.restore(notSpooled);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        List<HitDto> lost = hitDeduplicator.drain();
+        if (!lost.isEmpty()) {
+            log.warn("При остановке не удалось сохранить {} агрегированных обращений", lost.size());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.client.dedup;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.HitDto;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отсекает повторные обращения с того же ip к тому же uri в пределах окна, чтобы не отправлять их
+ * на сервер статистики по одному. В режиме {@code suppress} повторы отбрасываются: уникальные просмотры
+ * не меняются, общее число просмотров занижается. В режиме {@code aggregate} повторы копятся в памяти
+ * и отправляются {@link HitAggregateFlusher} одной записью с числом обращений, поэтому итоги сохраняются.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "stat-server.dedup", name = "enabled", havingValue = "true")
+public class HitDeduplicator {
+    public static final String AGGREGATE_MODE = "aggregate";
+
+    private final RotatingBloomFilter filter;
+    private final boolean aggregate;
+    private final Map<String, HitDto> aggregates = new ConcurrentHashMap<>();
+    private final AtomicLong suppressedCount = new AtomicLong();
+
+    @Autowired
+    public HitDeduplicator(@Value("${stat-server.dedup.expected-hits:100000}") long expectedHits,
+                           @Value("${stat-server.dedup.false-positive-rate:0.001}") double falsePositiveRate,
+                           @Value("${stat-server.dedup.window-ms:60000}") long windowMs,
+                           @Value("${stat-server.dedup.mode:suppress}") String mode,
+                           MeterRegistry meterRegistry) {
+        this.filter = new RotatingBloomFilter(expectedHits, falsePositiveRate, windowMs, Clock.systemUTC());
+        this.aggregate = AGGREGATE_MODE.equals(mode);
+        FunctionCounter.builder("stat.dedup.suppressed", suppressedCount, AtomicLong::get)
+                .description("Repeated hits not sent to stat-server individually")
+                .register(meterRegistry);
+        log.info("Включено отсечение повторных обращений: режим {}, фильтр {} бит, {} хеш-функций",
+                mode, filter.getBitCount(), filter.getHashCount());
+    }
+
+    /**
+     * @return true, если обращение повторное и отправлять его не нужно
+     */
+    public boolean suppress(HitDto hitDto) {
+        String key = key(hitDto);
+        if (!filter.checkAndPut(key)) {
+            return false;
+        }
+        suppressedCount.incrementAndGet();
+        if (aggregate) {
+            merge(key, hitDto, 1L);
+        }
+        return true;
+    }
+
+    /**
+     * Забирает накопленные повторы. Каждая запись содержит число обращений и время последнего из них.
+     */
+    public List<HitDto> drain() {
+        List<HitDto> drained = new ArrayList<>();
+        for (String key : aggregates.keySet()) {
+            HitDto hitDto = aggregates.remove(key);
+            if (hitDto != null) {
+                drained.add(hitDto);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Возвращает записи, которые не удалось отправить, чтобы они ушли со следующей пачкой.
+     */
+    public void restore(List<HitDto> hitDtos) {
+        hitDtos.forEach(hitDto -> merge(key(hitDto), hitDto, hitDto.getCount()));
+    }
+
+    private void merge(String key, HitDto hitDto, long count) {
+        aggregates.merge(key, new HitDto(hitDto.getApp(), hitDto.getUri(), hitDto.getIp(), hitDto.getTimestamp(),
+                count), (prev, next) -> new HitDto(prev.getApp(), prev.getUri(), prev.getIp(),
+                latest(prev.getTimestamp(), next.getTimestamp()), prev.getCount() + next.getCount()));
+    }
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        if (first == null) {
+            return second;
+        }
+        return second != null && second.isAfter(first) ? second : first;
+    }
+
+    private static String key(HitDto hitDto) {
+        return hitDto.getApp() + '\n' + hitDto.getUri() + '\n' + hitDto.getIp();
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.client.dedup;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "stat-server.dedup", name = "enabled", havingValue = "true")
+public class HitDeduplicatorConfig {
+}
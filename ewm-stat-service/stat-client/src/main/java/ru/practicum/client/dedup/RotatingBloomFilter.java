@@ -0,0 +1,105 @@
+package ru.practicum.client.dedup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума, который целиком очищается по истечении окна. Ложноотрицательных ответов не дает,
+ * доля ложноположительных при заполнении до {@code expectedInsertions} ключей не превышает заданной.
+ */
+public class RotatingBloomFilter {
+    private static final double LN2 = Math.log(2);
+
+    private final int bitCount;
+    private final int hashCount;
+    private final long windowMillis;
+    private final Clock clock;
+    private volatile Window window;
+
+    public RotatingBloomFilter(long expectedInsertions, double falsePositiveRate, long windowMillis, Clock clock) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1 || windowMillis <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры фильтра Блума");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.bitCount = (int) Math.min(Math.max(bits, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * LN2));
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.window = new Window(clock.millis(), bitCount);
+    }
+
+    /**
+     * Запоминает ключ в текущем окне.
+     *
+     * @return true, если ключ (с точностью до ложноположительных срабатываний) уже встречался в этом окне
+     */
+    public boolean checkAndPut(String key) {
+        Window current = currentWindow();
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean seen = true;
+        for (int i = 1; i <= hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if (!current.set(bit)) {
+                seen = false;
+            }
+        }
+        return seen;
+    }
+
+    public int getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private Window currentWindow() {
+        Window current = window;
+        long now = clock.millis();
+        if (now - current.startedAt < windowMillis) {
+            return current;
+        }
+        synchronized (this) {
+            if (window == current) {
+                window = new Window(now, bitCount);
+            }
+            return window;
+        }
+    }
+
+    // FNV-1a с финальным перемешиванием из MurmurHash3
+    private static long hash64(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Window {
+        private final long startedAt;
+        private final AtomicLongArray bits;
+
+        private Window(long startedAt, int bitCount) {
+            this.startedAt = startedAt;
+            this.bits = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+        }
+
+        // возвращает true, если бит уже был установлен
+        private boolean set(int bit) {
+            int index = bit / Long.SIZE;
+            long mask = 1L << (bit % Long.SIZE);
+            return (bits.getAndAccumulate(index, mask, (prev, m) -> prev | m) & mask) != 0;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package ru.practicum.client.spool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.HitDto;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Журнал обращений, которые не удалось отправить на сервер статистики.
+ * Хранится в каталоге в виде сегментов фиксированного размера, отображенных в память. Запись в сегменте -
+ * длина и тело, длина пишется последней, поэтому оборванная запись не читается; запись с пустыми полями
+ * (тело не дописано на диск при сбое) пропускается при чтении. Число обращений агрегированной записи
+ * пишется в конце тела и только если задано, поэтому записи без него читаются как одно обращение.
+ * Позиция чтения сохраняется
+ * в файле checkpoint только после успешной отправки пачки, что дает доставку "хотя бы один раз".
+ * При превышении максимального числа сегментов вытесняется самый старый.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "stat-server.spool", name = "enabled", havingValue = "true")
+public class HitSpool implements Closeable {
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int LENGTH_SIZE = Integer.BYTES;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final TreeSet<Long> segments = new TreeSet<>();
+    private final AtomicLong appendedCount = new AtomicLong();
+    private final AtomicLong droppedSegmentCount = new AtomicLong();
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+
+    private long readSegment;
+    private int readPosition;
+    private long readBufferSegment = -1;
+    private MappedByteBuffer readBuffer;
+
+    @Autowired
+    public HitSpool(@Value("${stat-server.spool.dir:hit-spool}") String dir,
+                    @Value("${stat-server.spool.segment-size-kb:1024}") int segmentSizeKb,
+                    @Value("${stat-server.spool.max-segments:64}") int maxSegments) throws IOException {
+        this.dir = Paths.get(dir);
+        this.segmentSize = segmentSizeKb * 1024;
+        this.maxSegments = Math.max(maxSegments, 2);
+        open();
+    }
+
+    public synchronized boolean append(HitDto hitDto) {
+        // такое обращение сервер статистики все равно отклонит, а в журнале оно остановило бы отправку пачек
+        if (isBlank(hitDto.getApp()) || isBlank(hitDto.getUri()) || isBlank(hitDto.getIp())) {
+            log.warn("Обращение без app, uri или ip не будет сохранено в журнал: uri={}", hitDto.getUri());
+            return false;
+        }
+        byte[] record = encode(hitDto);
+        if (LENGTH_SIZE + record.length > segmentSize) {
+            log.warn("Обращение {} слишком велико для журнала и не будет сохранено", hitDto.getUri());
+            return false;
+        }
+        try {
+            if (writeBuffer.position() + LENGTH_SIZE + record.length > segmentSize) {
+                rotate();
+            }
+        } catch (IOException e) {
+            log.error("Не удалось создать новый сегмент журнала обращений", e);
+            return false;
+        }
+        int position = writeBuffer.position();
+        writeBuffer.position(position + LENGTH_SIZE);
+        writeBuffer.put(record);
+        writeBuffer.putInt(position, record.length); // длина пишется последней - запись видна только целиком
+        appendedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Читает до {@code maxCount} записей начиная с сохраненной позиции, не сдвигая ее.
+     */
+    public synchronized SpoolBatch read(int maxCount) {
+        List<HitDto> hits = new ArrayList<>();
+        long segment = readSegment;
+        int position = readPosition;
+        while (hits.size() < maxCount) {
+            ByteBuffer buffer = bufferFor(segment);
+            int length = position + LENGTH_SIZE <= segmentSize ? buffer.getInt(position) : 0;
+            if (length <= 0 || position + LENGTH_SIZE + length > segmentSize) {
+                if (segment >= writeSegment) {
+                    break;
+                }
+                segment = segments.higher(segment);
+                position = 0;
+                continue;
+            }
+            byte[] record = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + LENGTH_SIZE);
+            view.get(record);
+            HitDto hit = decode(record);
+            if (hit != null) {
+                hits.add(hit);
+            } else {
+                log.warn("Поврежденная запись в сегменте {} журнала обращений на позиции {} пропущена", segment, position);
+            }
+            position += LENGTH_SIZE + length;
+        }
+        return new SpoolBatch(hits, segment, position);
+    }
+
+    /**
+     * Подтверждает отправку пачки: сдвигает позицию чтения и удаляет полностью прочитанные сегменты.
+     */
+    public synchronized void commit(SpoolBatch batch) {
+        if (batch.getSegment() < readSegment
+                || (batch.getSegment() == readSegment && batch.getPosition() <= readPosition)) {
+            return; // пока пачка отправлялась, ее сегменты были вытеснены или позиция уже сдвинута
+        }
+        while (!segments.isEmpty() && segments.first() < batch.getSegment()) {
+            deleteSegment(segments.pollFirst());
+        }
+        readSegment = batch.getSegment();
+        readPosition = batch.getPosition();
+        writeCheckpoint();
+    }
+
+    public synchronized long pendingBytes() {
+        return (writeSegment - readSegment) * segmentSize + writeBuffer.position() - readPosition;
+    }
+
+    public boolean hasPending() {
+        return pendingBytes() > 0;
+    }
+
+    public long appendedCount() {
+        return appendedCount.get();
+    }
+
+    public long droppedSegmentCount() {
+        return droppedSegmentCount.get();
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void close() {
+        writeBuffer.force();
+        writeCheckpoint();
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))
+                    .map(Long::parseLong)
+                    .forEach(segments::add);
+        }
+        if (segments.isEmpty()) {
+            segments.add(0L);
+        }
+        writeSegment = segments.last();
+        writeBuffer = map(writeSegment);
+        writeBuffer.position(findEnd(writeBuffer));
+
+        readCheckpoint();
+        if (!segments.contains(readSegment)) {
+            readSegment = segments.first();
+            readPosition = 0;
+        }
+        log.info("Открыт журнал обращений {}, ожидают отправки {} байт", dir.toAbsolutePath(), pendingBytes());
+    }
+
+    private void rotate() throws IOException {
+        writeBuffer.force();
+        writeSegment++;
+        segments.add(writeSegment);
+        writeBuffer = map(writeSegment);
+        while (segments.size() > maxSegments) {
+            long oldest = segments.pollFirst();
+            deleteSegment(oldest);
+            droppedSegmentCount.incrementAndGet();
+            log.warn("Журнал обращений переполнен, вытеснен сегмент {}", oldest);
+            if (readSegment == oldest) {
+                readSegment = segments.first();
+                readPosition = 0;
+                writeCheckpoint();
+            }
+        }
+    }
+
+    private ByteBuffer bufferFor(long segment) {
+        if (segment == writeSegment) {
+            return writeBuffer;
+        }
+        if (readBufferSegment != segment) {
+            try {
+                readBuffer = map(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            readBufferSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private int findEnd(ByteBuffer buffer) {
+        int position = 0;
+        while (position + LENGTH_SIZE <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + LENGTH_SIZE + length > segmentSize) {
+                break;
+            }
+            position += LENGTH_SIZE + length;
+        }
+        return position;
+    }
+
+    private void deleteSegment(long segment) {
+        if (readBufferSegment == segment) {
+            readBuffer = null;
+            readBufferSegment = -1;
+        }
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException e) {
+            log.warn("Не удалось удалить сегмент журнала обращений {}", segment, e);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private void readCheckpoint() throws IOException {
+        Path checkpoint = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            readSegment = segments.first();
+            readPosition = 0;
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(checkpoint))) {
+            readSegment = in.readLong();
+            readPosition = in.readInt();
+        } catch (EOFException e) {
+            readSegment = segments.first();
+            readPosition = 0;
+        }
+    }
+
+    private void writeCheckpoint() {
+        Path checkpoint = dir.resolve(CHECKPOINT_FILE);
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+            out.writeLong(readSegment);
+            out.writeInt(readPosition);
+        } catch (IOException e) {
+            log.error("Не удалось сохранить позицию чтения журнала обращений", e);
+            return;
+        }
+        try {
+            Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Не удалось сохранить позицию чтения журнала обращений", e);
+        }
+    }
+
+    private byte[] encode(HitDto hitDto) {
+        LocalDateTime timestamp = hitDto.getTimestamp() != null ? hitDto.getTimestamp() : LocalDateTime.now();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(hitDto.getApp());
+            out.writeUTF(hitDto.getUri());
+            out.writeUTF(hitDto.getIp());
+            out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(timestamp.getNano());
+            if (hitDto.getCount() != null) {
+                out.writeLong(hitDto.getCount());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private HitDto decode(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            String app = in.readUTF();
+            String uri = in.readUTF();
+            String ip = in.readUTF();
+            if (isBlank(app) || isBlank(uri) || isBlank(ip)) {
+                return null;
+            }
+            LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            Long count = in.available() >= Long.BYTES ? in.readLong() : null;
+            if (count != null && count <= 0) {
+                return null;
+            }
+            return new HitDto(app, uri, ip, timestamp, count);
+        } catch (IOException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.client.spool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.StatClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Периодически отправляет накопленные в {@link HitSpool} обращения на сервер статистики пачками.
+ * Если сервер недоступен, попытка повторяется на следующем запуске.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "stat-server.spool", name = "enabled", havingValue = "true")
+public class HitSpoolReplayer {
+    private final HitSpool hitSpool;
+    private final StatClient statClient;
+    private final int batchSize;
+    private final Counter replayedCounter;
+    private final AtomicLong replayLagSeconds = new AtomicLong();
+
+    @Autowired
+    public HitSpoolReplayer(HitSpool hitSpool,
+                            StatClient statClient,
+                            @Value("${stat-server.spool.batch-size:500}") int batchSize,
+                            MeterRegistry meterRegistry) {
+        this.hitSpool = hitSpool;
+        this.statClient = statClient;
+        this.batchSize = batchSize;
+        this.replayedCounter = Counter.builder("stat.spool.replayed")
+                .description("Hits delivered to stat-server from the spool")
+                .register(meterRegistry);
+        Gauge.builder("stat.spool.size.bytes", hitSpool, HitSpool::pendingBytes)
+                .description("Bytes of hits waiting in the spool")
+                .register(meterRegistry);
+        Gauge.builder("stat.spool.replay.lag.seconds", replayLagSeconds, AtomicLong::get)
+                .description("Age of the oldest hit waiting in the spool")
+                .register(meterRegistry);
+        FunctionCounter.builder("stat.spool.appended", hitSpool, HitSpool::appendedCount)
+                .description("Hits written to the spool")
+                .register(meterRegistry);
+        FunctionCounter.builder("stat.spool.dropped.segments", hitSpool, HitSpool::droppedSegmentCount)
+                .description("Spool segments evicted because the spool was full")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${stat-server.spool.replay-interval-ms:5000}")
+    public void replay() {
+        long sent = 0;
+        SpoolBatch batch = hitSpool.read(batchSize);
+        while (!batch.getHits().isEmpty()) {
+            if (!statClient.hits(batch.getHits())) {
+                log.debug("Сервер статистики недоступен, в журнале ожидают отправки {} байт", hitSpool.pendingBytes());
+                break;
+            }
+            hitSpool.commit(batch);
+            replayedCounter.increment(batch.getHits().size());
+            sent += batch.getHits().size();
+            batch = hitSpool.read(batchSize);
+        }
+        if (batch.getHits().isEmpty()) {
+            hitSpool.commit(batch);
+            replayLagSeconds.set(0);
+        } else {
+            LocalDateTime oldest = batch.getHits().get(0).getTimestamp();
+            replayLagSeconds.set(Math.max(Duration.between(oldest, LocalDateTime.now()).getSeconds(), 0));
+        }
+        if (sent > 0) {
+            log.info("Из журнала на сервер статистики отправлено {} обращений", sent);
+        }
+    }
+}
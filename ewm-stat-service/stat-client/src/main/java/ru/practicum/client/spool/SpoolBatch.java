@@ -0,0 +1,15 @@
+package ru.practicum.client.spool;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.HitDto;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class SpoolBatch {
+    private final List<HitDto> hits;
+    private final long segment;
+    private final int position;
+}
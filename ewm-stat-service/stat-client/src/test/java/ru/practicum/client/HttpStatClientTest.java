@@ -0,0 +1,152 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import ru.practicum.HitDto;
+import ru.practicum.StatSmile;
+import ru.practicum.ViewStatDto;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class HttpStatClientTest {
+    private final ObjectMapper smileMapper = StatSmile.createMapper();
+    private final ObjectMapper jsonMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<String> contentTypes = new CopyOnWriteArrayList<>();
+    private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private volatile boolean acceptsSmile;
+    private volatile long statsDelayMs;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/hit", this::handleHit);
+        server.createContext("/stats", this::handleStats);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void hits_whenServerAcceptsSmile_thenSendSmile() throws IOException {
+        acceptsSmile = true;
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+
+        client(true).hits("ewm-main-service", "/events/1", "192.163.0.1", timestamp);
+
+        assertThat(contentTypes, is(List.of(StatSmile.MEDIA_TYPE)));
+        HitDto sent = smileMapper.readValue(bodies.get(0), HitDto.class);
+        assertThat(sent.getTimestamp(), is(timestamp));
+    }
+
+    @Test
+    void hits_whenServerRejectsSmile_thenRetryAndContinueInJson() throws IOException {
+        acceptsSmile = false;
+        HttpStatClient client = client(true);
+
+        client.hits("ewm-main-service", "/events/1", "192.163.0.1", LocalDateTime.now());
+        client.hits("ewm-main-service", "/events/2", "192.163.0.1", LocalDateTime.now());
+
+        assertThat(contentTypes, is(List.of(StatSmile.MEDIA_TYPE, "application/json", "application/json")));
+        assertThat(jsonMapper.readTree(bodies.get(2)).get("uri").asText(), is("/events/2"));
+    }
+
+    @Test
+    void getStat_whenSmileAccepted_thenDecodeSmile() {
+        acceptsSmile = true;
+
+        List<ViewStatDto> stats = client(true).getStat("2024-01-01 00:00:00", "2024-12-31 00:00:00",
+                List.of("/events/1"), false);
+
+        assertThat(stats.size(), is(1));
+        assertThat(stats.get(0).getHits(), is(5L));
+    }
+
+    @Test
+    void getStat_whenBinaryDisabled_thenDecodeJson() {
+        acceptsSmile = true;
+
+        List<ViewStatDto> stats = client(false).getStat("2024-01-01 00:00:00", "2024-12-31 00:00:00",
+                List.of("/events/1"), false);
+
+        assertThat(stats.size(), is(1));
+        assertThat(stats.get(0).getUri(), is("/events/1"));
+    }
+
+    @Test
+    void getStat_whenServerHangs_thenFailAfterReadTimeout() {
+        statsDelayMs = 3000;
+        HttpStatClient client = client(false, 200);
+
+        long start = System.nanoTime();
+        assertThrows(StatUnavailableException.class, () -> client.getStat("2024-01-01 00:00:00",
+                "2024-12-31 00:00:00", List.of("/events/1"), false));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), lessThan(2000L));
+    }
+
+    @Test
+    void getStat_whenServerUnreachable_thenFail() {
+        HttpStatClient client = client(false);
+        server.stop(0);
+
+        assertThrows(StatUnavailableException.class, () -> client.getStat("2024-01-01 00:00:00",
+                "2024-12-31 00:00:00", List.of("/events/1"), false));
+    }
+
+    private HttpStatClient client(boolean binary) {
+        return client(binary, 2000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpStatClient client(boolean binary, long timeoutMs) {
+        return new HttpStatClient("http://localhost:" + server.getAddress().getPort(), binary, timeoutMs,
+                new RestTemplateBuilder(), mock(ObjectProvider.class), mock(ObjectProvider.class));
+    }
+
+    private void handleHit(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        contentTypes.add(contentType.split(";")[0]);
+        bodies.add(exchange.getRequestBody().readAllBytes());
+        int status = contentType.startsWith(StatSmile.MEDIA_TYPE) && !acceptsSmile ? 415 : 201;
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        if (statsDelayMs > 0) {
+            try {
+                Thread.sleep(statsDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        String accept = String.valueOf(exchange.getRequestHeaders().getFirst("Accept"));
+        List<ViewStatDto> stats = List.of(new ViewStatDto(5L, "ewm-main-service", "/events/1"));
+        boolean smile = acceptsSmile && accept.contains(StatSmile.MEDIA_TYPE);
+        byte[] body = smile ? smileMapper.writeValueAsBytes(stats) : jsonMapper.writeValueAsBytes(stats);
+        exchange.getResponseHeaders().set("Content-Type", smile ? StatSmile.MEDIA_TYPE : "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
@@ -0,0 +1,246 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.practicum.HitDto;
+import ru.practicum.StatSmile;
+import ru.practicum.ViewStatDto;
+import ru.practicum.client.spool.HitSpool;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveStatClientTest {
+    private static final Duration BLOCK_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ObjectMapper smileMapper = StatSmile.createMapper();
+    private final ObjectMapper jsonMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<String> contentTypes = new CopyOnWriteArrayList<>();
+    private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+    private final List<String> accepts = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private volatile boolean acceptsSmile;
+    private volatile int hitStatus;
+    private volatile long delayMs;
+
+    @TempDir
+    Path spoolDir;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/hit", this::handleHit);
+        server.createContext("/stats", this::handleStats);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void hits_whenServerRejectsSmile_thenRetryAndContinueInJson() throws IOException {
+        acceptsSmile = false;
+        ReactiveStatClient client = client(true, 2000);
+
+        client.hits("ewm-main-service", "/events/1", "192.163.0.1", LocalDateTime.now()).block(BLOCK_TIMEOUT);
+        client.hits("ewm-main-service", "/events/2", "192.163.0.1", LocalDateTime.now()).block(BLOCK_TIMEOUT);
+
+        assertThat(contentTypes, is(List.of(StatSmile.MEDIA_TYPE, "application/json", "application/json")));
+        assertThat(jsonMapper.readTree(bodies.get(2)).get("uri").asText(), is("/events/2"));
+    }
+
+    @Test
+    void hits_whenServerAcceptsSmile_thenSendEpochMillisTimestamp() throws IOException {
+        acceptsSmile = true;
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 250_000_000);
+
+        client(true, 2000).hits("ewm-main-service", "/events/1", "192.163.0.1", timestamp).block(BLOCK_TIMEOUT);
+
+        assertThat(contentTypes, is(List.of(StatSmile.MEDIA_TYPE)));
+        assertThat(smileMapper.readValue(bodies.get(0), HitDto.class).getTimestamp(), is(timestamp));
+    }
+
+    @Test
+    void getStat_whenSmileAccepted_thenDecodeSmile() {
+        acceptsSmile = true;
+
+        List<ViewStatDto> stats = getStat(client(true, 2000));
+
+        assertThat(stats.size(), is(1));
+        assertThat(stats.get(0).getHits(), is(5L));
+        assertThat(stats.get(0).getUri(), is("/events/1"));
+    }
+
+    @Test
+    void getStat_whenBinaryDisabled_thenRequestAndDecodeJson() {
+        acceptsSmile = true;
+
+        List<ViewStatDto> stats = getStat(client(false, 2000));
+
+        assertThat(accepts, is(List.of("application/json")));
+        assertThat(stats.size(), is(1));
+        assertThat(stats.get(0).getHits(), is(5L));
+        assertThat(stats.get(0).getApp(), is("ewm-main-service"));
+    }
+
+    @Test
+    void getStat_whenServerSlowerThanTimeout_thenFailWithinTimeout() {
+        acceptsSmile = true;
+        delayMs = 1500;
+        ReactiveStatClient client = client(true, 200);
+
+        long start = System.nanoTime();
+        assertThrows(StatUnavailableException.class, () -> getStat(client));
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(elapsedMs, lessThan(1000L));
+    }
+
+    @Test
+    void getStat_whenServerUnreachable_thenFail() {
+        ReactiveStatClient client = client(true, 2000);
+        server.stop(0);
+
+        assertThrows(StatUnavailableException.class, () -> getStat(client));
+    }
+
+    @Test
+    void hits_whenServerFails_thenAppendToSpool() throws IOException {
+        acceptsSmile = true;
+        hitStatus = 500;
+        try (HitSpool spool = new HitSpool(spoolDir.toString(), 1, 16)) {
+            client(true, 2000, spool).hits("ewm-main-service", "/events/1", "192.163.0.1", LocalDateTime.now())
+                    .block(BLOCK_TIMEOUT);
+
+            List<HitDto> spooled = spool.read(10).getHits();
+            assertThat(contentTypes.size(), is(1));
+            assertThat(spooled.size(), is(1));
+            assertThat(spooled.get(0).getUri(), is("/events/1"));
+        }
+    }
+
+    @Test
+    void hits_whenServerSlowerThanTimeout_thenAppendToSpool() throws IOException {
+        acceptsSmile = true;
+        delayMs = 1500;
+        try (HitSpool spool = new HitSpool(spoolDir.toString(), 1, 16)) {
+            long start = System.nanoTime();
+            client(true, 200, spool).hits("ewm-main-service", "/events/1", "192.163.0.1", LocalDateTime.now())
+                    .block(BLOCK_TIMEOUT);
+            long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            assertThat(elapsedMs, lessThan(1000L));
+            assertThat(spool.read(10).getHits().size(), is(1));
+        }
+    }
+
+    @Test
+    void hits_whenSpoolPending_thenAppendWithoutRequest() throws IOException {
+        acceptsSmile = true;
+        try (HitSpool spool = new HitSpool(spoolDir.toString(), 1, 16)) {
+            spool.append(new HitDto("ewm-main-service", "/events/1", "192.163.0.1", LocalDateTime.now()));
+
+            client(true, 2000, spool).hits("ewm-main-service", "/events/2", "192.163.0.1", LocalDateTime.now())
+                    .block(BLOCK_TIMEOUT);
+
+            assertThat(contentTypes, is(empty()));
+            assertThat(spool.read(10).getHits().get(1).getUri(), is("/events/2"));
+        }
+    }
+
+    @Test
+    void context_whenReactiveClientSelected_thenCreateReactiveStatClient() {
+        contextRunner()
+                .withPropertyValues("stat-server.client=reactive", "stat-server.reactive.timeout-ms=300")
+                .run(context -> assertThat(context.getBeansOfType(ReactiveStatClient.class).size(), is(1)));
+    }
+
+    @Test
+    void context_whenBlockingClientSelected_thenNoReactiveStatClient() {
+        contextRunner()
+                .withPropertyValues("stat-server.client=blocking")
+                .run(context -> assertThat(context.getBeansOfType(ReactiveStatClient.class).isEmpty(), is(true)));
+    }
+
+    private ApplicationContextRunner contextRunner() {
+        return new ApplicationContextRunner()
+                .withPropertyValues("stat-server.url=http://localhost:" + server.getAddress().getPort())
+                .withBean(WebClient.Builder.class, WebClient::builder)
+                .withUserConfiguration(ReactiveStatClient.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ReactiveStatClient client(boolean binary, long timeoutMs) {
+        return new ReactiveStatClient("http://localhost:" + server.getAddress().getPort(), 4, timeoutMs, binary,
+                WebClient.builder(), mock(ObjectProvider.class), mock(ObjectProvider.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ReactiveStatClient client(boolean binary, long timeoutMs, HitSpool spool) {
+        ObjectProvider<HitSpool> spoolProvider = mock(ObjectProvider.class);
+        when(spoolProvider.getIfAvailable()).thenReturn(spool);
+        return new ReactiveStatClient("http://localhost:" + server.getAddress().getPort(), 4, timeoutMs, binary,
+                WebClient.builder(), spoolProvider, mock(ObjectProvider.class));
+    }
+
+    private List<ViewStatDto> getStat(ReactiveStatClient client) {
+        return client.getStat("2024-01-01 00:00:00", "2024-12-31 00:00:00", List.of("/events/1"), false)
+                .collectList()
+                .block(BLOCK_TIMEOUT);
+    }
+
+    private void handleHit(HttpExchange exchange) throws IOException {
+        delay();
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        contentTypes.add(contentType.split(";")[0]);
+        bodies.add(exchange.getRequestBody().readAllBytes());
+        int status = contentType.startsWith(StatSmile.MEDIA_TYPE) && !acceptsSmile ? 415
+                : hitStatus > 0 ? hitStatus : 201;
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        delay();
+        String accept = String.valueOf(exchange.getRequestHeaders().getFirst("Accept"));
+        accepts.add(accept);
+        List<ViewStatDto> stats = List.of(new ViewStatDto(5L, "ewm-main-service", "/events/1"));
+        boolean smile = acceptsSmile && accept.contains(StatSmile.MEDIA_TYPE);
+        byte[] body = smile ? smileMapper.writeValueAsBytes(stats) : jsonMapper.writeValueAsBytes(stats);
+        exchange.getResponseHeaders().set("Content-Type", smile ? StatSmile.MEDIA_TYPE : "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private void delay() {
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
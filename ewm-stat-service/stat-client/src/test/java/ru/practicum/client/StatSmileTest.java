@@ -0,0 +1,64 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import ru.practicum.HitDto;
+import ru.practicum.StatSmile;
+import ru.practicum.ViewStatDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class StatSmileTest {
+    private final ObjectMapper mapper = StatSmile.createMapper();
+
+    @Test
+    void hitDto_whenRoundTrip_thenSameFieldsAndMillisTimestamp() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 250_000_000);
+        HitDto hitDto = new HitDto("ewm-main-service", "/events/1", "192.163.0.1", timestamp, 3L);
+
+        byte[] bytes = mapper.writeValueAsBytes(hitDto);
+        HitDto actual = mapper.readValue(bytes, HitDto.class);
+
+        assertThat(actual.getApp(), is(hitDto.getApp()));
+        assertThat(actual.getUri(), is(hitDto.getUri()));
+        assertThat(actual.getIp(), is(hitDto.getIp()));
+        assertThat(actual.getTimestamp(), is(timestamp));
+        assertThat(actual.getCount(), is(3L));
+        ObjectNode tree = mapper.readValue(bytes, ObjectNode.class);
+        assertThat(tree.get("timestamp").isNumber(), is(true));
+        assertThat(tree.get("timestamp").asLong(), is(timestamp.toInstant(ZoneOffset.UTC).toEpochMilli()));
+    }
+
+    @Test
+    void hitDto_whenTimestampSentAsString_thenParse() throws Exception {
+        ObjectNode tree = mapper.createObjectNode()
+                .put("app", "ewm-main-service")
+                .put("uri", "/events/1")
+                .put("ip", "192.163.0.1")
+                .put("timestamp", "2024-05-01 12:30:15");
+
+        HitDto actual = mapper.readValue(mapper.writeValueAsBytes(tree), HitDto.class);
+
+        assertThat(actual.getTimestamp(), is(LocalDateTime.of(2024, 5, 1, 12, 30, 15)));
+    }
+
+    @Test
+    void viewStatDto_whenRoundTrip_thenSameFields() throws Exception {
+        List<ViewStatDto> stats = List.of(new ViewStatDto(7L, "ewm-main-service", "/events/1"),
+                new ViewStatDto(2L, "ewm-main-service", "/events/2"));
+
+        List<ViewStatDto> actual = mapper.readValue(mapper.writeValueAsBytes(stats), new TypeReference<>() {
+        });
+
+        assertThat(actual.size(), is(2));
+        assertThat(actual.get(0).getHits(), is(7L));
+        assertThat(actual.get(1).getUri(), is("/events/2"));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.client.dedup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import ru.practicum.HitDto;
+import ru.practicum.client.StatClient;
+import ru.practicum.client.spool.HitSpool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class HitAggregateFlusherTest {
+    @TempDir
+    Path dir;
+
+    private final StatClient statClient = mock(StatClient.class);
+    private HitDeduplicator hitDeduplicator;
+
+    @BeforeEach
+    void setup() {
+        hitDeduplicator = new HitDeduplicator(1000, 0.001, 60_000, HitDeduplicator.AGGREGATE_MODE,
+                new SimpleMeterRegistry());
+        for (int i = 0; i < 3; i++) {
+            hitDeduplicator.suppress(new HitDto("ewm-main-service", "/events/1", "192.163.0.1", LocalDateTime.now()));
+        }
+    }
+
+    @Test
+    void flush_whenServerUnavailable_thenAppendAggregatesToSpool() throws IOException {
+        when(statClient.hits(anyList())).thenReturn(false);
+        HitSpool spool = new HitSpool(dir.toString(), 1, 16);
+
+        new HitAggregateFlusher(hitDeduplicator, statClient, provider(spool)).flush();
+
+        List<HitDto> spooled = spool.read(10).getHits();
+        assertThat(spooled.size(), is(1));
+        assertThat(spooled.get(0).getCount(), is(2L));
+        assertThat(hitDeduplicator.drain().isEmpty(), is(true));
+    }
+
+    @Test
+    void flush_whenServerUnavailableAndNoSpool_thenKeepAggregatesInMemory() {
+        when(statClient.hits(anyList())).thenReturn(false);
+
+        new HitAggregateFlusher(hitDeduplicator, statClient, provider(null)).flush();
+
+        List<HitDto> restored = hitDeduplicator.drain();
+        assertThat(restored.size(), is(1));
+        assertThat(restored.get(0).getCount(), is(2L));
+    }
+
+    @Test
+    void shutdown_whenAggregatesPending_thenSendThem() {
+        when(statClient.hits(anyList())).thenReturn(true);
+
+        new HitAggregateFlusher(hitDeduplicator, statClient, provider(null)).shutdown();
+
+        verify(statClient, times(1)).hits(argThat(hits -> hits.size() == 1 && hits.get(0).getCount() == 2L));
+        assertThat(hitDeduplicator.drain().isEmpty(), is(true));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<HitSpool> provider(HitSpool spool) {
+        ObjectProvider<HitSpool> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(spool);
+        return provider;
+    }
+}
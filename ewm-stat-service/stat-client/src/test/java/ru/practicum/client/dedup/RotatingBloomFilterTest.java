@@ -0,0 +1,73 @@
+package ru.practicum.client.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RotatingBloomFilterTest {
+    private final Clock clock = mock(Clock.class);
+
+    @Test
+    void checkAndPut_whenKeyRepeatedWithinWindow_thenReportSeen() {
+        when(clock.millis()).thenReturn(1_000L);
+        RotatingBloomFilter filter = new RotatingBloomFilter(1000, 0.001, 60_000, clock);
+
+        boolean first = filter.checkAndPut("/events/1");
+        when(clock.millis()).thenReturn(60_999L);
+        boolean second = filter.checkAndPut("/events/1");
+
+        assertThat(first, is(false));
+        assertThat(second, is(true));
+    }
+
+    @Test
+    void checkAndPut_whenWindowExpired_thenForgetKeys() {
+        when(clock.millis()).thenReturn(1_000L);
+        RotatingBloomFilter filter = new RotatingBloomFilter(1000, 0.001, 60_000, clock);
+        filter.checkAndPut("/events/1");
+
+        when(clock.millis()).thenReturn(61_000L);
+        boolean afterRotation = filter.checkAndPut("/events/1");
+        boolean repeatedInNewWindow = filter.checkAndPut("/events/1");
+
+        assertThat(afterRotation, is(false));
+        assertThat(repeatedInNewWindow, is(true));
+    }
+
+    @Test
+    void checkAndPut_whenFilledToExpectedInsertions_thenFalsePositiveRateWithinBound() {
+        int expected = 100_000;
+        double falsePositiveRate = 0.01;
+        RotatingBloomFilter filter = new RotatingBloomFilter(expected, falsePositiveRate, 60_000,
+                Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+        for (int i = 0; i < expected; i++) {
+            filter.checkAndPut("192.163.0.1\n/events/" + i);
+        }
+
+        int falseNegatives = 0;
+        for (int i = 0; i < expected; i++) {
+            if (!filter.checkAndPut("192.163.0.1\n/events/" + i)) {
+                falseNegatives++;
+            }
+        }
+        int probes = 10_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.checkAndPut("10.0.0.1\n/events/" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falseNegatives, is(0));
+        // проверка тоже добавляет ключи (до 110% расчетного заполнения), поэтому допуск вдвое больше расчетного
+        assertThat((double) falsePositives / probes, lessThan(falsePositiveRate * 2));
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.client.spool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.HitDto;
+import ru.practicum.client.StatClient;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class HitSpoolReplayerTest {
+    @TempDir
+    Path dir;
+
+    private final StatClient statClient = mock(StatClient.class);
+
+    @Test
+    void replay_whenServerRejectsBatch_thenKeepCheckpoint() throws IOException {
+        HitSpool spool = spoolWithHits(5);
+        when(statClient.hits(anyList())).thenReturn(false);
+
+        new HitSpoolReplayer(spool, statClient, 2, new SimpleMeterRegistry()).replay();
+        spool.close();
+
+        HitSpool reopened = new HitSpool(dir.toString(), 1, 16);
+        assertThat(reopened.read(10).getHits().size(), is(5));
+        verify(statClient, times(1)).hits(anyList());
+    }
+
+    @Test
+    void replay_whenServerAcceptsSomeBatches_thenAdvanceCheckpointOnlyPastThem() throws IOException {
+        HitSpool spool = spoolWithHits(5);
+        when(statClient.hits(anyList())).thenReturn(true, false);
+
+        new HitSpoolReplayer(spool, statClient, 2, new SimpleMeterRegistry()).replay();
+        spool.close();
+
+        HitSpool reopened = new HitSpool(dir.toString(), 1, 16);
+        List<HitDto> pending = reopened.read(10).getHits();
+        assertThat(pending.size(), is(3));
+        assertThat(pending.get(0).getUri(), is("/events/2"));
+        verify(statClient, times(2)).hits(anyList());
+    }
+
+    @Test
+    void replay_whenServerAcceptsAll_thenSpoolEmpty() throws IOException {
+        HitSpool spool = spoolWithHits(5);
+        when(statClient.hits(anyList())).thenReturn(true);
+
+        new HitSpoolReplayer(spool, statClient, 2, new SimpleMeterRegistry()).replay();
+
+        assertThat(spool.hasPending(), is(false));
+        verify(statClient, times(3)).hits(anyList());
+    }
+
+    private HitSpool spoolWithHits(int count) throws IOException {
+        HitSpool spool = new HitSpool(dir.toString(), 1, 16);
+        for (int i = 0; i < count; i++) {
+            spool.append(new HitDto("ewm-main-service", "/events/" + i, "192.163.0.1", LocalDateTime.now()));
+        }
+        return spool;
+    }
+}
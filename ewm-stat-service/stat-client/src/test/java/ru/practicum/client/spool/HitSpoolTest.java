@@ -0,0 +1,204 @@
+package ru.practicum.client.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.HitDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class HitSpoolTest {
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_789);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void read_whenRecordsSpanSeveralSegments_thenReturnAllInOrder() throws IOException {
+        HitSpool spool = new HitSpool(dir.toString(), 1, 16);
+        appendHits(spool, 0, 60);
+
+        SpoolBatch batch = spool.read(100);
+
+        assertThat(segmentCount(), greaterThan(2L));
+        assertThat(uris(batch), is(expectedUris(0, 60)));
+        assertThat(batch.getHits().get(0).getTimestamp(), is(TIMESTAMP));
+        assertThat(batch.getHits().get(0).getApp(), is("ewm-main-service"));
+        assertThat(batch.getHits().get(0).getIp(), is("192.163.0.1"));
+    }
+
+    @Test
+    void read_whenReopened_thenContinueFromCheckpoint() throws IOException {
+        HitSpool spool = new HitSpool(dir.toString(), 1, 16);
+        appendHits(spool, 0, 40);
+        spool.commit(spool.read(25));
+        spool.close();
+
+        HitSpool reopened = new HitSpool(dir.toString(), 1, 16);
+        appendHits(reopened, 40, 45);
+
+        assertThat(uris(reopened.read(100)), is(expectedUris(25, 45)));
+    }
+
+    @Test
+    void read_whenBatchNotCommitted_thenReturnSameHitsAfterReopen() throws IOException {
+        HitSpool spool = new HitSpool(dir.toString(), 1, 16);
+        appendHits(spool, 0, 10);
+        spool.read(10);
+        spool.close();
+
+        HitSpool reopened = new HitSpool(dir.toString(), 1, 16);
+
+        assertThat(reopened.hasPending(), is(true));
+        assertThat(uris(reopened.read(100)), is(expectedUris(0, 10)));
+    }
+
+    @Test
+    void open_whenUnfinishedRecordAtEnd_thenIgnoreAndOverwriteIt() throws IOException {
+        HitSpool spool = new HitSpool(dir.toString(), 1, 16);
+        appendHits(spool, 0, 3);
+        int end = spool.read(10).getPosition();
+        spool.close();
+        // тело записи дописано, длина перед ним - нет
+        try (FileChannel channel = FileChannel.open(lastSegment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}), end + Integer.BYTES);
+        }
+
+        HitSpool reopened = new HitSpool(dir.toString(), 1, 16);
+        assertThat(uris(reopened.read(10)), is(expectedUris(0, 3)));
+
+        appendHits(reopened, 3, 4);
+        assertThat(uris(reopened.read(10)), is(expectedUris(0, 4)));
+    }
+
+    @Test
+    void open_whenSegmentTruncatedInsideRecord_thenSkipDamagedRecord() throws IOException {
+        HitSpool spool = new HitSpool(dir.toString(), 1, 16);
+        appendHits(spool, 0, 3);
+        int lastRecord = spool.read(2).getPosition();
+        spool.close();
+        try (FileChannel channel = FileChannel.open(lastSegment(), StandardOpenOption.WRITE)) {
+            channel.truncate(lastRecord + Integer.BYTES + 5);
+        }
+
+        HitSpool reopened = new HitSpool(dir.toString(), 1, 16);
+        appendHits(reopened, 3, 4);
+
+        assertThat(uris(reopened.read(10)), is(List.of("/events/0", "/events/1", "/events/3")));
+    }
+
+    @Test
+    void append_whenMaxSegmentsExceeded_thenEvictOldestSegments() throws IOException {
+        HitSpool spool = new HitSpool(dir.toString(), 1, 2);
+        appendHits(spool, 0, 100);
+
+        List<String> uris = uris(spool.read(1000));
+
+        assertThat(spool.droppedSegmentCount(), greaterThan(0L));
+        assertThat(segmentCount(), is(2L));
+        assertThat(uris.get(0), not("/events/0"));
+        assertThat(uris.get(uris.size() - 1), is("/events/99"));
+        assertThat(uris, is(expectedUris(100 - uris.size(), 100)));
+    }
+
+    @Test
+    void read_whenAggregatedHit_thenKeepCount() throws IOException {
+        HitSpool spool = new HitSpool(dir.toString(), 1, 16);
+        spool.append(new HitDto("ewm-main-service", "/events/1", "192.163.0.1", TIMESTAMP, 7L));
+        spool.append(new HitDto("ewm-main-service", "/events/2", "192.163.0.1", TIMESTAMP));
+
+        List<HitDto> hits = spool.read(10).getHits();
+
+        assertThat(hits.get(0).getCount(), is(7L));
+        assertThat(hits.get(1).getCount(), nullValue());
+    }
+
+    @Test
+    void read_whenRecordWrittenWithoutCountField_thenReadAsSingleHit() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF("ewm-main-service");
+            out.writeUTF("/events/1");
+            out.writeUTF("192.163.0.1");
+            out.writeLong(TIMESTAMP.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(TIMESTAMP.getNano());
+        }
+        byte[] record = bytes.toByteArray();
+        ByteBuffer segment = ByteBuffer.allocate(Integer.BYTES + record.length)
+                .putInt(record.length)
+                .put(record)
+                .flip();
+        try (FileChannel channel = FileChannel.open(dir.resolve(String.format("hits-%020d.log", 0)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(segment);
+        }
+
+        List<HitDto> hits = new HitSpool(dir.toString(), 1, 16).read(10).getHits();
+
+        assertThat(hits.size(), is(1));
+        assertThat(hits.get(0).getUri(), is("/events/1"));
+        assertThat(hits.get(0).getTimestamp(), is(TIMESTAMP));
+        assertThat(hits.get(0).getCount(), nullValue());
+    }
+
+    @Test
+    void append_whenFieldMissing_thenRejectHit() throws IOException {
+        HitSpool spool = new HitSpool(dir.toString(), 1, 16);
+
+        boolean withoutIp = spool.append(new HitDto("ewm-main-service", "/events/1", null, TIMESTAMP));
+        boolean withoutUri = spool.append(new HitDto("ewm-main-service", " ", "192.163.0.1", TIMESTAMP));
+
+        assertThat(withoutIp, is(false));
+        assertThat(withoutUri, is(false));
+        assertThat(spool.appendedCount(), is(0L));
+        assertThat(spool.hasPending(), is(false));
+    }
+
+    private void appendHits(HitSpool spool, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertThat(spool.append(new HitDto("ewm-main-service", "/events/" + i, "192.163.0.1", TIMESTAMP)),
+                    is(true));
+        }
+    }
+
+    private List<String> uris(SpoolBatch batch) {
+        return batch.getHits().stream()
+                .map(HitDto::getUri)
+                .collect(Collectors.toList());
+    }
+
+    private List<String> expectedUris(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> "/events/" + i)
+                .collect(Collectors.toList());
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log"))
+                    .max(Path::compareTo)
+                    .orElseThrow();
+        }
+    }
+}
@@ -16,11 +16,14 @@ import java.time.LocalDateTime;
 @EqualsAndHashCode
 public class Hit {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hit_seq")
+    @SequenceGenerator(name = "hit_seq", sequenceName = "hits_seq", allocationSize = 50)
     @Column(name = "hit_id")
     private Long id;
     private String app;
     private String uri;
     private String ip;
     private LocalDateTime timestamp;
+    @Column(name = "hit_count")
+    private Long count;
 }
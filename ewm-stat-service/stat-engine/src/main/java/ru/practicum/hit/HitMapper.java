@@ -11,6 +11,7 @@ public class HitMapper {
                 .ip(hitDto.getIp())
                 .uri(hitDto.getUri())
                 .timestamp(hitDto.getTimestamp())
+                .count(hitDto.getCount() != null ? hitDto.getCount() : 1L)
                 .build();
     }
 }
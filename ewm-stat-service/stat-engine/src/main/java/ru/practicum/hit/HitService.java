@@ -9,5 +9,7 @@ import java.util.List;
 public interface HitService {
     void hits(HitDto hitDto);
 
+    void hits(List<HitDto> hitDtos);
+
     List<ViewStatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
 }
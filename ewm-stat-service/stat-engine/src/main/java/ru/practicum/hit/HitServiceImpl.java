@@ -0,0 +1,52 @@
+package ru.practicum.hit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.HitDto;
+import ru.practicum.ViewStatDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// в stat-server создается всегда, в основном сервисе - только при встроенном режиме статистики
+@Service
+@ConditionalOnProperty(prefix = "stat-server", name = "client", havingValue = "embedded", matchIfMissing = true)
+public class HitServiceImpl implements HitService {
+    private final HitMapper hitMapper;
+    private final HitRepository hitRepository;
+
+    public HitServiceImpl(HitMapper hitMapper, HitRepository hitRepository) {
+        this.hitMapper = hitMapper;
+        this.hitRepository = hitRepository;
+    }
+
+    @Override
+    public void hits(HitDto hitDto) {
+        Hit hit = hitMapper.toModel(hitDto);
+        hitRepository.save(hit);
+    }
+
+    @Override
+    public void hits(List<HitDto> hitDtos) {
+        List<Hit> hits = hitDtos.stream()
+                .map(hitMapper::toModel)
+                .collect(Collectors.toList());
+        hitRepository.saveAll(hits);
+    }
+
+    @Override
+    public List<ViewStatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        List<ViewStatDto> hits;
+        boolean allUris = uris == null || uris.isEmpty();
+        if (unique) {
+            hits = allUris ? hitRepository.findAllUniqueHit(start, end)
+                    : hitRepository.findAllUniqueHit(start, end, uris);
+        } else {
+            hits = allUris ? hitRepository.findAllHit(start, end)
+                    : hitRepository.findAllHit(start, end, uris);
+        }
+
+        return hits;
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+// у библиотеки нет своего приложения, тестовые срезы собирают контекст от этой конфигурации
+@SpringBootApplication
+public class StatEngineTestApplication {
+}
@@ -0,0 +1,85 @@
+package ru.practicum.hit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.ViewStatDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@DataJpaTest
+class HitRepositoryTest {
+    private static final String APP = "ewm-main-service";
+
+    @Autowired
+    private HitRepository hitRepository;
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private final LocalDateTime end = LocalDateTime.of(2024, 12, 31, 0, 0);
+
+    @BeforeEach
+    void setup() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 1, 12, 0);
+        hitRepository.saveAll(List.of(
+                hit("/events/1", "192.163.0.1", timestamp, 1L),
+                hit("/events/1", "192.163.0.1", timestamp.plusHours(1), 1L),
+                hit("/events/1", "192.163.0.2", timestamp, 3L),
+                hit("/events/2", "192.163.0.1", timestamp, 1L),
+                hit("/events/1", "192.163.0.3", start.minusDays(1), 1L)));
+    }
+
+    @Test
+    void findAllUniqueHit_whenNoUris_thenCountDistinctIpsInRange() {
+        List<ViewStatDto> actual = hitRepository.findAllUniqueHit(start, end);
+
+        assertThat(actual.size(), is(2));
+        assertStat(actual.get(0), "/events/1", 2L);
+        assertStat(actual.get(1), "/events/2", 1L);
+    }
+
+    @Test
+    void findAllUniqueHit_whenUrisGiven_thenReturnOnlyThoseUris() {
+        List<ViewStatDto> actual = hitRepository.findAllUniqueHit(start, end, List.of("/events/2"));
+
+        assertThat(actual.size(), is(1));
+        assertStat(actual.get(0), "/events/2", 1L);
+    }
+
+    @Test
+    void findAllHit_whenNoUris_thenSumHitCountsInRange() {
+        List<ViewStatDto> actual = hitRepository.findAllHit(start, end);
+
+        assertThat(actual.size(), is(2));
+        assertStat(actual.get(0), "/events/1", 5L);
+        assertStat(actual.get(1), "/events/2", 1L);
+    }
+
+    @Test
+    void findAllHit_whenUrisGiven_thenReturnOnlyThoseUris() {
+        List<ViewStatDto> actual = hitRepository.findAllHit(start, end, List.of("/events/1", "/events/3"));
+
+        assertThat(actual.size(), is(1));
+        assertStat(actual.get(0), "/events/1", 5L);
+    }
+
+    private Hit hit(String uri, String ip, LocalDateTime timestamp, long count) {
+        return Hit.builder()
+                .app(APP)
+                .uri(uri)
+                .ip(ip)
+                .timestamp(timestamp)
+                .count(count)
+                .build();
+    }
+
+    private void assertStat(ViewStatDto stat, String uri, long hits) {
+        assertThat(stat.getApp(), is(APP));
+        assertThat(stat.getUri(), is(uri));
+        assertThat(stat.getHits(), is(hits));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.hit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import ru.practicum.ViewStatDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+class HitServiceImplTest {
+    private final HitRepository hitRepository = mock(HitRepository.class);
+    private final HitServiceImpl hitService = new HitServiceImpl(new HitMapper(), hitRepository);
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(HitMapper.class)
+            .withBean(HitRepository.class, () -> hitRepository)
+            .withBean(HitServiceImpl.class);
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private final LocalDateTime end = LocalDateTime.of(2024, 12, 31, 0, 0);
+    private final List<ViewStatDto> stats = List.of(new ViewStatDto(3L, "ewm-main-service", "/events/1"));
+
+    @Test
+    void getStat_whenUniqueAndUrisGiven_thenUseUniqueUriQuery() {
+        when(hitRepository.findAllUniqueHit(start, end, List.of("/events/1"))).thenReturn(stats);
+
+        assertThat(hitService.getStat(start, end, List.of("/events/1"), true), is(stats));
+        verify(hitRepository, never()).findAllUniqueHit(start, end);
+    }
+
+    @Test
+    void getStat_whenNotUniqueAndNoUris_thenUseQueryOverAllUris() {
+        when(hitRepository.findAllHit(start, end)).thenReturn(stats);
+
+        assertThat(hitService.getStat(start, end, List.of(), false), is(stats));
+        assertThat(hitService.getStat(start, end, null, false), is(stats));
+        verify(hitRepository, never()).findAllHit(any(), any(), anyList());
+    }
+
+    @Test
+    void context_whenClientEmbeddedOrNotSet_thenHitServiceCreated() {
+        contextRunner.run(context -> assertThat(context.getBeansOfType(HitService.class).size(), is(1)));
+        contextRunner.withPropertyValues("stat-server.client=embedded")
+                .run(context -> assertThat(context.getBeansOfType(HitService.class).size(), is(1)));
+    }
+
+    @Test
+    void context_whenClientRemote_thenHitServiceNotCreated() {
+        contextRunner.withPropertyValues("stat-server.client=blocking")
+                .run(context -> assertThat(context.getBeansOfType(HitService.class).isEmpty(), is(true)));
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.StatSmile;
+
+import java.util.List;
+
+/**
+ * Кроме JSON сервер принимает и отдает {@link StatSmile#MEDIA_TYPE}. Конвертер стоит последним,
+ * поэтому клиенты без явного заголовка Accept по-прежнему получают JSON.
+ */
+@Configuration
+public class SmileConfig implements WebMvcConfigurer {
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2SmileHttpMessageConverter(StatSmile.createMapper()));
+    }
+}
@@ -32,6 +32,13 @@ public class HitController {
         hitService.hits(hitDto);
     }
 
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void hits(@RequestBody List<@Valid HitDto> hitDtos) {
+        log.info("Получен запрос на регистрацию {} запросов к эндпойнтам", hitDtos.size());
+        hitService.hits(hitDtos);
+    }
+
     @GetMapping("/stats")
     public List<ViewStatDto> getStats(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
                                       @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
@@ -5,5 +5,14 @@ CREATE TABLE IF NOT EXISTS hits
     uri             VARCHAR(512)                            NOT NULL,
     ip              VARCHAR(16)                             NOT NULL,
     timestamp       TIMESTAMP WITHOUT TIME ZONE,
+    hit_count       BIGINT DEFAULT 1                        NOT NULL,
     CONSTRAINT pk_hit PRIMARY KEY (hit_id)
-);
\ No newline at end of file
+);
+
+ALTER TABLE hits ADD COLUMN IF NOT EXISTS hit_count BIGINT DEFAULT 1 NOT NULL;
+
+-- id выдаются блоками по 50 (allocationSize в Hit), чтобы вставки группировались в пачки;
+-- строки, вставленные до перехода на последовательность, получили id из identity, блок выдается после них
+CREATE SEQUENCE IF NOT EXISTS hits_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('hits_seq', GREATEST((SELECT last_value FROM hits_seq),
+                                   (SELECT COALESCE(MAX(hit_id), 0) FROM hits) + 50));
@@ -0,0 +1,97 @@
+package ru.practicum.hit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.HitDto;
+import ru.practicum.StatSmile;
+import ru.practicum.ViewStatDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(HitController.class)
+class HitControllerTest {
+    private static final MediaType SMILE = MediaType.parseMediaType(StatSmile.MEDIA_TYPE);
+
+    @Autowired
+    private MockMvc mvc;
+    @MockBean
+    private HitService hitService;
+
+    private final ObjectMapper smileMapper = StatSmile.createMapper();
+    private final List<ViewStatDto> stats = List.of(new ViewStatDto(3L, "ewm-main-service", "/events/1"));
+
+    @Test
+    void getStats_whenNoAcceptHeader_thenReturnJson() throws Exception {
+        when(hitService.getStat(any(), any(), anyList(), anyBoolean())).thenReturn(stats);
+
+        mvc.perform(get("/stats")
+                        .param("start", "2024-01-01 00:00:00")
+                        .param("end", "2024-12-31 00:00:00")
+                        .param("uris", "/events/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].hits", is(3)))
+                .andExpect(jsonPath("$[0].uri", is("/events/1")));
+    }
+
+    @Test
+    void getStats_whenSmileAccepted_thenReturnSmile() throws Exception {
+        when(hitService.getStat(any(), any(), anyList(), anyBoolean())).thenReturn(stats);
+
+        byte[] body = mvc.perform(get("/stats")
+                        .param("start", "2024-01-01 00:00:00")
+                        .param("end", "2024-12-31 00:00:00")
+                        .param("uris", "/events/1")
+                        .accept(SMILE, MediaType.parseMediaType("application/json;q=0.9")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<ViewStatDto> actual = smileMapper.readValue(body, new TypeReference<>() {
+        });
+        assertThat(actual.size(), is(1));
+        assertThat(actual.get(0).getHits(), is(3L));
+        assertThat(actual.get(0).getApp(), is("ewm-main-service"));
+    }
+
+    @Test
+    void hit_whenSmileBody_thenDecodeEpochMillisTimestamp() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 250_000_000);
+        byte[] body = smileMapper.writeValueAsBytes(new HitDto("ewm-main-service", "/events/1", "192.163.0.1", timestamp));
+
+        mvc.perform(post("/hit")
+                        .contentType(SMILE)
+                        .content(body))
+                .andExpect(status().isCreated());
+
+        verify(hitService, times(1)).hits(argThat((HitDto hit) -> hit.getTimestamp().equals(timestamp)
+                && hit.getUri().equals("/events/1")));
+    }
+
+    @Test
+    void hit_whenJsonBody_thenParseStringTimestamp() throws Exception {
+        mvc.perform(post("/hit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"ip\":\"192.163.0.1\"," +
+                                "\"timestamp\":\"2024-05-01 12:30:15\"}"))
+                .andExpect(status().isCreated());
+
+        verify(hitService, times(1)).hits(argThat((HitDto hit) ->
+                hit.getTimestamp().equals(LocalDateTime.of(2024, 5, 1, 12, 30, 15))));
+    }
+}